@@ -57,6 +57,7 @@ public class OAsynchChannelServiceThread extends OSoftThread {
         switch (request) {
         case OChannelBinaryProtocol.REQUEST_PUSH_DISTRIB_CONFIG:
         case OChannelBinaryProtocol.REQUEST_PUSH_LIVE_QUERY:
+        case OChannelBinaryProtocol.REQUEST_PUSH_NEAR_CACHE:
           obj = network.readBytes();
           break;
         }
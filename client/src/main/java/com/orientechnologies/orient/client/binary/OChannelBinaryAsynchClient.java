@@ -21,6 +21,7 @@ package com.orientechnologies.orient.client.binary;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -45,6 +46,9 @@ import com.orientechnologies.common.log.OLogManager;
 import com.orientechnologies.common.util.OPair;
 import com.orientechnologies.orient.client.remote.OStorageRemoteNodeSession;
 import com.orientechnologies.orient.client.remote.OStorageRemoteSession;
+import com.orientechnologies.orient.core.compression.OCompression;
+import com.orientechnologies.orient.core.compression.OCompressionFactory;
+import com.orientechnologies.orient.core.compression.impl.ONothingCompression;
 import com.orientechnologies.orient.core.config.OContextConfiguration;
 import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.serialization.OMemoryInputStream;
@@ -65,6 +69,8 @@ public class OChannelBinaryAsynchClient extends OChannelBinary {
   private byte                                 currentStatus;
   private int                                  currentSessionId;
   private volatile OAsynchChannelServiceThread serviceThread;
+  private final OCompression                   responseCompression;                                         // NULL = NOT COMPRESSED
+  private DataInputStream                      socketIn;
 
   public OChannelBinaryAsynchClient(final String remoteHost, final int remotePort, final String iDatabaseName,
       final OContextConfiguration iConfig, final int iProtocolVersion) throws IOException {
@@ -82,6 +88,7 @@ public class OChannelBinaryAsynchClient extends OChannelBinary {
       if (iDatabaseName != null)
         serverURL += "/" + iDatabaseName;
       socketTimeout = iConfig.getValueAsInteger(OGlobalConfiguration.NETWORK_SOCKET_TIMEOUT);
+      responseCompression = getCompression(iConfig.getValueAsString(OGlobalConfiguration.NETWORK_BINARY_COMPRESSION));
 
       try {
         socket.connect(new InetSocketAddress(remoteHost, remotePort), getSocketTimeout());
@@ -119,6 +126,31 @@ public class OChannelBinaryAsynchClient extends OChannelBinary {
     }
   }
 
+  /**
+   * Creates a channel that shares the socket and the settings of a connected channel, the streams are set by the subclass.
+   */
+  protected OChannelBinaryAsynchClient(final OChannelBinaryAsynchClient iChannel) {
+    super(iChannel);
+    socketTimeout = iChannel.socketTimeout;
+    srvProtocolVersion = iChannel.srvProtocolVersion;
+    maxUnreadResponses = iChannel.maxUnreadResponses;
+    serverURL = iChannel.serverURL;
+    responseCompression = iChannel.responseCompression;
+  }
+
+  private static OCompression getCompression(final String iName) {
+    if (iName == null || iName.isEmpty() || ONothingCompression.NAME.equals(iName))
+      return null;
+
+    try {
+      return OCompressionFactory.INSTANCE.getCompression(iName, null);
+    } catch (Exception e) {
+      OLogManager.instance().warn(OChannelBinaryAsynchClient.class,
+          "Compression '%s' is not available, the responses will be received uncompressed", e, iName);
+      return null;
+    }
+  }
+
   @SuppressWarnings("unchecked")
   private static RuntimeException createException(final String iClassName, final String iMessage, final Exception iPrevious) {
     RuntimeException rootException = null;
@@ -262,6 +294,10 @@ public class OChannelBinaryAsynchClient extends OChannelBinary {
 
       if (debug)
         OLogManager.instance().debug(this, "%s - Session %d handle response", socket.getLocalAddress(), iRequesterId);
+
+      if (currentStatus == OChannelBinaryProtocol.RESPONSE_COMPRESSED)
+        readCompressedResponse();
+
       byte[] tokenBytes;
       if (token)
         tokenBytes = this.readBytes();
@@ -280,6 +316,12 @@ public class OChannelBinaryAsynchClient extends OChannelBinary {
   public void endResponse() throws IOException {
     channelRead = false;
 
+    if (socketIn != null) {
+      // THE NEXT RESPONSE IS READ FROM THE SOCKET
+      in = socketIn;
+      socketIn = null;
+    }
+
     // WAKE UP ALL THE WAITING THREADS
     try {
       readCondition.signalAll();
@@ -352,6 +394,13 @@ public class OChannelBinaryAsynchClient extends OChannelBinary {
     return serverURL;
   }
 
+  /**
+   * Returns the name of the compression requested to the server for its responses.
+   */
+  public String getResponseCompression() {
+    return responseCompression != null ? responseCompression.name() : ONothingCompression.NAME;
+  }
+
   public boolean tryLock() {
     return getLockWrite().tryAcquireLock();
   }
@@ -403,6 +452,22 @@ public class OChannelBinaryAsynchClient extends OChannelBinary {
     }
   }
 
+  /**
+   * Reads a compressed response as a whole and reads it from memory until the end of the response. The uncompressed response starts
+   * with its own header.
+   */
+  private void readCompressedResponse() throws IOException {
+    if (responseCompression == null)
+      throw new ONetworkProtocolException("Received a compressed response, but no compression has been requested");
+
+    final byte[] response = responseCompression.uncompress(readBytes());
+    socketIn = in;
+    in = new DataInputStream(new ByteArrayInputStream(response));
+
+    currentStatus = readByte();
+    currentSessionId = readInt();
+  }
+
   private void setReadResponseTimeout() throws SocketException {
     final Socket s = socket;
     if (s != null && s.isConnected() && !s.isClosed())
@@ -0,0 +1,85 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.client.binary;
+
+import com.orientechnologies.orient.enterprise.channel.binary.ONetworkProtocolException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Channel over one request or one response of a multiplexed connection, kept in memory: the operations write their request and
+ * read their response as on a regular channel, while the multiplexed connection sends and receives them as a whole. It shares the
+ * socket of the connection, but never reads, writes or closes it.
+ *
+ * @see OChannelBinaryMultiplexClient
+ */
+public class OChannelBinaryClientFrame extends OChannelBinaryAsynchClient {
+  private final ByteArrayOutputStream request;
+
+  /**
+   * Creates the frame to write a request into.
+   */
+  public OChannelBinaryClientFrame(final OChannelBinaryAsynchClient iChannel) {
+    super(iChannel);
+    request = new ByteArrayOutputStream();
+    outStream = request;
+    out = new DataOutputStream(outStream);
+  }
+
+  /**
+   * Creates the frame to read a received response from.
+   */
+  public OChannelBinaryClientFrame(final OChannelBinaryAsynchClient iChannel, final byte[] iResponse) {
+    super(iChannel);
+    request = null;
+    inStream = new ByteArrayInputStream(iResponse);
+    in = new DataInputStream(inStream);
+  }
+
+  public byte[] getRequest() {
+    return request.toByteArray();
+  }
+
+  @Override
+  public byte[] beginResponse(final int iRequesterId, final long iTimeout, final boolean token) throws IOException {
+    // THE RESPONSE IS ALREADY HERE: NO NEED TO WAIT FOR IT
+    final byte status = readByte();
+    final int sessionId = readInt();
+    if (sessionId != iRequesterId)
+      throw new ONetworkProtocolException("Received the response of session " + sessionId + " instead of " + iRequesterId);
+
+    final byte[] tokenBytes = token ? readBytes() : null;
+    handleStatus(status, sessionId);
+    return tokenBytes;
+  }
+
+  @Override
+  public void endResponse() {
+  }
+
+  @Override
+  public void close() {
+    // THE SOCKET BELONGS TO THE CONNECTION
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.client.binary;
+
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.orient.client.remote.OStorageRemoteFuture;
+import com.orientechnologies.orient.client.remote.OStorageRemoteOperationWrite;
+import com.orientechnologies.orient.client.remote.OStorageRemoteSession;
+import com.orientechnologies.orient.core.config.OContextConfiguration;
+import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinaryProtocol;
+import com.orientechnologies.orient.enterprise.channel.binary.ONetworkProtocolException;
+import com.orientechnologies.orient.enterprise.channel.binary.ORemoteServerEventListener;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Connection shared by many requests in flight at the same time. Every request is sent as a whole, tagged with a new id, without
+ * waiting for the responses of the previous ones. The server executes the requests concurrently and tags every response with the
+ * id of its request: the service thread of the connection receives the responses in the order they're completed and hands each one
+ * to the future of its request.
+ *
+ * @see OChannelBinaryProtocol#REQUEST_MULTIPLEXED
+ */
+public class OChannelBinaryMultiplexClient extends OChannelBinaryAsynchClient {
+  private final AtomicInteger                                   requestSerial = new AtomicInteger();
+  private final ConcurrentMap<Integer, OStorageRemoteFuture<?>> pending;
+  private final ORemoteServerEventListener                      pushListener;
+  private volatile boolean                                      closed        = false;
+  private final OMultiplexChannelServiceThread                  serviceThread;
+
+  public OChannelBinaryMultiplexClient(final String remoteHost, final int remotePort, final String iDatabaseName,
+      final OContextConfiguration iConfig, final int protocolVersion, final ORemoteServerEventListener iPushListener)
+      throws IOException {
+    // THE PUSH MESSAGES ARE RECEIVED WITH THE RESPONSES BY THE SERVICE THREAD OF THE CONNECTION
+    super(remoteHost, remotePort, iDatabaseName, iConfig, protocolVersion, null);
+    pending = new ConcurrentHashMap<Integer, OStorageRemoteFuture<?>>();
+    pushListener = iPushListener;
+    serviceThread = new OMultiplexChannelServiceThread(this);
+  }
+
+  /**
+   * Sends a request without waiting for the response.
+   *
+   * @param iWrite
+   *          writes the request as on a regular channel
+   * @param iResponse
+   *          receives the response, null if the request has no response
+   */
+  public void sendRequest(final OStorageRemoteOperationWrite iWrite, final OStorageRemoteSession iSession, final int iMode,
+      final OStorageRemoteFuture<?> iResponse) throws IOException {
+    final OChannelBinaryClientFrame request = new OChannelBinaryClientFrame(this);
+    // RELEASED BY THE OPERATION AT THE END OF THE REQUEST
+    request.acquireWriteLock();
+    iWrite.execute(request, iSession, iMode);
+
+    final int requestId = requestSerial.incrementAndGet();
+    if (iResponse != null)
+      pending.put(requestId, iResponse);
+
+    acquireWriteLock();
+    try {
+      if (closed)
+        throw new IOException("Channel is closed");
+
+      writeByte(OChannelBinaryProtocol.REQUEST_MULTIPLEXED);
+      writeInt(requestId);
+      writeBytes(request.getRequest());
+      flush();
+    } catch (IOException e) {
+      pending.remove(requestId);
+      throw e;
+    } finally {
+      releaseWriteLock();
+    }
+  }
+
+  /**
+   * Receives the next response or push message and hands it to its receiver. Called by the service thread of the connection only.
+   */
+  protected void receive() throws IOException {
+    final byte status;
+    try {
+      status = readByte();
+    } catch (SocketTimeoutException e) {
+      // NOTHING RECEIVED IN THE MEANWHILE
+      return;
+    }
+    final int id = readInt();
+
+    switch (status) {
+    case OChannelBinaryProtocol.RESPONSE_MULTIPLEXED:
+      final byte[] response = readBytes();
+      final OStorageRemoteFuture<?> future = pending.remove(id);
+      if (future != null)
+        future.receive(new OChannelBinaryClientFrame(this, response));
+      else
+        OLogManager.instance().debug(this, "Received the response of the unknown request %d", id);
+      break;
+
+    case OChannelBinaryProtocol.PUSH_DATA:
+      final byte request = readByte();
+      Object obj = null;
+      switch (request) {
+      case OChannelBinaryProtocol.REQUEST_PUSH_DISTRIB_CONFIG:
+      case OChannelBinaryProtocol.REQUEST_PUSH_LIVE_QUERY:
+      case OChannelBinaryProtocol.REQUEST_PUSH_NEAR_CACHE:
+        obj = readBytes();
+        break;
+      }
+      if (pushListener != null)
+        pushListener.onRequest(request, obj);
+      break;
+
+    default:
+      throw new ONetworkProtocolException("Unexpected response " + status + " on multiplexed channel");
+    }
+  }
+
+  /**
+   * Returns the number of requests waiting for their response.
+   */
+  public int getPendingRequests() {
+    return pending.size();
+  }
+
+  @Override
+  public boolean isConnected() {
+    return !closed && super.isConnected();
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    if (serviceThread != null)
+      // NULL IF CLOSED WHILE CONNECTING
+      serviceThread.sendShutdown();
+    super.close();
+
+    // THE RESPONSES IN FLIGHT ARE LOST
+    final List<Integer> ids = new ArrayList<Integer>(pending.keySet());
+    for (Integer id : ids) {
+      final OStorageRemoteFuture<?> future = pending.remove(id);
+      if (future != null)
+        future.fail(new IOException("Channel closed before receiving the response of request " + id));
+    }
+  }
+}
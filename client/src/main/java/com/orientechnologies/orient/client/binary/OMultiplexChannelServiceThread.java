@@ -0,0 +1,51 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.client.binary;
+
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.common.thread.OSoftThread;
+import com.orientechnologies.orient.core.Orient;
+
+/**
+ * Service thread that receives the responses and the push messages of a multiplexed connection.
+ */
+public class OMultiplexChannelServiceThread extends OSoftThread {
+  private final OChannelBinaryMultiplexClient network;
+
+  public OMultiplexChannelServiceThread(final OChannelBinaryMultiplexClient iChannel) {
+    super(Orient.instance().getThreadGroup(), "OrientDB <- Multiplexed Client (" + iChannel.socket.getRemoteSocketAddress() + ")");
+    network = iChannel;
+    setDumpExceptions(false);
+    start();
+  }
+
+  @Override
+  protected void execute() throws Exception {
+    try {
+      network.receive();
+    } catch (Exception e) {
+      // THE SOCKET HAS BEEN CLOSED OR THE CONNECTION IS NOT CONSISTENT ANYMORE: THE PENDING REQUESTS FAIL
+      if (!isShutdownFlag())
+        OLogManager.instance().debug(this, "Error on receiving from multiplexed channel %s", e, network);
+      sendShutdown();
+      network.close();
+    }
+  }
+}
@@ -0,0 +1,192 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.client.remote;
+
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.storage.ORawBuffer;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records loaded by a remote client, kept to serve the next loads without a request. The server keeps track of the records loaded
+ * for the near cache and sends their invalidation when they're updated or deleted. The least recently used records are evicted
+ * when the content of the cached records exceeds the maximum size.
+ * <p>
+ * An invalidation can be received before the response of a load that has been sent before the record changed, so every load
+ * takes the serial of the invalidations received so far and its record is cached only if no invalidation of the same record has
+ * been received in the meanwhile.
+ * <p>
+ * The records are cached per user: the same record can be read differently, or not at all, by the users sharing the storage,
+ * depending on their roles and on the restricted records.
+ *
+ * @see com.orientechnologies.orient.core.config.OGlobalConfiguration#CLIENT_NEAR_CACHE_SIZE
+ */
+public class ORecordNearCache {
+  private static final int            MAX_INVALIDATIONS  = 10000;
+
+  private final long                  maxSize;
+  private final Map<Key, ORawBuffer>  records            = new LinkedHashMap<Key, ORawBuffer>(1024, 0.75f, true);
+  private final Set<String>           users              = new HashSet<String>();
+  private final Map<ORID, Long>       invalidations      = new LinkedHashMap<ORID, Long>();
+  private long                        size               = 0;
+  private long                        invalidationSerial = 0;
+  private long                        forgottenSerial    = 0;                                               // SERIAL OF THE LAST INVALIDATION FORGOTTEN
+  private long                        hits               = 0;
+  private long                        misses             = 0;
+
+  public ORecordNearCache(final long iMaxSize) {
+    maxSize = iMaxSize;
+  }
+
+  /**
+   * Returns the serial of the invalidations received so far, to take before sending a load request.
+   */
+  public synchronized long getInvalidationSerial() {
+    return invalidationSerial;
+  }
+
+  /**
+   * Returns a copy of the record cached for the user, null if not cached.
+   */
+  public synchronized ORawBuffer get(final String iUser, final ORID iRid) {
+    final ORawBuffer buffer = records.get(new Key(iUser, iRid));
+    if (buffer == null) {
+      misses++;
+      return null;
+    }
+
+    hits++;
+    // THE CONTENT CAN BE CHANGED BY THE CALLER
+    return new ORawBuffer(buffer.buffer.clone(), buffer.version, buffer.recordType);
+  }
+
+  /**
+   * Caches a record received from the server by the user.
+   *
+   * @param iInvalidationSerial
+   *          serial of the invalidations taken before sending the load request
+   */
+  public synchronized void put(final String iUser, final ORID iRid, final ORawBuffer iBuffer, final long iInvalidationSerial) {
+    if (iBuffer == null || iBuffer.buffer == null || iBuffer.buffer.length > maxSize)
+      return;
+
+    if (iInvalidationSerial < forgottenSerial)
+      // AN INVALIDATION OF THE RECORD COULD HAVE BEEN RECEIVED, BUT IT'S NOT KNOWN ANYMORE
+      return;
+
+    final Long invalidated = invalidations.get(iRid);
+    if (invalidated != null && invalidated > iInvalidationSerial)
+      // THE RECORD HAS CHANGED WHILE IT WAS LOADED
+      return;
+
+    users.add(iUser);
+    final ORawBuffer previous = records.put(new Key(iUser, iRid.copy()), new ORawBuffer(iBuffer.buffer.clone(), iBuffer.version,
+        iBuffer.recordType));
+    if (previous != null)
+      size -= previous.buffer.length;
+    size += iBuffer.buffer.length;
+
+    if (size > maxSize) {
+      final Iterator<ORawBuffer> eldest = records.values().iterator();
+      while (size > maxSize && eldest.hasNext()) {
+        size -= eldest.next().buffer.length;
+        eldest.remove();
+      }
+    }
+  }
+
+  /**
+   * Removes a record that has been updated or deleted, for all the users.
+   */
+  public synchronized void invalidate(final ORID iRid) {
+    invalidationSerial++;
+
+    for (String user : users) {
+      final ORawBuffer removed = records.remove(new Key(user, iRid));
+      if (removed != null)
+        size -= removed.buffer.length;
+    }
+
+    final ORID rid = iRid.copy();
+    invalidations.remove(rid);
+    invalidations.put(rid, invalidationSerial);
+    if (invalidations.size() > MAX_INVALIDATIONS) {
+      final Iterator<Long> eldest = invalidations.values().iterator();
+      forgottenSerial = eldest.next();
+      eldest.remove();
+    }
+  }
+
+  /**
+   * Removes all the records, when the server cannot send their invalidations anymore.
+   */
+  public synchronized void clear() {
+    invalidationSerial++;
+    // THE LOADS IN FLIGHT CANNOT BE CACHED
+    forgottenSerial = invalidationSerial;
+    invalidations.clear();
+    records.clear();
+    users.clear();
+    size = 0;
+  }
+
+  public synchronized int getCount() {
+    return records.size();
+  }
+
+  public synchronized long getSize() {
+    return size;
+  }
+
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  private static final class Key {
+    private final String user;
+    private final ORID   rid;
+
+    private Key(final String iUser, final ORID iRid) {
+      user = iUser;
+      rid = iRid;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (!(obj instanceof Key))
+        return false;
+      final Key other = (Key) obj;
+      return user.equals(other.user) && rid.equals(other.rid);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * user.hashCode() + rid.hashCode();
+    }
+  }
+}
@@ -21,6 +21,7 @@ package com.orientechnologies.orient.client.remote;
 
 import com.orientechnologies.common.log.OLogManager;
 import com.orientechnologies.orient.client.binary.OChannelBinaryAsynchClient;
+import com.orientechnologies.orient.client.binary.OChannelBinaryMultiplexClient;
 import com.orientechnologies.orient.core.config.OContextConfiguration;
 import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 
@@ -111,6 +112,26 @@ public class ORemoteConnectionManager {
     return null;
   }
 
+  /**
+   * Returns the multiplexed connection to the server, shared by all the requests sent on it.
+   *
+   * @return null if there isn't a pool of connections to the server yet or if the server doesn't support multiplexed requests
+   */
+  public OChannelBinaryMultiplexClient acquireMultiplexed(String iServerURL, final OContextConfiguration clientConfiguration) {
+    if (iServerURL.startsWith(OEngineRemote.PREFIX))
+      iServerURL = iServerURL.substring(OEngineRemote.PREFIX.length());
+
+    if (iServerURL.endsWith("/"))
+      iServerURL = iServerURL.substring(0, iServerURL.length() - 1);
+
+    final ORemoteConnectionPool pool = connections.get(iServerURL);
+    if (pool == null)
+      // THE FIRST REQUESTS, THAT OPEN THE SESSIONS, USE THE POOL
+      return null;
+
+    return pool.acquireMultiplexed(iServerURL, clientConfiguration);
+  }
+
   public void release(final OChannelBinaryAsynchClient conn) {
     if( conn == null )
       return;
@@ -203,6 +224,7 @@ public class ORemoteConnectionManager {
       } catch (Exception e) {
         OLogManager.instance().debug(this, "Cannot close binary channel", e);
       }
+    pool.closeMultiplexed();
     pool.getPool().close();
   }
 
@@ -6,6 +6,7 @@ import com.orientechnologies.common.exception.OException;
 import com.orientechnologies.common.io.OIOException;
 import com.orientechnologies.common.log.OLogManager;
 import com.orientechnologies.orient.client.binary.OChannelBinaryAsynchClient;
+import com.orientechnologies.orient.client.binary.OChannelBinaryMultiplexClient;
 import com.orientechnologies.orient.core.config.OContextConfiguration;
 import com.orientechnologies.orient.enterprise.channel.OChannel;
 import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinaryProtocol;
@@ -20,6 +21,8 @@ public class ORemoteConnectionPool implements OResourcePoolListener<String, OCha
 
   private OResourcePool<String, OChannelBinaryAsynchClient> pool;
   private ORemoteConnectionPushListener                     listener;
+  private volatile OChannelBinaryMultiplexClient            multiplexed;
+  private boolean                                           multiplexUnsupported = false;
 
   public ORemoteConnectionPool(int iMaxResources, final boolean createAsyncListener) {
     pool = new OResourcePool<String, OChannelBinaryAsynchClient>(iMaxResources, this);
@@ -28,6 +31,11 @@ public class ORemoteConnectionPool implements OResourcePoolListener<String, OCha
 
   protected OChannelBinaryAsynchClient createNetworkConnection(String iServerURL, final OContextConfiguration clientConfiguration,
       Map<String, Object> iAdditionalArg) throws OIOException {
+    return createNetworkConnection(iServerURL, clientConfiguration, false);
+  }
+
+  private OChannelBinaryAsynchClient createNetworkConnection(String iServerURL, final OContextConfiguration clientConfiguration,
+      final boolean iMultiplexed) throws OIOException {
     if (iServerURL == null)
       throw new IllegalArgumentException("server url is null");
 
@@ -55,8 +63,13 @@ public class ORemoteConnectionPool implements OResourcePoolListener<String, OCha
       final String remoteHost = serverURL.substring(0, sepPos);
       final int remotePort = Integer.parseInt(serverURL.substring(sepPos + 1));
 
-      final OChannelBinaryAsynchClient ch = new OChannelBinaryAsynchClient(remoteHost, remotePort, databaseName,
-          clientConfiguration, OChannelBinaryProtocol.CURRENT_PROTOCOL_VERSION, listener);
+      final OChannelBinaryAsynchClient ch;
+      if (iMultiplexed)
+        ch = new OChannelBinaryMultiplexClient(remoteHost, remotePort, databaseName, clientConfiguration,
+            OChannelBinaryProtocol.CURRENT_PROTOCOL_VERSION, listener);
+      else
+        ch = new OChannelBinaryAsynchClient(remoteHost, remotePort, databaseName, clientConfiguration,
+            OChannelBinaryProtocol.CURRENT_PROTOCOL_VERSION, listener);
 
       return ch;
 
@@ -91,6 +104,43 @@ public class ORemoteConnectionPool implements OResourcePoolListener<String, OCha
     return pool;
   }
 
+  /**
+   * Returns the multiplexed connection to the server, shared by all the requests sent on it. It's opened by the first request and
+   * reopened after it's closed.
+   *
+   * @return null if the server doesn't support multiplexed requests
+   */
+  public OChannelBinaryMultiplexClient acquireMultiplexed(final String iServerURL, final OContextConfiguration clientConfiguration) {
+    final OChannelBinaryMultiplexClient current = multiplexed;
+    if (current != null && current.isConnected())
+      return current;
+
+    synchronized (this) {
+      if (multiplexUnsupported)
+        return null;
+
+      if (multiplexed == null || !multiplexed.isConnected()) {
+        final OChannelBinaryMultiplexClient ch = (OChannelBinaryMultiplexClient) createNetworkConnection(iServerURL,
+            clientConfiguration, true);
+        if (ch.getSrvProtocolVersion() < OChannelBinaryProtocol.PROTOCOL_VERSION_37) {
+          // OLDER SERVER: THE REQUESTS ARE SENT ON THE CONNECTIONS OF THE POOL
+          multiplexUnsupported = true;
+          ch.close();
+          return null;
+        }
+        multiplexed = ch;
+      }
+      return multiplexed;
+    }
+  }
+
+  public synchronized void closeMultiplexed() {
+    if (multiplexed != null) {
+      multiplexed.close();
+      multiplexed = null;
+    }
+  }
+
 
   public OChannelBinaryAsynchClient acquire(final String iServerURL, final long timeout,
       final OContextConfiguration clientConfiguration, final Map<String, Object> iConfiguration,
@@ -27,6 +27,7 @@ import com.orientechnologies.common.io.OIOException;
 import com.orientechnologies.common.log.OLogManager;
 import com.orientechnologies.common.util.OCommonConst;
 import com.orientechnologies.orient.client.binary.OChannelBinaryAsynchClient;
+import com.orientechnologies.orient.client.binary.OChannelBinaryMultiplexClient;
 import com.orientechnologies.orient.core.OConstants;
 import com.orientechnologies.orient.core.Orient;
 import com.orientechnologies.orient.core.command.OCommandOutputListener;
@@ -61,11 +62,14 @@ import com.orientechnologies.orient.core.serialization.serializer.stream.OStream
 import com.orientechnologies.orient.core.sql.query.OBasicResultSet;
 import com.orientechnologies.orient.core.sql.query.OLiveQuery;
 import com.orientechnologies.orient.core.sql.query.OLiveResultListener;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
 import com.orientechnologies.orient.core.storage.*;
 import com.orientechnologies.orient.core.storage.impl.local.paginated.ORecordSerializationContext;
 import com.orientechnologies.orient.core.tx.OTransaction;
 import com.orientechnologies.orient.core.tx.OTransactionAbstract;
+import com.orientechnologies.orient.enterprise.channel.OChannel;
 import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinaryProtocol;
+import com.orientechnologies.orient.enterprise.channel.binary.OChannelListener;
 import com.orientechnologies.orient.enterprise.channel.binary.OTokenSecurityException;
 
 import javax.naming.NamingException;
@@ -94,8 +98,14 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
   private static final String  LOCALHOST                 = "localhost";
   private static AtomicInteger sessionSerialId           = new AtomicInteger(-1);
 
+  /**
+   * How the server of every request is chosen among the servers of the cluster. {@link #LATENCY_AWARE} executes the reads of the
+   * records on the server with the lowest expected response time and the other requests always on the same server.
+   *
+   * @see OStorageRemoteLoadBalancer
+   */
   public enum CONNECTION_STRATEGY {
-    STICKY, ROUND_ROBIN_CONNECT, ROUND_ROBIN_REQUEST
+    STICKY, ROUND_ROBIN_CONNECT, ROUND_ROBIN_REQUEST, LATENCY_AWARE
   }
 
   private CONNECTION_STRATEGY                  connectionStrategy      = CONNECTION_STRATEGY.STICKY;
@@ -118,6 +128,10 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
   protected ORemoteConnectionManager           connectionManager;
   private final Set<OStorageRemoteSession>     sessions                = Collections
       .newSetFromMap(new ConcurrentHashMap<OStorageRemoteSession, Boolean>());
+  private ORecordNearCache                     nearCache;
+  private final Set<OChannelBinaryAsynchClient> nearCacheChannels      = Collections
+      .newSetFromMap(new ConcurrentHashMap<OChannelBinaryAsynchClient, Boolean>());
+  private final OStorageRemoteLoadBalancer     loadBalancer;
 
   public OStorageRemote(final String iClientId, final String iURL, final String iMode) throws IOException {
     this(iClientId, iURL, iMode, null, true);
@@ -135,8 +149,16 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
     clientConfiguration = new OContextConfiguration();
     connectionRetry = clientConfiguration.getValueAsInteger(OGlobalConfiguration.NETWORK_SOCKET_RETRY);
     connectionRetryDelay = clientConfiguration.getValueAsInteger(OGlobalConfiguration.NETWORK_SOCKET_RETRY_DELAY);
-    if (managePushMessages)
+    loadBalancer = new OStorageRemoteLoadBalancer(
+        clientConfiguration.getValueAsInteger(OGlobalConfiguration.CLIENT_LATENCY_AWARE_BACKOFF));
+    if (managePushMessages) {
       asynchEventListener = new OStorageRemoteAsynchEventListener(this);
+
+      // THE INVALIDATIONS OF THE NEAR CACHE ARE PUSHED BY THE SERVER
+      final int nearCacheSize = clientConfiguration.getValueAsInteger(OGlobalConfiguration.CLIENT_NEAR_CACHE_SIZE);
+      if (nearCacheSize > 0)
+        nearCache = new ORecordNearCache(nearCacheSize * 1024l * 1024l);
+    }
     parseServerURLs();
 
     asynchExecutor = Executors.newSingleThreadScheduledExecutor();
@@ -153,6 +175,28 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
       pMode = 2;
     else
       pMode = mode;
+
+    if (pMode == 1) {
+      final OStorageRemoteFuture<T> response = new OStorageRemoteFuture<T>(read, getCurrentSession()) {
+        @Override
+        protected void done() {
+          OStorageRemote.this.asynchExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+              try {
+                callback.call(recordId, get());
+              } catch (Throwable e) {
+                OLogManager.instance().error(this, "Exception on async query", e);
+              }
+            }
+          });
+        }
+      };
+      if (sendMultiplexed(write, pMode, response))
+        return null;
+    } else if (pMode == 2 && sendMultiplexed(write, pMode, null))
+      return null;
+
     return baseNetworkOperation(new OStorageRemoteOperation<T>() {
       @Override
       public T execute(final OChannelBinaryAsynchClient network, final OStorageRemoteSession session) throws IOException {
@@ -189,6 +233,58 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
     }, errorMessage, connectionRetry);
   }
 
+  /**
+   * Sends the request without waiting for the response, so many requests can be in flight on the same multiplexed connection. If the
+   * request cannot be multiplexed it's executed as a regular one before returning.
+   */
+  public <T> Future<T> pipelinedNetworkOperation(final OStorageRemoteOperationWrite write, final OStorageRemoteOperationRead<T> read,
+      final String errorMessage) {
+    final OStorageRemoteFuture<T> response = new OStorageRemoteFuture<T>(read, getCurrentSession());
+    if (!sendMultiplexed(write, 0, response))
+      response.set(asyncNetworkOperation(write, read, 0, null, null, errorMessage));
+    return response;
+  }
+
+  /**
+   * Sends the request on the multiplexed connection to the server of the current session, if enabled and supported.
+   *
+   * @return false if the request must be sent as a regular one
+   */
+  private boolean sendMultiplexed(final OStorageRemoteOperationWrite write, final int mode, final OStorageRemoteFuture<?> response) {
+    if (!clientConfiguration.getValueAsBoolean(OGlobalConfiguration.CLIENT_CHANNEL_MULTIPLEX))
+      return false;
+
+    final OStorageRemoteSession session = getCurrentSession();
+    if (session == null || session.commandExecuting)
+      return false;
+
+    final String serverUrl = getNextAvailableServerURL(false, session);
+    final OStorageRemoteNodeSession nodeSession = session.getServerSession(serverUrl);
+    if (nodeSession == null || !nodeSession.isValid() || nodeSession.getToken() == null)
+      // THE SESSION IS OPENED BY A REGULAR REQUEST, THAT ALSO RENEWS ITS TOKEN
+      return false;
+
+    final OChannelBinaryMultiplexClient network;
+    try {
+      network = connectionManager.acquireMultiplexed(serverUrl, clientConfiguration);
+    } catch (OIOException e) {
+      OLogManager.instance().debug(this, "Cannot open multiplexed connection to %s", e, serverUrl);
+      return false;
+    }
+    if (network == null)
+      return false;
+
+    try {
+      network.sendRequest(write, session, mode, response);
+      return true;
+    } catch (IOException e) {
+      OLogManager.instance().info(this, "Caught Network I/O errors on multiplexed connection to %s, sending the request on a "
+          + "regular connection (error: %s)", serverUrl, e.getMessage());
+      network.close();
+      return false;
+    }
+  }
+
   public <T> T networkOperationRetry(final OStorageRemoteOperation<T> operation, final String errorMessage, int retry) {
     return baseNetworkOperation(new OStorageRemoteOperation<T>() {
       @Override
@@ -204,7 +300,26 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
     return networkOperationRetry(operation, errorMessage, connectionRetry);
   }
 
+  /**
+   * Executes a request that only reads, so it can be executed by any server of the cluster, chosen by the connection strategy.
+   */
+  public <T> T readNetworkOperation(final OStorageRemoteOperation<T> operation, final String errorMessage) {
+    return baseNetworkOperation(new OStorageRemoteOperation<T>() {
+      @Override
+      public T execute(OChannelBinaryAsynchClient network, OStorageRemoteSession session) throws IOException {
+        final T res = operation.execute(network, session);
+        connectionManager.release(network);
+        return res;
+      }
+    }, errorMessage, connectionRetry, true);
+  }
+
   public <T> T baseNetworkOperation(final OStorageRemoteOperation<T> operation, final String errorMessage, int retry) {
+    return baseNetworkOperation(operation, errorMessage, retry, false);
+  }
+
+  private <T> T baseNetworkOperation(final OStorageRemoteOperation<T> operation, final String errorMessage, int retry,
+      final boolean iRead) {
     OStorageRemoteSession session = getCurrentSession();
     if (session.commandExecuting)
       throw new ODatabaseException(
@@ -212,7 +327,8 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
 
     do {
       OChannelBinaryAsynchClient network = null;
-      String serverUrl = getNextAvailableServerURL(false, session);
+      String serverUrl = iRead ? getReadServerURL(session) : getNextAvailableServerURL(false, session);
+      final boolean measured = connectionStrategy == CONNECTION_STRATEGY.LATENCY_AWARE;
       do {
         try {
           network = getNetwork(serverUrl);
@@ -232,7 +348,19 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
             continue;
         }
 
-        return operation.execute(network, session);
+        if (!measured)
+          return operation.execute(network, session);
+
+        // THE RESPONSE TIME OF THE SERVER DRIVES THE CHOICE OF THE NEXT READS
+        final long begin = loadBalancer.begin(serverUrl);
+        boolean completed = false;
+        try {
+          final T res = operation.execute(network, session);
+          completed = true;
+          return res;
+        } finally {
+          loadBalancer.end(serverUrl, begin, completed);
+        }
       } catch (OModificationOperationProhibitedException mope) {
         connectionManager.release(network);
         handleDBFreeze();
@@ -259,9 +387,13 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
 
       } catch (IOException e) {
         connectionManager.release(network);
+        if (measured)
+          loadBalancer.failed(serverUrl);
         retry = handleIOException(retry, network, e);
       } catch (OIOException e) {
         connectionManager.release(network);
+        if (measured)
+          loadBalancer.failed(serverUrl);
         retry = handleIOException(retry, network, e);
       } catch (OException e) {
         connectionManager.release(network);
@@ -449,6 +581,8 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
       }
 
       status = STATUS.CLOSING;
+      if (nearCache != null)
+        nearCache.clear();
       // CLOSE ALL THE CONNECTIONS
       for (String url : serverURLs) {
         connectionManager.closePool(url);
@@ -569,7 +703,7 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
   @Override
   public ORecordMetadata getRecordMetadata(final ORID rid) {
 
-    return networkOperation(new OStorageRemoteOperation<ORecordMetadata>() {
+    return readNetworkOperation(new OStorageRemoteOperation<ORecordMetadata>() {
       @Override
       public ORecordMetadata execute(OChannelBinaryAsynchClient network, OStorageRemoteSession session) throws IOException {
         try {
@@ -598,7 +732,11 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
       // PENDING NETWORK OPERATION, CAN'T EXECUTE IT NOW
       return new OStorageOperationResult<ORawBuffer>(null);
 
-    return networkOperation(new OStorageRemoteOperation<OStorageOperationResult<ORawBuffer>>() {
+    final ORawBuffer cached = getFromNearCache(rid, fetchPlan, ignoreCache);
+    if (cached != null)
+      return new OStorageOperationResult<ORawBuffer>(cached.version > recordVersion ? cached : null);
+
+    return readNetworkOperation(new OStorageRemoteOperation<OStorageOperationResult<ORawBuffer>>() {
       @Override
       public OStorageOperationResult<ORawBuffer> execute(OChannelBinaryAsynchClient network, OStorageRemoteSession session)
           throws IOException {
@@ -649,10 +787,136 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
       // PENDING NETWORK OPERATION, CAN'T EXECUTE IT NOW
       return new OStorageOperationResult<ORawBuffer>(null);
 
-    return networkOperation(new OStorageRemoteOperation<OStorageOperationResult<ORawBuffer>>() {
+    final ORawBuffer cached = getFromNearCache(iRid, iFetchPlan, iIgnoreCache);
+    if (cached != null)
+      return new OStorageOperationResult<ORawBuffer>(cached);
+
+    final long nearCacheSerial = nearCache != null ? nearCache.getInvalidationSerial() : -1;
+    final OStorageRemoteOperationWrite request = readRecordRequest(iRid, iFetchPlan, iIgnoreCache, nearCacheSerial > -1);
+    final OStorageRemoteOperationRead<OStorageOperationResult<ORawBuffer>> response = readRecordResponse(iRid, nearCacheSerial);
+    return readNetworkOperation(new OStorageRemoteOperation<OStorageOperationResult<ORawBuffer>>() {
       @Override
       public OStorageOperationResult<ORawBuffer> execute(OChannelBinaryAsynchClient network, OStorageRemoteSession session)
           throws IOException {
+        request.execute(network, session, 0);
+        return response.execute(network, session);
+      }
+    }, "Error on read record " + iRid);
+  }
+
+  /**
+   * Loads a record without waiting for the response: with a multiplexed connection the loads of many records are in flight at the
+   * same time.
+   *
+   * @see OGlobalConfiguration#CLIENT_CHANNEL_MULTIPLEX
+   */
+  public Future<OStorageOperationResult<ORawBuffer>> readRecordAsync(final ORecordId iRid, final String iFetchPlan,
+      final boolean iIgnoreCache) {
+    return pipelinedNetworkOperation(readRecordRequest(iRid, iFetchPlan, iIgnoreCache, false), readRecordResponse(iRid, -1),
+        "Error on read record " + iRid);
+  }
+
+  @Override
+  public List<ORawBuffer> readRecords(final List<ORecordId> iRids, final String iFetchPlan, final boolean iIgnoreCache) {
+    if (getCurrentSession().commandExecuting)
+      // PENDING NETWORK OPERATION, CAN'T EXECUTE IT NOW
+      return super.readRecords(iRids, iFetchPlan, iIgnoreCache);
+
+    final String user = getCurrentSession().connectionUserName;
+    if (nearCache == null || user == null || iIgnoreCache || (iFetchPlan != null && !iFetchPlan.isEmpty()))
+      return readRecordsFromServer(iRids, iFetchPlan, iIgnoreCache);
+
+    // ONLY THE RECORDS NOT IN THE NEAR CACHE ARE REQUESTED
+    final List<ORawBuffer> buffers = new ArrayList<ORawBuffer>(iRids.size());
+    final List<ORecordId> toLoad = new ArrayList<ORecordId>();
+    for (ORecordId rid : iRids) {
+      final ORawBuffer cached = nearCache.get(user, rid);
+      buffers.add(cached);
+      if (cached == null)
+        toLoad.add(rid);
+    }
+
+    if (!toLoad.isEmpty()) {
+      final Iterator<ORawBuffer> loaded = readRecordsFromServer(toLoad, iFetchPlan, iIgnoreCache).iterator();
+      for (int i = 0; i < buffers.size(); ++i)
+        if (buffers.get(i) == null)
+          buffers.set(i, loaded.next());
+    }
+    return buffers;
+  }
+
+  private List<ORawBuffer> readRecordsFromServer(final List<ORecordId> iRids, final String iFetchPlan, final boolean iIgnoreCache) {
+    final long nearCacheSerial = nearCache != null ? nearCache.getInvalidationSerial() : -1;
+    return readNetworkOperation(new OStorageRemoteOperation<List<ORawBuffer>>() {
+      @Override
+      public List<ORawBuffer> execute(OChannelBinaryAsynchClient network, OStorageRemoteSession session) throws IOException {
+        final List<ORawBuffer> buffers = new ArrayList<ORawBuffer>(iRids.size());
+        if (network.getSrvProtocolVersion() < OChannelBinaryProtocol.PROTOCOL_VERSION_38) {
+          // OLD SERVER: ONE REQUEST PER RECORD ON THE SAME CONNECTION
+          for (ORecordId rid : iRids) {
+            readRecordRequest(rid, iFetchPlan, iIgnoreCache, false).execute(network, session, 0);
+            buffers.add(readRecordResponse(rid, -1).execute(network, session).getResult());
+          }
+          return buffers;
+        }
+
+        try {
+          beginRequest(network, OChannelBinaryProtocol.REQUEST_RECORD_LOAD_MULTI, session);
+          network.writeInt(iRids.size());
+          for (ORecordId rid : iRids)
+            network.writeRID(rid);
+          network.writeString(iFetchPlan != null ? iFetchPlan : "");
+          network.writeByte((byte) (iIgnoreCache ? 1 : 0));
+          if (network.getSrvProtocolVersion() >= OChannelBinaryProtocol.PROTOCOL_VERSION_41)
+            network.writeByte((byte) (nearCacheSerial > -1 ? 1 : 0));
+        } finally {
+          endRequest(network);
+        }
+
+        try {
+          beginResponse(network, session);
+
+          final int count = network.readInt();
+          for (int i = 0; i < count; ++i) {
+            if (network.readByte() == 0)
+              buffers.add(null);
+            else {
+              final byte type = network.readByte();
+              final int recVersion = network.readVersion();
+              final byte[] bytes = network.readBytes();
+              buffers.add(new ORawBuffer(bytes, recVersion, type));
+            }
+          }
+
+          final ODatabaseDocument database = ODatabaseRecordThreadLocal.INSTANCE.getIfDefined();
+          ORecord record;
+          while (network.readByte() == 2) {
+            record = (ORecord) OChannelBinaryProtocol.readIdentifiable(network);
+
+            if (database != null)
+              // PUT IN THE CLIENT LOCAL CACHE
+              database.getLocalCache().updateRecord(record);
+          }
+
+          if (network.getSrvProtocolVersion() >= OChannelBinaryProtocol.PROTOCOL_VERSION_41 && network.readByte() == 1)
+            // THE SERVER SENDS THE INVALIDATIONS OF THE RECORDS
+            for (int i = 0; i < iRids.size(); ++i)
+              putInNearCache(network, session, iRids.get(i), buffers.get(i), nearCacheSerial);
+          return buffers;
+
+        } finally {
+          endResponse(network);
+        }
+      }
+    }, "Error on read of " + iRids.size() + " records");
+  }
+
+  private OStorageRemoteOperationWrite readRecordRequest(final ORecordId iRid, final String iFetchPlan,
+      final boolean iIgnoreCache, final boolean iNearCache) {
+    return new OStorageRemoteOperationWrite() {
+      @Override
+      public void execute(final OChannelBinaryAsynchClient network, final OStorageRemoteSession session, final int mode)
+          throws IOException {
         try {
           beginRequest(network, OChannelBinaryProtocol.REQUEST_RECORD_LOAD, session);
           network.writeRID(iRid);
@@ -662,10 +926,22 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
 
           if (network.getSrvProtocolVersion() >= 13)
             network.writeByte((byte) 0);
+
+          if (network.getSrvProtocolVersion() >= OChannelBinaryProtocol.PROTOCOL_VERSION_41)
+            network.writeByte((byte) (iNearCache ? 1 : 0));
         } finally {
           endRequest(network);
         }
+      }
+    };
+  }
 
+  private OStorageRemoteOperationRead<OStorageOperationResult<ORawBuffer>> readRecordResponse(final ORecordId iRid,
+      final long iNearCacheSerial) {
+    return new OStorageRemoteOperationRead<OStorageOperationResult<ORawBuffer>>() {
+      @Override
+      public OStorageOperationResult<ORawBuffer> execute(final OChannelBinaryAsynchClient network,
+          final OStorageRemoteSession session) throws IOException {
         try {
           beginResponse(network, session);
 
@@ -691,14 +967,65 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
               // PUT IN THE CLIENT LOCAL CACHE
               database.getLocalCache().updateRecord(record);
           }
+
+          if (network.getSrvProtocolVersion() >= OChannelBinaryProtocol.PROTOCOL_VERSION_41 && network.readByte() == 1)
+            // THE SERVER SENDS THE INVALIDATION OF THE RECORD
+            putInNearCache(network, session, iRid, buffer, iNearCacheSerial);
           return new OStorageOperationResult<ORawBuffer>(buffer);
 
         } finally {
           endResponse(network);
         }
+      }
+    };
+  }
+
+  /**
+   * Returns the near cache of the records, null if it's disabled.
+   *
+   * @see OGlobalConfiguration#CLIENT_NEAR_CACHE_SIZE
+   */
+  public ORecordNearCache getNearCache() {
+    return nearCache;
+  }
+
+  private ORawBuffer getFromNearCache(final ORecordId iRid, final String iFetchPlan, final boolean iIgnoreCache) {
+    if (nearCache == null || iIgnoreCache || (iFetchPlan != null && !iFetchPlan.isEmpty()))
+      // THE RECORDS OF THE FETCH PLAN ARE SENT BY THE SERVER
+      return null;
+
+    final String user = getCurrentSession().connectionUserName;
+    return user != null ? nearCache.get(user, iRid) : null;
+  }
+
+  private void putInNearCache(final OChannelBinaryAsynchClient network, final OStorageRemoteSession session,
+      final ORecordId iRid, final ORawBuffer iBuffer, final long iNearCacheSerial) {
+    if (iNearCacheSerial < 0 || iBuffer == null || iBuffer.recordType != ODocument.RECORD_TYPE)
+      // THE SERVER SENDS THE INVALIDATIONS OF DOCUMENTS ONLY
+      return;
+
+    if (session == null || session.connectionUserName == null)
+      // THE RECORDS ARE CACHED PER USER, THE SECURITY CHECKS OF THE SERVER DEPEND ON IT
+      return;
+
+    if (nearCacheChannels.add(network)) {
+      network.registerListener(new OChannelListener() {
+        @Override
+        public void onChannelClose(final OChannel iChannel) {
+          // THE INVALIDATIONS OF THE RECORDS LOADED WITH THIS CONNECTION CANNOT BE RECEIVED ANYMORE
+          nearCacheChannels.remove(network);
+          network.unregisterListener(this);
+          nearCache.clear();
+        }
+      });
 
+      if (!network.isConnected()) {
+        nearCacheChannels.remove(network);
+        return;
       }
-    }, "Error on read record " + iRid);
+    }
+
+    nearCache.put(session.connectionUserName, iRid, iBuffer, iNearCacheSerial);
   }
 
   @Override
@@ -764,6 +1091,9 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
       }
     }, iMode, iRid, iCallback, "Error on update record " + iRid);
 
+    if (nearCache != null)
+      nearCache.invalidate(iRid);
+
     if (resVersion == null)
       // Returning given version in case of no answer from server
       resVersion = iVersion;
@@ -800,6 +1130,9 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
         }
       }
     }, iMode, iRid, iCallback, "Error on delete record " + iRid);
+
+    if (nearCache != null)
+      nearCache.invalidate(iRid);
     return new OStorageOperationResult<Boolean>(resDelete);
   }
 
@@ -829,6 +1162,9 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
         }
       }
     }, mode, recordId, callback, "Error on hide record " + recordId);
+
+    if (nearCache != null)
+      nearCache.invalidate(recordId);
     return new OStorageOperationResult<Boolean>(resHide);
   }
 
@@ -1097,7 +1433,7 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
 
   public long count(final int[] iClusterIds, final boolean countTombstones) {
 
-    return networkOperation(new OStorageRemoteOperation<Long>() {
+    return readNetworkOperation(new OStorageRemoteOperation<Long>() {
       @Override
       public Long execute(OChannelBinaryAsynchClient network, OStorageRemoteSession session) throws IOException {
         try {
@@ -1132,6 +1468,7 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
       throw new OCommandExecutionException("Cannot serialize the command to be executed to the server side.");
     final boolean live = iCommand instanceof OLiveQuery;
     final ODatabaseDocument database = ODatabaseRecordThreadLocal.INSTANCE.get();
+    final int fetchSize = OGlobalConfiguration.CLIENT_QUERY_FETCH_SIZE.getValueAsInteger();
 
     return networkOperation(new OStorageRemoteOperation<Object>() {
       @Override
@@ -1142,15 +1479,26 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
 
           final boolean asynch = iCommand instanceof OCommandRequestAsynch && ((OCommandRequestAsynch) iCommand).isAsynchronous();
 
+          // THE NEXT PAGES OF A CURSOR MUST BE FETCHED FROM THE SAME SERVER. THE QUERY EXECUTED AGAIN FOR ITS NEXT PAGE OF
+          // RECORDS (PAGINATION BY RID) IS NOT KEPT OPEN BY A CURSOR: ITS PAGE IS RECEIVED AT ONCE
+          final boolean cursor = !live && !asynch && fetchSize > 0 && iCommand instanceof OSQLSynchQuery
+              && ((OSQLSynchQuery<?>) iCommand).getNextPageRID() == null
+              && network.getSrvProtocolVersion() >= OChannelBinaryProtocol.PROTOCOL_VERSION_39
+              && connectionStrategy != CONNECTION_STRATEGY.ROUND_ROBIN_REQUEST;
+
           try {
             beginRequest(network, OChannelBinaryProtocol.REQUEST_COMMAND, session);
 
             if (live) {
               network.writeByte((byte) 'l');
+            } else if (cursor) {
+              network.writeByte((byte) 'c');
             } else {
               network.writeByte((byte) (asynch ? 'a' : 's')); // ASYNC / SYNC
             }
             network.writeBytes(OStreamSerializerAnyStreamable.INSTANCE.toStream(iCommand));
+            if (cursor)
+              network.writeInt(fetchSize);
 
           } finally {
             endRequest(network);
@@ -1302,6 +1650,16 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
       result = ((ODocument) record).field("result");
       break;
 
+    case 'c':
+      // FIRST PAGE OF A QUERY CURSOR, THE NEXT ONES ARE FETCHED WHILE THE RESULT IS BROWSED
+      final int cursorId = network.readInt();
+      final OStorageRemoteResultSet<OIdentifiable> cursorResult = new OStorageRemoteResultSet<OIdentifiable>(this, cursorId,
+          OGlobalConfiguration.CLIENT_QUERY_FETCH_SIZE.getValueAsInteger());
+      cursorResult.setTemporaryRecordCache(temporaryResults);
+      cursorResult.setMore(readQueryCursorPage(network, database, cursorResult));
+      result = cursorResult;
+      break;
+
     default:
       OLogManager.instance().warn(this, "Received unexpected result from query: %d", type);
       result = null;
@@ -1324,6 +1682,92 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
     return result;
   }
 
+  /**
+   * Fetches the next page of results of a query cursor open on the server.
+   *
+   * @return true if the cursor has more results
+   */
+  public boolean fetchQueryCursor(final OStorageRemoteResultSet<?> iResult) {
+    final ODatabaseDocument database = ODatabaseRecordThreadLocal.INSTANCE.get();
+
+    // NO RETRY: THE PAGE LOST WITH THE CONNECTION CANNOT BE FETCHED AGAIN
+    return networkOperationRetry(new OStorageRemoteOperation<Boolean>() {
+      @Override
+      public Boolean execute(OChannelBinaryAsynchClient network, OStorageRemoteSession session) throws IOException {
+        try {
+          beginRequest(network, OChannelBinaryProtocol.REQUEST_QUERY_CURSOR_FETCH, session);
+          network.writeInt(iResult.getCursorId());
+          network.writeInt(iResult.getPageSize());
+        } finally {
+          endRequest(network);
+        }
+
+        try {
+          beginResponse(network, session);
+          return readQueryCursorPage(network, database, iResult);
+        } finally {
+          endResponse(network);
+        }
+      }
+    }, "Error on fetching query cursor " + iResult.getCursorId(), 1);
+  }
+
+  /**
+   * Closes a query cursor open on the server, discarding the results not fetched yet.
+   */
+  public void closeQueryCursor(final int iCursorId) {
+    networkOperation(new OStorageRemoteOperation<Void>() {
+      @Override
+      public Void execute(OChannelBinaryAsynchClient network, OStorageRemoteSession session) throws IOException {
+        try {
+          beginRequest(network, OChannelBinaryProtocol.REQUEST_QUERY_CURSOR_CLOSE, session);
+          network.writeInt(iCursorId);
+        } finally {
+          endRequest(network);
+        }
+
+        try {
+          beginResponse(network, session);
+        } finally {
+          endResponse(network);
+        }
+        return null;
+      }
+    }, "Error on closing query cursor " + iCursorId);
+  }
+
+  /**
+   * Reads a page of results of a query cursor.
+   *
+   * @return true if the cursor has more results
+   */
+  protected boolean readQueryCursorPage(final OChannelBinaryAsynchClient network, final ODatabaseDocument database,
+      final OStorageRemoteResultSet<?> iResult) throws IOException {
+    byte status;
+    while ((status = network.readByte()) > 0) {
+      final OIdentifiable record = OChannelBinaryProtocol.readIdentifiable(network);
+      if (record == null)
+        continue;
+
+      switch (status) {
+      case 1:
+        // PUT AS PART OF THE RESULT SET
+        if (record instanceof ORecord)
+          database.getLocalCache().updateRecord((ORecord) record);
+        iResult.addResult(record);
+        break;
+
+      case 2:
+        // PUT IN THE CLIENT LOCAL CACHE
+        if (record.getIdentity().getClusterId() == -2)
+          iResult.addTemporaryRecord((ORecord) record);
+        database.getLocalCache().updateRecord((ORecord) record);
+      }
+    }
+
+    return network.readByte() == 1;
+  }
+
   public List<ORecordOperation> commit(final OTransaction iTx, final Runnable callback) {
     networkOperation(new OStorageRemoteOperation<Void>() {
       @Override
@@ -1386,8 +1830,11 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
 
           committedEntries.clear();
           // SET ALL THE RECORDS AS UNDIRTY
-          for (ORecordOperation txEntry : iTx.getAllRecordEntries())
+          for (ORecordOperation txEntry : iTx.getAllRecordEntries()) {
             ORecordInternal.unsetDirty(txEntry.getRecord());
+            if (nearCache != null)
+              nearCache.invalidate(txEntry.getRecord().getIdentity());
+          }
 
           // UPDATE THE CACHE ONLY IF THE ITERATOR ALLOWS IT. USE THE STRATEGY TO ALWAYS REMOVE ALL THE RECORDS SINCE THEY COULD BE
           // CHANGED AS CONTENT IN CASE OF TREE AND GRAPH DUE TO CROSS REFERENCES
@@ -1951,6 +2398,8 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
       network.writeBoolean(supportsPushMessages);
       network.writeBoolean(collectStats);
     }
+    if (network.getSrvProtocolVersion() >= OChannelBinaryProtocol.PROTOCOL_VERSION_40)
+      network.writeString(network.getResponseCompression());
   }
 
   /**
@@ -2092,6 +2541,11 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
           iIsConnectOperation);
       break;
 
+    case LATENCY_AWARE:
+      // THE SESSION IS OPEN ON EVERY SERVER THAT EXECUTED A READ: THE OTHER REQUESTS KEEP GOING TO THE SAME SERVER
+      url = getServerURFromList(false, session);
+      break;
+
     case ROUND_ROBIN_REQUEST:
       url = getServerURFromList(true, session);
       OLogManager.instance().debug(this,
@@ -2106,6 +2560,33 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
     return url;
   }
 
+  /**
+   * Returns the server that will execute the next read: with the {@link CONNECTION_STRATEGY#LATENCY_AWARE} strategy it's the one
+   * expected to answer first, otherwise the same of the other requests.
+   */
+  protected String getReadServerURL(final OStorageRemoteSession session) {
+    if (connectionStrategy != CONNECTION_STRATEGY.LATENCY_AWARE)
+      return getNextAvailableServerURL(false, session);
+
+    final List<String> urls;
+    synchronized (serverURLs) {
+      if (serverURLs.size() < 2)
+        return getNextAvailableServerURL(false, session);
+
+      urls = new ArrayList<String>(serverURLs.size());
+      for (String url : serverURLs)
+        urls.add(url + "/" + getName());
+    }
+
+    final String url = loadBalancer.choose(urls);
+    OLogManager.instance().debug(this, "LATENCY_AWARE: Next read will be executed on server: %s", url);
+    return url;
+  }
+
+  public OStorageRemoteLoadBalancer getLoadBalancer() {
+    return loadBalancer;
+  }
+
   protected String getCurrentServerURL() {
     return getServerURFromList(false, getCurrentSession());
   }
@@ -2223,7 +2704,8 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
       switch (txEntry.type) {
       case ORecordOperation.CREATED:
       case ORecordOperation.UPDATED:
-        stream = txEntry.getRecord().toStream();
+        // THE RECORDS DO NOT KEEP THEIR CONTENT: ONLY ONE RECORD AT A TIME IS IN MEMORY SERIALIZED
+        stream = ORecordInternal.toStreamUncached(txEntry.getRecord());
         break;
       }
     } catch (Exception e) {
@@ -104,11 +104,33 @@ public class OStorageRemoteAsynchEventListener implements ORemoteServerEventList
         e.printStackTrace();
       }
 
+    } else if (iRequestCode == OChannelBinaryProtocol.REQUEST_PUSH_NEAR_CACHE) {
+      final ORecordNearCache nearCache = storage.getNearCache();
+      if (nearCache != null)
+        try {
+          readNearCacheInvalidation(nearCache, new DataInputStream(new ByteArrayInputStream((byte[]) obj)));
+        } catch (IOException e) {
+          // THE RECORDS TO INVALIDATE ARE UNKNOWN
+          OLogManager.instance().warn(this, "Error on reading the invalidation of the near cache", e);
+          nearCache.clear();
+        }
     }
     byte op;
 
   }
 
+  private void readNearCacheInvalidation(final ORecordNearCache nearCache, final DataInputStream dis) throws IOException {
+    final byte what = dis.readByte();
+    if (what == 'c')
+      // THE SERVER DOESN'T KEEP TRACK OF THE RECORDS LOADED ANYMORE
+      nearCache.clear();
+    else if (what == 'i') {
+      final int count = dis.readInt();
+      for (int i = 0; i < count; ++i)
+        nearCache.invalidate(readRID(dis));
+    }
+  }
+
   private int readVersion(DataInputStream dis) throws IOException {
     return dis.readInt();
   }
@@ -0,0 +1,126 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.client.remote;
+
+import com.orientechnologies.orient.client.binary.OChannelBinaryAsynchClient;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Response of a request sent on a multiplexed connection. It's received by the thread of the connection, but it's read by the
+ * first thread that gets the result, so the connection can go on receiving the other responses.
+ *
+ * @see com.orientechnologies.orient.client.binary.OChannelBinaryMultiplexClient
+ */
+public class OStorageRemoteFuture<T> implements Future<T> {
+  private final OStorageRemoteOperationRead<T> read;
+  private final OStorageRemoteSession          session;
+  private final CountDownLatch                 received = new CountDownLatch(1);
+  private OChannelBinaryAsynchClient           response;
+  private T                                    result;
+  private Throwable                            error;
+
+  public OStorageRemoteFuture(final OStorageRemoteOperationRead<T> iRead, final OStorageRemoteSession iSession) {
+    read = iRead;
+    session = iSession;
+  }
+
+  /**
+   * Called when the response is received, the channel contains only the response.
+   */
+  public void receive(final OChannelBinaryAsynchClient iResponse) {
+    response = iResponse;
+    received.countDown();
+    done();
+  }
+
+  /**
+   * Sets the result, when the request has been executed without multiplexing.
+   */
+  public void set(final T iResult) {
+    result = iResult;
+    received.countDown();
+    done();
+  }
+
+  /**
+   * Called when the response cannot be received anymore.
+   */
+  public void fail(final Throwable iError) {
+    error = iError;
+    received.countDown();
+    done();
+  }
+
+  @Override
+  public boolean cancel(final boolean mayInterruptIfRunning) {
+    // THE REQUEST HAS ALREADY BEEN SENT
+    return false;
+  }
+
+  @Override
+  public boolean isCancelled() {
+    return false;
+  }
+
+  @Override
+  public boolean isDone() {
+    return received.getCount() == 0;
+  }
+
+  @Override
+  public T get() throws InterruptedException, ExecutionException {
+    received.await();
+    return getResult();
+  }
+
+  @Override
+  public T get(final long timeout, final TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+    if (!received.await(timeout, unit))
+      throw new TimeoutException("No response received in " + timeout + " " + unit);
+    return getResult();
+  }
+
+  /**
+   * Called once the response has been received or the request has failed, by the thread that received it.
+   */
+  protected void done() {
+  }
+
+  private synchronized T getResult() throws ExecutionException {
+    if (response != null) {
+      final OChannelBinaryAsynchClient network = response;
+      response = null;
+      try {
+        result = read.execute(network, session);
+      } catch (Exception e) {
+        error = e;
+      }
+    }
+
+    if (error != null)
+      throw new ExecutionException(error);
+    return result;
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.client.remote;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Chooses the server of the next read of the {@link OStorageRemote.CONNECTION_STRATEGY#LATENCY_AWARE} strategy. It keeps the
+ * exponentially weighted average of the response time and the number of requests in flight of every server, and picks the less
+ * loaded of two servers taken at random: the busy or slow servers receive less requests, while every server keeps receiving some of
+ * them, so its latency keeps being measured.
+ * <p>
+ * A server that fails a request for an I/O error or a timeout is avoided for a while, twice as long at every consecutive failure.
+ *
+ * @see com.orientechnologies.orient.core.config.OGlobalConfiguration#CLIENT_LATENCY_AWARE_BACKOFF
+ */
+public class OStorageRemoteLoadBalancer {
+  private static final double                       DECAY       = 0.2;
+  private static final int                          MAX_BACKOFF = 60000;
+
+  private final int                                 backoff;
+  private final ConcurrentMap<String, OServerStats> servers     = new ConcurrentHashMap<String, OServerStats>();
+  private final Random                              random      = new Random();
+
+  public OStorageRemoteLoadBalancer(final int iBackoff) {
+    backoff = iBackoff;
+  }
+
+  /**
+   * Returns the server that should execute the next read, among the passed ones.
+   */
+  public String choose(final List<String> iServers) {
+    if (iServers.size() == 1)
+      return iServers.get(0);
+
+    // THE SERVERS BACKED OFF ARE CHOSEN ONLY IF NO OTHER ONE IS AVAILABLE
+    final long now = System.currentTimeMillis();
+    String first = null;
+    String second = null;
+    int available = 0;
+    for (String server : iServers) {
+      final OServerStats stats = servers.get(server);
+      if (stats != null && stats.isBackedOff(now))
+        continue;
+
+      // RESERVOIR SAMPLING OF TWO SERVERS
+      available++;
+      if (available == 1)
+        first = server;
+      else if (available == 2)
+        second = server;
+      else {
+        final int i = random.nextInt(available);
+        if (i == 0)
+          first = server;
+        else if (i == 1)
+          second = server;
+      }
+    }
+
+    if (first == null)
+      return iServers.get(random.nextInt(iServers.size()));
+    if (second == null)
+      return first;
+
+    return getLoad(first) <= getLoad(second) ? first : second;
+  }
+
+  /**
+   * Called before sending a request to a server.
+   *
+   * @return the start time of the request, to pass to {@link #end(String, long, boolean)}
+   */
+  public long begin(final String iServer) {
+    final OServerStats stats = getStats(iServer);
+    synchronized (stats) {
+      stats.inFlight++;
+    }
+    return System.nanoTime();
+  }
+
+  /**
+   * Called after receiving the response of a request, or after its failure.
+   *
+   * @param iCompleted
+   *          true if the response has been received, so its time is a sample of the latency of the server
+   */
+  public void end(final String iServer, final long iBegin, final boolean iCompleted) {
+    final OServerStats stats = getStats(iServer);
+    synchronized (stats) {
+      stats.inFlight--;
+      if (iCompleted) {
+        final long latency = System.nanoTime() - iBegin;
+        stats.latency = stats.latency == 0 ? latency : (long) (stats.latency + DECAY * (latency - stats.latency));
+        stats.failures = 0;
+      }
+    }
+  }
+
+  /**
+   * Called when a request to a server fails for an I/O error or a timeout, to avoid the server for a while.
+   */
+  public void failed(final String iServer) {
+    final OServerStats stats = getStats(iServer);
+    synchronized (stats) {
+      final long wait = Math.min((long) backoff << Math.min(stats.failures, 16), MAX_BACKOFF);
+      stats.backedOffUntil = System.currentTimeMillis() + wait;
+      stats.failures++;
+    }
+  }
+
+  /**
+   * Returns the average response time of a server in nanoseconds, 0 if not measured yet.
+   */
+  public long getLatency(final String iServer) {
+    final OServerStats stats = servers.get(iServer);
+    return stats != null ? stats.latency : 0;
+  }
+
+  /**
+   * Returns the number of requests in flight to a server.
+   */
+  public int getInFlight(final String iServer) {
+    final OServerStats stats = servers.get(iServer);
+    return stats != null ? stats.inFlight : 0;
+  }
+
+  public boolean isBackedOff(final String iServer) {
+    final OServerStats stats = servers.get(iServer);
+    return stats != null && stats.isBackedOff(System.currentTimeMillis());
+  }
+
+  /**
+   * Expected time to serve one more request: the servers not measured yet come first, so they're measured.
+   */
+  private double getLoad(final String iServer) {
+    final OServerStats stats = servers.get(iServer);
+    if (stats == null)
+      return 0;
+    return (double) stats.latency * (stats.inFlight + 1);
+  }
+
+  private OServerStats getStats(final String iServer) {
+    OServerStats stats = servers.get(iServer);
+    if (stats == null) {
+      stats = new OServerStats();
+      final OServerStats previous = servers.putIfAbsent(iServer, stats);
+      if (previous != null)
+        stats = previous;
+    }
+    return stats;
+  }
+
+  private static class OServerStats {
+    private volatile long latency;
+    private volatile int  inFlight;
+    private volatile long backedOffUntil;
+    private int           failures;
+
+    private boolean isBackedOff(final long iNow) {
+      return backedOffUntil > iNow;
+    }
+  }
+}
@@ -0,0 +1,226 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.client.remote;
+
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.sql.query.OBasicResultSet;
+import com.orientechnologies.orient.core.sql.query.OCursorResultSet;
+
+import java.io.IOException;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Result of a query kept open on the server by a cursor. The results are received page by page while the result set is browsed:
+ * the iterator fetches the next page when it reaches the end of the results received so far, while the methods that need the
+ * whole result fetch all the remaining pages.
+ *
+ * @see com.orientechnologies.orient.core.config.OGlobalConfiguration#CLIENT_QUERY_FETCH_SIZE
+ */
+public class OStorageRemoteResultSet<T> extends OBasicResultSet<T> implements OCursorResultSet<T> {
+  private static final long    serialVersionUID = 5899127160479239914L;
+  private final OStorageRemote storage;
+  private final int            cursorId;
+  private final int            pageSize;
+  private boolean              more = true;
+  private List<ORecord>        temporaryRecords;
+
+  public OStorageRemoteResultSet(final OStorageRemote iStorage, final int iCursorId, final int iPageSize) {
+    storage = iStorage;
+    cursorId = iCursorId;
+    pageSize = iPageSize;
+  }
+
+  public int getCursorId() {
+    return cursorId;
+  }
+
+  public int getPageSize() {
+    return pageSize;
+  }
+
+  @Override
+  public synchronized boolean hasMore() {
+    return more;
+  }
+
+  @Override
+  public synchronized void close() {
+    if (more) {
+      more = false;
+      storage.closeQueryCursor(cursorId);
+    }
+  }
+
+  @Override
+  public int size() {
+    fetchAll();
+    return super.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return !fetchUntil(0);
+  }
+
+  @Override
+  public boolean contains(final Object o) {
+    fetchAll();
+    return super.contains(o);
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    return new Iterator<T>() {
+      private int index = 0;
+
+      @Override
+      public boolean hasNext() {
+        return fetchUntil(index);
+      }
+
+      @Override
+      public T next() {
+        if (!hasNext())
+          throw new NoSuchElementException("Error on browsing at element " + index + " while the resultset contains only "
+              + underlying.size() + " items");
+
+        return underlying.get(index++);
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException("OStorageRemoteResultSet.iterator.remove()");
+      }
+    };
+  }
+
+  @Override
+  public Object[] toArray() {
+    fetchAll();
+    return super.toArray();
+  }
+
+  @Override
+  public <T1> T1[] toArray(final T1[] a) {
+    fetchAll();
+    return super.toArray(a);
+  }
+
+  @Override
+  public void clear() {
+    close();
+    super.clear();
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    fetchAll();
+    return super.equals(o);
+  }
+
+  @Override
+  public int hashCode() {
+    fetchAll();
+    return super.hashCode();
+  }
+
+  @Override
+  public T get(final int index) {
+    fetchUntil(index);
+    return super.get(index);
+  }
+
+  @Override
+  public ListIterator<T> listIterator() {
+    fetchAll();
+    return super.listIterator();
+  }
+
+  @Override
+  public ListIterator<T> listIterator(final int index) {
+    fetchAll();
+    return super.listIterator(index);
+  }
+
+  @Override
+  public List<T> subList(final int fromIndex, final int toIndex) {
+    fetchUntil(toIndex - 1);
+    return super.subList(fromIndex, toIndex);
+  }
+
+  @Override
+  public void writeExternal(final ObjectOutput out) throws IOException {
+    fetchAll();
+    super.writeExternal(out);
+  }
+
+  @Override
+  public OBasicResultSet<T> copy() {
+    fetchAll();
+    return super.copy();
+  }
+
+  @Override
+  public void setTemporaryRecordCache(final List<ORecord> temporaryRecordCache) {
+    temporaryRecords = temporaryRecordCache;
+    super.setTemporaryRecordCache(temporaryRecordCache);
+  }
+
+  /**
+   * Adds a result received with a page.
+   */
+  @SuppressWarnings("unchecked")
+  protected void addResult(final Object iResult) {
+    underlying.add((T) iResult);
+  }
+
+  /**
+   * Keeps a temporary record received with a page, to avoid its garbage collection while the result set is used.
+   */
+  protected void addTemporaryRecord(final ORecord iRecord) {
+    if (temporaryRecords == null)
+      setTemporaryRecordCache(new ArrayList<ORecord>());
+    temporaryRecords.add(iRecord);
+  }
+
+  protected synchronized void setMore(final boolean iMore) {
+    more = iMore;
+  }
+
+  /**
+   * Fetches the next pages until the result at the index is received.
+   *
+   * @return true if the result at the index exists
+   */
+  private synchronized boolean fetchUntil(final int iIndex) {
+    while (underlying.size() <= iIndex && more)
+      more = storage.fetchQueryCursor(this);
+    return underlying.size() > iIndex;
+  }
+
+  private void fetchAll() {
+    fetchUntil(Integer.MAX_VALUE);
+  }
+}
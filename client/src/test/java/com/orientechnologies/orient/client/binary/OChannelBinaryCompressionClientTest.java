@@ -0,0 +1,105 @@
+package com.orientechnologies.orient.client.binary;
+
+import com.orientechnologies.orient.core.compression.impl.OGZIPCompression;
+import com.orientechnologies.orient.core.config.OContextConfiguration;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinaryProtocol;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import static org.testng.Assert.assertEquals;
+
+public class OChannelBinaryCompressionClientTest {
+  private static final int           SESSION_ID = 5;
+
+  private ServerSocket               serverSocket;
+  private Socket                     server;
+  private DataOutputStream           serverOut;
+  private OChannelBinaryAsynchClient channel;
+
+  @BeforeMethod
+  public void before() throws IOException {
+    serverSocket = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"));
+    final Thread acceptor = new Thread() {
+      @Override
+      public void run() {
+        try {
+          server = serverSocket.accept();
+          serverOut = new DataOutputStream(server.getOutputStream());
+          serverOut.writeShort(OChannelBinaryProtocol.CURRENT_PROTOCOL_VERSION);
+          serverOut.flush();
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    };
+    acceptor.start();
+
+    final OContextConfiguration config = new OContextConfiguration();
+    config.setValue(OGlobalConfiguration.NETWORK_BINARY_COMPRESSION, OGZIPCompression.NAME);
+    channel = new OChannelBinaryAsynchClient("127.0.0.1", serverSocket.getLocalPort(), "test", config,
+        OChannelBinaryProtocol.CURRENT_PROTOCOL_VERSION);
+    try {
+      acceptor.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @AfterMethod
+  public void after() throws IOException {
+    channel.close();
+    server.close();
+    serverSocket.close();
+  }
+
+  @Test
+  public void testRequestedCompression() {
+    assertEquals(channel.getResponseCompression(), OGZIPCompression.NAME);
+  }
+
+  @Test
+  public void testCompressedAndRawResponses() throws IOException {
+    writeCompressedResponse(42);
+    writeRawResponse(43);
+
+    // THE RAW RESPONSE IS READ FROM THE SOCKET AGAIN AFTER THE COMPRESSED ONE
+    channel.beginResponse(SESSION_ID, false);
+    assertEquals(channel.readInt(), 42);
+    channel.endResponse();
+
+    channel.beginResponse(SESSION_ID, false);
+    assertEquals(channel.readInt(), 43);
+    channel.endResponse();
+  }
+
+  private void writeCompressedResponse(final int iValue) throws IOException {
+    final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    final DataOutputStream response = new DataOutputStream(buffer);
+    response.writeByte(OChannelBinaryProtocol.RESPONSE_STATUS_OK);
+    response.writeInt(SESSION_ID);
+    response.writeInt(iValue);
+    final byte[] compressed = OGZIPCompression.INSTANCE.compress(buffer.toByteArray());
+
+    serverOut.writeByte(OChannelBinaryProtocol.RESPONSE_COMPRESSED);
+    serverOut.writeInt(SESSION_ID);
+    serverOut.writeInt(compressed.length);
+    serverOut.write(compressed);
+    serverOut.flush();
+  }
+
+  private void writeRawResponse(final int iValue) throws IOException {
+    serverOut.writeByte(OChannelBinaryProtocol.RESPONSE_STATUS_OK);
+    serverOut.writeInt(SESSION_ID);
+    serverOut.writeInt(iValue);
+    serverOut.flush();
+  }
+}
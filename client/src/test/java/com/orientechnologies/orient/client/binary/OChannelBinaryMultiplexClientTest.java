@@ -0,0 +1,181 @@
+package com.orientechnologies.orient.client.binary;
+
+import com.orientechnologies.orient.client.remote.OStorageRemoteFuture;
+import com.orientechnologies.orient.client.remote.OStorageRemoteOperationRead;
+import com.orientechnologies.orient.client.remote.OStorageRemoteOperationWrite;
+import com.orientechnologies.orient.client.remote.OStorageRemoteSession;
+import com.orientechnologies.orient.core.config.OContextConfiguration;
+import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinaryProtocol;
+import com.orientechnologies.orient.enterprise.channel.binary.ORemoteServerEventListener;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class OChannelBinaryMultiplexClientTest {
+  private static final int              SESSION_ID = 5;
+
+  private ServerSocket                  serverSocket;
+  private Socket                        server;
+  private DataInputStream               serverIn;
+  private DataOutputStream              serverOut;
+  private OChannelBinaryMultiplexClient channel;
+  private OStorageRemoteSession         session;
+  private final AtomicReference<Object> pushed     = new AtomicReference<Object>();
+  private final CountDownLatch          pushLatch  = new CountDownLatch(1);
+
+  @BeforeMethod
+  public void before() throws IOException {
+    serverSocket = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"));
+    final Thread acceptor = new Thread() {
+      @Override
+      public void run() {
+        try {
+          server = serverSocket.accept();
+          serverIn = new DataInputStream(server.getInputStream());
+          serverOut = new DataOutputStream(server.getOutputStream());
+          serverOut.writeShort(OChannelBinaryProtocol.CURRENT_PROTOCOL_VERSION);
+          serverOut.flush();
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    };
+    acceptor.start();
+
+    channel = new OChannelBinaryMultiplexClient("127.0.0.1", serverSocket.getLocalPort(), "test", new OContextConfiguration(),
+        OChannelBinaryProtocol.CURRENT_PROTOCOL_VERSION, new ORemoteServerEventListener() {
+          @Override
+          public void onRequest(byte iRequestCode, Object obj) {
+            pushed.set(obj);
+            pushLatch.countDown();
+          }
+        });
+    try {
+      acceptor.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    session = new OStorageRemoteSession(1);
+    session.getOrCreateServerSession(channel.getServerURL()).setSession(SESSION_ID, new byte[] { 1, 2, 3 });
+  }
+
+  @AfterMethod
+  public void after() throws IOException {
+    channel.close();
+    server.close();
+    serverSocket.close();
+  }
+
+  @Test
+  public void testResponsesOutOfOrder() throws Exception {
+    final OStorageRemoteFuture<Integer> first = sendRequest(10);
+    final OStorageRemoteFuture<Integer> second = sendRequest(20);
+
+    final int firstId = readRequest(10);
+    final int secondId = readRequest(20);
+
+    // THE SECOND REQUEST COMPLETES FIRST
+    writeResponse(secondId, 21);
+    assertEquals(second.get(10, TimeUnit.SECONDS).intValue(), 21);
+    assertFalse(first.isDone());
+
+    writeResponse(firstId, 11);
+    assertEquals(first.get(10, TimeUnit.SECONDS).intValue(), 11);
+    assertEquals(channel.getPendingRequests(), 0);
+  }
+
+  @Test
+  public void testPushMessage() throws Exception {
+    serverOut.writeByte(OChannelBinaryProtocol.PUSH_DATA);
+    serverOut.writeInt(Integer.MIN_VALUE);
+    serverOut.writeByte(OChannelBinaryProtocol.REQUEST_PUSH_LIVE_QUERY);
+    serverOut.writeInt(2);
+    serverOut.write(new byte[] { 7, 8 });
+    serverOut.flush();
+
+    assertTrue(pushLatch.await(10, TimeUnit.SECONDS));
+    assertEquals(((byte[]) pushed.get()).length, 2);
+  }
+
+  @Test
+  public void testCloseFailsPendingRequests() throws Exception {
+    final OStorageRemoteFuture<Integer> response = sendRequest(10);
+    readRequest(10);
+
+    channel.close();
+    try {
+      response.get(10, TimeUnit.SECONDS);
+      fail("The request should fail when the channel is closed");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof IOException);
+    }
+  }
+
+  private OStorageRemoteFuture<Integer> sendRequest(final int iValue) throws IOException {
+    final OStorageRemoteFuture<Integer> response = new OStorageRemoteFuture<Integer>(new OStorageRemoteOperationRead<Integer>() {
+      @Override
+      public Integer execute(OChannelBinaryAsynchClient network, OStorageRemoteSession session) throws IOException {
+        network.beginResponse(SESSION_ID, true);
+        return network.readInt();
+      }
+    }, session);
+
+    channel.sendRequest(new OStorageRemoteOperationWrite() {
+      @Override
+      public void execute(OChannelBinaryAsynchClient network, OStorageRemoteSession session, int mode) throws IOException {
+        network.beginRequest(OChannelBinaryProtocol.REQUEST_RECORD_LOAD, session);
+        network.writeInt(iValue);
+        network.releaseWriteLock();
+      }
+    }, session, 0, response);
+    return response;
+  }
+
+  private int readRequest(final int iExpectedValue) throws IOException {
+    assertEquals(serverIn.readByte(), OChannelBinaryProtocol.REQUEST_MULTIPLEXED);
+    final int requestId = serverIn.readInt();
+    final byte[] request = new byte[serverIn.readInt()];
+    serverIn.readFully(request);
+
+    final DataInputStream in = new DataInputStream(new ByteArrayInputStream(request));
+    assertEquals(in.readByte(), OChannelBinaryProtocol.REQUEST_RECORD_LOAD);
+    assertEquals(in.readInt(), SESSION_ID);
+    in.skipBytes(in.readInt());
+    assertEquals(in.readInt(), iExpectedValue);
+    return requestId;
+  }
+
+  private void writeResponse(final int iRequestId, final int iValue) throws IOException {
+    final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    final DataOutputStream response = new DataOutputStream(buffer);
+    response.writeByte(OChannelBinaryProtocol.RESPONSE_STATUS_OK);
+    response.writeInt(SESSION_ID);
+    response.writeInt(0);
+    response.writeInt(iValue);
+
+    serverOut.writeByte(OChannelBinaryProtocol.RESPONSE_MULTIPLEXED);
+    serverOut.writeInt(iRequestId);
+    serverOut.writeInt(buffer.size());
+    serverOut.write(buffer.toByteArray());
+    serverOut.flush();
+  }
+}
@@ -0,0 +1,104 @@
+package com.orientechnologies.orient.client.remote;
+
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.storage.ORawBuffer;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+public class ORecordNearCacheTest {
+
+  @Test
+  public void testPutAndGet() {
+    final ORecordNearCache cache = new ORecordNearCache(1024);
+    final ORecordId rid = new ORecordId(10, 1);
+    cache.put("admin", rid, new ORawBuffer(new byte[] { 1, 2, 3 }, 4, ODocument.RECORD_TYPE), cache.getInvalidationSerial());
+
+    final ORawBuffer buffer = cache.get("admin", new ORecordId(10, 1));
+    assertNotNull(buffer);
+    assertEquals(buffer.version, 4);
+    assertEquals(buffer.buffer.length, 3);
+    assertEquals(cache.getSize(), 3);
+    assertEquals(cache.getHits(), 1);
+  }
+
+  @Test
+  public void testLeastRecentlyUsedEviction() {
+    final ORecordNearCache cache = new ORecordNearCache(20);
+    for (int i = 0; i < 3; i++)
+      cache.put("admin", new ORecordId(10, i), new ORawBuffer(new byte[8], 1, ODocument.RECORD_TYPE),
+          cache.getInvalidationSerial());
+
+    // THE FIRST RECORD HAS BEEN EVICTED TO STAY UNDER THE MAXIMUM SIZE
+    assertEquals(cache.getCount(), 2);
+    assertEquals(cache.getSize(), 16);
+    assertNull(cache.get("admin", new ORecordId(10, 0)));
+
+    // THE SECOND RECORD IS USED, SO THE THIRD IS EVICTED
+    assertNotNull(cache.get("admin", new ORecordId(10, 1)));
+    cache.put("admin", new ORecordId(10, 3), new ORawBuffer(new byte[8], 1, ODocument.RECORD_TYPE),
+        cache.getInvalidationSerial());
+    assertNotNull(cache.get("admin", new ORecordId(10, 1)));
+    assertNull(cache.get("admin", new ORecordId(10, 2)));
+  }
+
+  @Test
+  public void testInvalidate() {
+    final ORecordNearCache cache = new ORecordNearCache(1024);
+    final ORecordId rid = new ORecordId(10, 1);
+    cache.put("admin", rid, new ORawBuffer(new byte[] { 1 }, 1, ODocument.RECORD_TYPE), cache.getInvalidationSerial());
+
+    cache.invalidate(rid);
+    assertNull(cache.get("admin", rid));
+    assertEquals(cache.getSize(), 0);
+  }
+
+  @Test
+  public void testRecordsAreCachedPerUser() {
+    final ORecordNearCache cache = new ORecordNearCache(1024);
+    final ORecordId rid = new ORecordId(10, 1);
+    cache.put("admin", rid, new ORawBuffer(new byte[] { 1 }, 1, ODocument.RECORD_TYPE), cache.getInvalidationSerial());
+
+    // ANOTHER USER COULD NOT BE ALLOWED TO READ THE RECORD
+    assertNull(cache.get("reader", rid));
+
+    cache.put("reader", rid, new ORawBuffer(new byte[] { 1 }, 1, ODocument.RECORD_TYPE), cache.getInvalidationSerial());
+    assertEquals(cache.getCount(), 2);
+
+    cache.invalidate(rid);
+    assertEquals(cache.getCount(), 0);
+    assertEquals(cache.getSize(), 0);
+  }
+
+  @Test
+  public void testInvalidationReceivedWhileLoading() {
+    final ORecordNearCache cache = new ORecordNearCache(1024);
+    final ORecordId rid = new ORecordId(10, 1);
+
+    final long serial = cache.getInvalidationSerial();
+    cache.invalidate(rid);
+    // THE RECORD LOADED BEFORE THE INVALIDATION IS STALE
+    cache.put("admin", rid, new ORawBuffer(new byte[] { 1 }, 1, ODocument.RECORD_TYPE), serial);
+    assertNull(cache.get("admin", rid));
+
+    cache.put("admin", rid, new ORawBuffer(new byte[] { 1 }, 2, ODocument.RECORD_TYPE), cache.getInvalidationSerial());
+    assertEquals(cache.get("admin", rid).version, 2);
+  }
+
+  @Test
+  public void testClear() {
+    final ORecordNearCache cache = new ORecordNearCache(1024);
+    final long serial = cache.getInvalidationSerial();
+    cache.put("admin", new ORecordId(10, 1), new ORawBuffer(new byte[] { 1 }, 1, ODocument.RECORD_TYPE), serial);
+
+    cache.clear();
+    assertEquals(cache.getCount(), 0);
+
+    // THE LOADS IN FLIGHT ARE NOT CACHED
+    cache.put("admin", new ORecordId(10, 2), new ORawBuffer(new byte[] { 1 }, 1, ODocument.RECORD_TYPE), serial);
+    assertEquals(cache.getCount(), 0);
+  }
+}
@@ -0,0 +1,83 @@
+package com.orientechnologies.orient.client.remote;
+
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class OStorageRemoteLoadBalancerTest {
+  private static final List<String> SERVERS = Arrays.asList("a:2424/db", "b:2424/db", "c:2424/db");
+
+  @Test
+  public void testSlowServerAvoided() {
+    final OStorageRemoteLoadBalancer balancer = new OStorageRemoteLoadBalancer(1000);
+    sample(balancer, "a:2424/db", 1000000);
+    sample(balancer, "b:2424/db", 1000000);
+    sample(balancer, "c:2424/db", 100000000);
+
+    int slow = 0;
+    for (int i = 0; i < 1000; i++)
+      if (balancer.choose(SERVERS).equals("c:2424/db"))
+        slow++;
+
+    // THE SLOW SERVER IS CHOSEN ONLY WHEN BOTH THE CANDIDATES ARE THE SLOW ONE, THAT NEVER HAPPENS
+    assertEquals(slow, 0);
+  }
+
+  @Test
+  public void testRequestsInFlight() {
+    final OStorageRemoteLoadBalancer balancer = new OStorageRemoteLoadBalancer(1000);
+    final List<String> servers = Arrays.asList("a:2424/db", "b:2424/db");
+    sample(balancer, "a:2424/db", 1000000);
+    sample(balancer, "b:2424/db", 2000000);
+    assertEquals(balancer.choose(servers), "a:2424/db");
+
+    // THE FASTER SERVER IS BUSY
+    final long first = balancer.begin("a:2424/db");
+    final long second = balancer.begin("a:2424/db");
+    assertEquals(balancer.getInFlight("a:2424/db"), 2);
+    assertEquals(balancer.choose(servers), "b:2424/db");
+
+    balancer.end("a:2424/db", first, false);
+    balancer.end("a:2424/db", second, false);
+    assertEquals(balancer.getInFlight("a:2424/db"), 0);
+    assertEquals(balancer.choose(servers), "a:2424/db");
+  }
+
+  @Test
+  public void testBackoff() throws InterruptedException {
+    final OStorageRemoteLoadBalancer balancer = new OStorageRemoteLoadBalancer(100);
+    final List<String> servers = Arrays.asList("a:2424/db", "b:2424/db");
+    sample(balancer, "a:2424/db", 1000000);
+    sample(balancer, "b:2424/db", 2000000);
+
+    balancer.failed("a:2424/db");
+    assertTrue(balancer.isBackedOff("a:2424/db"));
+    for (int i = 0; i < 100; i++)
+      assertEquals(balancer.choose(servers), "b:2424/db");
+
+    // ALL THE SERVERS BACKED OFF: ONE IS CHOSEN ANYWAY
+    balancer.failed("b:2424/db");
+    assertTrue(servers.contains(balancer.choose(servers)));
+
+    Thread.sleep(250);
+    assertFalse(balancer.isBackedOff("a:2424/db"));
+    assertEquals(balancer.choose(servers), "a:2424/db");
+  }
+
+  @Test
+  public void testServerNotMeasuredFirst() {
+    final OStorageRemoteLoadBalancer balancer = new OStorageRemoteLoadBalancer(1000);
+    final List<String> servers = Arrays.asList("a:2424/db", "b:2424/db");
+    sample(balancer, "a:2424/db", 1000000);
+    assertEquals(balancer.choose(servers), "b:2424/db");
+  }
+
+  private static void sample(final OStorageRemoteLoadBalancer iBalancer, final String iServer, final long iLatency) {
+    iBalancer.end(iServer, iBalancer.begin(iServer) - iLatency, true);
+  }
+}
@@ -24,34 +24,59 @@ import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.sql.parser.OOrderBy;
 import com.orientechnologies.orient.core.sql.parser.OOrderByItem;
 
-import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Iterator;
-import java.util.List;
-
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Merges iterators that are already sorted by the same ORDER BY into a single sorted iterator. The items are pulled lazily from
+ * the sources, so the caller can stop as soon as it has enough results (eg. LIMIT) without browsing the sources entirely. The next
+ * item is picked by an heap of the source heads, so each step costs O(log N) with N the number of sources.
+ * <p>
+ * Null values come after any other value, regardless of the direction of the ordering.
+ */
 public class OSortedMultiIterator<T extends OIdentifiable> implements Iterator<T> {
 
-  private static final int  STATUS_INIT     = 0;
-  private static final int  STATUS_RUNNING  = 1;
+  private static final int STATUS_INIT    = 0;
+  private static final int STATUS_RUNNING = 1;
 
-  private final OOrderBy    orderBy;
+  private final OOrderBy orderBy;
 
-  private List<Iterator<T>> sourceIterators = new ArrayList<Iterator<T>>();
-  private List<T>           heads           = new ArrayList<T>();
+  private final PriorityQueue<Head<T>> heads;
+  private int                          sources = 0;
 
-  private int               status          = STATUS_INIT;
+  private int status = STATUS_INIT;
+
+  private static final class Head<T> {
+    private final Iterator<T> iterator;
+    private final int         position;
+    private T                 value;
+
+    private Head(final Iterator<T> iterator, final int position) {
+      this.iterator = iterator;
+      this.position = position;
+    }
+  }
 
   public OSortedMultiIterator(OOrderBy orderBy) {
     this.orderBy = orderBy;
-
+    this.heads = new PriorityQueue<Head<T>>(11, new Comparator<Head<T>>() {
+      @Override
+      public int compare(final Head<T> o1, final Head<T> o2) {
+        final int result = OSortedMultiIterator.this.compare(o1.value, o2.value);
+        // ON EQUAL VALUES KEEP THE ORDER OF THE SOURCES
+        return result != 0 ? result : o1.position - o2.position;
+      }
+    });
   }
 
   public void add(Iterator<T> iterator) {
     if (status == STATUS_INIT) {
-      sourceIterators.add(iterator);
+      final Head<T> head = new Head<T>(iterator, sources++);
       if (iterator.hasNext()) {
-        heads.add(iterator.next());
-      } else {
-        heads.add(null);
+        head.value = iterator.next();
+        heads.offer(head);
       }
     } else {
       throw new IllegalStateException("You are trying to add a sub-iterator on a running OSortedMultiIterator");
@@ -63,12 +88,7 @@ public class OSortedMultiIterator<T extends OIdentifiable> implements Iterator<T
     if (status == STATUS_INIT) {
       status = STATUS_RUNNING;
     }
-    for (T o : heads) {
-      if (o != null) {
-        return true;
-      }
-    }
-    return false;
+    return !heads.isEmpty();
   }
 
   @Override
@@ -76,33 +96,19 @@ public class OSortedMultiIterator<T extends OIdentifiable> implements Iterator<T
     if (status == STATUS_INIT) {
       status = STATUS_RUNNING;
     }
-    int nextItemPosition = findNextPosition();
-    T result = heads.get(nextItemPosition);
-    if (sourceIterators.get(nextItemPosition).hasNext()) {
-      heads.set(nextItemPosition, sourceIterators.get(nextItemPosition).next());
-    } else {
-      heads.set(nextItemPosition, null);
+    final Head<T> head = heads.poll();
+    if (head == null) {
+      throw new NoSuchElementException();
     }
-    return result;
-  }
 
-  private int findNextPosition() {
-    int lastPosition = 0;
-    while (heads.size() < lastPosition && heads.get(lastPosition) == null) {
-      lastPosition++;
-    }
-    T lastItem = heads.get(lastPosition);
-    for (int i = lastPosition + 1; i < heads.size(); i++) {
-      T item = heads.get(i);
-      if (item == null) {
-        continue;
-      }
-      if (comesFrist(item, lastItem)) {
-        lastItem = item;
-        lastPosition = i;
-      }
+    final T result = head.value;
+    if (head.iterator.hasNext()) {
+      head.value = head.iterator.next();
+      heads.offer(head);
+    } else {
+      head.value = null;
     }
-    return lastPosition;
+    return result;
   }
 
   protected boolean comesFrist(T left, T right) {
@@ -115,6 +121,18 @@ public class OSortedMultiIterator<T extends OIdentifiable> implements Iterator<T
     if (left == null) {
       return false;
     }
+    return compare(left, right) < 0;
+  }
+
+  /**
+   * Compares two items according to the ORDER BY.
+   *
+   * @return a negative number if left comes first, a positive one if right comes first, 0 if they are equivalent
+   */
+  protected int compare(T left, T right) {
+    if (orderBy == null || orderBy.getItems() == null || orderBy.getItems().size() == 0) {
+      return 0;
+    }
 
     ODocument leftDoc = (left instanceof ODocument) ? (ODocument) left : (ODocument) left.getRecord();
     ODocument rightDoc = (right instanceof ODocument) ? (ODocument) right : (ODocument) right.getRecord();
@@ -122,27 +140,26 @@ public class OSortedMultiIterator<T extends OIdentifiable> implements Iterator<T
     for (OOrderByItem orderItem : orderBy.getItems()) {
       Object leftVal = leftDoc.field(orderItem.getRecordAttr());
       Object rightVal = rightDoc.field(orderItem.getRecordAttr());
+      if (leftVal == null && rightVal == null) {
+        continue;
+      }
       if (rightVal == null) {
-        return true;
+        return -1;
       }
       if (leftVal == null) {
-        return false;
+        return 1;
       }
-      if (leftVal instanceof Comparable) {
-        int compare = ((Comparable) leftVal).compareTo(rightVal);
-        if (compare == 0) {
-          continue;
-        }
-        boolean greater = compare > 0;
-        if (OOrderByItem.DESC.equals(orderItem.getType())) {
-          return greater;
-        } else {
-          return !greater;
-        }
+      if (!(leftVal instanceof Comparable)) {
+        continue;
+      }
+      int compare = ((Comparable) leftVal).compareTo(rightVal);
+      if (compare == 0) {
+        continue;
       }
+      return OOrderByItem.DESC.equals(orderItem.getType()) ? -compare : compare;
     }
 
-    return false;
+    return 0;
   }
 
   public void remove() {
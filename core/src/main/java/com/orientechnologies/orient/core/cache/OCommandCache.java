@@ -20,6 +20,7 @@
 package com.orientechnologies.orient.core.cache;
 
 import com.orientechnologies.orient.core.metadata.security.OSecurityUser;
+import com.orientechnologies.orient.core.record.ORecord;
 
 import java.util.Set;
 
@@ -67,6 +68,14 @@ public interface OCommandCache {
    */
   void put(OSecurityUser iUser, String queryText, Object iResult, int iLimit, Set<String> iInvolvedClusters, long iExecutionTime);
 
+  /**
+   * Pushes record to cache together with the dependencies collected during the execution. The dependencies are used only by the
+   * {@link STRATEGY#PER_RECORD} strategy, in all the other cases this is equivalent to
+   * {@link #put(OSecurityUser, String, Object, int, Set, long)}.
+   */
+  void put(OSecurityUser iUser, String queryText, Object iResult, int iLimit, Set<String> iInvolvedClusters,
+      OCommandCacheDependencies iDependencies, long iExecutionTime);
+
   /**
    * Removes result of query.
    **/
@@ -92,11 +101,21 @@ public interface OCommandCache {
    */
   void invalidateResultsOfCluster(final String iCluster);
 
+  /**
+   * Invalidates the results that depend on the record just created, updated or deleted.
+   *
+   * @param iCluster
+   *          Name of the cluster of the record
+   * @param iRecord
+   *          The changed record
+   */
+  void invalidateResultsOfRecord(final String iCluster, final ORecord iRecord);
+
   int getMaxResultsetSize();
 
   STRATEGY getEvictStrategy();
 
   public enum STRATEGY {
-    INVALIDATE_ALL, PER_CLUSTER
+    INVALIDATE_ALL, PER_CLUSTER, PER_RECORD
   }
 }
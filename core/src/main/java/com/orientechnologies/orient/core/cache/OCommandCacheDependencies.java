@@ -0,0 +1,192 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.cache;
+
+import com.orientechnologies.common.comparator.ODefaultComparator;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.index.OIndex;
+import com.orientechnologies.orient.core.index.OIndexDefinition;
+
+import java.util.*;
+
+/**
+ * Dependencies of a cached command result, used by the {@link OCommandCache.STRATEGY#PER_RECORD} strategy. A result depends on:
+ * <ul>
+ * <li>the clusters it browsed, any change on them invalidates the result</li>
+ * <li>the records it read through indexes, any change on them invalidates the result</li>
+ * <li>the index key ranges it looked up, the creation or the update of a record with a key in one of these ranges invalidates the
+ * result</li>
+ * </ul>
+ * If the number of read records exceeds the configured maximum, the tracking of records is abandoned and the result depends on the
+ * involved clusters.
+ */
+public class OCommandCacheDependencies {
+  private final int                           maxRecords;
+  private final Set<String>                   clusters    = new HashSet<String>();
+  private final Set<ORID>                     records     = new HashSet<ORID>();
+  private final Map<String, List<OKeyRange>>  indexes     = new HashMap<String, List<OKeyRange>>();
+  private final Map<String, OIndexDefinition> definitions = new HashMap<String, OIndexDefinition>();
+  private boolean                             overflow    = false;
+
+  /**
+   * Range of index keys, null boundaries mean unbounded.
+   */
+  public static class OKeyRange {
+    private final Object  from;
+    private final boolean fromInclusive;
+    private final Object  to;
+    private final boolean toInclusive;
+
+    public OKeyRange(final Object iFrom, final boolean iFromInclusive, final Object iTo, final boolean iToInclusive) {
+      from = iFrom;
+      fromInclusive = iFromInclusive;
+      to = iTo;
+      toInclusive = iToInclusive;
+    }
+
+    public boolean contains(final Object iKey) {
+      if (iKey == null)
+        return from == null && to == null;
+
+      if (from != null) {
+        final int cmp = ODefaultComparator.INSTANCE.compare(iKey, from);
+        if (cmp < 0 || (cmp == 0 && !fromInclusive))
+          return false;
+      }
+
+      if (to != null) {
+        final int cmp = ODefaultComparator.INSTANCE.compare(iKey, to);
+        if (cmp > 0 || (cmp == 0 && !toInclusive))
+          return false;
+      }
+
+      return true;
+    }
+
+    @Override
+    public String toString() {
+      return (fromInclusive ? "[" : "(") + from + "," + to + (toInclusive ? "]" : ")");
+    }
+  }
+
+  public OCommandCacheDependencies(final int iMaxRecords) {
+    maxRecords = iMaxRecords;
+  }
+
+  public void addCluster(final String iCluster) {
+    if (iCluster != null)
+      clusters.add(iCluster.toLowerCase());
+  }
+
+  public void addClusters(final Collection<String> iClusters) {
+    if (iClusters != null)
+      for (String c : iClusters)
+        addCluster(c);
+  }
+
+  /**
+   * Registers a record read by the command.
+   *
+   * @return false if the maximum number of tracked records has been reached
+   */
+  public boolean addRecord(final ORID iRID) {
+    if (overflow)
+      return false;
+
+    if (records.size() >= maxRecords) {
+      // TOO MANY RECORDS: FALL BACK TO THE CLUSTERS
+      overflow = true;
+      records.clear();
+      return false;
+    }
+
+    if (iRID.isPersistent())
+      records.add(iRID.copy());
+    return true;
+  }
+
+  public void addIndexRange(final OIndex<?> iIndex, final Object iFrom, final boolean iFromInclusive, final Object iTo,
+      final boolean iToInclusive) {
+    List<OKeyRange> ranges = indexes.get(iIndex.getName());
+    if (ranges == null) {
+      ranges = new ArrayList<OKeyRange>();
+      indexes.put(iIndex.getName(), ranges);
+      definitions.put(iIndex.getName(), iIndex.getDefinition());
+    }
+    ranges.add(new OKeyRange(iFrom, iFromInclusive, iTo, iToInclusive));
+  }
+
+  public void addIndexKey(final OIndex<?> iIndex, final Object iKey) {
+    addIndexRange(iIndex, iKey, true, iKey, true);
+  }
+
+  /**
+   * Registers a lookup on the whole index: any record indexed by it invalidates the result.
+   */
+  public void addIndexAnyKey(final OIndex<?> iIndex) {
+    addIndexRange(iIndex, null, true, null, true);
+  }
+
+  public boolean isOverflow() {
+    return overflow;
+  }
+
+  public Set<String> getClusters() {
+    return clusters;
+  }
+
+  public Set<ORID> getRecords() {
+    return records;
+  }
+
+  public Set<String> getIndexes() {
+    return indexes.keySet();
+  }
+
+  public OIndexDefinition getIndexDefinition(final String iIndexName) {
+    return definitions.get(iIndexName);
+  }
+
+  /**
+   * Tells if a key of the index is contained in one of the tracked ranges. Multi-value keys match if any of their items matches.
+   */
+  public boolean containsIndexKey(final String iIndexName, final Object iKey) {
+    final List<OKeyRange> ranges = indexes.get(iIndexName);
+    if (ranges == null)
+      return false;
+
+    if (iKey instanceof Collection<?>) {
+      for (Object k : (Collection<?>) iKey)
+        if (containsIndexKey(iIndexName, k))
+          return true;
+      return false;
+    }
+
+    for (OKeyRange range : ranges)
+      if (range.contains(iKey))
+        return true;
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return "clusters=" + clusters + " records=" + records.size() + " indexes=" + indexes + (overflow ? " (overflow)" : "");
+  }
+}
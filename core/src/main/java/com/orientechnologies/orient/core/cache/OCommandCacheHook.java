@@ -71,7 +71,9 @@ public class OCommandCacheHook extends ORecordHookAbstract implements ORecordHoo
   }
 
   protected void invalidateCache(final ORecord iRecord) {
-    if (cmdCache.getEvictStrategy() == OCommandCacheSoftRefs.STRATEGY.PER_CLUSTER)
+    if (cmdCache.getEvictStrategy() == OCommandCacheSoftRefs.STRATEGY.PER_RECORD)
+      cmdCache.invalidateResultsOfRecord(database.getClusterNameById(iRecord.getIdentity().getClusterId()), iRecord);
+    else if (cmdCache.getEvictStrategy() == OCommandCacheSoftRefs.STRATEGY.PER_CLUSTER)
       cmdCache.invalidateResultsOfCluster(database.getClusterNameById(iRecord.getIdentity().getClusterId()));
     else
       cmdCache.invalidateResultsOfCluster(null);
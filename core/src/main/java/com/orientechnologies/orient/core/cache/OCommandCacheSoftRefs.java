@@ -28,22 +28,26 @@ import com.orientechnologies.common.profiler.OProfiler;
 import com.orientechnologies.orient.core.Orient;
 import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.exception.OConfigurationException;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.index.OIndexDefinition;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
 import com.orientechnologies.orient.core.metadata.security.OSecurityUser;
 import com.orientechnologies.orient.core.record.ORecord;
 import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.record.impl.ODocumentInternal;
 import com.orientechnologies.orient.core.sql.query.OResultSet;
 import com.orientechnologies.orient.core.storage.OStorage;
 import com.orientechnologies.orient.core.storage.impl.local.paginated.OLocalPaginatedStorage;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 
 /**
- * Command cache implementation that uses Soft references to avoid overloading Java Heap.
+ * Command cache implementation. The results are kept in a LRU map bounded by the total number of cached records
+ * ({@link OGlobalConfiguration#COMMAND_CACHE_MAX_CACHED_RECORDS}): when the limit is exceeded the least recently used results are
+ * evicted. Results are invalidated by cluster ({@link STRATEGY#PER_CLUSTER}), all together ({@link STRATEGY#INVALIDATE_ALL}) or
+ * only when a changed record intersects their dependencies ({@link STRATEGY#PER_RECORD}).
  * 
  * @author Luca Garulli
  */
@@ -54,33 +58,61 @@ public class OCommandCacheSoftRefs implements OCommandCache {
   ODocument      configuration;
 
   public static class OCachedResult {
-    Object      result;
-    Set<String> involvedClusters;
+    Object                    result;
+    Set<String>               involvedClusters;
+    OCommandCacheDependencies dependencies;
+    int                       size = 1;
 
     public OCachedResult(final Object result, final Set<String> involvedClusters) {
       this.involvedClusters = involvedClusters;
       this.result = result;
     }
 
+    public OCachedResult(final Object result, final Set<String> involvedClusters, final OCommandCacheDependencies dependencies,
+        final int size) {
+      this(result, involvedClusters);
+      this.dependencies = dependencies;
+      this.size = size;
+    }
+
     protected void clear() {
       result = null;
       involvedClusters = null;
+      dependencies = null;
     }
 
     public Object getResult() {
       return result;
     }
+
+    public OCommandCacheDependencies getDependencies() {
+      return dependencies;
+    }
   }
 
-  private class OCommandCacheImplRefs extends OSoftRefsHashMap<String, OCachedResult> {
+  private class OCommandCacheImplLRU extends LinkedHashMap<String, OCachedResult> {
+    public OCommandCacheImplLRU() {
+      super(16, 0.75f, true);
+    }
   }
 
-  private final String          databaseName;
-  private Set<String>           clusters         = new HashSet<String>();
-  private volatile boolean      enable           = OGlobalConfiguration.COMMAND_CACHE_ENABLED.getValueAsBoolean();
-  private OCommandCacheImplRefs cache            = new OCommandCacheImplRefs();
-  private int                   minExecutionTime = OGlobalConfiguration.COMMAND_CACHE_MIN_EXECUTION_TIME.getValueAsInteger();
-  private int                   maxResultsetSize = OGlobalConfiguration.COMMAND_CACHE_MAX_RESULSET_SIZE.getValueAsInteger();
+  private final String                                 databaseName;
+  private volatile boolean                             enable              = OGlobalConfiguration.COMMAND_CACHE_ENABLED
+      .getValueAsBoolean();
+  private OCommandCacheImplLRU                         cache               = new OCommandCacheImplLRU();
+  private long                                         cachedRecords       = 0;
+  // REVERSE MAPS TO FIND THE RESULTS TO INVALIDATE WITHOUT BROWSING THE WHOLE CACHE
+  private final Map<String, Set<String>>               keysByCluster       = new HashMap<String, Set<String>>();
+  private final Map<ORID, Set<String>>                 keysByRecord        = new HashMap<ORID, Set<String>>();
+  private final Map<String, Set<String>>               keysByIndex         = new HashMap<String, Set<String>>();
+  private final Set<String>                            unboundKeys         = new HashSet<String>();
+  private final Map<String, OCommandCacheDependencies> indexedDependencies = new HashMap<String, OCommandCacheDependencies>();
+  private int                                          minExecutionTime    = OGlobalConfiguration.COMMAND_CACHE_MIN_EXECUTION_TIME
+      .getValueAsInteger();
+  private int                                          maxResultsetSize    = OGlobalConfiguration.COMMAND_CACHE_MAX_RESULSET_SIZE
+      .getValueAsInteger();
+  private int                                          maxCachedRecords    = OGlobalConfiguration.COMMAND_CACHE_MAX_CACHED_RECORDS
+      .getValueAsInteger();
 
   private STRATEGY              evictStrategy    = STRATEGY
       .valueOf(OGlobalConfiguration.COMMAND_CACHE_EVICT_STRATEGY.getValueAsString());
@@ -98,6 +130,7 @@ public class OCommandCacheSoftRefs implements OCommandCache {
     configuration.field("evictStrategy", evictStrategy.toString());
     configuration.field("minExecutionTime", minExecutionTime);
     configuration.field("maxResultsetSize", maxResultsetSize);
+    configuration.field("maxCachedRecords", maxCachedRecords);
     try {
       ODocument diskConfig = loadConfiguration();
       if (diskConfig != null) {
@@ -139,6 +172,9 @@ public class OCommandCacheSoftRefs implements OCommandCache {
     evictStrategy = STRATEGY.valueOf(evict);
     minExecutionTime = configuration.field("minExecutionTime");
     maxResultsetSize = configuration.field("maxResultsetSize");
+    final Integer maxRecords = configuration.field("maxCachedRecords");
+    if (maxRecords != null)
+      maxCachedRecords = maxRecords;
   }
 
   private boolean updateCfgOnDisk() throws IOException {
@@ -218,8 +254,7 @@ public class OCommandCacheSoftRefs implements OCommandCache {
   public OCommandCacheSoftRefs disable() {
     enable = false;
     synchronized (this) {
-      clusters.clear();
-      cache.clear();
+      clearInternal();
     }
     configuration.field("enabled", true);
 
@@ -282,6 +317,12 @@ public class OCommandCacheSoftRefs implements OCommandCache {
   @Override
   public void put(final OSecurityUser iUser, final String queryText, final Object iResult, final int iLimit,
       Set<String> iInvolvedClusters, final long iExecutionTime) {
+    put(iUser, queryText, iResult, iLimit, iInvolvedClusters, null, iExecutionTime);
+  }
+
+  @Override
+  public void put(final OSecurityUser iUser, final String queryText, final Object iResult, final int iLimit,
+      Set<String> iInvolvedClusters, OCommandCacheDependencies iDependencies, final long iExecutionTime) {
     if (queryText == null || iResult == null)
       // SKIP IT
       return;
@@ -302,20 +343,26 @@ public class OCommandCacheSoftRefs implements OCommandCache {
         return;
     }
 
-    if (evictStrategy != STRATEGY.PER_CLUSTER)
+    if (evictStrategy == STRATEGY.INVALIDATE_ALL)
       iInvolvedClusters = null;
 
+    if (evictStrategy != STRATEGY.PER_RECORD)
+      iDependencies = null;
+
     synchronized (this) {
       final String key = getKey(iUser, queryText, iLimit);
-      final OCachedResult value = new OCachedResult(iResult, iInvolvedClusters);
+      final OCachedResult value = new OCachedResult(iResult, iInvolvedClusters, iDependencies, Math.max(1, resultsetSize));
 
       if (OLogManager.instance().isDebugEnabled())
-        OLogManager.instance().debug(this, "Storing resultset in cache size=%d", resultsetSize);
+        OLogManager.instance().debug(this, "Storing resultset in cache size=%d dependencies=%s", resultsetSize, iDependencies);
+
+      removeEntry(key);
 
       cache.put(key, value);
+      cachedRecords += value.size;
+      indexEntry(key, value);
 
-      if (iInvolvedClusters != null)
-        clusters.addAll(iInvolvedClusters);
+      evictEntries();
     }
   }
 
@@ -326,15 +373,14 @@ public class OCommandCacheSoftRefs implements OCommandCache {
 
     synchronized (this) {
       final String key = getKey(iUser, queryText, iLimit);
-      cache.remove(key);
+      removeEntry(key);
     }
   }
 
   @Override
   public OCommandCacheSoftRefs clear() {
     synchronized (this) {
-      cache = new OCommandCacheImplRefs();
-      clusters.clear();
+      clearInternal();
     }
     return this;
   }
@@ -355,35 +401,202 @@ public class OCommandCacheSoftRefs implements OCommandCache {
       if (cache.size() == 0)
         return;
 
-      if (evictStrategy == STRATEGY.INVALIDATE_ALL) {
+      if (evictStrategy == STRATEGY.INVALIDATE_ALL || iCluster == null) {
         if (OLogManager.instance().isDebugEnabled())
           OLogManager.instance().debug(this, "Invalidate all cached results (%d)", size());
 
-        clear();
+        updateCounter("queryCache.invalidated", "Results invalidated in Query Cache", cache.size());
+        clearInternal();
         return;
       }
 
-      if (!clusters.remove(iCluster)) {
+      final Set<String> toInvalidate = new HashSet<String>(unboundKeys);
+      final Set<String> clusterKeys = keysByCluster.get(iCluster.toLowerCase());
+      if (clusterKeys != null)
+        toInvalidate.addAll(clusterKeys);
+
+      if (evictStrategy == STRATEGY.PER_RECORD)
+        // THE RECORD IS UNKNOWN: INVALIDATE ALSO THE RESULTS READ BY INDEX FROM THE CLUSTER
+        toInvalidate.addAll(indexedDependencies.keySet());
+
+      if (toInvalidate.isEmpty()) {
         // NOT CONTAINED, AVOID COSTLY BROWSING OF RESULTS
         if (OLogManager.instance().isDebugEnabled())
           OLogManager.instance().debug(this, "No results found for '%s'", iCluster);
         return;
       }
 
-      int evicted = 0;
-      for (Iterator<Map.Entry<String, OCachedResult>> it = cache.entrySet().iterator(); it.hasNext();) {
-        final OCachedResult cached = it.next().getValue();
-        if (cached != null) {
-          if (cached.involvedClusters == null || cached.involvedClusters.isEmpty() || cached.involvedClusters.contains(iCluster)) {
-            cached.clear();
-            it.remove();
+      invalidate(toInvalidate);
+
+      if (OLogManager.instance().isDebugEnabled())
+        OLogManager.instance().debug(this, "Invalidate %d cached results associated to the cluster '%s'", toInvalidate.size(),
+            iCluster);
+    }
+  }
+
+  @Override
+  public void invalidateResultsOfRecord(final String iCluster, final ORecord iRecord) {
+    if (!enable)
+      return;
+
+    if (evictStrategy != STRATEGY.PER_RECORD) {
+      invalidateResultsOfCluster(evictStrategy == STRATEGY.PER_CLUSTER ? iCluster : null);
+      return;
+    }
+
+    synchronized (this) {
+      if (cache.size() == 0)
+        return;
+
+      final Set<String> toInvalidate = new HashSet<String>(unboundKeys);
+
+      if (iCluster != null) {
+        final Set<String> clusterKeys = keysByCluster.get(iCluster.toLowerCase());
+        if (clusterKeys != null)
+          toInvalidate.addAll(clusterKeys);
+      }
+
+      final Set<String> recordKeys = keysByRecord.get(iRecord.getIdentity());
+      if (recordKeys != null)
+        toInvalidate.addAll(recordKeys);
+
+      if (iRecord instanceof ODocument && !keysByIndex.isEmpty()) {
+        // CHECK IF THE NEW INDEXED VALUES OF THE RECORD FALL IN THE RANGES READ BY THE CACHED RESULTS
+        final ODocument doc = (ODocument) iRecord;
+        final OClass cls = ODocumentInternal.getImmutableSchemaClass(doc);
+        if (cls != null)
+          for (Map.Entry<String, Set<String>> entry : keysByIndex.entrySet()) {
+            OIndexDefinition definition = null;
+            Object indexKey = null;
+            for (String key : entry.getValue()) {
+              if (toInvalidate.contains(key))
+                continue;
+
+              final OCommandCacheDependencies dependencies = indexedDependencies.get(key);
+              if (definition == null) {
+                definition = dependencies.getIndexDefinition(entry.getKey());
+                if (definition == null || definition.getClassName() == null || !cls.isSubClassOf(definition.getClassName()))
+                  break;
+                indexKey = definition.getDocumentValueToIndex(doc);
+              }
+
+              if (dependencies.containsIndexKey(entry.getKey(), indexKey))
+                toInvalidate.add(key);
+            }
           }
-        }
       }
 
-      if (evicted > 0 && OLogManager.instance().isDebugEnabled())
-        OLogManager.instance().debug(this, "Invalidate %d cached results associated to the cluster '%s'", evicted, iCluster);
+      if (!toInvalidate.isEmpty()) {
+        invalidate(toInvalidate);
+
+        if (OLogManager.instance().isDebugEnabled())
+          OLogManager.instance().debug(this, "Invalidate %d cached results associated to the record %s", toInvalidate.size(),
+              iRecord.getIdentity());
+      }
+    }
+  }
+
+  private void invalidate(final Set<String> iKeys) {
+    for (String key : iKeys)
+      removeEntry(key);
+
+    updateCounter("queryCache.invalidated", "Results invalidated in Query Cache", iKeys.size());
+  }
+
+  private void evictEntries() {
+    int evicted = 0;
+    while (cachedRecords > maxCachedRecords && cache.size() > 1) {
+      // THE FIRST ENTRY IS THE LEAST RECENTLY USED
+      final String eldest = cache.keySet().iterator().next();
+      removeEntry(eldest);
+      evicted++;
+    }
+
+    if (evicted > 0) {
+      if (OLogManager.instance().isDebugEnabled())
+        OLogManager.instance().debug(this, "Evicted %d cached results (cachedRecords=%d)", evicted, cachedRecords);
+      updateCounter("queryCache.evicted", "Results evicted from Query Cache", evicted);
+    }
+  }
+
+  private void indexEntry(final String iKey, final OCachedResult iValue) {
+    if (evictStrategy == STRATEGY.INVALIDATE_ALL)
+      return;
+
+    final OCommandCacheDependencies dependencies = iValue.dependencies;
+    if (dependencies != null) {
+      for (String c : dependencies.getClusters())
+        addReverseKey(keysByCluster, c, iKey);
+      for (ORID rid : dependencies.getRecords())
+        addReverseKey(keysByRecord, rid, iKey);
+      for (String idx : dependencies.getIndexes())
+        addReverseKey(keysByIndex, idx, iKey);
+      if (!dependencies.getIndexes().isEmpty())
+        indexedDependencies.put(iKey, dependencies);
+
+    } else if (iValue.involvedClusters == null || iValue.involvedClusters.isEmpty())
+      unboundKeys.add(iKey);
+    else
+      for (String c : iValue.involvedClusters)
+        addReverseKey(keysByCluster, c.toLowerCase(), iKey);
+  }
+
+  private void removeEntry(final String iKey) {
+    final OCachedResult value = cache.remove(iKey);
+    if (value == null)
+      return;
+
+    cachedRecords -= value.size;
+
+    unboundKeys.remove(iKey);
+    final OCommandCacheDependencies dependencies = value.dependencies;
+    if (dependencies != null) {
+      for (String c : dependencies.getClusters())
+        removeReverseKey(keysByCluster, c, iKey);
+      for (ORID rid : dependencies.getRecords())
+        removeReverseKey(keysByRecord, rid, iKey);
+      for (String idx : dependencies.getIndexes())
+        removeReverseKey(keysByIndex, idx, iKey);
+      indexedDependencies.remove(iKey);
+    } else if (value.involvedClusters != null)
+      for (String c : value.involvedClusters)
+        removeReverseKey(keysByCluster, c.toLowerCase(), iKey);
+
+    value.clear();
+  }
+
+  private void clearInternal() {
+    cache = new OCommandCacheImplLRU();
+    cachedRecords = 0;
+    keysByCluster.clear();
+    keysByRecord.clear();
+    keysByIndex.clear();
+    unboundKeys.clear();
+    indexedDependencies.clear();
+  }
+
+  private static <K> void addReverseKey(final Map<K, Set<String>> iMap, final K iDependency, final String iKey) {
+    Set<String> keys = iMap.get(iDependency);
+    if (keys == null) {
+      keys = new HashSet<String>();
+      iMap.put(iDependency, keys);
     }
+    keys.add(iKey);
+  }
+
+  private static <K> void removeReverseKey(final Map<K, Set<String>> iMap, final K iDependency, final String iKey) {
+    final Set<String> keys = iMap.get(iDependency);
+    if (keys != null) {
+      keys.remove(iKey);
+      if (keys.isEmpty())
+        iMap.remove(iDependency);
+    }
+  }
+
+  private void updateCounter(final String iMetric, final String iDescription, final long iDelta) {
+    final OProfiler profiler = Orient.instance().getProfiler();
+    if (profiler.isRecording())
+      profiler.updateCounter(profiler.getDatabaseMetric(databaseName, iMetric), iDescription, iDelta);
   }
 
   public int getMinExecutionTime() {
@@ -405,6 +618,18 @@ public class OCommandCacheSoftRefs implements OCommandCache {
     return this;
   }
 
+  public int getMaxCachedRecords() {
+    return maxCachedRecords;
+  }
+
+  public OCommandCacheSoftRefs setMaxCachedRecords(final int maxCachedRecords) {
+    synchronized (this) {
+      this.maxCachedRecords = maxCachedRecords;
+      evictEntries();
+    }
+    return this;
+  }
+
   @Override
   public STRATEGY getEvictStrategy() {
     return evictStrategy;
@@ -0,0 +1,40 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.compression;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Persistent storage of the dictionaries used by a compression that compresses the records against a shared dictionary. Every
+ * storage component that uses such a compression provides its own store.
+ */
+public interface OCompressionDictionaryStore {
+  /**
+   * @return the stored dictionaries, the dictionary with version <code>n</code> is at index <code>n - 1</code>
+   */
+  List<byte[]> loadDictionaries() throws IOException;
+
+  /**
+   * Stores a new dictionary. When the method returns the dictionary must be durable, because records compressed with it may be
+   * written right after.
+   */
+  void storeDictionary(int version, byte[] dictionary) throws IOException;
+}
@@ -0,0 +1,144 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.compression.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Builds a preset dictionary from a sample of records. The records are split in overlapping segments, every segment is scored by
+ * the number of records that contain the 8 byte sequences it's made of, and the best segments are selected until the dictionary is
+ * full. The sequences of a selected segment don't count anymore for the other segments, so the dictionary doesn't repeat the same
+ * content. The best segments are placed at the end of the dictionary, where they can be referenced with the shortest distances.
+ */
+public class OCompressionDictionaryTrainer {
+  private static final int GRAM         = 8;
+  private static final int SEGMENT_SIZE = 48;
+  private static final int SEGMENT_STEP = 16;
+  private static final int HASH_BITS    = 18;
+
+  private OCompressionDictionaryTrainer() {
+  }
+
+  /**
+   * @param iSamples
+   *          content of the sampled records
+   * @param iMaxSize
+   *          maximum size of the dictionary
+   * @return the dictionary, it's empty if the records don't share any content
+   */
+  public static byte[] train(final List<byte[]> iSamples, final int iMaxSize) {
+    final int[] counts = new int[1 << HASH_BITS];
+    final int[] stamps = new int[1 << HASH_BITS];
+
+    // COUNT THE RECORDS THAT CONTAIN EVERY SEQUENCE
+    for (int i = 0; i < iSamples.size(); i++) {
+      final byte[] sample = iSamples.get(i);
+      for (int pos = 0; pos + GRAM <= sample.length; pos++) {
+        final int hash = hash(sample, pos);
+        if (stamps[hash] != i + 1) {
+          stamps[hash] = i + 1;
+          counts[hash]++;
+        }
+      }
+    }
+
+    final PriorityQueue<Segment> candidates = new PriorityQueue<Segment>();
+    for (byte[] sample : iSamples) {
+      for (int start = 0; start + GRAM <= sample.length; start += SEGMENT_STEP) {
+        final Segment segment = new Segment(sample, start, Math.min(start + SEGMENT_SIZE, sample.length));
+        segment.score = score(segment, counts);
+        if (segment.score > 0)
+          candidates.add(segment);
+      }
+    }
+
+    final List<Segment> selected = new ArrayList<Segment>();
+    int size = 0;
+    while (size < iMaxSize && !candidates.isEmpty()) {
+      final Segment segment = candidates.poll();
+
+      // THE SCORE CAN BE LOWER THAN WHEN THE SEGMENT WAS QUEUED BECAUSE OF THE SEGMENTS SELECTED IN THE MEANTIME
+      final long score = score(segment, counts);
+      if (score <= 0)
+        continue;
+      if (score < segment.score && !candidates.isEmpty() && score < candidates.peek().score) {
+        segment.score = score;
+        candidates.add(segment);
+        continue;
+      }
+
+      selected.add(segment);
+      size += segment.end - segment.start;
+      for (int pos = segment.start; pos + GRAM <= segment.end; pos++)
+        counts[hash(segment.sample, pos)] = 0;
+    }
+
+    // THE BEST SEGMENTS LAST
+    final byte[] dictionary = new byte[Math.min(size, iMaxSize)];
+    int end = dictionary.length;
+    for (Segment segment : selected) {
+      final int length = Math.min(segment.end - segment.start, end);
+      end -= length;
+      System.arraycopy(segment.sample, segment.end - length, dictionary, end, length);
+      if (end == 0)
+        break;
+    }
+    return dictionary;
+  }
+
+  private static long score(final Segment segment, final int[] counts) {
+    long score = 0;
+    for (int pos = segment.start; pos + GRAM <= segment.end; pos++) {
+      final int count = counts[hash(segment.sample, pos)];
+      // SEQUENCES OF A SINGLE RECORD DON'T HELP TO COMPRESS THE OTHERS
+      if (count > 1)
+        score += count;
+    }
+    return score;
+  }
+
+  private static int hash(final byte[] content, final int offset) {
+    long value = 0;
+    for (int i = 0; i < GRAM; i++)
+      value = (value << 8) | (content[offset + i] & 0xFF);
+    return (int) ((value * 0x9E3779B97F4A7C15L) >>> (64 - HASH_BITS));
+  }
+
+  private static final class Segment implements Comparable<Segment> {
+    private final byte[] sample;
+    private final int    start;
+    private final int    end;
+    private long         score;
+
+    private Segment(final byte[] sample, final int start, final int end) {
+      this.sample = sample;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    public int compareTo(final Segment other) {
+      // HIGHEST SCORE FIRST
+      return score > other.score ? -1 : score < other.score ? 1 : 0;
+    }
+  }
+}
@@ -0,0 +1,297 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.compression.impl;
+
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.compression.OCompressionDictionaryStore;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Deflate compression against a preset dictionary trained on the records of the component that uses it, usually a cluster. Small
+ * records that share field names and values compress much better against a dictionary than alone.
+ * <p>
+ * The first records are compressed without dictionary and sampled. When enough samples are collected a dictionary is trained in
+ * background, saved in the {@link OCompressionDictionaryStore} of the component and used for the next records. Every
+ * <code>storage.compression.dictionary.retrainInterval</code> records a new dictionary is trained and used only if it compresses
+ * the new samples better. The dictionaries are versioned and never removed, so the records compressed with an old dictionary can
+ * always be read.
+ * <p>
+ * Compressed format: version of the dictionary (byte, 0 = no dictionary, -1 = not compressed), length of the content (varint),
+ * raw deflate stream.
+ * <p>
+ * The instances are stateful: it's registered by class, so every cluster gets its own instance.
+ */
+public class ODictionaryCompression extends OAbstractCompression {
+  public static final String NAME = "dictionary";
+
+  private static final byte NO_DICTIONARY  = 0;
+  private static final byte STORED         = -1;
+  private static final int  MAX_VERSION    = 254;
+  private static final int  MAX_SAMPLE     = 4 * 1024;
+  private static final int  MIN_GAIN_RATIO = 95;
+
+  private static final ThreadLocal<Deflater> DEFLATER = new ThreadLocal<Deflater>() {
+    @Override
+    protected Deflater initialValue() {
+      return new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    }
+  };
+  private static final ThreadLocal<Inflater> INFLATER = new ThreadLocal<Inflater>() {
+    @Override
+    protected Inflater initialValue() {
+      return new Inflater(true);
+    }
+  };
+
+  private final int dictionarySize  = OGlobalConfiguration.STORAGE_COMPRESSION_DICTIONARY_SIZE.getValueAsInteger();
+  private final int samplesSize     = OGlobalConfiguration.STORAGE_COMPRESSION_DICTIONARY_SAMPLES.getValueAsInteger();
+  private final int retrainInterval = OGlobalConfiguration.STORAGE_COMPRESSION_DICTIONARY_RETRAIN_INTERVAL.getValueAsInteger();
+
+  private volatile OCompressionDictionaryStore store;
+
+  /**
+   * All the dictionaries by version, the dictionary with version <code>n</code> is at index <code>n - 1</code>. Replaced on
+   * every new dictionary.
+   */
+  private volatile byte[][] dictionaries = new byte[0][];
+
+  private final List<byte[]>  samples              = new ArrayList<byte[]>();
+  private final AtomicBoolean training             = new AtomicBoolean();
+  private final AtomicLong    compressedSinceTrain = new AtomicLong();
+  private volatile boolean    trained              = false;
+
+  @Override
+  public String name() {
+    return NAME;
+  }
+
+  /**
+   * Sets the store of the dictionaries and loads the dictionaries already trained. Until the store is set no dictionary is
+   * trained.
+   */
+  public void setDictionaryStore(final OCompressionDictionaryStore iStore) throws IOException {
+    final List<byte[]> loaded = iStore.loadDictionaries();
+    dictionaries = loaded.toArray(new byte[loaded.size()][]);
+    trained = !loaded.isEmpty();
+    store = iStore;
+
+    synchronized (samples) {
+      samples.clear();
+    }
+    compressedSinceTrain.set(0);
+  }
+
+  /**
+   * @return the version of the dictionary used to compress the new records, 0 if none
+   */
+  public int getDictionaryVersion() {
+    return dictionaries.length;
+  }
+
+  @Override
+  public byte[] compress(final byte[] content, final int offset, final int length) {
+    sample(content, offset, length);
+
+    final byte[][] dictionaries = this.dictionaries;
+    final int version = dictionaries.length;
+    final byte[] compressed = deflate(content, offset, length, version > 0 ? dictionaries[version - 1] : null);
+
+    final int headerSize = 1 + varIntSize(length);
+    if (compressed.length + headerSize >= length + 1) {
+      // INCOMPRESSIBLE
+      final byte[] result = new byte[length + 1];
+      result[0] = STORED;
+      System.arraycopy(content, offset, result, 1, length);
+      return result;
+    }
+
+    final byte[] result = new byte[headerSize + compressed.length];
+    result[0] = (byte) version;
+    writeVarInt(result, 1, length);
+    System.arraycopy(compressed, 0, result, headerSize, compressed.length);
+    return result;
+  }
+
+  @Override
+  public byte[] uncompress(final byte[] content, final int offset, final int length) {
+    final int version = content[offset] & 0xFF;
+    if (content[offset] == STORED)
+      return Arrays.copyOfRange(content, offset + 1, offset + length);
+
+    final byte[][] dictionaries = this.dictionaries;
+    if (version > dictionaries.length)
+      throw new IllegalStateException("Compression dictionary with version " + version + " is not available");
+
+    int position = offset + 1;
+    int size = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = content[position++];
+      size |= (b & 0x7F) << shift;
+      shift += 7;
+    } while (b < 0);
+
+    final Inflater inflater = INFLATER.get();
+    inflater.reset();
+    try {
+      inflater.setInput(content, position, offset + length - position);
+      if (version > NO_DICTIONARY)
+        inflater.setDictionary(dictionaries[version - 1]);
+
+      final byte[] result = new byte[size];
+      int read = 0;
+      while (read < size) {
+        final int n = inflater.inflate(result, read, size - read);
+        if (n == 0 && (inflater.finished() || inflater.needsInput()))
+          throw new IllegalStateException("Compressed content is truncated");
+        read += n;
+      }
+      return result;
+    } catch (DataFormatException e) {
+      throw new IllegalStateException("Exception during data uncompression", e);
+    }
+  }
+
+  private static byte[] deflate(final byte[] content, final int offset, final int length, final byte[] dictionary) {
+    final Deflater deflater = DEFLATER.get();
+    deflater.reset();
+    if (dictionary != null)
+      deflater.setDictionary(dictionary);
+    deflater.setInput(content, offset, length);
+    deflater.finish();
+
+    byte[] result = new byte[length + 64];
+    int size = 0;
+    while (!deflater.finished()) {
+      if (size == result.length)
+        result = Arrays.copyOf(result, result.length * 2);
+      size += deflater.deflate(result, size, result.length - size);
+    }
+    return Arrays.copyOf(result, size);
+  }
+
+  private void sample(final byte[] content, final int offset, final int length) {
+    if (store == null || dictionaries.length >= MAX_VERSION || training.get())
+      return;
+
+    if (trained && compressedSinceTrain.incrementAndGet() < retrainInterval)
+      return;
+
+    final List<byte[]> toTrain;
+    synchronized (samples) {
+      if (samples.size() >= samplesSize)
+        return;
+
+      samples.add(Arrays.copyOfRange(content, offset, offset + Math.min(length, MAX_SAMPLE)));
+      if (samples.size() < samplesSize || !training.compareAndSet(false, true))
+        return;
+
+      toTrain = new ArrayList<byte[]>(samples);
+      samples.clear();
+    }
+
+    try {
+      Orient.instance().submit(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            train(toTrain);
+          } finally {
+            compressedSinceTrain.set(0);
+            trained = true;
+            training.set(false);
+          }
+        }
+      });
+    } catch (RuntimeException e) {
+      // ENGINE IS SHUTTING DOWN: TRY AGAIN WITH NEW SAMPLES
+      training.set(false);
+    }
+  }
+
+  /**
+   * Trains a new dictionary and starts to use it if it compresses the samples better than the current one.
+   */
+  protected void train(final List<byte[]> iSamples) {
+    final byte[] dictionary = OCompressionDictionaryTrainer.train(iSamples, dictionarySize);
+    if (dictionary.length == 0)
+      return;
+
+    final byte[][] current = dictionaries;
+    final byte[] currentDictionary = current.length > 0 ? current[current.length - 1] : null;
+
+    long currentSize = 0;
+    long newSize = 0;
+    for (byte[] sample : iSamples) {
+      currentSize += deflate(sample, 0, sample.length, currentDictionary).length;
+      newSize += deflate(sample, 0, sample.length, dictionary).length;
+    }
+
+    if (newSize * 100 > currentSize * MIN_GAIN_RATIO)
+      return;
+
+    final OCompressionDictionaryStore store = this.store;
+    if (store == null)
+      return;
+
+    final int version = current.length + 1;
+    try {
+      store.storeDictionary(version, dictionary);
+    } catch (IOException e) {
+      OLogManager.instance().error(this, "Cannot store compression dictionary with version %d", e, version);
+      return;
+    }
+
+    final byte[][] updated = Arrays.copyOf(current, version);
+    updated[version - 1] = dictionary;
+    dictionaries = updated;
+
+    OLogManager.instance()
+        .debug(this, "Trained compression dictionary with version %d (%d bytes): samples compressed from %d to %d bytes", version,
+            dictionary.length, currentSize, newSize);
+  }
+
+  private static int varIntSize(int value) {
+    int size = 1;
+    while ((value >>>= 7) != 0)
+      size++;
+    return size;
+  }
+
+  private static void writeVarInt(final byte[] buffer, int position, int value) {
+    while ((value & ~0x7F) != 0) {
+      buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    buffer[position] = (byte) value;
+  }
+}
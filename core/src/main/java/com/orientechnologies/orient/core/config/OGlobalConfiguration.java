@@ -155,8 +155,18 @@ public enum OGlobalConfiguration {
       "Indicates a force sync should be performed for each update on the storage configuration", Boolean.class, true),
 
   STORAGE_COMPRESSION_METHOD("storage.compressionMethod", "Record compression method used in storage"
-      + " Possible values : gzip, nothing, snappy, snappy-native. Default is 'nothing' that means no compression", String.class,
-      "nothing"),
+      + " Possible values : gzip, nothing, snappy, snappy-native, dictionary. Default is 'nothing' that means no compression",
+      String.class, "nothing"),
+
+  STORAGE_COMPRESSION_DICTIONARY_SIZE("storage.compression.dictionary.size",
+      "Maximum size (in bytes) of the dictionaries trained by the 'dictionary' compression", Integer.class, 16 * 1024),
+
+  STORAGE_COMPRESSION_DICTIONARY_SAMPLES("storage.compression.dictionary.samples",
+      "Number of records of a cluster sampled to train a dictionary of the 'dictionary' compression", Integer.class, 1000),
+
+  STORAGE_COMPRESSION_DICTIONARY_RETRAIN_INTERVAL("storage.compression.dictionary.retrainInterval",
+      "Number of records compressed after the last training of a dictionary before a new dictionary is trained. "
+          + "The new dictionary is used only if it compresses better than the current one", Integer.class, 100000),
 
   STORAGE_ENCRYPTION_METHOD("storage.encryptionMethod",
       "Record encryption method used in storage" + " Possible values : 'aes' and 'des'. Default is 'nothing' for no encryption",
@@ -240,6 +250,10 @@ public enum OGlobalConfiguration {
   STORAGE_USE_TOMBSTONES("storage.useTombstones",
       "When a record is deleted, the space in the cluster will not be freed, but rather tombstoned", Boolean.class, false),
 
+  STORAGE_RECORD_CACHE_SIZE("storage.recordCache.size",
+      "Size (in megabytes) of the off-heap cache of serialized records shared by all the sessions of a storage. 0 = disabled",
+      Integer.class, 0),
+
   // RECORDS
   RECORD_DOWNSIZING_ENABLED("record.downsizing.enabled",
       "On updates, if the record size is lower than before, this reduces the space taken accordingly. "
@@ -407,6 +421,18 @@ public enum OGlobalConfiguration {
   NETWORK_SOCKET_RETRY_DELAY("network.retryDelay",
       "The time (in ms) the client must wait, before reconnecting to the server on failure", Integer.class, 500, true),
 
+  NETWORK_EVENT_LOOP("network.eventLoop",
+      "Serves the connections of a listener with a few non-blocking I/O threads and a bounded pool of workers, instead of a thread "
+          + "per connection. Supported by the binary and HTTP protocols. Can be set per listener as parameter",
+      Boolean.class, false),
+
+  NETWORK_EVENT_LOOP_THREADS("network.eventLoop.threads",
+      "Number of I/O threads waiting for the requests of the connections of a listener served by event loops", Integer.class, 2),
+
+  NETWORK_EVENT_LOOP_WORKERS("network.eventLoop.workers",
+      "Maximum number of threads executing the requests of the connections of a listener served by event loops", Integer.class,
+      64),
+
   NETWORK_BINARY_DNS_LOADBALANCING_ENABLED("network.binary.loadBalancing.enabled",
       "Asks for DNS TXT record, to determine if load balancing is supported", Boolean.class, Boolean.FALSE, true),
 
@@ -423,6 +449,28 @@ public enum OGlobalConfiguration {
   NETWORK_BINARY_DEBUG("network.binary.debug", "Debug mode: print all data incoming on the binary channel", Boolean.class, false,
       true),
 
+  NETWORK_BINARY_CURSOR_TIMEOUT("network.binary.cursor.timeout",
+      "Time in ms after which a query cursor not fetched by its client is closed, releasing its query", Long.class, 60000, true),
+
+  NETWORK_BINARY_CURSOR_MAX_PER_CONNECTION("network.binary.cursor.maxPerConnection",
+      "Maximum number of query cursors open at the same time by a client connection", Integer.class, 8, true),
+
+  NETWORK_BINARY_CURSOR_MAX("network.binary.cursor.max",
+      "Maximum number of query cursors open at the same time on the server, every one keeps a thread until its query is completed",
+      Integer.class, 256),
+
+  NETWORK_BINARY_COMPRESSION("network.binary.compression",
+      "Compression of the responses that a client requests to the server when it connects, as the name of a compression "
+          + "algorithm (e.g. 'snappy' or 'gzip'). Use 'nothing' to receive the responses uncompressed", String.class, "nothing"),
+
+  NETWORK_BINARY_COMPRESSION_THRESHOLD("network.binary.compression.threshold",
+      "Minimum size (in bytes) of a response compressed by the server, when its client requested the compression. Use a negative "
+          + "value to never compress the responses", Integer.class, 4096, true),
+
+  NETWORK_BINARY_NEAR_CACHE_MAX_TRACKED("network.binary.nearCache.maxTracked",
+      "Maximum number of records loaded by a connection for its client near cache that the server keeps track of, to send the "
+          + "invalidations on update or delete. Beyond this the client is asked to clear its near cache", Integer.class, 100000),
+
   // HTTP
 
   /**
@@ -540,7 +588,8 @@ public enum OGlobalConfiguration {
 
   COMMAND_CACHE_ENABLED("command.cache.enabled", "Enable command cache", Boolean.class, false),
 
-  COMMAND_CACHE_EVICT_STRATEGY("command.cache.evictStrategy", "Command cache strategy between: [INVALIDATE_ALL,PER_CLUSTER]",
+  COMMAND_CACHE_EVICT_STRATEGY("command.cache.evictStrategy",
+      "Command cache strategy between: [INVALIDATE_ALL,PER_CLUSTER,PER_RECORD]. PER_RECORD invalidates only the results that read the changed record or an index key range containing it",
       String.class, "PER_CLUSTER"),
 
   COMMAND_CACHE_MIN_EXECUTION_TIME("command.cache.minExecutionTime", "Minimum execution time to consider caching the result set",
@@ -549,6 +598,14 @@ public enum OGlobalConfiguration {
   COMMAND_CACHE_MAX_RESULSET_SIZE("command.cache.maxResultsetSize", "Maximum resultset time to consider caching result set",
       Integer.class, 500),
 
+  COMMAND_CACHE_MAX_CACHED_RECORDS("command.cache.maxCachedRecords",
+      "Maximum number of records kept by the command cache across all the cached result sets. When exceeded, the least recently used results are evicted",
+      Integer.class, 50000),
+
+  COMMAND_CACHE_MAX_TRACKED_RECORDS("command.cache.maxTrackedRecords",
+      "Maximum number of records read by a query tracked as dependencies by the PER_RECORD strategy. Above it the result depends on the whole clusters",
+      Integer.class, 5000),
+
   // QUERY
   QUERY_PARALLEL_AUTO("query.parallelAuto", "Auto enable parallel query, if requirements are met", Boolean.class, false),
 
@@ -574,9 +631,18 @@ public enum OGlobalConfiguration {
   QUERY_LIMIT_THRESHOLD_TIP("query.limitThresholdTip",
       "If the total number of returned records exceeds this value, then a warning is given. (Use 0 to disable)", Long.class, 10000),
 
+  QUERY_ORDER_BY_RUN_SIZE("query.orderBy.runSize",
+      "Maximum number of records an ORDER BY without LIMIT keeps in memory. Bigger result sets are sorted in runs of this size, spilled to temporary files and merged while returned. (Use 0 to always sort in memory)",
+      Integer.class, 100000),
+
+  QUERY_INDEX_INTERSECTION_MAX_ENTRIES("query.indexIntersection.maxEntries",
+      "Maximum number of entries read from the index of a condition in AND to intersect them with the records returned by the index chosen for the query, before loading the records. (Use 0 to disable the index intersection)",
+      Integer.class, 10000),
+
   QUERY_LIVE_SUPPORT("query.live.support", "Enable/Disable the support of live query. (Use false to disable)", Boolean.class, true),
 
-  STATEMENT_CACHE_SIZE("statement.cacheSize", "Number of parsed SQL statements kept in cache", Integer.class, 100),
+  STATEMENT_CACHE_SIZE("statement.cacheSize", "Number of parsed SQL statements kept in cache, together with their query plans",
+      Integer.class, 100),
 
   // GRAPH
   SQL_GRAPH_CONSISTENCY_MODE("sql.graphConsistencyMode",
@@ -599,6 +665,27 @@ public enum OGlobalConfiguration {
       "Maximum time, where the client should wait for a connection from the pool, when all connections busy", Integer.class, 5000,
       true),
 
+  CLIENT_CHANNEL_MULTIPLEX("client.channel.multiplex",
+      "Sends the asynchronous requests on one connection per server, tagged with their id, without waiting for the responses of the "
+          + "previous ones. The server executes them concurrently and the responses can arrive out of order", Boolean.class, false),
+
+  CLIENT_RECORD_LOAD_BATCH_SIZE("client.recordLoadBatchSize",
+      "Number of linked records loaded with one request when a remote client iterates over a collection of links or fetches "
+          + "the linked records of a fetch plan. Use 0 or 1 to load the records one by one", Integer.class, 100),
+
+  CLIENT_QUERY_FETCH_SIZE("client.query.fetchSize",
+      "Number of records received with each request when a remote client iterates over the result of a synchronous query: the "
+          + "server keeps the query open and sends the next records on demand. Use 0 to receive the whole result at once",
+      Integer.class, 0),
+
+  CLIENT_NEAR_CACHE_SIZE("client.nearCache.size",
+      "Maximum memory (in MB) of the records cached by a remote client to serve the next loads locally. The server sends the "
+          + "invalidations when the cached records are updated or deleted. Use 0 to disable the near cache", Integer.class, 0),
+
+  CLIENT_LATENCY_AWARE_BACKOFF("client.latencyAware.backoff",
+      "Time (in ms) a server is not chosen for the reads of the LATENCY_AWARE connection strategy after a request to it failed for "
+          + "an I/O error or a timeout. It doubles at every consecutive failure, up to one minute", Integer.class, 1000),
+
   CLIENT_DB_RELEASE_WAIT_TIMEOUT("client.channel.dbReleaseWaitTimeout",
       "Delay (in ms), after which a data modification command will be resent, if the DB was frozen", Integer.class, 10000, true),
 
@@ -699,6 +786,14 @@ public enum OGlobalConfiguration {
   DISTRIBUTED_RESPONSE_CHANNELS("distributed.responseChannels", "Number of network channels used to send responses", Integer.class,
       1),
 
+  DISTRIBUTED_BATCH_SIZE("distributed.batchSize",
+      "Maximum number of requests (or responses) sent together to a server in one message. Use 1 to send every message alone",
+      Integer.class, 100),
+
+  DISTRIBUTED_BATCH_WINDOW("distributed.batchWindow",
+      "Time (in ms) to wait for more requests (or responses) to send together to a server. With 0 only the messages queued while "
+          + "the previous ones are sent are sent together", Integer.class, 0),
+
   /**
    * @Since 2.2.5
    */
@@ -781,6 +876,10 @@ public enum OGlobalConfiguration {
   DB_DOCUMENT_SERIALIZER("db.document.serializer", "The default record serializer used by the document database", String.class,
       ORecordSerializerBinary.NAME),
 
+  DB_DOCUMENT_SERIALIZER_VERSION("db.document.serializer.version",
+      "Version of the binary record format used to write documents. 0 is the sequential format readable by previous releases, 1 stores an indexed header to access single fields without scanning the whole header but cannot be read by previous releases",
+      Integer.class, 0, true),
+
   /**
    * @Since 2.2
    */
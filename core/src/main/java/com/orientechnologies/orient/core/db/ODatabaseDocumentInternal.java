@@ -35,6 +35,9 @@ import com.orientechnologies.orient.core.record.ORecord;
 import com.orientechnologies.orient.core.serialization.serializer.binary.OBinarySerializerFactory;
 import com.orientechnologies.orient.core.serialization.serializer.record.ORecordSerializer;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface ODatabaseDocumentInternal extends ODatabaseDocument, ODatabaseInternal<ORecord> {
 
   /**
@@ -64,6 +67,14 @@ public interface ODatabaseDocumentInternal extends ODatabaseDocument, ODatabaseI
   <RET extends ORecord> RET loadIfVersionIsNotLatest(final ORID rid, final int recordVersion, String fetchPlan, boolean ignoreCache)
       throws ORecordNotFoundException;
 
+  /**
+   * Loads many records at once: the records that are neither in the current transaction nor in the local cache are read from the
+   * storage with one call, that is one network request with a remote storage.
+   *
+   * @return the records in the same order of the ids, null for the records not found
+   */
+  List<ORecord> loadRecords(Collection<? extends OIdentifiable> iRecordIds, String iFetchPlan);
+
   void reloadUser();
 
   ORecordHook.RESULT callbackHooks(final ORecordHook.TYPE type, final OIdentifiable id);
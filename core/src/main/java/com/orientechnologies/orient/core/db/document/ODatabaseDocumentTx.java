@@ -1675,6 +1675,54 @@ public class ODatabaseDocumentTx extends OListenerManger<ODatabaseListener> impl
     return (RET) currentTx.loadRecordIfVersionIsNotLatest(rid, recordVersion, fetchPlan, ignoreCache);
   }
 
+  @Override
+  public List<ORecord> loadRecords(final Collection<? extends OIdentifiable> iRecordIds, final String iFetchPlan) {
+    checkOpeness();
+    checkIfActive();
+
+    final List<ORecord> records = new ArrayList<ORecord>(iRecordIds.size());
+    if (currentTx.isActive() && currentTx.getIsolationLevel() == OTransaction.ISOLATION_LEVEL.REPEATABLE_READ) {
+      // THE TRANSACTION KEEPS THE RECORDS IT LOADS
+      for (OIdentifiable id : iRecordIds)
+        records.add(id != null ? load(id.getIdentity(), iFetchPlan) : null);
+      return records;
+    }
+
+    // READ WITH ONE CALL THE RECORDS THAT ARE NEITHER IN THE TRANSACTION NOR IN THE LOCAL CACHE
+    final List<ORecordId> toRead = new ArrayList<ORecordId>();
+    final Set<Integer> checkedClusters = new HashSet<Integer>();
+    for (OIdentifiable id : iRecordIds) {
+      if (id == null)
+        continue;
+
+      final ORID rid = id.getIdentity();
+      if (rid.isPersistent() && getTransaction().getRecord(rid) == null && getLocalCache().findRecord(rid) == null) {
+        if (checkedClusters.add(rid.getClusterId()))
+          checkSecurity(ORule.ResourceGeneric.CLUSTER, ORole.PERMISSION_READ, getClusterNameById(rid.getClusterId()));
+        toRead.add((ORecordId) rid);
+      }
+    }
+
+    final Map<ORID, ORawBuffer> buffers = new HashMap<ORID, ORawBuffer>();
+    if (toRead.size() > 1) {
+      final List<ORawBuffer> read = storage.readRecords(toRead, iFetchPlan, false);
+      for (int i = 0; i < toRead.size(); ++i)
+        buffers.put(toRead.get(i), read.get(i));
+    }
+
+    final RecordReader recordReader = new ReadRecordReader(buffers, new SimpleRecordReader(prefetchRecords));
+    for (OIdentifiable id : iRecordIds) {
+      if (id == null)
+        records.add(null);
+      else if (!id.getIdentity().isPersistent())
+        records.add(load(id.getIdentity(), iFetchPlan));
+      else
+        records.add(executeReadRecord((ORecordId) id.getIdentity(), null, -1, iFetchPlan, false, true, false,
+            OStorage.LOCKING_STRATEGY.NONE, recordReader));
+    }
+    return records;
+  }
+
   @SuppressWarnings("unchecked")
   @Override
   @Deprecated
@@ -1832,8 +1880,19 @@ public class ODatabaseDocumentTx extends OListenerManger<ODatabaseListener> impl
         }
       }
 
-      final Collection<OPair<ORecordId, ORawBuffer>> rawRecords = ((OAbstractPaginatedStorage) storage.getUnderlying())
-          .readRecords(rids);
+      final Collection<OPair<ORecordId, ORawBuffer>> rawRecords;
+      if (storage.getUnderlying() instanceof OAbstractPaginatedStorage)
+        rawRecords = ((OAbstractPaginatedStorage) storage.getUnderlying()).readRecords(rids);
+      else {
+        // PROXY STORAGE: READ THE RECORDS WITH ONE CALL
+        final List<ORecordId> ridList = new ArrayList<ORecordId>(rids);
+        final List<ORawBuffer> buffers = storage.readRecords(ridList, null, ignoreCache);
+        rawRecords = new ArrayList<OPair<ORecordId, ORawBuffer>>(buffers.size());
+        for (int i = 0; i < ridList.size(); ++i)
+          if (buffers.get(i) != null)
+            rawRecords.add(new OPair<ORecordId, ORawBuffer>(ridList.get(i), buffers.get(i)));
+      }
+
       for (OPair<ORecordId, ORawBuffer> entry : rawRecords) {
         // NO SAME RECORD TYPE: CAN'T REUSE OLD ONE BUT CREATE A NEW ONE FOR IT
         final ORecord record = Orient.instance().getRecordFactoryManager().newInstance(entry.value.recordType);
@@ -3228,6 +3287,27 @@ public class ODatabaseDocumentTx extends OListenerManger<ODatabaseListener> impl
     }
   }
 
+  /**
+   * Returns the records already read, reads the others with the delegate.
+   */
+  private static final class ReadRecordReader implements RecordReader {
+    private final Map<ORID, ORawBuffer> buffers;
+    private final RecordReader          delegate;
+
+    private ReadRecordReader(final Map<ORID, ORawBuffer> iBuffers, final RecordReader iDelegate) {
+      buffers = iBuffers;
+      delegate = iDelegate;
+    }
+
+    @Override
+    public ORawBuffer readRecord(OStorage storage, ORecordId rid, String fetchPlan, boolean ignoreCache, final int recordVersion)
+        throws ORecordNotFoundException {
+      if (buffers.containsKey(rid))
+        return buffers.remove(rid);
+      return delegate.readRecord(storage, rid, fetchPlan, ignoreCache, recordVersion);
+    }
+  }
+
   /**
    * @Internal
    */
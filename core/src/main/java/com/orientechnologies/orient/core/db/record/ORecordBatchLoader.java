@@ -0,0 +1,101 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.db.record;
+
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.storage.OStorageProxy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads the records of the links met while iterating over a collection of links. With a remote storage, every link to load is
+ * loaded together with the links that follow it, so a batch of records costs one network request instead of one per record.
+ * With a local storage the records are loaded one by one, when they're requested.
+ *
+ * @see OGlobalConfiguration#CLIENT_RECORD_LOAD_BATCH_SIZE
+ */
+public class ORecordBatchLoader {
+  private final ODatabaseDocumentInternal database;
+  private final int                       batchSize;
+  private final Map<ORID, ORecord>        loaded = new HashMap<ORID, ORecord>();
+
+  public ORecordBatchLoader() {
+    database = ODatabaseRecordThreadLocal.INSTANCE.getIfDefined();
+    batchSize = OGlobalConfiguration.CLIENT_RECORD_LOAD_BATCH_SIZE.getValueAsInteger();
+  }
+
+  /**
+   * Tells if the records are loaded in batches, otherwise they're loaded one by one.
+   */
+  public boolean isEnabled() {
+    return batchSize > 1 && database != null && !database.isClosed() && database.getStorage() instanceof OStorageProxy;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  /**
+   * Tells if the record of a link is available without loading it.
+   */
+  public boolean isLoaded(final OIdentifiable iLink) {
+    return iLink instanceof ORecord || loaded.containsKey(iLink.getIdentity());
+  }
+
+  /**
+   * Loads the records of the links with one request. The records loaded before and not requested yet are discarded.
+   */
+  public void load(final List<? extends OIdentifiable> iLinks) {
+    loaded.clear();
+
+    final List<OIdentifiable> toLoad = new ArrayList<OIdentifiable>(iLinks.size());
+    for (OIdentifiable link : iLinks)
+      if (!(link instanceof ORecord) && link.getIdentity().isPersistent())
+        toLoad.add(link);
+
+    if (toLoad.size() < 2)
+      // NOTHING TO SAVE
+      return;
+
+    final List<ORecord> records = database.loadRecords(toLoad, null);
+    for (int i = 0; i < toLoad.size(); ++i)
+      loaded.put(toLoad.get(i).getIdentity(), records.get(i));
+  }
+
+  /**
+   * Returns the record of a link, already loaded with a batch if available.
+   */
+  public ORecord getRecord(final OIdentifiable iLink) {
+    if (iLink instanceof ORecord)
+      return (ORecord) iLink;
+
+    final ORID rid = iLink.getIdentity();
+    if (loaded.containsKey(rid))
+      return loaded.remove(rid);
+    return iLink.getRecord();
+  }
+}
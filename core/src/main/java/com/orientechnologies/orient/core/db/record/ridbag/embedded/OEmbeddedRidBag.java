@@ -28,6 +28,7 @@ import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.db.record.OMultiValueChangeEvent;
 import com.orientechnologies.orient.core.db.record.OMultiValueChangeListener;
+import com.orientechnologies.orient.core.db.record.ORecordBatchLoader;
 import com.orientechnologies.orient.core.db.record.ridbag.ORidBagDelegate;
 import com.orientechnologies.orient.core.exception.OSerializationException;
 import com.orientechnologies.orient.core.id.ORID;
@@ -58,7 +59,8 @@ public class OEmbeddedRidBag implements ORidBagDelegate {
   }
 
   private final class EntriesIterator implements Iterator<OIdentifiable>, OResettable, OSizeable {
-    private final boolean convertToRecord;
+    private final boolean            convertToRecord;
+    private final ORecordBatchLoader batchLoader;
     private int currentIndex = -1;
     private int nextIndex    = -1;
     private boolean currentRemoved;
@@ -66,6 +68,7 @@ public class OEmbeddedRidBag implements ORidBagDelegate {
     private EntriesIterator(boolean convertToRecord) {
       reset();
       this.convertToRecord = convertToRecord;
+      this.batchLoader = convertToRecord ? new ORecordBatchLoader() : null;
     }
 
     @Override
@@ -105,8 +108,12 @@ public class OEmbeddedRidBag implements ORidBagDelegate {
       nextIndex = nextIndex();
 
       final OIdentifiable identifiable = (OIdentifiable) nextValue;
-      if (convertToRecord)
-        return identifiable.getRecord();
+      if (convertToRecord) {
+        if (!batchLoader.isLoaded(identifiable) && batchLoader.isEnabled())
+          // LOAD THE RECORDS OF THE NEXT LINKS TOO
+          batchLoader.load(nextLinks());
+        return batchLoader.getRecord(identifiable);
+      }
 
       return identifiable;
     }
@@ -157,6 +164,17 @@ public class OEmbeddedRidBag implements ORidBagDelegate {
 
       return -1;
     }
+
+    private List<OIdentifiable> nextLinks() {
+      final List<OIdentifiable> links = new ArrayList<OIdentifiable>(batchLoader.getBatchSize());
+      for (int i = currentIndex; i < entriesLength && links.size() < batchLoader.getBatchSize(); i++) {
+        Object entry = entries[i];
+        if (entry instanceof OIdentifiable)
+          links.add((OIdentifiable) entry);
+      }
+
+      return links;
+    }
   }
 
   @Override
@@ -265,6 +265,7 @@ public class OSBTreeRidBag implements ORidBagDelegate {
     private       int                                                    currentFinalCounter;
     private       int                                                    currentCounter;
     private       boolean                                                currentRemoved;
+    private       ORecordBatchLoader                                     batchLoader;
 
     private RIDBagIterator(IdentityHashMap<OIdentifiable, OModifiableInteger> newEntries,
         NavigableMap<OIdentifiable, Change> changedValues, SBTreeMapEntryIterator sbTreeIterator, boolean convertToRecord) {
@@ -334,7 +335,7 @@ public class OSBTreeRidBag implements ORidBagDelegate {
         throw new NoSuchElementException();
 
       if (convertToRecord)
-        return currentValue.getRecord();
+        return getRecord(currentValue);
 
       return currentValue;
     }
@@ -410,6 +411,24 @@ public class OSBTreeRidBag implements ORidBagDelegate {
       this.convertToRecord = convertToRecord;
     }
 
+    private OIdentifiable getRecord(final OIdentifiable link) {
+      if (batchLoader == null)
+        batchLoader = new ORecordBatchLoader();
+
+      if (!batchLoader.isLoaded(link) && batchLoader.isEnabled()) {
+        // LOAD THE RECORDS OF THE NEXT LINKS IN THE TREE TOO
+        final List<OIdentifiable> links = new ArrayList<OIdentifiable>(batchLoader.getBatchSize());
+        links.add(link);
+        if (nextSBTreeEntry != null)
+          links.add(nextSBTreeEntry.getKey());
+        if (sbTreeIterator != null)
+          sbTreeIterator.peekKeys(links, batchLoader.getBatchSize());
+        batchLoader.load(links);
+      }
+
+      return batchLoader.getRecord(link);
+    }
+
     private Map.Entry<OIdentifiable, Change> nextChangedNotRemovedEntry(Iterator<Map.Entry<OIdentifiable, Change>> iterator) {
       Map.Entry<OIdentifiable, Change> entry;
 
@@ -459,6 +478,20 @@ public class OSBTreeRidBag implements ORidBagDelegate {
       init();
     }
 
+    /**
+     * Adds the keys of the next entries already fetched from the tree, without moving the iterator.
+     */
+    private void peekKeys(final List<OIdentifiable> keys, final int maxSize) {
+      if (preFetchedValues == null)
+        return;
+
+      for (Map.Entry<OIdentifiable, Integer> entry : preFetchedValues) {
+        if (keys.size() >= maxSize)
+          break;
+        keys.add(entry.getKey());
+      }
+    }
+
     private void prefetchData(boolean firstTime) {
       final OSBTreeBonsai<OIdentifiable, Integer> tree = loadTree();
       try {
@@ -23,6 +23,7 @@ import com.orientechnologies.common.collection.OMultiCollectionIterator;
 import com.orientechnologies.common.collection.OMultiValue;
 import com.orientechnologies.common.log.OLogManager;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.db.record.ORecordBatchLoader;
 import com.orientechnologies.orient.core.db.record.ORecordLazyMultiValue;
 import com.orientechnologies.orient.core.db.record.ridbag.ORidBag;
 import com.orientechnologies.orient.core.id.ORID;
@@ -503,9 +504,13 @@ public class OFetchHelper {
     else
       iter = linked.iterator();
 
+    // THE ITEMS READ AHEAD TO LOAD THEIR RECORDS IN BATCH
+    final LinkedList<Object> readAhead = new LinkedList<Object>();
+    final ORecordBatchLoader batchLoader = new ORecordBatchLoader();
+
     try {
-      while (iter.hasNext()) {
-        final Object o = iter.next();
+      while (!readAhead.isEmpty() || iter.hasNext()) {
+        final Object o = readAhead.isEmpty() ? iter.next() : readAhead.removeFirst();
         if (o == null)
           continue;
 
@@ -516,7 +521,23 @@ public class OFetchHelper {
           final Integer fieldDepthLevel = parsedRecords.get(d.getIdentity());
           if (!d.getIdentity().isPersistent() || (fieldDepthLevel != null && fieldDepthLevel.intValue() == iLevelFromRoot)) {
             removeParsedFromMap(parsedRecords, d);
-            d = d.getRecord();
+
+            if (!batchLoader.isLoaded(d) && batchLoader.isEnabled()) {
+              // LOAD THE RECORDS OF THE NEXT LINKS TO FETCH TOO
+              final List<OIdentifiable> links = new ArrayList<OIdentifiable>(batchLoader.getBatchSize());
+              links.add(d);
+              while (links.size() < batchLoader.getBatchSize() && iter.hasNext()) {
+                final Object next = iter.next();
+                readAhead.add(next);
+                if (next instanceof OIdentifiable) {
+                  final Integer nextDepthLevel = parsedRecords.get(((OIdentifiable) next).getIdentity());
+                  if (nextDepthLevel != null && nextDepthLevel.intValue() == iLevelFromRoot)
+                    links.add((OIdentifiable) next);
+                }
+              }
+              batchLoader.load(links);
+            }
+            d = batchLoader.getRecord(d);
 
             if (d == null)
               iListener.processStandardField(null, d, null, iContext, iUserObject, "", null);
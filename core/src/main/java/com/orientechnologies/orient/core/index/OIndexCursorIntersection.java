@@ -0,0 +1,89 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.index;
+
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORID;
+
+import java.util.*;
+
+/**
+ * Cursor that returns only the entries of a driving cursor whose values are contained in the RID sets of other cursors. It's used
+ * to intersect the results of the indexes of different conditions in AND before to load the records. The order of the driving
+ * cursor is preserved.
+ */
+public class OIndexCursorIntersection extends OIndexAbstractCursor {
+  private final OIndexCursor    cursor;
+  private final List<Set<ORID>> filters = new ArrayList<Set<ORID>>();
+
+  public OIndexCursorIntersection(final OIndexCursor iCursor) {
+    cursor = iCursor;
+  }
+
+  /**
+   * Reads the RIDs of a cursor to intersect them with the driving cursor.
+   *
+   * @param iCursor
+   *          cursor to read
+   * @param iMaxEntries
+   *          maximum number of entries to read
+   * @return the RIDs or null if the cursor has more than <code>iMaxEntries</code> entries
+   */
+  public static Set<ORID> readRIDs(final OIndexCursor iCursor, final int iMaxEntries) {
+    final Set<ORID> rids = new HashSet<ORID>();
+
+    Map.Entry<Object, OIdentifiable> entry = iCursor.nextEntry();
+    while (entry != null) {
+      if (rids.size() >= iMaxEntries)
+        return null;
+
+      rids.add(entry.getValue().getIdentity());
+      entry = iCursor.nextEntry();
+    }
+    return rids;
+  }
+
+  public void addFilter(final Set<ORID> iRIDs) {
+    // THE SMALLEST SET FIRST, TO DISCARD THE ENTRIES WITH THE FEWEST LOOKUPS
+    int position = 0;
+    while (position < filters.size() && filters.get(position).size() <= iRIDs.size())
+      position++;
+    filters.add(position, iRIDs);
+  }
+
+  public int getFilters() {
+    return filters.size();
+  }
+
+  @Override
+  public Map.Entry<Object, OIdentifiable> nextEntry() {
+    Map.Entry<Object, OIdentifiable> entry = cursor.nextEntry();
+    while (entry != null && !matches(entry.getValue().getIdentity()))
+      entry = cursor.nextEntry();
+    return entry;
+  }
+
+  private boolean matches(final ORID iRID) {
+    for (Set<ORID> filter : filters)
+      if (!filter.contains(iRID))
+        return false;
+    return true;
+  }
+}
@@ -323,4 +323,12 @@ public interface OIndexManager {
    *          index to remove.
    */
   void removeClassPropertyIndex(OIndex<?> idx);
+
+  /**
+   * Returns the version of the index manager, incremented every time an index is created, dropped or the index configuration is
+   * reloaded. Can be used to invalidate the caches that depend on the index definitions, like the query plans.
+   *
+   * @return current version of the index manager.
+   */
+  int getVersion();
 }
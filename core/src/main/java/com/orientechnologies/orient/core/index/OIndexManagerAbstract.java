@@ -66,6 +66,8 @@ public abstract class OIndexManagerAbstract extends ODocumentWrapperNoClass impl
 
   protected ReadWriteLock lock = new ReentrantReadWriteLock();
 
+  protected volatile int version = 0;
+
   public OIndexManagerAbstract(final ODatabaseDocument iDatabase) {
     super(new ODocument().setTrackingChanges(false));
   }
@@ -258,6 +260,12 @@ public abstract class OIndexManagerAbstract extends ODocumentWrapperNoClass impl
   public void close() {
     indexes.clear();
     classPropertyIndex.clear();
+    version++;
+  }
+
+  @Override
+  public int getVersion() {
+    return version;
   }
 
   public OIndexManager setDirty() {
@@ -407,6 +415,7 @@ public abstract class OIndexManagerAbstract extends ODocumentWrapperNoClass impl
     try {
       indexes.clear();
       classPropertyIndex.clear();
+      version++;
     } finally {
       releaseExclusiveLock();
     }
@@ -425,6 +434,7 @@ public abstract class OIndexManagerAbstract extends ODocumentWrapperNoClass impl
     try {
       final Locale locale = getServerLocale();
       indexes.put(index.getName().toLowerCase(locale), index);
+      version++;
 
       final OIndexDefinition indexDefinition = index.getDefinition();
       if (indexDefinition == null || indexDefinition.getClassName() == null)
@@ -189,6 +189,11 @@ public class OIndexManagerProxy extends OProxedResource<OIndexManager> implement
     delegate.removeClassPropertyIndex(idx);
   }
 
+  @Override
+  public int getVersion() {
+    return delegate.getVersion();
+  }
+
   private boolean isDistributedCommand() {
     return database.getStorage().isDistributed()
         && !OScenarioThreadLocal.INSTANCE.isRunModeDistributed();
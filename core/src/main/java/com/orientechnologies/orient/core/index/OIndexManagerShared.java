@@ -251,6 +251,7 @@ public class OIndexManagerShared extends OIndexManagerAbstract {
     try {
       final Locale locale = getServerLocale();
       final OIndex<?> idx = indexes.remove(iIndexName.toLowerCase(locale));
+      version++;
       if (idx != null) {
         final Set<String> clusters = idx.getClusters();
         if (clusters != null && !clusters.isEmpty()) {
@@ -488,6 +489,8 @@ public class OIndexManagerShared extends OIndexManagerAbstract {
       else
         classPropertyIndex.put(indexDefinition.getClassName().toLowerCase(locale), copyPropertyMap(map));
 
+      version++;
+
     } finally {
       releaseExclusiveLock();
     }
@@ -18,6 +18,7 @@ package com.orientechnologies.orient.core.index;
 import com.orientechnologies.common.util.OCollections;
 import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
 import com.orientechnologies.orient.core.exception.OConfigurationException;
+import com.orientechnologies.orient.core.index.columnar.OColumnarIndexFactory;
 import com.orientechnologies.orient.core.index.hashindex.local.OHashIndexFactory;
 import com.orientechnologies.orient.core.metadata.schema.OClass;
 import com.orientechnologies.orient.core.record.impl.ODocument;
@@ -186,6 +187,8 @@ public final class OIndexes {
         || OClass.INDEX_TYPE.FULLTEXT_HASH_INDEX.name().equals(type) || OClass.INDEX_TYPE.NOTUNIQUE_HASH_INDEX.name().equals(type)
         || OClass.INDEX_TYPE.UNIQUE_HASH_INDEX.name().equals(type)) {
       algorithm = OHashIndexFactory.HASH_INDEX_ALGORITHM;
+    } else if (OClass.INDEX_TYPE.COLUMNAR.name().equals(type)) {
+      algorithm = OColumnarIndexFactory.COLUMNAR_ALGORITHM;
     }
     return algorithm;
   }
@@ -0,0 +1,80 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.index.columnar;
+
+import com.orientechnologies.common.serialization.types.OByteSerializer;
+import com.orientechnologies.common.serialization.types.OLongSerializer;
+import com.orientechnologies.orient.core.storage.cache.OCacheEntry;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.base.ODurablePage;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.wal.OWALChanges;
+
+import java.io.IOException;
+
+/**
+ * Page of a {@link OColumnarIndexColumn}: a fixed array of slots (flag: byte, value: long), the slot <code>i</code> of the page
+ * <code>p</code> holds the value of the record with cluster position <code>p * MAX_ENTRIES + i</code>. New pages are filled by
+ * zeros, so all their slots are empty.
+ */
+public class OColumnarIndexBucket extends ODurablePage {
+  private static final int  VALUES_OFFSET = NEXT_FREE_POSITION;
+
+  private static final byte EMPTY         = 0;
+  private static final byte FILLED        = 1;
+
+  public static final int   ENTRY_SIZE    = OByteSerializer.BYTE_SIZE + OLongSerializer.LONG_SIZE;
+
+  public static final int   MAX_ENTRIES   = (MAX_PAGE_SIZE_BYTES - VALUES_OFFSET) / ENTRY_SIZE;
+
+  public OColumnarIndexBucket(OCacheEntry cacheEntry, OWALChanges changes) {
+    super(cacheEntry, changes);
+  }
+
+  public void set(final int index, final long value) throws IOException {
+    final int position = entryPosition(index);
+    setByteValue(position, FILLED);
+    setLongValue(position + OByteSerializer.BYTE_SIZE, value);
+  }
+
+  /**
+   * Empties the slot only if it contains the passed value.
+   *
+   * @return true if the slot has been emptied
+   */
+  public boolean remove(final int index, final long value) {
+    final int position = entryPosition(index);
+    if (getByteValue(position) != FILLED || getLongValue(position + OByteSerializer.BYTE_SIZE) != value)
+      return false;
+
+    setByteValue(position, EMPTY);
+    return true;
+  }
+
+  public boolean isFilled(final int index) {
+    return getByteValue(entryPosition(index)) == FILLED;
+  }
+
+  public long getValue(final int index) {
+    return getLongValue(entryPosition(index) + OByteSerializer.BYTE_SIZE);
+  }
+
+  private static int entryPosition(final int index) {
+    return index * ENTRY_SIZE + VALUES_OFFSET;
+  }
+}
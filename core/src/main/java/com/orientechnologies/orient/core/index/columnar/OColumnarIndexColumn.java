@@ -0,0 +1,367 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.index.columnar;
+
+import com.orientechnologies.common.exception.OException;
+import com.orientechnologies.orient.core.exception.OColumnarIndexException;
+import com.orientechnologies.orient.core.storage.cache.OCacheEntry;
+import com.orientechnologies.orient.core.storage.impl.local.OAbstractPaginatedStorage;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.atomicoperations.OAtomicOperation;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.base.ODurableComponent;
+
+import java.io.IOException;
+
+/**
+ * Values of an indexed property of the records of one cluster, stored as packed longs in cluster position order. The value of the
+ * record with cluster position <code>p</code> is at slot <code>p % MAX_ENTRIES</code> of the page <code>p / MAX_ENTRIES</code>,
+ * pages are added when a record with a higher position gets its value.
+ *
+ * @see OColumnarIndexBucket
+ */
+public class OColumnarIndexColumn extends ODurableComponent {
+  public static final String DEF_EXTENSION = ".cic";
+
+  private long fileId;
+
+  public OColumnarIndexColumn(OAbstractPaginatedStorage storage, String name) {
+    super(storage, name, DEF_EXTENSION, name + DEF_EXTENSION);
+  }
+
+  public void create() throws IOException {
+    startOperation();
+    try {
+      final OAtomicOperation atomicOperation = startAtomicOperation(false);
+
+      acquireExclusiveLock();
+      try {
+        fileId = addFile(atomicOperation, getFullName());
+        endAtomicOperation(false, null);
+      } catch (IOException ioe) {
+        endAtomicOperation(true, ioe);
+        throw ioe;
+      } catch (Exception e) {
+        endAtomicOperation(true, e);
+        throw OException.wrapException(new OColumnarIndexException("Error during creation of column", this), e);
+      } finally {
+        releaseExclusiveLock();
+      }
+    } finally {
+      completeOperation();
+    }
+  }
+
+  public void open() throws IOException {
+    startOperation();
+    try {
+      acquireExclusiveLock();
+      try {
+        final OAtomicOperation atomicOperation = atomicOperationsManager.getCurrentOperation();
+        fileId = openFile(atomicOperation, getFullName());
+      } finally {
+        releaseExclusiveLock();
+      }
+    } finally {
+      completeOperation();
+    }
+  }
+
+  public void flush() {
+    startOperation();
+    try {
+      atomicOperationsManager.acquireReadLock(this);
+      try {
+        acquireSharedLock();
+        try {
+          writeCache.flush(fileId);
+        } finally {
+          releaseSharedLock();
+        }
+      } finally {
+        atomicOperationsManager.releaseReadLock(this);
+      }
+    } finally {
+      completeOperation();
+    }
+  }
+
+  public void close(final boolean flush) throws IOException {
+    startOperation();
+    try {
+      acquireExclusiveLock();
+      try {
+        readCache.closeFile(fileId, flush, writeCache);
+      } finally {
+        releaseExclusiveLock();
+      }
+    } finally {
+      completeOperation();
+    }
+  }
+
+  public void truncate() throws IOException {
+    startOperation();
+    try {
+      final OAtomicOperation atomicOperation = startAtomicOperation(true);
+      acquireExclusiveLock();
+      try {
+        truncateFile(atomicOperation, fileId);
+        endAtomicOperation(false, null);
+      } catch (IOException ioe) {
+        endAtomicOperation(true, ioe);
+        throw ioe;
+      } catch (Exception e) {
+        endAtomicOperation(true, e);
+        throw OException.wrapException(new OColumnarIndexException("Error during truncation of column", this), e);
+      } finally {
+        releaseExclusiveLock();
+      }
+    } finally {
+      completeOperation();
+    }
+  }
+
+  public void delete() throws IOException {
+    startOperation();
+    try {
+      final OAtomicOperation atomicOperation = startAtomicOperation(false);
+
+      acquireExclusiveLock();
+      try {
+        deleteFile(atomicOperation, fileId);
+        endAtomicOperation(false, null);
+      } catch (IOException ioe) {
+        endAtomicOperation(true, ioe);
+        throw ioe;
+      } catch (Exception e) {
+        endAtomicOperation(true, e);
+        throw OException.wrapException(new OColumnarIndexException("Error during deletion of column", this), e);
+      } finally {
+        releaseExclusiveLock();
+      }
+    } finally {
+      completeOperation();
+    }
+  }
+
+  /**
+   * Sets the value of the record with the passed cluster position, replacing the previous one if any.
+   */
+  public void set(final long clusterPosition, final long value) throws IOException {
+    startOperation();
+    try {
+      final OAtomicOperation atomicOperation = startAtomicOperation(true);
+
+      acquireExclusiveLock();
+      try {
+        final long pageIndex = clusterPosition / OColumnarIndexBucket.MAX_ENTRIES;
+        final int index = (int) (clusterPosition % OColumnarIndexBucket.MAX_ENTRIES);
+
+        // PAGES OF THE RECORDS WITHOUT VALUE ARE ADDED EMPTY
+        OCacheEntry cacheEntry = null;
+        while (getFilledUpTo(atomicOperation, fileId) <= pageIndex) {
+          if (cacheEntry != null)
+            releasePage(atomicOperation, cacheEntry);
+          cacheEntry = addPage(atomicOperation, fileId);
+        }
+        if (cacheEntry == null)
+          cacheEntry = loadPage(atomicOperation, fileId, pageIndex, false, 1);
+
+        cacheEntry.acquireExclusiveLock();
+        try {
+          final OColumnarIndexBucket bucket = new OColumnarIndexBucket(cacheEntry, getChanges(atomicOperation, cacheEntry));
+          bucket.set(index, value);
+        } finally {
+          cacheEntry.releaseExclusiveLock();
+          releasePage(atomicOperation, cacheEntry);
+        }
+
+        endAtomicOperation(false, null);
+      } catch (IOException e) {
+        endAtomicOperation(true, e);
+        throw e;
+      } catch (RuntimeException e) {
+        endAtomicOperation(true, e);
+        throw OException.wrapException(new OColumnarIndexException("Error during update of value in column", this), e);
+      } finally {
+        releaseExclusiveLock();
+      }
+    } finally {
+      completeOperation();
+    }
+  }
+
+  /**
+   * Removes the value of the record with the passed cluster position, only if it's the passed one: the value of a record updated
+   * in a transaction could be set before the old one is removed.
+   *
+   * @return true if the value has been removed
+   */
+  public boolean remove(final long clusterPosition, final long value) throws IOException {
+    startOperation();
+    try {
+      final OAtomicOperation atomicOperation = startAtomicOperation(true);
+
+      acquireExclusiveLock();
+      try {
+        final long pageIndex = clusterPosition / OColumnarIndexBucket.MAX_ENTRIES;
+        final int index = (int) (clusterPosition % OColumnarIndexBucket.MAX_ENTRIES);
+
+        boolean removed = false;
+        if (pageIndex < getFilledUpTo(atomicOperation, fileId)) {
+          final OCacheEntry cacheEntry = loadPage(atomicOperation, fileId, pageIndex, false, 1);
+          cacheEntry.acquireExclusiveLock();
+          try {
+            final OColumnarIndexBucket bucket = new OColumnarIndexBucket(cacheEntry, getChanges(atomicOperation, cacheEntry));
+            removed = bucket.remove(index, value);
+          } finally {
+            cacheEntry.releaseExclusiveLock();
+            releasePage(atomicOperation, cacheEntry);
+          }
+        }
+
+        endAtomicOperation(false, null);
+        return removed;
+      } catch (IOException e) {
+        endAtomicOperation(true, e);
+        throw e;
+      } catch (RuntimeException e) {
+        endAtomicOperation(true, e);
+        throw OException.wrapException(new OColumnarIndexException("Error during removal of value from column", this), e);
+      } finally {
+        releaseExclusiveLock();
+      }
+    } finally {
+      completeOperation();
+    }
+  }
+
+  /**
+   * Removes the passed value from all the records that have it.
+   *
+   * @return the number of removed values
+   */
+  public int removeAll(final long value) throws IOException {
+    startOperation();
+    try {
+      final OAtomicOperation atomicOperation = startAtomicOperation(true);
+
+      acquireExclusiveLock();
+      try {
+        int removed = 0;
+        final long filledUpTo = getFilledUpTo(atomicOperation, fileId);
+        for (long pageIndex = 0; pageIndex < filledUpTo; pageIndex++) {
+          final OCacheEntry cacheEntry = loadPage(atomicOperation, fileId, pageIndex, false, 1);
+          cacheEntry.acquireExclusiveLock();
+          try {
+            final OColumnarIndexBucket bucket = new OColumnarIndexBucket(cacheEntry, getChanges(atomicOperation, cacheEntry));
+            for (int i = 0; i < OColumnarIndexBucket.MAX_ENTRIES; i++)
+              if (bucket.remove(i, value))
+                removed++;
+          } finally {
+            cacheEntry.releaseExclusiveLock();
+            releasePage(atomicOperation, cacheEntry);
+          }
+        }
+
+        endAtomicOperation(false, null);
+        return removed;
+      } catch (IOException e) {
+        endAtomicOperation(true, e);
+        throw e;
+      } catch (RuntimeException e) {
+        endAtomicOperation(true, e);
+        throw OException.wrapException(new OColumnarIndexException("Error during removal of value from column", this), e);
+      } finally {
+        releaseExclusiveLock();
+      }
+    } finally {
+      completeOperation();
+    }
+  }
+
+  /**
+   * @return the number of pages of the column, the values of the records with position higher than
+   *         <code>getPages() * MAX_ENTRIES</code> are not set
+   */
+  public long getPages() throws IOException {
+    startOperation();
+    try {
+      atomicOperationsManager.acquireReadLock(this);
+      try {
+        acquireSharedLock();
+        try {
+          return getFilledUpTo(atomicOperationsManager.getCurrentOperation(), fileId);
+        } finally {
+          releaseSharedLock();
+        }
+      } finally {
+        atomicOperationsManager.releaseReadLock(this);
+      }
+    } finally {
+      completeOperation();
+    }
+  }
+
+  /**
+   * Reads the values of a page: the value of the record with cluster position <code>pageIndex * MAX_ENTRIES + i</code> is copied
+   * in <code>values[i]</code> if <code>filled[i]</code> is true.
+   *
+   * @return false if the page does not exist, all the records of the page don't have a value
+   */
+  public boolean readPage(final long pageIndex, final long[] values, final boolean[] filled) throws IOException {
+    startOperation();
+    try {
+      atomicOperationsManager.acquireReadLock(this);
+      try {
+        acquireSharedLock();
+        try {
+          final OAtomicOperation atomicOperation = atomicOperationsManager.getCurrentOperation();
+          if (pageIndex >= getFilledUpTo(atomicOperation, fileId))
+            return false;
+
+          final OCacheEntry cacheEntry = loadPage(atomicOperation, fileId, pageIndex, false, 1);
+          cacheEntry.acquireSharedLock();
+          try {
+            final OColumnarIndexBucket bucket = new OColumnarIndexBucket(cacheEntry, getChanges(atomicOperation, cacheEntry));
+            for (int i = 0; i < OColumnarIndexBucket.MAX_ENTRIES; i++) {
+              filled[i] = bucket.isFilled(i);
+              if (filled[i])
+                values[i] = bucket.getValue(i);
+            }
+          } finally {
+            cacheEntry.releaseSharedLock();
+            releasePage(atomicOperation, cacheEntry);
+          }
+          return true;
+        } finally {
+          releaseSharedLock();
+        }
+      } finally {
+        atomicOperationsManager.releaseReadLock(this);
+      }
+    } finally {
+      completeOperation();
+    }
+  }
+
+  public void acquireAtomicExclusiveLock() {
+    atomicOperationsManager.acquireExclusiveLockTillOperationComplete(this);
+  }
+}
@@ -0,0 +1,593 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.index.columnar;
+
+import com.orientechnologies.common.comparator.ODefaultComparator;
+import com.orientechnologies.common.exception.OException;
+import com.orientechnologies.common.serialization.types.OBinarySerializer;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.index.*;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.storage.impl.local.OAbstractPaginatedStorage;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.atomicoperations.OAtomicOperation;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Engine of the {@link OIndexColumnar} indexes: keeps the key of every record in a {@link OColumnarIndexColumn} per cluster, named
+ * <code>&lt;index name&gt;.&lt;cluster id&gt;</code>, at the position of the record. The keys are stored as longs, the floating
+ * point ones as the bits of their double value.
+ * <p>
+ * Only the aggregations over all the records are fast: the lookups by key scan all the columns and the range queries are not
+ * supported.
+ */
+public final class OColumnarIndexEngine implements OIndexEngine {
+  public static final int VERSION = 1;
+
+  private final String                                      name;
+  private final OAbstractPaginatedStorage                   storage;
+  private final int                                         version;
+  private final ConcurrentMap<Integer, OColumnarIndexColumn> columns = new ConcurrentHashMap<Integer, OColumnarIndexColumn>();
+  // COLUMNS CREATED BY AN ATOMIC OPERATION NOT COMMITTED YET: THEIR FILE EXISTS ONLY ONCE THE OPERATION IS COMMITTED
+  private final ConcurrentMap<Integer, UncommittedColumn>    uncommitted = new ConcurrentHashMap<Integer, UncommittedColumn>();
+  private volatile OType                                    keyType;
+
+  public OColumnarIndexEngine(String name, OAbstractPaginatedStorage storage, int version) {
+    this.name = name;
+    this.storage = storage;
+    this.version = version;
+  }
+
+  public static boolean isSupportedType(final OType type) {
+    switch (type) {
+    case BYTE:
+    case SHORT:
+    case INTEGER:
+    case LONG:
+    case FLOAT:
+    case DOUBLE:
+    case DATE:
+    case DATETIME:
+      return true;
+    default:
+      return false;
+    }
+  }
+
+  @Override
+  public void init(String indexName, String indexType, OIndexDefinition indexDefinition, boolean isAutomatic, ODocument metadata) {
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public void create(OBinarySerializer valueSerializer, boolean isAutomatic, OType[] keyTypes, boolean nullPointerSupport,
+      OBinarySerializer keySerializer, int keySize, Set<String> clustersToIndex, Map<String, String> engineProperties,
+      ODocument metadata) {
+    keyType = checkKeyTypes(keyTypes);
+
+    try {
+      if (clustersToIndex != null)
+        for (String clusterName : clustersToIndex) {
+          final int clusterId = storage.getClusterIdByName(clusterName);
+          if (clusterId >= 0)
+            getColumn(clusterId, true);
+        }
+    } catch (IOException e) {
+      throw OException.wrapException(new OIndexException("Error during creation of columnar index " + name), e);
+    }
+  }
+
+  @Override
+  public void load(String indexName, OBinarySerializer valueSerializer, boolean isAutomatic, OBinarySerializer keySerializer,
+      OType[] keyTypes, boolean nullPointerSupport, int keySize, Map<String, String> engineProperties) {
+    keyType = checkKeyTypes(keyTypes);
+
+    try {
+      for (Map.Entry<Integer, String> entry : findColumns(name).entrySet()) {
+        final OColumnarIndexColumn column = new OColumnarIndexColumn(storage, entry.getValue());
+        column.open();
+        columns.put(entry.getKey(), column);
+      }
+    } catch (IOException e) {
+      throw OException.wrapException(new OIndexException("Error during loading of columnar index " + name), e);
+    }
+  }
+
+  @Override
+  public void flush() {
+    for (OColumnarIndexColumn column : committedColumns().values())
+      column.flush();
+  }
+
+  @Override
+  public void delete() {
+    try {
+      for (OColumnarIndexColumn column : committedColumns().values())
+        column.delete();
+      columns.clear();
+      uncommitted.clear();
+    } catch (IOException e) {
+      throw OException.wrapException(new OIndexException("Error during deletion of columnar index " + name), e);
+    }
+  }
+
+  @Override
+  public void deleteWithoutLoad(String indexName) {
+    try {
+      for (String columnName : findColumns(indexName).values()) {
+        final OColumnarIndexColumn column = new OColumnarIndexColumn(storage, columnName);
+        column.open();
+        column.delete();
+      }
+    } catch (IOException e) {
+      throw OException.wrapException(new OIndexException("Error during deletion of columnar index " + indexName), e);
+    }
+  }
+
+  @Override
+  public void clear() {
+    try {
+      for (OColumnarIndexColumn column : committedColumns().values())
+        column.truncate();
+    } catch (IOException e) {
+      throw OException.wrapException(new OIndexException("Error during clear of columnar index " + name), e);
+    }
+  }
+
+  @Override
+  public void close() {
+    try {
+      for (OColumnarIndexColumn column : committedColumns().values())
+        column.close(true);
+      columns.clear();
+      uncommitted.clear();
+    } catch (IOException e) {
+      throw OException.wrapException(new OIndexException("Error during close of columnar index " + name), e);
+    }
+  }
+
+  /**
+   * Sets the key of the record, replacing the previous one.
+   */
+  @Override
+  public void put(Object key, Object value) {
+    final ORID rid = ((OIdentifiable) value).getIdentity();
+    try {
+      getColumn(rid.getClusterId(), true).set(rid.getClusterPosition(), encode(key));
+    } catch (IOException e) {
+      throw OException.wrapException(new OIndexException("Error during insertion of key in columnar index " + name), e);
+    }
+  }
+
+  /**
+   * Removes the key of the record, only if it's the passed one.
+   */
+  public boolean remove(Object key, OIdentifiable value) {
+    final ORID rid = value.getIdentity();
+    try {
+      final OColumnarIndexColumn column = getColumn(rid.getClusterId(), false);
+      return column != null && column.remove(rid.getClusterPosition(), encode(key));
+    } catch (IOException e) {
+      throw OException.wrapException(new OIndexException("Error during removal of key from columnar index " + name), e);
+    }
+  }
+
+  @Override
+  public boolean remove(Object key) {
+    try {
+      final long encoded = encode(key);
+      int removed = 0;
+      for (OColumnarIndexColumn column : committedColumns().values())
+        removed += column.removeAll(encoded);
+      return removed > 0;
+    } catch (IOException e) {
+      throw OException.wrapException(new OIndexException("Error during removal of key from columnar index " + name), e);
+    }
+  }
+
+  @Override
+  public boolean validatedPut(Object key, OIdentifiable value, Validator<Object, OIdentifiable> validator) {
+    throw new UnsupportedOperationException("validatedPut");
+  }
+
+  @Override
+  public boolean contains(Object key) {
+    return get(key) != null;
+  }
+
+  @Override
+  public Object get(Object key) {
+    final long encoded = encode(key);
+    final Set<OIdentifiable> result = new HashSet<OIdentifiable>();
+
+    final OIndexCursor cursor = cursor(null);
+    Map.Entry<Object, OIdentifiable> entry;
+    while ((entry = cursor.nextEntry()) != null)
+      if (encode(entry.getKey()) == encoded)
+        result.add(entry.getValue());
+
+    return result.isEmpty() ? null : result;
+  }
+
+  /**
+   * Creates the column of the cluster, if it does not exist yet.
+   */
+  public void addColumn(final int clusterId) {
+    try {
+      getColumn(clusterId, true);
+    } catch (IOException e) {
+      throw OException.wrapException(new OIndexException("Error during creation of column of columnar index " + name), e);
+    }
+  }
+
+  /**
+   * @return the number of pages of the column of the cluster, 0 if no record of the cluster has been indexed
+   */
+  public long getPages(final int clusterId) {
+    final OColumnarIndexColumn column = committedColumns().get(clusterId);
+    if (column == null)
+      return 0;
+
+    try {
+      return column.getPages();
+    } catch (IOException e) {
+      throw OException.wrapException(new OIndexException("Error during reading of columnar index " + name), e);
+    }
+  }
+
+  /**
+   * Reads the keys of the records of a cluster stored in a page of its column.
+   *
+   * @return the keys, the key of the record with position <code>pageIndex * getEntriesPerPage() + i</code> is at index
+   *         <code>i</code>, null if the record has no key. Null if the page does not exist.
+   */
+  public Object[] readPage(final int clusterId, final long pageIndex) {
+    final OColumnarIndexColumn column = committedColumns().get(clusterId);
+    if (column == null)
+      return null;
+
+    final long[] values = new long[OColumnarIndexBucket.MAX_ENTRIES];
+    final boolean[] filled = new boolean[OColumnarIndexBucket.MAX_ENTRIES];
+    try {
+      if (!column.readPage(pageIndex, values, filled))
+        return null;
+    } catch (IOException e) {
+      throw OException.wrapException(new OIndexException("Error during reading of columnar index " + name), e);
+    }
+
+    final Object[] keys = new Object[values.length];
+    for (int i = 0; i < values.length; i++)
+      if (filled[i])
+        keys[i] = decode(values[i]);
+    return keys;
+  }
+
+  public static int getEntriesPerPage() {
+    return OColumnarIndexBucket.MAX_ENTRIES;
+  }
+
+  @Override
+  public Object getFirstKey() {
+    return findKey(true);
+  }
+
+  @Override
+  public Object getLastKey() {
+    return findKey(false);
+  }
+
+  private Object findKey(final boolean first) {
+    Object result = null;
+
+    final OIndexCursor cursor = cursor(null);
+    Map.Entry<Object, OIdentifiable> entry;
+    while ((entry = cursor.nextEntry()) != null) {
+      final Object key = entry.getKey();
+      if (result == null || (ODefaultComparator.INSTANCE.compare(key, result) < 0) == first)
+        result = key;
+    }
+
+    return result;
+  }
+
+  @Override
+  public OIndexCursor iterateEntriesBetween(Object rangeFrom, boolean fromInclusive, Object rangeTo, boolean toInclusive,
+      boolean ascSortOrder, ValuesTransformer transformer) {
+    throw new UnsupportedOperationException("iterateEntriesBetween");
+  }
+
+  @Override
+  public OIndexCursor iterateEntriesMajor(Object fromKey, boolean isInclusive, boolean ascSortOrder,
+      ValuesTransformer transformer) {
+    throw new UnsupportedOperationException("iterateEntriesMajor");
+  }
+
+  @Override
+  public OIndexCursor iterateEntriesMinor(Object toKey, boolean isInclusive, boolean ascSortOrder, ValuesTransformer transformer) {
+    throw new UnsupportedOperationException("iterateEntriesMinor");
+  }
+
+  /**
+   * Iterates the keys in the order of the records, not of the keys.
+   */
+  @Override
+  public OIndexCursor cursor(final ValuesTransformer valuesTransformer) {
+    final List<Integer> clusterIds = new ArrayList<Integer>(committedColumns().keySet());
+    Collections.sort(clusterIds);
+
+    return new OIndexAbstractCursor() {
+      private final Iterator<Integer> clusterIterator = clusterIds.iterator();
+      private int                     clusterId;
+      private long                    pageIndex;
+      private Object[]                keys;
+      private int                     index;
+
+      @Override
+      public Map.Entry<Object, OIdentifiable> nextEntry() {
+        while (true) {
+          if (keys != null) {
+            while (index < keys.length) {
+              final int position = index++;
+              if (keys[position] != null)
+                return new ColumnEntry(keys[position],
+                    new ORecordId(clusterId, pageIndex * OColumnarIndexBucket.MAX_ENTRIES + position));
+            }
+
+            pageIndex++;
+            keys = readPage(clusterId, pageIndex);
+          } else {
+            if (!clusterIterator.hasNext())
+              return null;
+
+            clusterId = clusterIterator.next();
+            pageIndex = 0;
+            keys = readPage(clusterId, pageIndex);
+          }
+          index = 0;
+        }
+      }
+    };
+  }
+
+  @Override
+  public OIndexCursor descCursor(ValuesTransformer valuesTransformer) {
+    throw new UnsupportedOperationException("descCursor");
+  }
+
+  @Override
+  public OIndexKeyCursor keyCursor() {
+    final OIndexCursor cursor = cursor(null);
+    return new OIndexKeyCursor() {
+      @Override
+      public Object next(int prefetchSize) {
+        final Map.Entry<Object, OIdentifiable> entry = cursor.nextEntry();
+        return entry != null ? entry.getKey() : null;
+      }
+    };
+  }
+
+  /**
+   * @return the number of records with a key if a transformer is passed, otherwise the number of distinct keys
+   */
+  @Override
+  public long size(ValuesTransformer transformer) {
+    final OIndexCursor cursor = cursor(null);
+    if (transformer == null)
+      return cursor.toKeys().size();
+
+    long size = 0;
+    while (cursor.nextEntry() != null)
+      size++;
+    return size;
+  }
+
+  @Override
+  public boolean hasRangeQuerySupport() {
+    return false;
+  }
+
+  @Override
+  public int getVersion() {
+    return version;
+  }
+
+  @Override
+  public boolean acquireAtomicExclusiveLock(Object key) {
+    for (OColumnarIndexColumn column : committedColumns().values())
+      column.acquireAtomicExclusiveLock();
+    return true;
+  }
+
+  @Override
+  public String getIndexNameByKey(Object key) {
+    return name;
+  }
+
+  /**
+   * Returns the column of the cluster. A column created by an atomic operation is used only by that operation until it's
+   * committed, and it's forgotten if the operation is rolled back.
+   */
+  private OColumnarIndexColumn getColumn(final int clusterId, final boolean create) throws IOException {
+    OColumnarIndexColumn column = committedColumns().get(clusterId);
+    if (column != null || (!create && uncommitted.isEmpty()))
+      return column;
+
+    synchronized (columns) {
+      column = columns.get(clusterId);
+      if (column != null)
+        return column;
+
+      final OAtomicOperation operation = storage.getAtomicOperationsManager().getCurrentOperation();
+      final UncommittedColumn pending = uncommitted.get(clusterId);
+      if (pending != null) {
+        if (pending.operation == operation)
+          return pending.column;
+        if (create)
+          throw new OIndexException("Column of cluster " + clusterId + " of columnar index " + name
+              + " is being created by another operation");
+        return null;
+      }
+
+      if (!create)
+        return null;
+
+      column = new OColumnarIndexColumn(storage, name + "." + clusterId);
+      column.create();
+      if (operation != null)
+        uncommitted.put(clusterId, new UncommittedColumn(column, operation));
+      else
+        columns.put(clusterId, column);
+      return column;
+    }
+  }
+
+  /**
+   * Returns the columns whose file exists, after registering the ones created by the committed atomic operations.
+   */
+  private Map<Integer, OColumnarIndexColumn> committedColumns() {
+    if (uncommitted.isEmpty())
+      return columns;
+
+    synchronized (columns) {
+      final Iterator<Map.Entry<Integer, UncommittedColumn>> iterator = uncommitted.entrySet().iterator();
+      while (iterator.hasNext()) {
+        final Map.Entry<Integer, UncommittedColumn> entry = iterator.next();
+        final UncommittedColumn pending = entry.getValue();
+        if (pending.operation.isRollback())
+          // THE FILE OF THE COLUMN HAS NOT BEEN CREATED
+          iterator.remove();
+        else if (storage.getWriteCache().exists(pending.column.getFullName())) {
+          columns.put(entry.getKey(), pending.column);
+          iterator.remove();
+        }
+      }
+    }
+    return columns;
+  }
+
+  private static final class UncommittedColumn {
+    private final OColumnarIndexColumn column;
+    private final OAtomicOperation     operation;
+
+    private UncommittedColumn(final OColumnarIndexColumn column, final OAtomicOperation operation) {
+      this.column = column;
+      this.operation = operation;
+    }
+  }
+
+  /**
+   * @return the names of the columns of the index by cluster id
+   */
+  private Map<Integer, String> findColumns(final String indexName) {
+    final Map<Integer, String> result = new HashMap<Integer, String>();
+    final String prefix = indexName + ".";
+
+    for (String fileName : storage.getWriteCache().files().keySet()) {
+      if (!fileName.startsWith(prefix) || !fileName.endsWith(OColumnarIndexColumn.DEF_EXTENSION))
+        continue;
+
+      final String clusterId = fileName.substring(prefix.length(), fileName.length() - OColumnarIndexColumn.DEF_EXTENSION.length());
+      if (clusterId.isEmpty())
+        continue;
+
+      boolean digits = true;
+      for (int i = 0; i < clusterId.length() && digits; i++)
+        digits = Character.isDigit(clusterId.charAt(i));
+
+      if (digits)
+        result.put(Integer.parseInt(clusterId), prefix + clusterId);
+    }
+
+    return result;
+  }
+
+  private OType checkKeyTypes(final OType[] keyTypes) {
+    if (keyTypes == null || keyTypes.length != 1 || !isSupportedType(keyTypes[0]))
+      throw new OIndexException(
+          "Columnar index " + name + " supports only one numeric or date key, while keys of types " + Arrays.toString(keyTypes)
+              + " were requested");
+    return keyTypes[0];
+  }
+
+  private long encode(final Object key) {
+    if (key instanceof Date)
+      return ((Date) key).getTime();
+
+    if (keyType == OType.FLOAT || keyType == OType.DOUBLE)
+      return Double.doubleToLongBits(((Number) key).doubleValue());
+
+    return ((Number) key).longValue();
+  }
+
+  private Object decode(final long value) {
+    switch (keyType) {
+    case BYTE:
+      return (byte) value;
+    case SHORT:
+      return (short) value;
+    case INTEGER:
+      return (int) value;
+    case FLOAT:
+      return (float) Double.longBitsToDouble(value);
+    case DOUBLE:
+      return Double.longBitsToDouble(value);
+    case DATE:
+    case DATETIME:
+      return new Date(value);
+    default:
+      return value;
+    }
+  }
+
+  private static final class ColumnEntry implements Map.Entry<Object, OIdentifiable> {
+    private final Object        key;
+    private final OIdentifiable value;
+
+    private ColumnEntry(Object key, OIdentifiable value) {
+      this.key = key;
+      this.value = value;
+    }
+
+    @Override
+    public Object getKey() {
+      return key;
+    }
+
+    @Override
+    public OIdentifiable getValue() {
+      return value;
+    }
+
+    @Override
+    public OIdentifiable setValue(OIdentifiable value) {
+      throw new UnsupportedOperationException("setValue");
+    }
+  }
+}
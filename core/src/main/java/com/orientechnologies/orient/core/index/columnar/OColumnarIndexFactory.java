@@ -0,0 +1,98 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.index.columnar;
+
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.exception.OConfigurationException;
+import com.orientechnologies.orient.core.index.ODefaultIndexFactory;
+import com.orientechnologies.orient.core.index.OIndexEngine;
+import com.orientechnologies.orient.core.index.OIndexException;
+import com.orientechnologies.orient.core.index.OIndexFactory;
+import com.orientechnologies.orient.core.index.OIndexInternal;
+import com.orientechnologies.orient.core.index.engine.ORemoteIndexEngine;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.storage.OStorage;
+import com.orientechnologies.orient.core.storage.impl.local.OAbstractPaginatedStorage;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Factory of the {@link OIndexColumnar} indexes.
+ */
+public class OColumnarIndexFactory implements OIndexFactory {
+  public static final String COLUMNAR_ALGORITHM = "COLUMNAR";
+
+  private static final Set<String> TYPES      = Collections.singleton(OClass.INDEX_TYPE.COLUMNAR.toString());
+  private static final Set<String> ALGORITHMS = Collections.singleton(COLUMNAR_ALGORITHM);
+
+  /**
+   * Index types :
+   * <ul>
+   * <li>COLUMNAR</li>
+   * </ul>
+   */
+  public Set<String> getTypes() {
+    return TYPES;
+  }
+
+  public Set<String> getAlgorithms() {
+    return ALGORITHMS;
+  }
+
+  public OIndexInternal<?> createIndex(String name, ODatabaseDocumentInternal database, String indexType, String algorithm,
+      String valueContainerAlgorithm, ODocument metadata, int version) throws OConfigurationException {
+    if (version < 0)
+      version = getLastVersion();
+
+    if (valueContainerAlgorithm == null)
+      valueContainerAlgorithm = ODefaultIndexFactory.NONE_VALUE_CONTAINER;
+
+    final OStorage storage = database.getStorage();
+
+    if (OClass.INDEX_TYPE.COLUMNAR.toString().equals(indexType))
+      return new OIndexColumnar(name, indexType, algorithm, version, (OAbstractPaginatedStorage) storage.getUnderlying(),
+          valueContainerAlgorithm, metadata);
+
+    throw new OConfigurationException("Unsupported type: " + indexType);
+  }
+
+  @Override
+  public int getLastVersion() {
+    return OColumnarIndexEngine.VERSION;
+  }
+
+  @Override
+  public OIndexEngine createIndexEngine(final String algoritm, final String name, final Boolean durableInNonTxMode,
+      final OStorage storage, final int version, final Map<String, String> engineProperties) {
+    final String storageType = storage.getType();
+    if (storageType.equals("memory") || storageType.equals("plocal"))
+      return new OColumnarIndexEngine(name, (OAbstractPaginatedStorage) storage, version);
+    else if (storageType.equals("distributed"))
+      // DISTRIBUTED CASE: HANDLE IT AS FOR LOCAL
+      return new OColumnarIndexEngine(name, (OAbstractPaginatedStorage) storage.getUnderlying(), version);
+    else if (storageType.equals("remote"))
+      return new ORemoteIndexEngine(name);
+
+    throw new OIndexException("Unsupported storage type: " + storageType);
+  }
+}
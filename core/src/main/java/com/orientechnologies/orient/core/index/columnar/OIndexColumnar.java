@@ -0,0 +1,191 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.index.columnar;
+
+import com.orientechnologies.common.listener.OProgressListener;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.index.*;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.storage.impl.local.OAbstractPaginatedStorage;
+import com.orientechnologies.orient.core.storage.impl.local.OIndexEngineCallback;
+import com.orientechnologies.orient.core.tx.OTransactionIndexChangesPerKey;
+
+import java.util.Set;
+
+/**
+ * Index that keeps the value of a numeric or date property of every record of a class in columns ordered as the records, so the
+ * queries that aggregate the property over the class, like <code>select sum(amount) from Order</code>, read the packed values
+ * instead of loading every record. The lookups by key scan all the values, so the index is never used to filter records.
+ * <p>
+ * As for the other indexes the changes are applied on save of the records and on commit of the transactions. Records without
+ * value for the property are not indexed.
+ *
+ * @see OColumnarIndexEngine
+ */
+public class OIndexColumnar extends OIndexMultiValues {
+
+  public OIndexColumnar(String name, String typeId, String algorithm, int version, OAbstractPaginatedStorage storage,
+      String valueContainerAlgorithm, ODocument metadata) {
+    super(name, typeId, algorithm, version, storage, valueContainerAlgorithm, metadata);
+  }
+
+  @Override
+  public OIndexMultiValues create(String name, OIndexDefinition indexDefinition, String clusterIndexName,
+      Set<String> clustersToIndex, boolean rebuild, OProgressListener progressListener) {
+    if (indexDefinition == null || indexDefinition instanceof OIndexDefinitionMultiValue
+        || indexDefinition.getTypes().length != 1 || !OColumnarIndexEngine.isSupportedType(indexDefinition.getTypes()[0]))
+      throw new OIndexException("Columnar index " + name + " can be created only on one property of numeric or date type");
+
+    return super.create(name, indexDefinition, clusterIndexName, clustersToIndex, rebuild, progressListener);
+  }
+
+  public boolean canBeUsedInEqualityOperators() {
+    return false;
+  }
+
+  @Override
+  public boolean supportsOrderedIterations() {
+    return false;
+  }
+
+  @Override
+  protected Iterable<OTransactionIndexChangesPerKey.OTransactionIndexEntry> interpretTxKeyChanges(
+      OTransactionIndexChangesPerKey changes) {
+    return changes.interpret(OTransactionIndexChangesPerKey.Interpretation.NonUnique);
+  }
+
+  @Override
+  public OIndexMultiValues put(Object key, final OIdentifiable singleValue) {
+    final Object collatedKey = getCollatingValue(key);
+    if (collatedKey == null)
+      return this;
+
+    acquireSharedLock();
+    try {
+      if (!singleValue.getIdentity().isValid())
+        (singleValue.getRecord()).save();
+
+      final ORID identity = singleValue.getIdentity();
+
+      // THE VALUES ARE KEPT BY RECORD: NO KEY LOCK IS NEEDED, THE COLUMN IS LOCKED ON UPDATE
+      storage.callIndexEngine(true, false, indexId, new OIndexEngineCallback<Object>() {
+        @Override
+        public Object callEngine(OIndexEngine engine) {
+          engine.put(collatedKey, identity);
+          return null;
+        }
+      });
+      return this;
+    } finally {
+      releaseSharedLock();
+    }
+  }
+
+  /**
+   * Removes the value of the record only if it's still the passed one: in a transaction the new value of a record could be set
+   * before the old one is removed, as the changes are applied in order of key.
+   */
+  @Override
+  public boolean remove(Object key, final OIdentifiable value) {
+    final Object collatedKey = getCollatingValue(key);
+    if (collatedKey == null)
+      return false;
+    if (value == null)
+      return remove(collatedKey);
+
+    acquireSharedLock();
+    try {
+      return storage.callIndexEngine(true, false, indexId, new OIndexEngineCallback<Boolean>() {
+        @Override
+        public Boolean callEngine(OIndexEngine engine) {
+          return ((OColumnarIndexEngine) engine).remove(collatedKey, value);
+        }
+      });
+    } finally {
+      releaseSharedLock();
+    }
+  }
+
+  @Override
+  public OIndexAbstract<Set<OIdentifiable>> addCluster(String clusterName) {
+    // THE COLUMN IS CREATED OUT OF THE TRANSACTIONS THAT WILL FILL IT
+    final int clusterId = storage.getClusterIdByName(clusterName);
+    if (clusterId >= 0) {
+      acquireSharedLock();
+      try {
+        storage.callIndexEngine(false, false, indexId, new OIndexEngineCallback<Object>() {
+          @Override
+          public Object callEngine(OIndexEngine engine) {
+            ((OColumnarIndexEngine) engine).addColumn(clusterId);
+            return null;
+          }
+        });
+      } finally {
+        releaseSharedLock();
+      }
+    }
+
+    return super.addCluster(clusterName);
+  }
+
+  /**
+   * @return the number of pages of the values of the records of the cluster
+   * @see OColumnarIndexEngine#getPages(int)
+   */
+  public long getPages(final int clusterId) {
+    acquireSharedLock();
+    try {
+      return storage.callIndexEngine(false, true, indexId, new OIndexEngineCallback<Long>() {
+        @Override
+        public Long callEngine(OIndexEngine engine) {
+          return ((OColumnarIndexEngine) engine).getPages(clusterId);
+        }
+      });
+    } finally {
+      releaseSharedLock();
+    }
+  }
+
+  /**
+   * Reads the values of the records of the cluster with positions from <code>pageIndex * getEntriesPerPage()</code> to
+   * <code>(pageIndex + 1) * getEntriesPerPage() - 1</code>, without loading the records.
+   *
+   * @return the values by position in the page, null for the records without value, or null if the page does not exist
+   * @see OColumnarIndexEngine#readPage(int, long)
+   */
+  public Object[] readPage(final int clusterId, final long pageIndex) {
+    acquireSharedLock();
+    try {
+      return storage.callIndexEngine(false, true, indexId, new OIndexEngineCallback<Object[]>() {
+        @Override
+        public Object[] callEngine(OIndexEngine engine) {
+          return ((OColumnarIndexEngine) engine).readPage(clusterId, pageIndex);
+        }
+      });
+    } finally {
+      releaseSharedLock();
+    }
+  }
+
+  public int getEntriesPerPage() {
+    return OColumnarIndexEngine.getEntriesPerPage();
+  }
+}
@@ -61,6 +61,8 @@ public class OImmutableClass implements OClass {
   private final Map<String, OProperty>    properties;
   private Map<String, OProperty>          allPropertiesMap;
   private Collection<OProperty>           allProperties;
+  private Map<String, Integer>            propertySlots;
+  private String[]                        propertySlotNames;
   private final OClusterSelectionStrategy clusterSelection;
   private final int                       defaultClusterId;
   private final int[]                     clusterIds;
@@ -143,6 +145,14 @@ public class OImmutableClass implements OClass {
 
       this.allProperties = Collections.unmodifiableCollection(allProperties);
       this.allPropertiesMap = Collections.unmodifiableMap(allPropsMap);
+
+      final Map<String, Integer> slots = new HashMap<String, Integer>(allPropsMap.size() * 2);
+      this.propertySlotNames = new String[allPropsMap.size()];
+      for (String propName : allPropsMap.keySet()) {
+        propertySlotNames[slots.size()] = propName;
+        slots.put(propName, slots.size());
+      }
+      this.propertySlots = slots;
       this.restricted = isSubClassOf(OSecurityShared.RESTRICTED_CLASSNAME);
       this.isVertexType = isSubClassOf(OClass.VERTEX_CLASS_NAME);
       this.isEdgeType = isSubClassOf(OClass.EDGE_CLASS_NAME);
@@ -247,6 +257,24 @@ public class OImmutableClass implements OClass {
     return allProperties;
   }
 
+  /**
+   * Returns the position of a property in the field slots of the documents of this class.
+   *
+   * @return the slot or -1 if the class has no property with this name
+   */
+  public int getPropertySlot(final String iPropertyName) {
+    final Integer slot = propertySlots.get(iPropertyName);
+    return slot != null ? slot : -1;
+  }
+
+  public String getPropertySlotName(final int iSlot) {
+    return propertySlotNames[iSlot];
+  }
+
+  public int getPropertySlotCount() {
+    return propertySlotNames.length;
+  }
+
   @Override
   public Map<String, OProperty> propertiesMap() {
     return allPropertiesMap;
@@ -24,6 +24,7 @@ import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.record.impl.ODirtyManager;
+import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.serialization.serializer.record.ORecordSerializer;
 
 public class ORecordInternal {
@@ -95,6 +96,22 @@ public class ORecordInternal {
     rec.clearSource();
   }
 
+  /**
+   * Internal only. Serializes the record without keeping the serialized content in the document, so serializing many documents
+   * doesn't keep their content twice in memory. The content already kept by the record is returned as is.
+   */
+  public static byte[] toStreamUncached(final ORecord record) {
+    final ORecordAbstract rec = (ORecordAbstract) record;
+    if (rec._source != null || !(rec instanceof ODocument))
+      // THE SOURCE OF THE OTHER RECORDS IS THEIR CONTENT
+      return rec.toStream();
+
+    final byte[] stream = rec.toStream();
+    // NO SOURCE BEFORE SERIALIZING: ALL THE FIELDS ARE LOADED AND THE SOURCE IS NOT NEEDED
+    rec._source = null;
+    return stream;
+  }
+
   public static void addIdentityChangeListener(final ORecord record, final OIdentityChangeListener identityChangeListener) {
     ((ORecordAbstract) record).addIdentityChangeListener(identityChangeListener);
   }
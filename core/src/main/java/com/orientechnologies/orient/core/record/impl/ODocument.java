@@ -528,9 +528,12 @@ public class ODocument extends ORecordAbstract
       destination._owners = null;
 
     if (_fields != null) {
-      destination._fields = _fields instanceof LinkedHashMap ?
-          new LinkedHashMap<String, ODocumentEntry>() :
-          new HashMap<String, ODocumentEntry>();
+      if (_fields instanceof ODocumentFieldSlots)
+        destination._fields = new ODocumentFieldSlots(((ODocumentFieldSlots) _fields).getSchemaClass());
+      else
+        destination._fields = _fields instanceof LinkedHashMap ?
+            new LinkedHashMap<String, ODocumentEntry>() :
+            new HashMap<String, ODocumentEntry>();
       for (Entry<String, ODocumentEntry> entry : _fields.entrySet()) {
         ODocumentEntry docEntry = entry.getValue().clone();
         destination._fields.put(entry.getKey(), docEntry);
@@ -1773,7 +1776,7 @@ public class ODocument extends ORecordAbstract
     checkForFields(iFieldName);
     if (iFieldType != null) {
       if (_fields == null)
-        _fields = _ordered ? new LinkedHashMap<String, ODocumentEntry>() : new HashMap<String, ODocumentEntry>();
+        _fields = createFields();
       // SET THE FORCED TYPE
       ODocumentEntry entry = getOrCreate(iFieldName);
       if (entry.type != iFieldType)
@@ -2219,6 +2222,10 @@ public class ODocument extends ORecordAbstract
       _immutableClazz = null;
       _immutableSchemaVersion = -1;
       _className = iClassName;
+
+      if (_fields != null && _fields.isEmpty())
+        // CREATED BEFORE THE CLASS WAS KNOWN: RECREATE IT WITH THE LAYOUT OF THE CLASS
+        _fields = null;
     }
 
   }
@@ -2241,9 +2248,19 @@ public class ODocument extends ORecordAbstract
     return _immutableClazz;
   }
 
+  private Map<String, ODocumentEntry> createFields() {
+    if (_ordered && _className != null) {
+      // DOCUMENTS OF STRICT CLASSES KEEP THE FIELDS OF THE SCHEMA IN SLOTS
+      final OImmutableClass clazz = getImmutableSchemaClass();
+      if (clazz != null && clazz.isStrictMode() && clazz.getPropertySlotCount() > 0)
+        return new ODocumentFieldSlots(clazz);
+    }
+    return _ordered ? new LinkedHashMap<String, ODocumentEntry>() : new HashMap<String, ODocumentEntry>();
+  }
+
   protected void rawField(final String iFieldName, final Object iFieldValue, final OType iFieldType) {
     if (_fields == null)
-      _fields = _ordered ? new LinkedHashMap<String, ODocumentEntry>() : new HashMap<String, ODocumentEntry>();
+      _fields = createFields();
 
     ODocumentEntry entry = getOrCreate(iFieldName);
     removeCollectionChangeListener(entry, entry.value);
@@ -2619,7 +2636,7 @@ public class ODocument extends ORecordAbstract
 
   protected boolean checkForFields(final String... iFields) {
     if (_fields == null)
-      _fields = _ordered ? new LinkedHashMap<String, ODocumentEntry>() : new HashMap<String, ODocumentEntry>();
+      _fields = createFields();
 
     if (_status == ORecordElement.STATUS.LOADED && _source != null)
       // POPULATE FIELDS LAZY
@@ -0,0 +1,254 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.record.impl;
+
+import com.orientechnologies.orient.core.metadata.schema.OImmutableClass;
+
+import java.util.*;
+
+/**
+ * Fields of a document of a class in strict mode. The entries of the properties of the class are kept in a flat array indexed by
+ * the property slot of the class, so the document doesn't need a hash entry per field. Fields that are not properties of the
+ * class go in a map created on demand.
+ * <p>
+ * The fields are iterated in insertion order, as the fields of the other documents: the slots of the fields are kept in the order
+ * they've been added, with a marker for every field that is not a property.
+ */
+class ODocumentFieldSlots extends AbstractMap<String, ODocumentEntry> {
+  private static final int            OTHER = -1;
+
+  private final OImmutableClass       clazz;
+  private final ODocumentEntry[]      slots;
+  private int[]                       order;
+  private int                         orderSize;
+  private Map<String, ODocumentEntry> others;
+
+  ODocumentFieldSlots(final OImmutableClass iClass) {
+    clazz = iClass;
+    slots = new ODocumentEntry[iClass.getPropertySlotCount()];
+    order = new int[Math.max(slots.length, 1)];
+  }
+
+  OImmutableClass getSchemaClass() {
+    return clazz;
+  }
+
+  @Override
+  public ODocumentEntry get(final Object key) {
+    final int slot = slotOf(key);
+    if (slot > -1)
+      return slots[slot];
+    return others != null ? others.get(key) : null;
+  }
+
+  @Override
+  public boolean containsKey(final Object key) {
+    return get(key) != null;
+  }
+
+  @Override
+  public ODocumentEntry put(final String key, final ODocumentEntry value) {
+    if (value == null)
+      throw new IllegalArgumentException("Null entries are not supported");
+
+    final int slot = clazz.getPropertySlot(key);
+    if (slot > -1) {
+      final ODocumentEntry previous = slots[slot];
+      if (previous == null)
+        append(slot);
+      slots[slot] = value;
+      return previous;
+    }
+
+    if (others == null)
+      others = new LinkedHashMap<String, ODocumentEntry>();
+    final ODocumentEntry previous = others.put(key, value);
+    if (previous == null)
+      append(OTHER);
+    return previous;
+  }
+
+  @Override
+  public ODocumentEntry remove(final Object key) {
+    final int slot = slotOf(key);
+    if (slot > -1) {
+      final ODocumentEntry previous = slots[slot];
+      if (previous != null) {
+        slots[slot] = null;
+        removeAt(indexOf(slot, 0));
+      }
+      return previous;
+    }
+
+    if (others == null || !others.containsKey(key))
+      return null;
+
+    // THE MARKERS OF THE OTHER FIELDS ARE IN THE SAME ORDER AS THE FIELDS
+    int position = 0;
+    for (String other : others.keySet()) {
+      if (other.equals(key))
+        break;
+      position++;
+    }
+    int index = indexOf(OTHER, 0);
+    for (int i = 0; i < position; i++)
+      index = indexOf(OTHER, index + 1);
+    removeAt(index);
+
+    return others.remove(key);
+  }
+
+  @Override
+  public int size() {
+    return orderSize;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(slots, null);
+    orderSize = 0;
+    others = null;
+  }
+
+  @Override
+  public Set<Entry<String, ODocumentEntry>> entrySet() {
+    return new AbstractSet<Entry<String, ODocumentEntry>>() {
+      @Override
+      public Iterator<Entry<String, ODocumentEntry>> iterator() {
+        return new EntryIterator();
+      }
+
+      @Override
+      public int size() {
+        return ODocumentFieldSlots.this.size();
+      }
+    };
+  }
+
+  private int slotOf(final Object key) {
+    return key instanceof String ? clazz.getPropertySlot((String) key) : -1;
+  }
+
+  private void append(final int slot) {
+    if (orderSize == order.length)
+      order = Arrays.copyOf(order, order.length * 2);
+    order[orderSize++] = slot;
+  }
+
+  private int indexOf(final int slot, final int from) {
+    for (int i = from; i < orderSize; i++)
+      if (order[i] == slot)
+        return i;
+    throw new IllegalStateException("Field slot " + slot + " not found");
+  }
+
+  private void removeAt(final int index) {
+    System.arraycopy(order, index + 1, order, index, orderSize - index - 1);
+    orderSize--;
+  }
+
+  private final class EntryIterator implements Iterator<Entry<String, ODocumentEntry>> {
+    private int                                     next    = 0;
+    private int                                     current = -1;
+    private Iterator<Entry<String, ODocumentEntry>> othersIterator;
+
+    @Override
+    public boolean hasNext() {
+      return next < orderSize;
+    }
+
+    @Override
+    public Entry<String, ODocumentEntry> next() {
+      if (!hasNext())
+        throw new NoSuchElementException();
+
+      current = next++;
+      final int slot = order[current];
+      if (slot != OTHER)
+        return new SlotEntry(slot);
+
+      if (othersIterator == null)
+        othersIterator = others.entrySet().iterator();
+      return othersIterator.next();
+    }
+
+    @Override
+    public void remove() {
+      if (current < 0)
+        throw new IllegalStateException();
+
+      final int slot = order[current];
+      if (slot != OTHER)
+        slots[slot] = null;
+      else
+        othersIterator.remove();
+      removeAt(current);
+
+      next = current;
+      current = -1;
+    }
+  }
+
+  private final class SlotEntry implements Entry<String, ODocumentEntry> {
+    private final int slot;
+
+    private SlotEntry(final int slot) {
+      this.slot = slot;
+    }
+
+    @Override
+    public String getKey() {
+      return clazz.getPropertySlotName(slot);
+    }
+
+    @Override
+    public ODocumentEntry getValue() {
+      return slots[slot];
+    }
+
+    @Override
+    public ODocumentEntry setValue(final ODocumentEntry value) {
+      if (value == null)
+        throw new IllegalArgumentException("Null entries are not supported");
+
+      final ODocumentEntry previous = slots[slot];
+      slots[slot] = value;
+      return previous;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (!(o instanceof Entry))
+        return false;
+      final Entry<?, ?> other = (Entry<?, ?>) o;
+      return getKey().equals(other.getKey()) && getValue().equals(other.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+      return getKey().hashCode() ^ getValue().hashCode();
+    }
+  }
+}
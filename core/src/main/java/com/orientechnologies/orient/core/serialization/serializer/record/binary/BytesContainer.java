@@ -20,17 +20,42 @@
 
 package com.orientechnologies.orient.core.serialization.serializer.record.binary;
 
+import java.util.Arrays;
+
 public class BytesContainer {
+  private static final int INITIAL_SIZE    = 64;
+  private static final int MAX_REUSED_SIZE = 64 * 1024;
+
+  private static final ThreadLocal<BytesContainer> REUSABLE = new ThreadLocal<BytesContainer>();
 
   public byte[] bytes;
   public int    offset;
 
+  /**
+   * Highest offset reached by {@link #alloc(int)}: all the bytes written are before it.
+   */
+  private int   allocated;
+
+  /**
+   * Returns an empty container to write a record, reusing the one of the current thread if it's available. The container must be
+   * released with {@link #release()} when its content is not needed anymore, usually after {@link #fitBytes()}. Nested writes (a
+   * record saved while another one is serialized) get a new container.
+   */
+  public static BytesContainer acquire() {
+    final BytesContainer container = REUSABLE.get();
+    if (container == null)
+      return new BytesContainer();
+
+    REUSABLE.set(null);
+    return container;
+  }
+
   public BytesContainer(byte[] iSource) {
     bytes = iSource;
   }
 
   public BytesContainer() {
-    bytes = new byte[64];
+    bytes = new byte[INITIAL_SIZE];
   }
 
   public BytesContainer(final byte[] iBytes, final int iOffset) {
@@ -47,9 +72,22 @@ public class BytesContainer {
     offset += toAlloc;
     if (bytes.length < offset)
       resize();
+    if (allocated < offset)
+      allocated = offset;
     return cur;
   }
 
+  /**
+   * Returns the size the buffer would have if it was created for this content, independently of a previous use: it grows from the
+   * initial size doubling until it contains all the bytes allocated.
+   */
+  public int capacity() {
+    int capacity = INITIAL_SIZE;
+    while (capacity < allocated)
+      capacity *= 2;
+    return capacity;
+  }
+
   public BytesContainer skip(final int read) {
     offset += read;
     return this;
@@ -61,6 +99,21 @@ public class BytesContainer {
     return fitted;
   }
 
+  /**
+   * Makes a container returned by {@link #acquire()} available for the next write of the current thread. Buffers grown for big
+   * records are left to the garbage collector.
+   */
+  public void release() {
+    if (bytes.length > MAX_REUSED_SIZE)
+      return;
+
+    // THE SERIALIZERS EXPECT THE BYTES NOT WRITTEN TO BE ZERO
+    Arrays.fill(bytes, 0, Math.min(allocated, bytes.length), (byte) 0);
+    offset = 0;
+    allocated = 0;
+    REUSABLE.set(this);
+  }
+
   private void resize() {
     int newLength = bytes.length;
     while (newLength < offset)
@@ -21,6 +21,7 @@
 package com.orientechnologies.orient.core.serialization.serializer.record.binary;
 
 import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.record.ORecord;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.serialization.OBase64Utils;
@@ -35,8 +36,9 @@ public class ORecordSerializerBinary implements ORecordSerializer {
   private ODocumentSerializer[]               serializerByVersion;
 
   public ORecordSerializerBinary() {
-    serializerByVersion = new ODocumentSerializer[1];
+    serializerByVersion = new ODocumentSerializer[2];
     serializerByVersion[0] = new ORecordSerializerBinaryV0();
+    serializerByVersion[1] = new ORecordSerializerBinaryV1();
   }
 
   @Override
@@ -54,7 +56,7 @@ public class ORecordSerializerBinary implements ORecordSerializer {
   }
 
   public ODocumentSerializer getCurrentSerializer() {
-    return serializerByVersion[serializerByVersion.length - 1];
+    return serializerByVersion[CURRENT_RECORD_VERSION];
   }
 
   @Override
@@ -90,15 +92,19 @@ public class ORecordSerializerBinary implements ORecordSerializer {
   public byte[] toStream(final ORecord iSource, final boolean iOnlyDelta) {
     checkTypeODocument(iSource);
 
-    final BytesContainer container = new BytesContainer();
-
-    // WRITE SERIALIZER VERSION
-    int pos = container.alloc(1);
-    container.bytes[pos] = CURRENT_RECORD_VERSION;
-    // SERIALIZE RECORD
-    serializerByVersion[CURRENT_RECORD_VERSION].serialize((ODocument) iSource, container, false);
-
-    return container.fitBytes();
+    final BytesContainer container = BytesContainer.acquire();
+    try {
+      // WRITE SERIALIZER VERSION
+      final int version = getWriteVersion();
+      int pos = container.alloc(1);
+      container.bytes[pos] = (byte) version;
+      // SERIALIZE RECORD
+      serializerByVersion[version].serialize((ODocument) iSource, container, false);
+
+      return container.fitBytes();
+    } finally {
+      container.release();
+    }
   }
 
   @Override
@@ -117,6 +123,17 @@ public class ORecordSerializerBinary implements ORecordSerializer {
     }
   }
 
+  /**
+   * Returns the version used to write the records, by default the current one. Newer versions must be enabled explicitly because the
+   * records written with them are not readable by previous releases (clients and servers).
+   */
+  private int getWriteVersion() {
+    final int version = OGlobalConfiguration.DB_DOCUMENT_SERIALIZER_VERSION.getValueAsInteger();
+    if (version < 0 || version >= serializerByVersion.length)
+      return CURRENT_RECORD_VERSION;
+    return version;
+  }
+
   private void checkTypeODocument(final ORecord iRecord) {
     if (!(iRecord instanceof ODocument)) {
       throw new UnsupportedOperationException("The " + ORecordSerializerBinary.NAME + " don't support record of type "
@@ -125,16 +142,20 @@ public class ORecordSerializerBinary implements ORecordSerializer {
   }
 
   public byte[] writeClassOnly(ORecord iSource) {
-    final BytesContainer container = new BytesContainer();
-
-    // WRITE SERIALIZER VERSION
-    int pos = container.alloc(1);
-    container.bytes[pos] = CURRENT_RECORD_VERSION;
+    final BytesContainer container = BytesContainer.acquire();
+    try {
+      // WRITE SERIALIZER VERSION
+      final int version = getWriteVersion();
+      int pos = container.alloc(1);
+      container.bytes[pos] = (byte) version;
 
-    // SERIALIZE CLASS ONLY
-    serializerByVersion[CURRENT_RECORD_VERSION].serialize((ODocument) iSource, container, true);
+      // SERIALIZE CLASS ONLY
+      serializerByVersion[version].serialize((ODocument) iSource, container, true);
 
-    return container.fitBytes();
+      return container.fitBytes();
+    } finally {
+      container.release();
+    }
   }
 
   @Override
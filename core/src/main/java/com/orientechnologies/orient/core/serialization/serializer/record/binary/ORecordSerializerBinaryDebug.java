@@ -3,6 +3,7 @@ package com.orientechnologies.orient.core.serialization.serializer.record.binary
 import java.util.ArrayList;
 
 import com.orientechnologies.common.exception.OSystemException;
+import com.orientechnologies.common.serialization.types.OIntegerSerializer;
 import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
 import com.orientechnologies.orient.core.metadata.OMetadataInternal;
@@ -17,12 +18,19 @@ public class ORecordSerializerBinaryDebug extends ORecordSerializerBinaryV0 {
     ORecordSerializationDebug debugInfo = new ORecordSerializationDebug();
     OImmutableSchema schema = ((OMetadataInternal) db.getMetadata()).getImmutableSchemaSnapshot();
     BytesContainer bytes = new BytesContainer(iSource);
-    if (bytes.bytes[0] != 0)
+    final int version = bytes.bytes[0];
+    if (version != 0 && version != 1)
       throw new OSystemException("Unsupported binary serialization version");
     bytes.skip(1);
+    // VERSION 0 ENDS THE HEADER WITH AN EMPTY NAME, VERSION 1 STORES THE NUMBER OF FIELDS AND ALWAYS THE TYPE
+    int remaining = -1;
     try {
       final String className = readString(bytes);
       debugInfo.className = className;
+      if (version == 1) {
+        remaining = OVarIntSerializer.readAsInteger(bytes);
+        bytes.skip(remaining * OIntegerSerializer.INT_SIZE * 2);
+      }
     } catch (RuntimeException ex) {
       debugInfo.readingFailure = true;
       debugInfo.readingException = ex;
@@ -36,6 +44,11 @@ public class ORecordSerializerBinaryDebug extends ORecordSerializerBinaryV0 {
     int valuePos;
     OType type;
     while (true) {
+      if (remaining == 0)
+        break;
+      if (remaining > 0)
+        remaining--;
+
       ORecordSerializationDebugProperty debugProperty = new ORecordSerializationDebugProperty();
       OGlobalProperty prop = null;
       try {
@@ -60,11 +73,13 @@ public class ORecordSerializerBinaryDebug extends ORecordSerializerBinaryV0 {
           debugProperty.valuePos = valuePos;
           if (prop != null) {
             fieldName = prop.getName();
-            if (prop.getType() != OType.ANY)
+            if (version == 0 && prop.getType() != OType.ANY)
               type = prop.getType();
             else
               type = readOType(bytes);
           } else {
+            if (version == 1)
+              bytes.skip(1);
             continue;
           }
         }
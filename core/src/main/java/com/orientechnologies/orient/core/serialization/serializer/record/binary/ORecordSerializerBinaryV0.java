@@ -385,7 +385,7 @@ public class ORecordSerializerBinaryV0 implements ODocumentSerializer {
     }
 
     if (clazz != null && clazz.getOverSize() > 1) {
-      bytes.alloc((int) ((float) bytes.bytes.length * clazz.getOverSize()));
+      bytes.alloc((int) ((float) bytes.capacity() * clazz.getOverSize()));
     }
   }
 
@@ -517,7 +517,7 @@ public class ORecordSerializerBinaryV0 implements ODocumentSerializer {
     return OType.getById(readByte(bytes));
   }
 
-  private void writeOType(BytesContainer bytes, int pos, OType type) {
+  protected void writeOType(BytesContainer bytes, int pos, OType type) {
     bytes.bytes[pos] = (byte) type.getId();
   }
 
@@ -657,7 +657,7 @@ public class ORecordSerializerBinaryV0 implements ODocumentSerializer {
     return null;
   }
 
-  private OType getLinkedType(ODocument document, OType type, String key) {
+  protected OType getLinkedType(ODocument document, OType type, String key) {
     if (type != OType.EMBEDDEDLIST && type != OType.EMBEDDEDSET && type != OType.EMBEDDEDMAP)
       return null;
     OClass immutableClass = ODocumentInternal.getImmutableSchemaClass(document);
@@ -922,7 +922,7 @@ public class ORecordSerializerBinaryV0 implements ODocumentSerializer {
     return pos;
   }
 
-  private OType getFieldType(final ODocumentEntry entry) {
+  protected OType getFieldType(final ODocumentEntry entry) {
     OType type = entry.type;
     if (type == null) {
       final OProperty prop = entry.property;
@@ -969,7 +969,7 @@ public class ORecordSerializerBinaryV0 implements ODocumentSerializer {
     return OVarIntSerializer.write(bytes, 0);
   }
 
-  private int writeString(final BytesContainer bytes, final String toWrite) {
+  protected int writeString(final BytesContainer bytes, final String toWrite) {
     final byte[] nameBytes = bytesFromString(toWrite);
     final int pointer = OVarIntSerializer.write(bytes, nameBytes.length);
     final int start = bytes.alloc(nameBytes.length);
@@ -0,0 +1,292 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.serialization.serializer.record.binary;
+
+import com.orientechnologies.common.serialization.types.OIntegerSerializer;
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
+import com.orientechnologies.orient.core.exception.OSerializationException;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OGlobalProperty;
+import com.orientechnologies.orient.core.metadata.schema.OProperty;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.ORecordInternal;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.record.impl.ODocumentEntry;
+import com.orientechnologies.orient.core.record.impl.ODocumentInternal;
+
+import java.util.*;
+import java.util.Map.Entry;
+
+/**
+ * Binary document format with an indexed header. The values are written as in {@link ORecordSerializerBinaryV0}, but the header
+ * starts with a lookup table that allows to reach a field without scanning the entries of all the fields before it:
+ *
+ * <pre>
+ * class name   : string
+ * field count  : varint
+ * lookup table : field count * (hash of the field name: int, position of the entry: int), sorted by hash
+ * entries      : field count * (name: string | global property id: negative varint, value position: int, type: byte)
+ * values
+ * </pre>
+ *
+ * The entries keep the order of the fields in the document and the type is always present, so every entry can be read without the
+ * schema. Partial deserialization and binary field evaluation search the table in binary mode, then compare the name of the entries
+ * with the same hash.
+ */
+public class ORecordSerializerBinaryV1 extends ORecordSerializerBinaryV0 {
+  private static final int SLOT_SIZE       = OIntegerSerializer.INT_SIZE * 2;
+  private static final int ENTRY_TAIL_SIZE = OIntegerSerializer.INT_SIZE + 1;
+
+  public ORecordSerializerBinaryV1() {
+  }
+
+  @Override
+  public void serialize(final ODocument document, final BytesContainer bytes, final boolean iClassOnly) {
+    final OClass clazz = serializeClass(document, bytes);
+    if (iClassOnly) {
+      OVarIntSerializer.write(bytes, 0);
+      return;
+    }
+
+    final Map<String, OProperty> props = clazz != null ? clazz.propertiesMap() : null;
+
+    final Set<Entry<String, ODocumentEntry>> fields = ODocumentInternal.rawEntries(document);
+
+    final List<Entry<String, ODocumentEntry>> values = new ArrayList<Entry<String, ODocumentEntry>>(fields.size());
+    for (Entry<String, ODocumentEntry> entry : fields) {
+      final ODocumentEntry docEntry = entry.getValue();
+      if (!docEntry.exist())
+        continue;
+      if (docEntry.property == null && props != null)
+        docEntry.property = props.get(entry.getKey());
+      values.add(entry);
+    }
+    final int size = values.size();
+
+    OVarIntSerializer.write(bytes, size);
+    final int table = bytes.alloc(size * SLOT_SIZE);
+
+    // HASH IN THE HIGH BITS AND ENTRY POSITION IN THE LOW BITS: SORTING THE SLOTS SORTS THEM BY HASH
+    final long[] slots = new long[size];
+    final int[] pos = new int[size];
+    for (int i = 0; i < size; i++) {
+      final int entryPos = bytes.offset;
+      final ODocumentEntry docEntry = values.get(i).getValue();
+      if (docEntry.property != null)
+        OVarIntSerializer.write(bytes, (docEntry.property.getId() + 1) * -1);
+      else
+        writeString(bytes, values.get(i).getKey());
+      pos[i] = bytes.alloc(ENTRY_TAIL_SIZE);
+
+      slots[i] = ((long) values.get(i).getKey().hashCode() << 32) | (entryPos & 0xFFFFFFFFL);
+    }
+
+    Arrays.sort(slots);
+    for (int i = 0; i < size; i++) {
+      final int slot = table + i * SLOT_SIZE;
+      OIntegerSerializer.INSTANCE.serializeLiteral((int) (slots[i] >> 32), bytes.bytes, slot);
+      OIntegerSerializer.INSTANCE.serializeLiteral((int) slots[i], bytes.bytes, slot + OIntegerSerializer.INT_SIZE);
+    }
+
+    for (int i = 0; i < size; i++) {
+      final Object value = values.get(i).getValue().value;
+      if (value != null) {
+        final OType type = getFieldType(values.get(i).getValue());
+        if (type == null) {
+          throw new OSerializationException(
+              "Impossible serialize value of type " + value.getClass() + " with the ODocument binary serializer");
+        }
+        final int pointer = serializeValue(bytes, value, type, getLinkedType(document, type, values.get(i).getKey()));
+        OIntegerSerializer.INSTANCE.serializeLiteral(pointer, bytes.bytes, pos[i]);
+        writeOType(bytes, pos[i] + OIntegerSerializer.INT_SIZE, type);
+      }
+    }
+
+    if (clazz != null && clazz.getOverSize() > 1) {
+      bytes.alloc((int) ((float) bytes.capacity() * clazz.getOverSize()));
+    }
+  }
+
+  @Override
+  public void deserialize(final ODocument document, final BytesContainer bytes) {
+    final String className = readString(bytes);
+    if (className.length() != 0)
+      ODocumentInternal.fillClassNameIfNeeded(document, className);
+
+    final int size = OVarIntSerializer.readAsInteger(bytes);
+    bytes.skip(size * SLOT_SIZE);
+
+    int last = 0;
+    for (int i = 0; i < size; i++) {
+      final String fieldName = readFieldName(bytes, document);
+      final int valuePos = readInteger(bytes);
+      final OType type = readOType(bytes);
+
+      if (ODocumentInternal.rawContainsField(document, fieldName))
+        continue;
+
+      if (valuePos != 0) {
+        final int headerCursor = bytes.offset;
+        bytes.offset = valuePos;
+        final Object value = deserializeValue(bytes, type, document);
+        if (bytes.offset > last)
+          last = bytes.offset;
+        bytes.offset = headerCursor;
+        ODocumentInternal.rawField(document, fieldName, value, type);
+      } else
+        ODocumentInternal.rawField(document, fieldName, null, null);
+    }
+
+    ORecordInternal.clearSource(document);
+
+    if (last > bytes.offset)
+      bytes.offset = last;
+  }
+
+  @Override
+  public void deserializePartial(final ODocument document, final BytesContainer bytes, final String[] iFields) {
+    final String className = readString(bytes);
+    if (className.length() != 0)
+      ODocumentInternal.fillClassNameIfNeeded(document, className);
+
+    final int header = bytes.offset;
+    for (String field : iFields) {
+      if (field == null)
+        continue;
+
+      bytes.offset = header;
+      final int entryTail = findField(bytes, field, document);
+      if (entryTail < 0)
+        // FIELD NOT IN THE RECORD
+        continue;
+
+      bytes.offset = entryTail;
+      final int valuePos = readInteger(bytes);
+      final OType type = readOType(bytes);
+
+      if (valuePos != 0) {
+        bytes.offset = valuePos;
+        final Object value = deserializeValue(bytes, type, document);
+        ODocumentInternal.rawField(document, field, value, type);
+      } else
+        ODocumentInternal.rawField(document, field, null, null);
+    }
+  }
+
+  @Override
+  public OBinaryField deserializeField(final BytesContainer bytes, final OClass iClass, final String iFieldName) {
+    // SKIP CLASS NAME
+    final int classNameLen = OVarIntSerializer.readAsInteger(bytes);
+    bytes.skip(classNameLen);
+
+    final int entryTail = findField(bytes, iFieldName, null);
+    if (entryTail < 0)
+      return null;
+
+    bytes.offset = entryTail;
+    final int valuePos = readInteger(bytes);
+    final OType type = readOType(bytes);
+
+    if (valuePos == 0)
+      return null;
+
+    if (!getComparator().isBinaryComparable(type))
+      return null;
+
+    bytes.offset = valuePos;
+
+    final OProperty classProp = iClass != null ? iClass.getProperty(iFieldName) : null;
+    return new OBinaryField(iFieldName, type, bytes, classProp != null ? classProp.getCollate() : null);
+  }
+
+  @Override
+  public String[] getFieldNames(final ODocument reference, final BytesContainer bytes) {
+    // SKIP CLASS NAME
+    final int classNameLen = OVarIntSerializer.readAsInteger(bytes);
+    bytes.skip(classNameLen);
+
+    final int size = OVarIntSerializer.readAsInteger(bytes);
+    bytes.skip(size * SLOT_SIZE);
+
+    final String[] result = new String[size];
+    for (int i = 0; i < size; i++) {
+      result[i] = readFieldName(bytes, reference);
+      bytes.skip(ENTRY_TAIL_SIZE);
+    }
+    return result;
+  }
+
+  /**
+   * Searches a field in the lookup table of the header. The container must be positioned on the field count.
+   *
+   * @param iReference
+   *          document used to resolve the global properties, if null the schema of the current database is used
+   * @return the position of the value pointer of the field entry, or -1 if the field is not in the record
+   */
+  private int findField(final BytesContainer bytes, final String iFieldName, final ODocument iReference) {
+    final int size = OVarIntSerializer.readAsInteger(bytes);
+    final int table = bytes.offset;
+    final int hash = iFieldName.hashCode();
+
+    // FIND THE FIRST SLOT WITH THE HASH OF THE FIELD
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      final int mid = (low + high) >>> 1;
+      if (OIntegerSerializer.INSTANCE.deserializeLiteral(bytes.bytes, table + mid * SLOT_SIZE) < hash)
+        low = mid + 1;
+      else
+        high = mid - 1;
+    }
+
+    // DIFFERENT NAMES CAN SHARE THE SAME HASH: CHECK THE NAME OF ALL THE CANDIDATES
+    for (int i = low; i < size; i++) {
+      final int slot = table + i * SLOT_SIZE;
+      if (OIntegerSerializer.INSTANCE.deserializeLiteral(bytes.bytes, slot) != hash)
+        break;
+
+      bytes.offset = OIntegerSerializer.INSTANCE.deserializeLiteral(bytes.bytes, slot + OIntegerSerializer.INT_SIZE);
+      if (iFieldName.equals(readFieldName(bytes, iReference)))
+        return bytes.offset;
+    }
+    return -1;
+  }
+
+  private String readFieldName(final BytesContainer bytes, final ODocument iReference) {
+    final int len = OVarIntSerializer.readAsInteger(bytes);
+    if (len > 0) {
+      final String fieldName = stringFromBytes(bytes.bytes, bytes.offset, len).intern();
+      bytes.skip(len);
+      return fieldName;
+    }
+
+    // LOAD GLOBAL PROPERTY BY ID
+    final OGlobalProperty prop;
+    if (iReference != null)
+      prop = getGlobalProperty(iReference, len);
+    else
+      prop = ODatabaseRecordThreadLocal.INSTANCE.get().getMetadata().getImmutableSchemaSnapshot()
+          .getGlobalPropertyById((len * -1) - 1);
+
+    if (prop == null)
+      throw new OSerializationException("Missing property definition for property id '" + ((len * -1) - 1) + "'");
+    return prop.getName();
+  }
+}
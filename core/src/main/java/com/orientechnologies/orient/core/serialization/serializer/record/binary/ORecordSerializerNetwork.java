@@ -83,15 +83,18 @@ public class ORecordSerializerNetwork implements ORecordSerializer {
   public byte[] toStream(final ORecord iSource, final boolean iOnlyDelta) {
     checkTypeODocument(iSource);
 
-    final BytesContainer container = new BytesContainer();
-
-    // WRITE SERIALIZER VERSION
-    int pos = container.alloc(1);
-    container.bytes[pos] = CURRENT_RECORD_VERSION;
-    // SERIALIZE RECORD
-    serializerByVersion[CURRENT_RECORD_VERSION].serialize((ODocument) iSource, container, false);
-
-    return container.fitBytes();
+    final BytesContainer container = BytesContainer.acquire();
+    try {
+      // WRITE SERIALIZER VERSION
+      int pos = container.alloc(1);
+      container.bytes[pos] = CURRENT_RECORD_VERSION;
+      // SERIALIZE RECORD
+      serializerByVersion[CURRENT_RECORD_VERSION].serialize((ODocument) iSource, container, false);
+
+      return container.fitBytes();
+    } finally {
+      container.release();
+    }
   }
 
   @Override
@@ -118,16 +121,19 @@ public class ORecordSerializerNetwork implements ORecordSerializer {
   }
 
   public byte[] writeClassOnly(ORecord iSource) {
-    final BytesContainer container = new BytesContainer();
-
-    // WRITE SERIALIZER VERSION
-    int pos = container.alloc(1);
-    container.bytes[pos] = CURRENT_RECORD_VERSION;
+    final BytesContainer container = BytesContainer.acquire();
+    try {
+      // WRITE SERIALIZER VERSION
+      int pos = container.alloc(1);
+      container.bytes[pos] = CURRENT_RECORD_VERSION;
 
-    // SERIALIZE CLASS ONLY
-    serializerByVersion[CURRENT_RECORD_VERSION].serialize((ODocument) iSource, container, true);
+      // SERIALIZE CLASS ONLY
+      serializerByVersion[CURRENT_RECORD_VERSION].serialize((ODocument) iSource, container, true);
 
-    return container.fitBytes();
+      return container.fitBytes();
+    } finally {
+      container.release();
+    }
   }
 
   public boolean getSupportBinaryEvaluate() {
@@ -19,6 +19,8 @@
  */
 package com.orientechnologies.orient.core.sql;
 
+import com.orientechnologies.orient.core.cache.OCommandCacheDependencies;
+import com.orientechnologies.orient.core.cache.OCommandCacheDependenciesProvider;
 import com.orientechnologies.orient.core.command.OCommandContext;
 import com.orientechnologies.orient.core.command.OCommandDistributedReplicateRequest;
 import com.orientechnologies.orient.core.command.OCommandExecutor;
@@ -36,7 +38,8 @@ import java.util.Set;
  * @author Luca Garulli
  * 
  */
-public class OCommandExecutorSQLDelegate extends OCommandExecutorSQLAbstract implements OCommandDistributedReplicateRequest {
+public class OCommandExecutorSQLDelegate extends OCommandExecutorSQLAbstract
+    implements OCommandDistributedReplicateRequest, OCommandCacheDependenciesProvider {
   protected OCommandExecutor delegate;
 
   @SuppressWarnings("unchecked")
@@ -118,4 +121,11 @@ public class OCommandExecutorSQLDelegate extends OCommandExecutorSQLAbstract imp
   public Set<String> getInvolvedClusters() {
     return delegate.getInvolvedClusters();
   }
+
+  @Override
+  public OCommandCacheDependencies getCacheDependencies() {
+    if (delegate instanceof OCommandCacheDependenciesProvider)
+      return ((OCommandCacheDependenciesProvider) delegate).getCacheDependencies();
+    return null;
+  }
 }
@@ -32,6 +32,9 @@ import com.orientechnologies.common.util.OPair;
 import com.orientechnologies.common.util.OPatternConst;
 import com.orientechnologies.common.util.OSizeable;
 import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.cache.OCommandCache;
+import com.orientechnologies.orient.core.cache.OCommandCacheDependencies;
+import com.orientechnologies.orient.core.cache.OCommandCacheDependenciesProvider;
 import com.orientechnologies.orient.core.command.OBasicCommandContext;
 import com.orientechnologies.orient.core.command.OCommandContext;
 import com.orientechnologies.orient.core.command.OCommandRequest;
@@ -50,6 +53,7 @@ import com.orientechnologies.orient.core.id.OContextualRecordId;
 import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.index.*;
+import com.orientechnologies.orient.core.index.columnar.OIndexColumnar;
 import com.orientechnologies.orient.core.iterator.OIdentifiableIterator;
 import com.orientechnologies.orient.core.iterator.ORecordIteratorClass;
 import com.orientechnologies.orient.core.iterator.ORecordIteratorCluster;
@@ -66,17 +70,24 @@ import com.orientechnologies.orient.core.metadata.security.OSecurityUser;
 import com.orientechnologies.orient.core.record.ORecord;
 import com.orientechnologies.orient.core.record.ORecordInternal;
 import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.record.impl.ODocumentComparator;
 import com.orientechnologies.orient.core.record.impl.ODocumentHelper;
 import com.orientechnologies.orient.core.serialization.serializer.OStringSerializerHelper;
 import com.orientechnologies.orient.core.sql.filter.*;
 import com.orientechnologies.orient.core.sql.functions.OSQLFunctionRuntime;
 import com.orientechnologies.orient.core.sql.functions.coll.OSQLFunctionDistinct;
+import com.orientechnologies.orient.core.sql.functions.math.OSQLFunctionAverage;
+import com.orientechnologies.orient.core.sql.functions.math.OSQLFunctionMax;
+import com.orientechnologies.orient.core.sql.functions.math.OSQLFunctionMin;
+import com.orientechnologies.orient.core.sql.functions.math.OSQLFunctionSum;
 import com.orientechnologies.orient.core.sql.functions.misc.OSQLFunctionCount;
 import com.orientechnologies.orient.core.sql.operator.*;
 import com.orientechnologies.orient.core.sql.parser.*;
 import com.orientechnologies.orient.core.sql.query.OResultSet;
 import com.orientechnologies.orient.core.sql.query.OSQLQuery;
 import com.orientechnologies.orient.core.storage.OCluster;
+import com.orientechnologies.orient.core.storage.OPhysicalPosition;
+import com.orientechnologies.orient.core.storage.OStorage;
 import com.orientechnologies.orient.core.storage.OStorage.LOCKING_STRATEGY;
 import com.orientechnologies.orient.core.storage.impl.local.OAbstractPaginatedStorage;
 
@@ -98,7 +109,8 @@ import java.util.concurrent.atomic.AtomicLong;
  * @author Luca Garulli
  */
 @SuppressWarnings("unchecked")
-public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstract implements OTemporaryRidGenerator {
+public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstract
+    implements OTemporaryRidGenerator, OCommandCacheDependenciesProvider {
   public static final  String KEYWORD_SELECT                = "SELECT";
   public static final  String KEYWORD_ASC                   = "ASC";
   public static final  String KEYWORD_DESC                  = "DESC";
@@ -110,7 +122,6 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
   public static final  String KEYWORD_NOCACHE               = "NOCACHE";
   private static final String KEYWORD_AS                    = "AS";
   private static final String KEYWORD_PARALLEL              = "PARALLEL";
-  private static final int    PARTIAL_SORT_BUFFER_THRESHOLD = 10000;
 
   private static class AsyncResult {
     final OIdentifiable   record;
@@ -141,6 +152,10 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
   private OIdentifiable lastRecord;
   private String        fetchPlan;
   private boolean          fullySortedByIndex = false;
+  private OOrderByExternalSorter orderBySorter;
+  private OCommandCacheDependencies cacheDependencies;
+  private boolean                   trackIndexedRecords = false;
+  private boolean                   resolvedByIndex     = false;
   private LOCKING_STRATEGY lockingStrategy    = LOCKING_STRATEGY.DEFAULT;
 
   private          Boolean isAnyFunctionAggregates = null;
@@ -455,7 +470,11 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
       applyOrderBy(true);
       applyLimitAndSkip();
 
-      subIterator = new ArrayList<OIdentifiable>((List<OIdentifiable>) getResult()).iterator();
+      try {
+        subIterator = new ArrayList<OIdentifiable>((List<OIdentifiable>) getResult()).iterator();
+      } finally {
+        closeOrderBySorter();
+      }
       lastRecord = null;
       tempResult = null;
       groupedResult.clear();
@@ -469,6 +488,7 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
 
   public Object execute(final Map<Object, Object> iArgs) {
     bindDefaultContextVariables();
+    initCacheDependencies();
 
     if (iArgs != null)
     // BIND ARGUMENTS INTO CONTEXT TO ACCESS FROM ANY POINT (EVEN FUNCTIONS)
@@ -492,7 +512,11 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
       applyOrderBy(true);
       applyLimitAndSkip();
     }
-    return getResult();
+    try {
+      return getResult();
+    } finally {
+      closeOrderBySorter();
+    }
   }
 
   public Map<String, Object> getProjections() {
@@ -552,6 +576,9 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
         uniqueResult.put(identity, identity);
     }
 
+    if (trackIndexedRecords && cacheDependencies != null)
+      cacheDependencies.addRecord(identity);
+
     if (!checkInterruption())
       return false;
 
@@ -740,14 +767,20 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
         for (OIdentifiable iRes : allResults) {
           result = pushResult(iRes);
         }
+    } else if (allowsExternalSort()) {
+      // COLLECT THE RECORDS IN A BOUNDED MEMORY SORTER AND ORDER THEM AT THE END
+      if (orderBySorter == null)
+        orderBySorter = createOrderBySorter();
+
+      for (OIdentifiable iRes : allResults) {
+        orderBySorter.add(iRes);
+      }
     } else {
 
       // COLLECT ALL THE RECORDS AND ORDER THEM AT THE END
       if (tempResult == null)
         tempResult = new ArrayList<OIdentifiable>();
 
-      applyPartialOrderBy();
-
       for (OIdentifiable iRes : allResults) {
         ((Collection<OIdentifiable>) tempResult).add(iRes);
       }
@@ -795,24 +828,28 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
   }
 
   /**
-   * in case of ORDER BY + SKIP + LIMIT, this method applies ORDER BY operation on partial result and discards overflowing results
-   * (results > skip + limit)
+   * Tells if the records can be collected by the {@link OOrderByExternalSorter}: in case of ORDER BY + SKIP + LIMIT only the first
+   * SKIP + LIMIT records are kept in memory, otherwise the records are sorted in runs spilled to disk and merged at the end.
    */
-  private void applyPartialOrderBy() {
-    if (expandTarget != null || (unwindFields != null && unwindFields.size() > 0) || orderedFields.isEmpty() || fullySortedByIndex
-        || isRidOnlySort()) {
-      return;
-    }
+  private boolean allowsExternalSort() {
+    return expandTarget == null && (unwindFields == null || unwindFields.isEmpty()) && !orderedFields.isEmpty()
+        && !fullySortedByIndex && !isRidOnlySort();
+  }
 
-    if (limit > 0) {
-      int sortBufferSize = limit + 1;
-      if (skip > 0) {
-        sortBufferSize += skip;
-      }
-      if (tempResult instanceof List && ((List) tempResult).size() >= sortBufferSize + PARTIAL_SORT_BUFFER_THRESHOLD) {
-        applyOrderBy(false);
-        tempResult = new ArrayList(((List) tempResult).subList(0, sortBufferSize));
-      }
+  private OOrderByExternalSorter createOrderBySorter() {
+    final int maxResults = limit > 0 ? limit + Math.max(skip, 0) : -1;
+    final int runSize = OGlobalConfiguration.QUERY_ORDER_BY_RUN_SIZE.getValueAsInteger();
+
+    // COPY THE ORDER CRITERIA: THE MERGE IS EXECUTED LAZILY, AFTER THE ORDERED FIELDS HAVE BEEN CLEARED.
+    // IN CASE OF PARALLEL QUERY THE RUNS ARE SORTED AND SPILLED BY THE WORKER THREADS
+    final ODocumentComparator comparator = new ODocumentComparator(new ArrayList<OPair<String, String>>(orderedFields), context);
+    return new OOrderByExternalSorter(comparator, maxResults, runSize, parallel ? getDatabase() : null);
+  }
+
+  private void closeOrderBySorter() {
+    if (orderBySorter != null) {
+      orderBySorter.close();
+      orderBySorter = null;
     }
   }
 
@@ -998,13 +1035,196 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
     final String className = parsedTarget.getTargetClasses().keySet().iterator().next();
 
     final OClass cls = getDatabase().getMetadata().getSchema().getClass(className);
-    if (!searchForIndexes(cls) && !searchForSubclassIndexes(cls)) {
+    if (!searchInColumns(cls) && !searchForIndexes(cls) && !searchForSubclassIndexes(cls)) {
       // CHECK FOR INVERSE ORDER
       final boolean browsingOrderAsc = isBrowsingAscendingOrder();
       super.searchInClasses(browsingOrderAsc);
     }
   }
 
+  /**
+   * Executes the aggregations reading the values of the properties from their COLUMNAR indexes instead of loading the records. It's
+   * possible only if all the projections are <code>sum</code>, <code>avg</code>, <code>min</code>, <code>max</code> or
+   * <code>count</code> of properties, and the projections, the WHERE condition and the GROUP BY use only properties with a COLUMNAR
+   * index on all the clusters of the class. For every record a document with only those properties is filtered and aggregated as
+   * the record would be.
+   *
+   * @return true if the query has been executed
+   */
+  private boolean searchInColumns(final OClass iSchemaClass) {
+    if (!aggregate || projections == null || projections.isEmpty() || let != null || parallel || expandTarget != null
+        || unwindFields != null || lockingStrategy == LOCKING_STRATEGY.EXCLUSIVE_LOCK
+        || lockingStrategy == LOCKING_STRATEGY.SHARED_LOCK || context.getVariable("$locking") != null)
+      return false;
+
+    // THE INDEXES DON'T CONTAIN THE CHANGES OF THE CURRENT TRANSACTION
+    final ODatabaseDocumentInternal database = getDatabase();
+    if (database.getTransaction().isActive() || isUsingRestrictedClasses())
+      return false;
+
+    final Set<String> fields = new HashSet<String>();
+    for (Object projection : projections.values())
+      if (!collectColumnarAggregationFields(projection, fields))
+        return false;
+
+    if (groupByFields != null)
+      for (String field : groupByFields) {
+        if (field == null || !isColumnarFieldName(field))
+          return false;
+        fields.add(field);
+      }
+
+    if (compiledFilter != null && compiledFilter.getRootCondition() != null && !collectColumnarFilterFields(
+        compiledFilter.getRootCondition(), fields))
+      return false;
+
+    if (fields.isEmpty())
+      return false;
+
+    final int[] clusterIds = iSchemaClass.getPolymorphicClusterIds();
+    final String[] names = fields.toArray(new String[fields.size()]);
+    final OIndexColumnar[] indexes = new OIndexColumnar[names.length];
+    for (int i = 0; i < names.length; i++) {
+      indexes[i] = getColumnarIndex(iSchemaClass, names[i], clusterIds);
+      if (indexes[i] == null)
+        return false;
+    }
+
+    database.checkSecurity(ORule.ResourceGeneric.CLASS, ORole.PERMISSION_READ, iSchemaClass.getName().toLowerCase());
+    context.updateMetric("columnarIndexUsed", +1);
+
+    final OStorage storage = database.getStorage();
+    final int entriesPerPage = indexes[0].getEntriesPerPage();
+    final Object[][] pages = new Object[names.length][];
+
+    for (int clusterId : clusterIds) {
+      if (clusterId < 0)
+        continue;
+
+      database.checkSecurity(ORule.ResourceGeneric.CLUSTER, ORole.PERMISSION_READ, database.getClusterNameById(clusterId));
+
+      // THE RECORDS ARE BROWSED BY POSITION TO INCLUDE THE ONES WITHOUT VALUES
+      long loadedPage = -1;
+      OPhysicalPosition[] positions = storage.ceilingPhysicalPositions(clusterId, new OPhysicalPosition(0));
+      while (positions.length > 0) {
+        for (OPhysicalPosition position : positions) {
+          if (!checkInterruption())
+            return true;
+
+          final long pageIndex = position.clusterPosition / entriesPerPage;
+          if (pageIndex != loadedPage) {
+            for (int i = 0; i < indexes.length; i++)
+              pages[i] = indexes[i].readPage(clusterId, pageIndex);
+            loadedPage = pageIndex;
+          }
+
+          final int index = (int) (position.clusterPosition % entriesPerPage);
+          final ODocument values = new ODocument();
+          for (int i = 0; i < names.length; i++)
+            values.field(names[i], pages[i] != null ? pages[i][index] : null);
+
+          if (evaluateRecord(values, context)) {
+            applyGroupBy(values, context);
+            if (!handleResult(values, context))
+              return true;
+          }
+        }
+
+        positions = storage.higherPhysicalPositions(clusterId, positions[positions.length - 1]);
+      }
+    }
+
+    return true;
+  }
+
+  private static boolean collectColumnarAggregationFields(final Object iProjection, final Set<String> iFields) {
+    if (!(iProjection instanceof OSQLFunctionRuntime))
+      return false;
+
+    final OSQLFunctionRuntime rf = (OSQLFunctionRuntime) iProjection;
+    if (!rf.aggregateResults() || rf.configuredParameters.length != 1 || !(rf.function instanceof OSQLFunctionSum
+        || rf.function instanceof OSQLFunctionAverage || rf.function instanceof OSQLFunctionMin
+        || rf.function instanceof OSQLFunctionMax || rf.function instanceof OSQLFunctionCount))
+      return false;
+
+    final Object parameter = rf.configuredParameters[0];
+    if (rf.function instanceof OSQLFunctionCount && "*".equals(parameter))
+      return true;
+
+    return collectColumnarField(parameter, iFields);
+  }
+
+  /**
+   * Collects the properties used by the condition.
+   *
+   * @return false if the condition uses anything else than properties and constant values, like functions, variables or
+   * sub-queries
+   */
+  private static boolean collectColumnarFilterFields(final Object iItem, final Set<String> iFields) {
+    if (iItem instanceof OSQLFilterCondition) {
+      final OSQLFilterCondition condition = (OSQLFilterCondition) iItem;
+      return collectColumnarFilterFields(condition.getLeft(), iFields) && collectColumnarFilterFields(condition.getRight(), iFields);
+    }
+
+    if (iItem instanceof OSQLFilterItemParameter)
+      return true;
+
+    if (iItem instanceof OSQLFilterItemField)
+      return collectColumnarField(iItem, iFields);
+
+    if (iItem instanceof Collection<?>) {
+      for (Object item : (Collection<?>) iItem)
+        if (!collectColumnarFilterFields(item, iFields))
+          return false;
+      return true;
+    }
+
+    return iItem == null || iItem instanceof Number || iItem instanceof String || iItem instanceof Date
+        || iItem instanceof Boolean;
+  }
+
+  private static boolean collectColumnarField(final Object iItem, final Set<String> iFields) {
+    if (!(iItem instanceof OSQLFilterItemField))
+      return false;
+
+    final OSQLFilterItemField field = (OSQLFilterItemField) iItem;
+    if (field.hasChainOperators() || !isColumnarFieldName(field.getRoot()))
+      return false;
+
+    iFields.add(field.getRoot());
+    return true;
+  }
+
+  private static boolean isColumnarFieldName(final String iName) {
+    return !iName.isEmpty() && !iName.startsWith("@") && !iName.startsWith("$") && iName.indexOf('.') < 0;
+  }
+
+  /**
+   * @return the COLUMNAR index on the property only, that contains the values of all the passed clusters, or null if there isn't
+   */
+  private OIndexColumnar getColumnarIndex(final OClass iSchemaClass, final String iField, final int[] iClusterIds) {
+    for (OIndex<?> index : iSchemaClass.getInvolvedIndexes(iField)) {
+      if (!(index.getInternal() instanceof OIndexColumnar) || index.getDefinition().getFields().size() != 1)
+        continue;
+
+      final Set<String> indexedClusters = new HashSet<String>();
+      for (String clusterName : index.getClusters())
+        indexedClusters.add(clusterName.toLowerCase());
+
+      boolean allClusters = true;
+      for (int clusterId : iClusterIds)
+        if (clusterId >= 0 && !indexedClusters.contains(getDatabase().getClusterNameById(clusterId).toLowerCase())) {
+          allClusters = false;
+          break;
+        }
+
+      if (allClusters)
+        return (OIndexColumnar) index.getInternal();
+    }
+
+    return null;
+  }
+
   private boolean isBrowsingAscendingOrder() {
     return !(orderedFields.size() == 1 && orderedFields.get(0).getKey().equalsIgnoreCase("@rid") && orderedFields.get(0).getValue()
         .equalsIgnoreCase("DESC"));
@@ -1541,6 +1761,10 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
   private boolean fetchFromTarget(final Iterator<? extends OIdentifiable> iTarget) {
     fetchLimit = getQueryFetchLimit();
 
+    if (cacheDependencies != null && !trackIndexedRecords)
+      // BROWSING THE TARGET: ANY CHANGE IN THE INVOLVED CLUSTERS COULD AFFECT THE RESULT
+      cacheDependencies.addClusters(getInvolvedClusters());
+
     final long startFetching = System.currentTimeMillis();
 
     final int[] clusterIds = iTarget instanceof ORecordIteratorClusters ?
@@ -1884,6 +2108,8 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
 
     int attempted = 0;
     for (OClass subclass : subclasses) {
+      // EVERY SUBCLASS MUST BE SORTED BY ITS OWN INDEX TO MERGE THE RESULTS WITHOUT SORTING THEM AGAIN
+      fullySortedByIndex = false;
       List<OIndexCursor> subcursors = getIndexCursors(subclass);
       fullySorted = fullySorted && fullySortedByIndex;
       if (subcursors == null || subcursors.size() == 0) {
@@ -1902,6 +2128,9 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
 
     }
     fullySortedByIndex = fullySorted;
+    if (context.isRecordingMetrics()) {
+      context.setVariable("fullySortedByIndex", fullySortedByIndex);
+    }
 
     uniqueResult = new ConcurrentHashMap<ORID, ORID>();
 
@@ -1951,9 +2180,7 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
       boolean indexUsed = false;
       for (final OIndexSearchResult searchResult : indexSearchResults) {
         lastSearchResult = searchResult;
-        final List<OIndex<?>> involvedIndexes = filterAnalyzer.getInvolvedIndexes(iSchemaClass, searchResult);
-
-        Collections.sort(involvedIndexes, new IndexComparator());
+        final List<OIndex<?>> involvedIndexes = getSortedInvolvedIndexes(iSchemaClass, searchResult);
 
         // go through all possible index for given set of fields.
         for (final OIndex index : involvedIndexes) {
@@ -2005,13 +2232,13 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
 
           OIndexCursor cursor;
           indexIsUsedInOrderBy =
-              orderByOptimizer.canBeUsedByOrderBy(index, orderedFields) && !(index.getInternal() instanceof OChainedIndexProxy);
+              orderByOptimizer.canBeUsedByOrderByAfterFilter(index, getEqualsClausesPrefix(searchResult), orderedFields)
+                  && !(index.getInternal() instanceof OChainedIndexProxy);
           try {
             boolean ascSortOrder = !indexIsUsedInOrderBy || orderedFields.get(0).getValue().equals(KEYWORD_ASC);
 
             if (indexIsUsedInOrderBy) {
-              fullySortedByIndex = expandTarget == null && indexDefinition.getFields().size() >= orderedFields.size()
-                  && conditionHierarchy.size() == 1;
+              fullySortedByIndex = isFullySortedByIndex(indexDefinition, searchResult, conditionHierarchy);
             }
 
             context.setVariable("$limit", limit);
@@ -2067,6 +2294,138 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
     return cursors;
   }
 
+  /**
+   * Intersects the cursor chosen for a branch of the condition with the cursors of the other conditions of the same branch, that
+   * are in AND with it. The RIDs of the other indexes are read in memory only if they are no more than
+   * {@link OGlobalConfiguration#QUERY_INDEX_INTERSECTION_MAX_ENTRIES}, so the intersection costs at most a few index reads and saves
+   * the load of the records that would be discarded by the filter.
+   */
+  private OIndexCursor intersectIndexCursors(final OClass iSchemaClass, final OIndexSearchResult iUsedSearchResult,
+      final OIndex<?> iUsedIndex, final OIndexCursor iCursor, final List<OIndexSearchResult> iSearchResults) {
+    final int maxEntries = OGlobalConfiguration.QUERY_INDEX_INTERSECTION_MAX_ENTRIES.getValueAsInteger();
+    if (maxEntries <= 0) {
+      return iCursor;
+    }
+
+    final List<String> usedFields = iUsedSearchResult.fields();
+    final Set<String> usedIndexes = new HashSet<String>();
+    usedIndexes.add(iUsedIndex.getName());
+
+    OIndexCursorIntersection intersection = null;
+
+    for (OIndexSearchResult searchResult : iSearchResults) {
+      if (searchResult == iUsedSearchResult || searchResult.lastField.isLong() || !Collections
+          .disjoint(usedFields, searchResult.fields())) {
+        // THE CONDITION IS ALREADY CHECKED BY THE INDEXES USED
+        continue;
+      }
+
+      for (OIndex<?> index : getSortedInvolvedIndexes(iSchemaClass, searchResult)) {
+        if (usedIndexes.contains(index.getName()) || index.isRebuilding()) {
+          continue;
+        }
+
+        final OIndexDefinition indexDefinition = index.getDefinition();
+        if (searchResult.containsNullValues && indexDefinition.isNullValuesIgnored()) {
+          continue;
+        }
+
+        final OQueryOperator operator = searchResult.lastOperator;
+        if (!OIndexSearchResult.isIndexEqualityOperator(operator)) {
+          final String lastField = searchResult.lastField.getItemName(searchResult.lastField.getItemCount() - 1);
+          if (!lastField.equals(indexDefinition.getFields().get(searchResult.fieldValuePairs.size()))) {
+            continue;
+          }
+        }
+
+        final List<Object> keyParams = new ArrayList<Object>(searchResult.fields().size());
+        for (final String fieldName : indexDefinition.getFields().subList(0, searchResult.fields().size())) {
+          Object fieldValue = searchResult.fieldValuePairs.get(fieldName);
+          if (fieldValue == null) {
+            fieldValue = searchResult.lastValue;
+          }
+          if (fieldValue instanceof OSQLQuery<?> || fieldValue instanceof OSQLFilterCondition) {
+            return intersection != null ? intersection : iCursor;
+          }
+          keyParams.add(fieldValue);
+        }
+
+        final long indexRebuildVersion = index.getRebuildVersion();
+        final OIndexCursor cursor;
+        try {
+          cursor = operator.executeIndexQuery(context, index, keyParams, true);
+        } catch (OIndexEngineException e) {
+          throw e;
+        } catch (Exception e) {
+          OLogManager.instance().debug(this, "Cannot use index %s to intersect the result of the query", e, index.getName());
+          continue;
+        }
+
+        if (cursor == null || (cursor instanceof OSizeable && ((OSizeable) cursor).size() > maxEntries)) {
+          continue;
+        }
+
+        final Set<ORID> rids = OIndexCursorIntersection.readRIDs(cursor, maxEntries);
+        if (rids != null && indexRebuildVersion == index.getRebuildVersion()) {
+          if (intersection == null) {
+            intersection = new OIndexCursorIntersection(iCursor);
+          }
+          intersection.addFilter(rids);
+          usedIndexes.add(index.getName());
+          metricRecorder.recordIndexIntersectionMetric(index);
+          break;
+        }
+      }
+    }
+
+    return intersection != null ? intersection : iCursor;
+  }
+
+  /**
+   * Returns the indexes that can be used to resolve the condition, sorted by preference. The choice is kept in the statement cache
+   * of the database, so the next executions of the same statement don't browse and sort the indexes of the class hierarchy again.
+   */
+  private List<OIndex<?>> getSortedInvolvedIndexes(final OClass iSchemaClass, final OIndexSearchResult searchResult) {
+    final String text = request != null ? request.getText() : null;
+    if (text == null || searchResult.lastField.isLong()) {
+      // CHAINED INDEXES ARE CREATED ON THE FLY: DON'T CACHE THEM
+      final List<OIndex<?>> involvedIndexes = filterAnalyzer.getInvolvedIndexes(iSchemaClass, searchResult);
+      Collections.sort(involvedIndexes, new IndexComparator());
+      return involvedIndexes;
+    }
+
+    final ODatabaseDocumentInternal db = getDatabase();
+    final OStatementCache statementCache = OStatementCache.getInstance(db);
+    final OIndexManager indexManager = db.getMetadata().getIndexManager();
+    final int schemaVersion = ((OMetadataInternal) db.getMetadata()).getImmutableSchemaSnapshot().getVersion();
+    final int indexVersion = indexManager.getVersion();
+    final String planKey = iSchemaClass.getName() + searchResult.fields();
+
+    final List<String> indexNames = statementCache.getPlan(text, planKey, schemaVersion, indexVersion);
+    if (indexNames != null) {
+      final List<OIndex<?>> involvedIndexes = new ArrayList<OIndex<?>>(indexNames.size());
+      for (String indexName : indexNames) {
+        final OIndex<?> index = indexManager.getIndex(indexName);
+        if (index == null)
+          break;
+        involvedIndexes.add(index);
+      }
+
+      if (involvedIndexes.size() == indexNames.size())
+        return involvedIndexes;
+    }
+
+    final List<OIndex<?>> involvedIndexes = filterAnalyzer.getInvolvedIndexes(iSchemaClass, searchResult);
+    Collections.sort(involvedIndexes, new IndexComparator());
+
+    final List<String> names = new ArrayList<String>(involvedIndexes.size());
+    for (OIndex<?> index : involvedIndexes)
+      names.add(index.getName());
+    statementCache.putPlan(text, planKey, names, schemaVersion, indexVersion);
+
+    return involvedIndexes;
+  }
+
   @SuppressWarnings("rawtypes")
   private boolean searchForIndexes(final OClass iSchemaClass) {
     if (uniqueResult != null)
@@ -2107,9 +2466,7 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
         boolean indexUsed = false;
         for (final OIndexSearchResult searchResult : indexSearchResults) {
           lastSearchResult = searchResult;
-          final List<OIndex<?>> involvedIndexes = filterAnalyzer.getInvolvedIndexes(iSchemaClass, searchResult);
-
-          Collections.sort(involvedIndexes, new IndexComparator());
+          final List<OIndex<?>> involvedIndexes = getSortedInvolvedIndexes(iSchemaClass, searchResult);
 
           indexOnExactClass = true;
 
@@ -2170,8 +2527,7 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
               boolean ascSortOrder = !indexIsUsedInOrderBy || orderedFields.get(0).getValue().equals(KEYWORD_ASC);
 
               if (indexIsUsedInOrderBy) {
-                fullySortedByIndex = expandTarget == null && indexDefinition.getFields().size() >= orderedFields.size()
-                    && conditionHierarchy.size() == 1;
+                fullySortedByIndex = isFullySortedByIndex(indexDefinition, searchResult, conditionHierarchy);
               }
 
               context.setVariable("$limit", limit);
@@ -2198,8 +2554,13 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
             }
 
             if (index.getRebuildVersion() == indexRebuildVersion) {
+              if (indexSearchResults.size() > 1 && !(cursor instanceof OSizeable && ((OSizeable) cursor).size() <= 1)) {
+                cursor = intersectIndexCursors(iSchemaClass, searchResult, index, cursor, indexSearchResults);
+              }
+
               cursors.add(OIndexChangesWrapper.wrap(index, cursor, indexRebuildVersion));
               indexUseAttempts.add(new IndexUsageLog(index, keyParams, indexDefinition));
+              trackIndexDependency(index, operator, keyParams);
               indexUsed = true;
               break;
             }
@@ -2261,10 +2622,17 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
         }
       }
 
-      for (OIndexCursor cursor : cursors) {
-        if (!fetchValuesFromIndexCursor(cursor)) {
-          break;
+      // THE RECORDS READ BY INDEX ARE TRACKED AS DEPENDENCIES OF THE CACHED RESULT
+      trackIndexedRecords = true;
+      try {
+        for (OIndexCursor cursor : cursors) {
+          if (!fetchValuesFromIndexCursor(cursor)) {
+            break;
+          }
         }
+        resolvedByIndex = true;
+      } finally {
+        trackIndexedRecords = false;
       }
       uniqueResult.clear();
       uniqueResult = null;
@@ -2280,6 +2648,79 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
     }
   }
 
+  @Override
+  public OCommandCacheDependencies getCacheDependencies() {
+    if (cacheDependencies != null && (!resolvedByIndex || cacheDependencies.isOverflow()))
+      // NOT RESOLVED BY INDEXES ONLY: THE RESULT DEPENDS ON ALL THE INVOLVED CLUSTERS
+      cacheDependencies.addClusters(getInvolvedClusters());
+    return cacheDependencies;
+  }
+
+  private void initCacheDependencies() {
+    cacheDependencies = null;
+    resolvedByIndex = false;
+
+    final OCommandCache commandCache = getDatabase().getMetadata().getCommandCache();
+    if (commandCache.isEnabled() && commandCache.getEvictStrategy() == OCommandCache.STRATEGY.PER_RECORD)
+      cacheDependencies = new OCommandCacheDependencies(OGlobalConfiguration.COMMAND_CACHE_MAX_TRACKED_RECORDS.getValueAsInteger());
+  }
+
+  /**
+   * Registers the range of keys looked up in the index as dependency of the result. Operators that can't be converted into a key
+   * range make the result depend on the whole index.
+   */
+  private void trackIndexDependency(final OIndex<?> index, final OQueryOperator operator, final List<Object> keyParams) {
+    if (cacheDependencies == null)
+      return;
+
+    final OIndexDefinition definition = index.getDefinition();
+    try {
+      if (operator instanceof OQueryOperatorEquals) {
+        final Object key;
+        if (definition.getParamCount() > 1)
+          key = ((OCompositeIndexDefinition) definition).createSingleValue(keyParams);
+        else if (definition instanceof OIndexDefinitionMultiValue)
+          key = ((OIndexDefinitionMultiValue) definition).createSingleValue(keyParams.get(0));
+        else
+          key = definition.createValue(keyParams);
+
+        if (key != null) {
+          // A PARTIAL COMPOSITE KEY MATCHES ALL THE KEYS WITH THE SAME PREFIX
+          cacheDependencies.addIndexKey(index, key);
+          return;
+        }
+
+      } else if (definition.getParamCount() == 1 && keyParams.size() == 1 && !(definition instanceof OIndexDefinitionMultiValue)) {
+        if (operator instanceof OQueryOperatorMajor || operator instanceof OQueryOperatorMajorEquals) {
+          final Object key = definition.createValue(keyParams);
+          if (key != null) {
+            cacheDependencies.addIndexRange(index, key, operator instanceof OQueryOperatorMajorEquals, null, true);
+            return;
+          }
+        } else if (operator instanceof OQueryOperatorMinor || operator instanceof OQueryOperatorMinorEquals) {
+          final Object key = definition.createValue(keyParams);
+          if (key != null) {
+            cacheDependencies.addIndexRange(index, null, true, key, operator instanceof OQueryOperatorMinorEquals);
+            return;
+          }
+        } else if (operator instanceof OQueryOperatorBetween && keyParams.get(0) instanceof Object[]) {
+          final Object[] betweenKeys = (Object[]) keyParams.get(0);
+          final Object from = definition.createValue(Collections.singletonList(OSQLHelper.getValue(betweenKeys[0])));
+          final Object to = definition.createValue(Collections.singletonList(OSQLHelper.getValue(betweenKeys[2])));
+          if (from != null && to != null) {
+            // BOUNDARIES ARE ALWAYS CONSIDERED INCLUSIVE: INVALIDATING MORE IS SAFE
+            cacheDependencies.addIndexRange(index, from, true, to, true);
+            return;
+          }
+        }
+      }
+    } catch (Exception e) {
+      OLogManager.instance().debug(this, "Cannot compute the key range of index %s for the command cache", e, index.getName());
+    }
+
+    cacheDependencies.addIndexAnyKey(index);
+  }
+
   private Iterator<OIdentifiable> tryIndexedFunctions(OClass iSchemaClass) {
     // TODO profiler
     if (this.preParsedStatement == null) {
@@ -2315,6 +2756,16 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
     return result.iterator();
   }
 
+  /**
+   * Tells if the cursor of the index returns the records already in the ORDER BY order: the index fields must cover the equality
+   * conditions plus all the ORDER BY fields.
+   */
+  private boolean isFullySortedByIndex(final OIndexDefinition indexDefinition, final OIndexSearchResult searchResult,
+      final List<List<OIndexSearchResult>> conditionHierarchy) {
+    return expandTarget == null && conditionHierarchy.size() == 1
+        && indexDefinition.getFields().size() >= getEqualsClausesPrefix(searchResult).size() + orderedFields.size();
+  }
+
   private List<String> getEqualsClausesPrefix(OIndexSearchResult searchResult) {
     List<String> result = new ArrayList<String>();
     if (searchResult.lastOperator instanceof OQueryOperatorEquals) {
@@ -2504,6 +2955,21 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
 
     final long startOrderBy = System.currentTimeMillis();
     try {
+      if (orderBySorter != null) {
+        if (tempResult != null)
+          for (OIdentifiable o : tempResult)
+            orderBySorter.add(o);
+
+        // WHEN THE RUNS HAVE BEEN SPILLED THE RESULT IS NOT A LIST AND THE SKIP IS APPLIED BY THE MERGE
+        tempResult = orderBySorter.sort(skip);
+        if (orderBySorter.isSpilled())
+          metricRecorder.recordOrderBySpilledRuns(orderBySorter.getSpilledRuns());
+
+        if (clearOrderedFields)
+          orderedFields.clear();
+        return;
+      }
+
       if (tempResult instanceof OMultiCollectionIterator) {
         final List<OIdentifiable> list = new ArrayList<OIdentifiable>();
         for (OIdentifiable o : tempResult) {
@@ -61,6 +61,22 @@ public class OMetricRecorder {
     return context.setVariable("orderByElapsed", (System.currentTimeMillis() - startOrderBy));
   }
 
+  public void recordIndexIntersectionMetric(OIndex index) {
+    if (context.isRecordingMetrics()) {
+      Set<String> idxNames = (Set<String>) context.getVariable("intersectedIndexes");
+      if (idxNames == null) {
+        idxNames = new HashSet<String>();
+        context.setVariable("intersectedIndexes", idxNames);
+      }
+      idxNames.add(index.getName());
+    }
+  }
+
+  public void recordOrderBySpilledRuns(final int runs) {
+    if (context.isRecordingMetrics())
+      context.setVariable("orderBySpilledRuns", runs);
+  }
+
   public void recordRangeQueryConvertedInBetween() {
     if (context.isRecordingMetrics()) {
       Integer counter = (Integer) context.getVariable("rangeQueryConvertedInBetween");
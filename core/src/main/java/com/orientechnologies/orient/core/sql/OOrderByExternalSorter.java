@@ -0,0 +1,347 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.sql;
+
+import com.orientechnologies.common.exception.OException;
+import com.orientechnologies.common.io.OFileUtils;
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.ORecordInternal;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Bounded memory sorter used by the ORDER BY of {@link OCommandExecutorSQLSelect}. When the query has a LIMIT, only the first
+ * <code>maxResults</code> records are kept in a heap (top-K), otherwise the records are collected in runs of
+ * <code>runSize</code> items: every full run is sorted and spilled to a temporary file, then all the runs are merged (k-way) while
+ * the result is streamed to the caller.
+ * <p>
+ * If a database is passed, full runs are sorted and written by the worker threads of {@link Orient#submit(Callable)} on a copy of
+ * the database, so the thread collecting the result is not blocked by the sort.
+ */
+public class OOrderByExternalSorter {
+  private static final byte RECORD_DOCUMENT = 1;
+  private static final byte RECORD_RID      = 2;
+
+  private final Comparator<OIdentifiable> comparator;
+  private final int                       maxResults;
+  private final int                       runSize;
+  private final ODatabaseDocumentInternal parallelDatabase;
+
+  private PriorityQueue<OIdentifiable> topK;
+  private List<OIdentifiable>          currentRun  = new ArrayList<OIdentifiable>();
+  private final List<Future<File>>     spilledRuns = new ArrayList<Future<File>>();
+  private final List<File>             runFiles    = new ArrayList<File>();
+  private final List<RunCursor>        openCursors = new ArrayList<RunCursor>();
+
+  /**
+   * @param iComparator
+   *          Comparator that defines the ORDER BY
+   * @param iMaxResults
+   *          Maximum number of results to return (SKIP + LIMIT), -1 means unbounded
+   * @param iRunSize
+   *          Maximum number of records kept in memory before to spill a sorted run to disk, 0 or less disables the spilling
+   * @param iParallelDatabase
+   *          Database to copy to sort the runs in parallel, null to sort them on the current thread
+   */
+  public OOrderByExternalSorter(final Comparator<OIdentifiable> iComparator, final int iMaxResults, final int iRunSize,
+      final ODatabaseDocumentInternal iParallelDatabase) {
+    this.comparator = iComparator;
+    this.runSize = iRunSize;
+    this.parallelDatabase = iParallelDatabase;
+
+    if (iMaxResults > 0 && (iRunSize <= 0 || iMaxResults <= iRunSize)) {
+      this.maxResults = iMaxResults;
+      // THE HEAD OF THE QUEUE IS THE GREATEST ITEM, THE ONE TO DISCARD FIRST
+      this.topK = new PriorityQueue<OIdentifiable>(Math.min(iMaxResults + 1, 1024), Collections.reverseOrder(iComparator));
+    } else
+      this.maxResults = -1;
+  }
+
+  public void add(final OIdentifiable iRecord) {
+    if (topK != null) {
+      topK.offer(iRecord);
+      if (topK.size() > maxResults)
+        topK.poll();
+      return;
+    }
+
+    currentRun.add(iRecord);
+    if (runSize > 0 && currentRun.size() >= runSize)
+      spillRun();
+  }
+
+  public boolean isSpilled() {
+    return !spilledRuns.isEmpty();
+  }
+
+  public int getSpilledRuns() {
+    return spilledRuns.size();
+  }
+
+  /**
+   * Returns the sorted result. If all the records fit in memory the result is a {@link List}, otherwise it's an {@link Iterable}
+   * that merges the spilled runs while it's browsed. In this case call {@link #close()} at the end to remove the temporary files.
+   *
+   * @param iSkip
+   *          Number of records to skip at the beginning of the merged result, only applied when the result is not a List
+   */
+  public Iterable<OIdentifiable> sort(final int iSkip) {
+    if (topK != null) {
+      final List<OIdentifiable> result = new ArrayList<OIdentifiable>(topK.size());
+      while (!topK.isEmpty())
+        result.add(topK.poll());
+      Collections.reverse(result);
+      topK = null;
+      return result;
+    }
+
+    if (spilledRuns.isEmpty()) {
+      final List<OIdentifiable> result = currentRun;
+      currentRun = null;
+      Collections.sort(result, comparator);
+      return result;
+    }
+
+    if (!currentRun.isEmpty())
+      spillRun();
+    currentRun = null;
+
+    for (Future<File> run : spilledRuns) {
+      try {
+        final File file = run.get();
+        openCursors.add(new RunCursor(file));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw OException.wrapException(new OCommandExecutionException("Interrupted while sorting the result set"), e);
+      } catch (ExecutionException e) {
+        throw OException.wrapException(new OCommandExecutionException("Error on sorting the result set"), e.getCause());
+      } catch (IOException e) {
+        throw OException.wrapException(new OCommandExecutionException("Error on reading sorted run from disk"), e);
+      }
+    }
+
+    return new Iterable<OIdentifiable>() {
+      @Override
+      public Iterator<OIdentifiable> iterator() {
+        final Iterator<OIdentifiable> it = new MergeIterator(openCursors);
+        for (int i = 0; i < iSkip && it.hasNext(); ++i)
+          it.next();
+        return it;
+      }
+    };
+  }
+
+  /**
+   * Closes all the open runs and deletes the temporary files.
+   */
+  public void close() {
+    for (RunCursor cursor : openCursors)
+      cursor.close();
+    openCursors.clear();
+
+    for (Future<File> run : spilledRuns)
+      run.cancel(false);
+    spilledRuns.clear();
+
+    synchronized (runFiles) {
+      for (File f : runFiles)
+        if (f.exists() && !f.delete())
+          OLogManager.instance().warn(this, "Cannot delete temporary sort file %s", f);
+      runFiles.clear();
+    }
+  }
+
+  private void spillRun() {
+    final List<OIdentifiable> run = currentRun;
+    currentRun = new ArrayList<OIdentifiable>();
+
+    if (parallelDatabase != null) {
+      final ODatabaseDocumentInternal db = parallelDatabase;
+      spilledRuns.add(Orient.instance().submit(new Callable<File>() {
+        @Override
+        public File call() throws Exception {
+          final ODatabaseDocumentInternal localDatabase = db.copy();
+          localDatabase.activateOnCurrentThread();
+          try {
+            return writeRun(run);
+          } finally {
+            localDatabase.close();
+          }
+        }
+      }));
+    } else {
+      final FutureTask<File> task = new FutureTask<File>(new Callable<File>() {
+        @Override
+        public File call() throws Exception {
+          return writeRun(run);
+        }
+      });
+      task.run();
+      spilledRuns.add(task);
+    }
+  }
+
+  private File writeRun(final List<OIdentifiable> iRun) throws IOException {
+    Collections.sort(iRun, comparator);
+
+    final File dir = new File(OFileUtils.getPath(Orient.getTempPath()));
+    if (!dir.exists())
+      dir.mkdirs();
+
+    final File file = File.createTempFile("orientdb-sort-", ".run", dir);
+    file.deleteOnExit();
+    synchronized (runFiles) {
+      runFiles.add(file);
+    }
+
+    final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024));
+    try {
+      for (OIdentifiable id : iRun) {
+        final ORecord record = id.getRecord();
+        final ORID rid = id.getIdentity();
+
+        if (record instanceof ODocument) {
+          final byte[] content = record.toStream();
+          out.writeByte(RECORD_DOCUMENT);
+          out.writeInt(rid.getClusterId());
+          out.writeLong(rid.getClusterPosition());
+          out.writeInt(record.getVersion());
+          out.writeInt(content.length);
+          out.write(content);
+        } else {
+          // NOT A DOCUMENT: STORE THE RID ONLY, IT WILL BE RELOADED WHEN READ
+          out.writeByte(RECORD_RID);
+          out.writeInt(rid.getClusterId());
+          out.writeLong(rid.getClusterPosition());
+        }
+      }
+    } finally {
+      out.close();
+    }
+
+    return file;
+  }
+
+  private static final class RunCursor {
+    private final DataInputStream in;
+    private OIdentifiable         head;
+    private boolean               closed;
+
+    private RunCursor(final File file) throws IOException {
+      in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024));
+      advance();
+    }
+
+    private void advance() {
+      if (closed) {
+        head = null;
+        return;
+      }
+
+      try {
+        final int type = in.read();
+        if (type < 0) {
+          head = null;
+          close();
+          return;
+        }
+
+        final ORecordId rid = new ORecordId(in.readInt(), in.readLong());
+        if (type == RECORD_DOCUMENT) {
+          final int version = in.readInt();
+          final byte[] content = new byte[in.readInt()];
+          in.readFully(content);
+
+          final ODocument doc = new ODocument();
+          ORecordInternal.fill(doc, rid, version, content, false);
+          head = doc;
+        } else
+          head = rid;
+
+      } catch (IOException e) {
+        close();
+        throw OException.wrapException(new OCommandExecutionException("Error on reading sorted run from disk"), e);
+      }
+    }
+
+    private void close() {
+      if (!closed) {
+        closed = true;
+        try {
+          in.close();
+        } catch (IOException e) {
+          OLogManager.instance().debug(this, "Error on closing temporary sort file", e);
+        }
+      }
+    }
+  }
+
+  private final class MergeIterator implements Iterator<OIdentifiable> {
+    private final PriorityQueue<RunCursor> queue;
+
+    private MergeIterator(final List<RunCursor> iCursors) {
+      queue = new PriorityQueue<RunCursor>(Math.max(1, iCursors.size()), new Comparator<RunCursor>() {
+        @Override
+        public int compare(final RunCursor o1, final RunCursor o2) {
+          return comparator.compare(o1.head, o2.head);
+        }
+      });
+      for (RunCursor c : iCursors)
+        if (c.head != null)
+          queue.offer(c);
+    }
+
+    @Override
+    public boolean hasNext() {
+      return !queue.isEmpty();
+    }
+
+    @Override
+    public OIdentifiable next() {
+      final RunCursor cursor = queue.poll();
+      if (cursor == null)
+        throw new NoSuchElementException();
+
+      final OIdentifiable result = cursor.head;
+      cursor.advance();
+      if (cursor.head != null)
+        queue.offer(cursor);
+      return result;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException("remove");
+    }
+  }
+}
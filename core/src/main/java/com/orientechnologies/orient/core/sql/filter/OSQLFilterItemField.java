@@ -147,8 +147,10 @@ public class OSQLFilterItemField extends OSQLFilterItemAbstract {
       return null;
 
     final ORecord rec = iRecord.getRecord();
+    final byte[] stream = rec.toStream();
 
-    return ORecordSerializerBinary.INSTANCE.getCurrentSerializer().deserializeField(new BytesContainer(rec.toStream()).skip(1),
+    // THE FIRST BYTE IS THE VERSION OF THE FORMAT THE RECORD HAS BEEN WRITTEN WITH
+    return ORecordSerializerBinary.INSTANCE.getSerializer(stream[0]).deserializeField(new BytesContainer(stream).skip(1),
         rec instanceof ODocument ? ((ODocument) rec).getSchemaClass() : null, name);
   }
 
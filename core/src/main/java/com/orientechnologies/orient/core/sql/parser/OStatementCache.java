@@ -1,34 +1,66 @@
 package com.orientechnologies.orient.core.sql.parser;
 
+import com.orientechnologies.common.profiler.OProfiler;
+import com.orientechnologies.orient.core.Orient;
 import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
 import com.orientechnologies.orient.core.sql.OCommandSQLParsingException;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 
 /**
  * This class is an LRU cache for already parsed SQL statement executors. It stores itself in the storage as a resource. It also
  * acts an an entry point for the SQL parser.
+ * <p>
+ * Statements are keyed by their normalized text (white spaces outside of literals are collapsed), so parameters must be passed as
+ * placeholders to reuse the cached entry. Besides the parsed statement every entry keeps the query plan computed by the executor,
+ * that is the indexes chosen for each class and set of fields. Plans depend on the schema and on the index definitions: they are
+ * dropped as soon as the version of the schema or of the index manager changes.
  *
  * @author Luigi Dell'Aquila
  */
 public class OStatementCache {
 
-  Map<String, OStatement> map;
-  int                     mapSize;
+  Map<String, Entry> map;
+  int                mapSize;
+
+  private final String databaseName;
+  private int          schemaVersion = -1;
+  private int          indexVersion  = -1;
+
+  private static final class Entry {
+    private OStatement                statement;
+    private Map<String, List<String>> plans;
+  }
 
   /**
    * @param size the size of the cache
    */
   public OStatementCache(int size) {
+    this(size, null);
+  }
+
+  /**
+   * @param size         the size of the cache
+   * @param databaseName the name of the database, used to report the metrics of the cache. If null metrics are not reported
+   */
+  public OStatementCache(int size, String databaseName) {
     this.mapSize = size;
-    map = new LinkedHashMap<String, OStatement>(size) {
-      protected boolean removeEldestEntry(final Map.Entry<String, OStatement> eldest) {
-        return super.size() > mapSize;
+    this.databaseName = databaseName;
+    map = new LinkedHashMap<String, Entry>(size, 0.75f, true) {
+      protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+        if (super.size() > mapSize) {
+          updateCounter("statementCache.evicted", "Statements evicted from the statement cache", +1);
+          return true;
+        }
+        return false;
       }
     };
   }
@@ -38,7 +70,8 @@ public class OStatementCache {
    * @return true if the corresponding executor is present in the cache
    */
   public synchronized boolean contains(String statement) {
-    return map.containsKey(statement);
+    final Entry entry = map.get(normalize(statement));
+    return entry != null && entry.statement != null;
   }
 
   /**
@@ -54,12 +87,19 @@ public class OStatementCache {
       return parse(statement);
     }
 
-    OStatementCache resource = db.getStorage().getResource(OStatementCache.class.getSimpleName(), new Callable<OStatementCache>() {
+    return getInstance(db).get(statement);
+  }
+
+  /**
+   * @param db the current DB instance
+   * @return the statement cache of the database, created the first time it's requested
+   */
+  public static OStatementCache getInstance(final ODatabaseDocumentInternal db) {
+    return db.getStorage().getResource(OStatementCache.class.getSimpleName(), new Callable<OStatementCache>() {
       @Override public OStatementCache call() throws Exception {
-        return new OStatementCache(OGlobalConfiguration.STATEMENT_CACHE_SIZE.getValueAsInteger());
+        return new OStatementCache(OGlobalConfiguration.STATEMENT_CACHE_SIZE.getValueAsInteger(), db.getName());
       }
     });
-    return resource.get(statement);
   }
 
   /**
@@ -67,14 +107,144 @@ public class OStatementCache {
    * @return the corresponding executor, taking it from the internal cache, if it exists
    */
   public synchronized OStatement get(String statement) {
-    OStatement result = map.remove(statement);
-    if (result == null) {
-      result = parse(statement);
+    final String key = normalize(statement);
+    Entry entry = map.get(key);
+    if (entry == null) {
+      entry = new Entry();
+      map.put(key, entry);
     }
-    map.put(statement, result);
+
+    if (entry.statement == null) {
+      updateCounter("statementCache.miss", "Statements not found in the statement cache", +1);
+      entry.statement = parse(statement);
+    } else
+      updateCounter("statementCache.hit", "Statements found in the statement cache", +1);
+
+    return entry.statement;
+  }
+
+  /**
+   * Returns the names of the indexes chosen by a previous execution of the statement, sorted by preference.
+   *
+   * @param statement     the SQL statement
+   * @param planKey       the key of the plan inside the statement, for example the class and the fields of a condition
+   * @param schemaVersion the current version of the schema
+   * @param indexVersion  the current version of the index manager
+   * @return the index names, or null if the plan is not cached or it's not valid anymore
+   */
+  public synchronized List<String> getPlan(final String statement, final String planKey, final int schemaVersion,
+      final int indexVersion) {
+    List<String> result = null;
+    if (checkVersions(schemaVersion, indexVersion)) {
+      final Entry entry = map.get(normalize(statement));
+      if (entry != null && entry.plans != null)
+        result = entry.plans.get(planKey);
+    }
+
+    if (result == null)
+      updateCounter("statementCache.planMiss", "Query plans not found in the statement cache", +1);
+    else
+      updateCounter("statementCache.planHit", "Query plans found in the statement cache", +1);
     return result;
   }
 
+  /**
+   * Stores the names of the indexes chosen for a statement. The plan is ignored if it has been computed against an older version
+   * of the schema or of the index manager.
+   */
+  public synchronized void putPlan(final String statement, final String planKey, final List<String> indexNames,
+      final int schemaVersion, final int indexVersion) {
+    if (!checkVersions(schemaVersion, indexVersion))
+      return;
+
+    final String key = normalize(statement);
+    Entry entry = map.get(key);
+    if (entry == null) {
+      entry = new Entry();
+      map.put(key, entry);
+    }
+
+    if (entry.plans == null)
+      entry.plans = new HashMap<String, List<String>>();
+    entry.plans.put(planKey, new ArrayList<String>(indexNames));
+  }
+
+  /**
+   * Drops all the cached plans if the versions passed are newer than the ones the plans were computed with.
+   *
+   * @return false if the versions passed are older than the cached ones, in this case the caller should not use the cache
+   */
+  private boolean checkVersions(final int iSchemaVersion, final int iIndexVersion) {
+    if (iSchemaVersion == schemaVersion && iIndexVersion == indexVersion)
+      return true;
+
+    if (iSchemaVersion < schemaVersion || iIndexVersion < indexVersion)
+      return false;
+
+    // SCHEMA OR INDEXES CHANGED: THE PLANS ARE NOT VALID ANYMORE
+    int invalidated = 0;
+    for (Entry entry : map.values())
+      if (entry.plans != null) {
+        invalidated += entry.plans.size();
+        entry.plans = null;
+      }
+
+    if (invalidated > 0)
+      updateCounter("statementCache.planInvalidated", "Query plans invalidated by schema or index changes", invalidated);
+
+    schemaVersion = iSchemaVersion;
+    indexVersion = iIndexVersion;
+    return true;
+  }
+
+  /**
+   * Collapses white spaces outside of string literals and quoted identifiers, so statements that differ only by formatting share
+   * the same cache entry.
+   */
+  protected static String normalize(final String statement) {
+    final StringBuilder buffer = new StringBuilder(statement.length());
+    char quote = 0;
+    boolean space = false;
+
+    for (int i = 0; i < statement.length(); i++) {
+      final char c = statement.charAt(i);
+
+      if (quote != 0) {
+        buffer.append(c);
+        if (c == '\\' && i < statement.length() - 1)
+          buffer.append(statement.charAt(++i));
+        else if (c == quote)
+          quote = 0;
+        continue;
+      }
+
+      if (Character.isWhitespace(c)) {
+        space = buffer.length() > 0;
+        continue;
+      }
+
+      if (space) {
+        buffer.append(' ');
+        space = false;
+      }
+
+      if (c == '\'' || c == '"' || c == '`')
+        quote = c;
+      buffer.append(c);
+    }
+
+    return buffer.toString();
+  }
+
+  private void updateCounter(final String iMetric, final String iDescription, final long iDelta) {
+    if (databaseName == null)
+      return;
+
+    final OProfiler profiler = Orient.instance().getProfiler();
+    if (profiler.isRecording())
+      profiler.updateCounter(profiler.getDatabaseMetric(databaseName, iMetric), iDescription, iDelta);
+  }
+
   /**
    * parses an SQL statement and returns the corresponding executor
    *
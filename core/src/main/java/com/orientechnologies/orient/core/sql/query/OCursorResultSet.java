@@ -0,0 +1,40 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.sql.query;
+
+/**
+ * Result set received while it's browsed, from a query kept open by a cursor. Its results are not known until it's browsed, so it
+ * must be returned as is to the caller of the query.
+ *
+ * @param <T>
+ * @see com.orientechnologies.orient.core.config.OGlobalConfiguration#CLIENT_QUERY_FETCH_SIZE
+ */
+public interface OCursorResultSet<T> extends OResultSet<T> {
+
+  /**
+   * Tells if the cursor has more results, not received yet.
+   */
+  boolean hasMore();
+
+  /**
+   * Closes the cursor before receiving all the results. The results not received yet are discarded.
+   */
+  void close();
+}
@@ -43,6 +43,8 @@ public class OSQLSynchQuery<T extends Object> extends OSQLAsynchQuery<T> impleme
   private final OResultSet<T> result              = new OConcurrentResultSet<T>();
   private ORID                nextPageRID;
   private Map<Object, Object> previousQueryParams = new HashMap<Object, Object>();
+  private OCursorResultSet<T> cursorResult;
+  private Map<Object, Object> cursorQueryParams;
 
   public OSQLSynchQuery() {
     resultListener = this;
@@ -77,6 +79,7 @@ public class OSQLSynchQuery<T extends Object> extends OSQLAsynchQuery<T> impleme
   @Override
   public List<T> run(final Object... iArgs) {
     result.clear();
+    updateNextPageRID();
 
     final Map<Object, Object> queryParams;
     queryParams = fetchQueryParams(iArgs);
@@ -84,6 +87,13 @@ public class OSQLSynchQuery<T extends Object> extends OSQLAsynchQuery<T> impleme
 
     final List<Object> res = (List<Object>) super.run(iArgs);
 
+    if (res instanceof OCursorResultSet) {
+      // THE RESULTS ARE RECEIVED WHILE THE RESULT SET IS BROWSED: NO COPY, THE NEXT PAGE IS KNOWN ONCE IT'S NEEDED
+      cursorResult = (OCursorResultSet<T>) res;
+      cursorQueryParams = queryParams;
+      return (List<T>) res;
+    }
+
     if (res != result && res != null && result.isEmptyNoWait()) {
       Iterator<Object> iter = res.iterator();
       while (iter.hasNext()) {
@@ -116,16 +126,18 @@ public class OSQLSynchQuery<T extends Object> extends OSQLAsynchQuery<T> impleme
    * @return RID of the record that will be processed first during pagination mode.
    */
   public ORID getNextPageRID() {
+    updateNextPageRID();
     return nextPageRID;
   }
 
   public void resetPagination() {
     nextPageRID = null;
+    cursorResult = null;
   }
 
   public Iterator<T> iterator() {
-    execute();
-    return ((Iterable<T>) getResult()).iterator();
+    final List<T> res = execute();
+    return res.iterator();
   }
 
   @Override
@@ -160,6 +172,23 @@ public class OSQLSynchQuery<T extends Object> extends OSQLAsynchQuery<T> impleme
 
   }
 
+  /**
+   * The next page of a result received by a cursor starts after its last record, that is known only once the rest of the result
+   * has been received.
+   */
+  private void updateNextPageRID() {
+    if (cursorResult == null)
+      return;
+
+    final OCursorResultSet<T> res = cursorResult;
+    cursorResult = null;
+    if (!res.isEmpty()) {
+      previousQueryParams = new HashMap<Object, Object>(cursorQueryParams);
+      final ORID lastRid = ((OIdentifiable) res.get(res.size() - 1)).getIdentity();
+      nextPageRID = new ORecordId(lastRid.next());
+    }
+  }
+
   private void resetNextRIDIfParametersWereChanged(final Map<Object, Object> queryParams) {
     if (!queryParams.equals(previousQueryParams))
       nextPageRID = null;
@@ -90,6 +90,13 @@ public interface OStorage extends OBackupable, OSharedContainer {
   OStorageOperationResult<ORawBuffer> readRecordIfVersionIsNotLatest(ORecordId rid, String fetchPlan, boolean ignoreCache,
       int recordVersion) throws ORecordNotFoundException;
 
+  /**
+   * Reads many records at once. A remote storage reads them with one request instead of one request per record.
+   *
+   * @return the records in the same order of the ids, null for the records not found
+   */
+  List<ORawBuffer> readRecords(List<ORecordId> iRids, String iFetchPlan, boolean iIgnoreCache);
+
   OStorageOperationResult<Integer> updateRecord(ORecordId iRecordId, boolean updateContent, byte[] iContent, int iVersion,
       byte iRecordType, int iMode, ORecordCallback<Integer> iCallback);
 
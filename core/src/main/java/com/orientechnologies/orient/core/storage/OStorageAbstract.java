@@ -28,6 +28,7 @@ import com.orientechnologies.orient.core.config.OStorageConfiguration;
 import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
 import com.orientechnologies.orient.core.db.record.OCurrentStorageComponentsFactory;
 import com.orientechnologies.orient.core.exception.OSecurityException;
+import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.exception.OStorageException;
 import com.orientechnologies.orient.core.metadata.OMetadata;
 import com.orientechnologies.orient.core.metadata.OMetadataInternal;
@@ -36,6 +37,8 @@ import com.orientechnologies.orient.core.metadata.security.OSecurityShared;
 import com.orientechnologies.orient.core.record.ORecordVersionHelper;
 import com.orientechnologies.orient.core.serialization.serializer.OStringSerializerHelper;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicLong;
@@ -110,6 +113,14 @@ public abstract class OStorageAbstract implements OStorage, OSharedContainer {
     return status == STATUS.CLOSED;
   }
 
+  @Override
+  public List<ORawBuffer> readRecords(final List<ORecordId> iRids, final String iFetchPlan, final boolean iIgnoreCache) {
+    final List<ORawBuffer> buffers = new ArrayList<ORawBuffer>(iRids.size());
+    for (ORecordId rid : iRids)
+      buffers.add(readRecord(rid, iFetchPlan, iIgnoreCache, false, null).getResult());
+    return buffers;
+  }
+
   public boolean checkForRecordValidity(final OPhysicalPosition ppos) {
     return ppos != null && !ORecordVersionHelper.isTombstone(ppos.recordVersion);
   }
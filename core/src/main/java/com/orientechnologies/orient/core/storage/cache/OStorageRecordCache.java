@@ -0,0 +1,260 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.storage.cache;
+
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.storage.ORawBuffer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Cache of serialized records shared by all the sessions opened on a storage. The content of the records is kept off-heap in a
+ * ring of direct memory segments: records are appended to the current segment and, when it is full, the oldest segment is reused
+ * and the records it contains are evicted. An index keeps the version and the position of the content of every cached RID.
+ * <p>
+ * Updates and deletes replace the cached record with an invalidation entry that holds the version being written, so a reader that
+ * loaded an older version from the cluster before the change cannot put it back in the cache. Invalidation entries are evicted
+ * with the segment that was current when they were created.
+ */
+public class OStorageRecordCache {
+  private static final int SEGMENTS = 16;
+
+  private final ConcurrentHashMap<ORID, Entry> entries = new ConcurrentHashMap<ORID, Entry>();
+  private final Segment[] segments;
+  private final int       segmentSize;
+
+  /**
+   * Index of the segment where the records are appended, guarded by the monitor of the cache.
+   */
+  private int current = 0;
+
+  /**
+   * Incremented every time the cache is cleared, so records read from the cluster before can't be put in the cache.
+   */
+  private volatile long epoch = 0;
+
+  private final AtomicLong evicted = new AtomicLong();
+
+  /**
+   * @param maxSize
+   *          maximum amount of memory (in bytes) used to keep the content of the records. Records bigger than
+   *          <code>maxSize / 16</code> are never cached
+   */
+  public OStorageRecordCache(final long maxSize) {
+    segmentSize = (int) Math.min(maxSize / SEGMENTS, Integer.MAX_VALUE);
+    if (segmentSize <= 0)
+      throw new IllegalArgumentException("Size of record cache is too small: " + maxSize);
+
+    segments = new Segment[SEGMENTS];
+    for (int i = 0; i < SEGMENTS; i++)
+      segments[i] = new Segment();
+  }
+
+  /**
+   * Returns a copy of the cached record.
+   *
+   * @return the record or null if the record is not in the cache
+   */
+  public ORawBuffer get(final ORID iRid) {
+    final Entry entry = entries.get(iRid);
+    if (entry == null || entry.length < 0)
+      return null;
+
+    final Segment segment = entry.segment;
+    segment.lock.readLock().lock();
+    try {
+      if (segment.generation != entry.generation)
+        // EVICTED IN THE MEANTIME
+        return null;
+
+      final byte[] content = new byte[entry.length];
+      final ByteBuffer buffer = segment.buffer.duplicate();
+      buffer.position(entry.offset);
+      buffer.get(content);
+
+      return new ORawBuffer(content, entry.version, entry.recordType);
+    } finally {
+      segment.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @return current epoch of the cache, it has to be read before to read a record from the cluster and passed to
+   *         {@link #put(ORID, ORawBuffer, long)}
+   */
+  public long getEpoch() {
+    return epoch;
+  }
+
+  /**
+   * Puts a record read from the cluster in the cache. The record is ignored if the cache already contains the same or a newer
+   * version, if it has been invalidated by a newer version or if the cache has been cleared after the record was read.
+   *
+   * @param iEpoch
+   *          epoch of the cache before the record was read
+   */
+  public void put(final ORID iRid, final ORawBuffer iRecord, final long iEpoch) {
+    if (iRecord == null || iRecord.buffer == null || iRecord.buffer.length > segmentSize)
+      return;
+
+    final int length = iRecord.buffer.length;
+    final ORID rid = iRid.copy();
+
+    synchronized (this) {
+      if (iEpoch != epoch)
+        return;
+
+      final Entry existing = entries.get(rid);
+      if (existing != null && (existing.length < 0 ? iRecord.version < existing.version : iRecord.version <= existing.version))
+        return;
+
+      Segment segment = currentSegment();
+      if (segment.position + length > segmentSize)
+        segment = nextSegment();
+
+      final ByteBuffer buffer = segment.buffer.duplicate();
+      buffer.position(segment.position);
+      buffer.put(iRecord.buffer);
+
+      entries.put(rid, new Entry(segment, segment.generation, segment.position, length, iRecord.version, iRecord.recordType));
+      segment.rids.add(rid);
+      segment.position += length;
+    }
+  }
+
+  /**
+   * Removes a record from the cache before it's changed in the cluster.
+   *
+   * @param iVersion
+   *          version that the record is going to have, older versions will not be cached anymore. Use
+   *          {@link Integer#MAX_VALUE} for deleted records
+   */
+  public void invalidate(final ORID iRid, final int iVersion) {
+    final ORID rid = iRid.copy();
+
+    synchronized (this) {
+      final Segment segment = currentSegment();
+      entries.put(rid, new Entry(segment, segment.generation, 0, -1, iVersion, (byte) 0));
+      segment.rids.add(rid);
+    }
+  }
+
+  /**
+   * Removes all the records from the cache.
+   */
+  public synchronized void clear() {
+    epoch++;
+    for (Segment segment : segments)
+      reset(segment);
+
+    entries.clear();
+    current = 0;
+  }
+
+  /**
+   * Removes all the records from the cache and releases the memory allocated for their content.
+   */
+  public synchronized void close() {
+    clear();
+
+    for (Segment segment : segments)
+      segment.buffer = null;
+  }
+
+  /**
+   * @return number of records and invalidation entries currently in the cache
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * @return number of records and invalidation entries evicted to make room for new ones
+   */
+  public long getEvicted() {
+    return evicted.get();
+  }
+
+  private Segment currentSegment() {
+    final Segment segment = segments[current];
+    if (segment.buffer == null)
+      segment.buffer = ByteBuffer.allocateDirect(segmentSize);
+    return segment;
+  }
+
+  private Segment nextSegment() {
+    current = (current + 1) % SEGMENTS;
+    final Segment segment = currentSegment();
+
+    // EVICT THE RECORDS OF THE OLDEST SEGMENT BEFORE TO REUSE IT
+    for (ORID rid : segment.rids) {
+      final Entry entry = entries.get(rid);
+      if (entry != null && entry.segment == segment && entries.remove(rid, entry))
+        evicted.incrementAndGet();
+    }
+    reset(segment);
+
+    return segment;
+  }
+
+  private void reset(final Segment segment) {
+    segment.lock.writeLock().lock();
+    try {
+      segment.generation++;
+    } finally {
+      segment.lock.writeLock().unlock();
+    }
+
+    segment.rids.clear();
+    segment.position = 0;
+  }
+
+  private static final class Segment {
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<ORID>             rids = new ArrayList<ORID>();
+    private volatile ByteBuffer          buffer;
+    private volatile int                 generation;
+    private int                          position;
+  }
+
+  private static final class Entry {
+    private final Segment segment;
+    private final int     generation;
+    private final int     offset;
+    private final int     length;
+    private final int     version;
+    private final byte    recordType;
+
+    private Entry(final Segment segment, final int generation, final int offset, final int length, final int version,
+        final byte recordType) {
+      this.segment = segment;
+      this.generation = generation;
+      this.offset = offset;
+      this.length = length;
+      this.version = version;
+      this.recordType = recordType;
+    }
+  }
+}
@@ -35,6 +35,8 @@ import com.orientechnologies.common.util.OPair;
 import com.orientechnologies.orient.core.OOrientShutdownListener;
 import com.orientechnologies.orient.core.OOrientStartupListener;
 import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.cache.OCommandCacheDependencies;
+import com.orientechnologies.orient.core.cache.OCommandCacheDependenciesProvider;
 import com.orientechnologies.orient.core.command.OCommandExecutor;
 import com.orientechnologies.orient.core.command.OCommandManager;
 import com.orientechnologies.orient.core.command.OCommandOutputListener;
@@ -129,6 +131,11 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
   protected volatile OReadCache  readCache;
   protected volatile OWriteCache writeCache;
 
+  /**
+   * Cache of serialized records shared by all the sessions, null if disabled.
+   */
+  private volatile OStorageRecordCache recordCache;
+
   private volatile ORecordConflictStrategy recordConflictStrategy = Orient.instance().getRecordConflictStrategy()
       .getDefaultImplementation();
 
@@ -160,6 +167,9 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
   private final AtomicLong txCommit       = new AtomicLong(0);
   private final AtomicLong txRollback     = new AtomicLong(0);
 
+  private final AtomicLong recordCacheHit  = new AtomicLong(0);
+  private final AtomicLong recordCacheMiss = new AtomicLong(0);
+
   public OAbstractPaginatedStorage(String name, String filePath, String mode, int id) {
     super(name, filePath, mode, OGlobalConfiguration.STORAGE_LOCK_TIMEOUT.getValueAsInteger());
 
@@ -261,6 +271,34 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
                 return txRollback.get();
               }
             }, "db.*.txRollback");
+
+    Orient.instance().getProfiler()
+        .registerHookValue("db." + this.name + ".recordCache.hit", "Number of records read from the storage record cache",
+            OProfiler.METRIC_TYPE.COUNTER, new OAbstractProfiler.OProfilerHookValue() {
+              @Override
+              public Object getValue() {
+                return recordCacheHit.get();
+              }
+            }, "db.*.recordCache.hit");
+
+    Orient.instance().getProfiler()
+        .registerHookValue("db." + this.name + ".recordCache.miss", "Number of records not found in the storage record cache",
+            OProfiler.METRIC_TYPE.COUNTER, new OAbstractProfiler.OProfilerHookValue() {
+              @Override
+              public Object getValue() {
+                return recordCacheMiss.get();
+              }
+            }, "db.*.recordCache.miss");
+
+    Orient.instance().getProfiler()
+        .registerHookValue("db." + this.name + ".recordCache.evicted", "Number of records evicted from the storage record cache",
+            OProfiler.METRIC_TYPE.COUNTER, new OAbstractProfiler.OProfilerHookValue() {
+              @Override
+              public Object getValue() {
+                final OStorageRecordCache cache = recordCache;
+                return cache != null ? cache.getEvicted() : 0L;
+              }
+            }, "db.*.recordCache.evicted");
   }
 
   public void open(final String iUserName, final String iUserPassword, final Map<String, Object> iProperties) {
@@ -316,6 +354,7 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
 
       openClusters();
       openIndexes();
+      initRecordCache();
 
       if (OGlobalConfiguration.STORAGE_MAKE_FULL_CHECKPOINT_AFTER_OPEN.getValueAsBoolean())
         makeFullCheckpoint();
@@ -507,6 +546,8 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
       if (OGlobalConfiguration.STORAGE_MAKE_FULL_CHECKPOINT_AFTER_CREATE.getValueAsBoolean())
         makeFullCheckpoint();
 
+      initRecordCache();
+
       writeCache.startFuzzyCheckpoints();
       postCreateSteps();
 
@@ -671,6 +712,7 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
       if (iTruncate)
         cluster.truncate();
       cluster.delete();
+      clearRecordCache();
 
       makeStorageDirty();
       clusterMap.remove(cluster.getName().toLowerCase(configuration.getLocaleInstance()));
@@ -1088,7 +1130,7 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
       throw OException.wrapException(new ORecordNotFoundException(iRid), e);
     }
 
-    return new OStorageOperationResult<ORawBuffer>(readRecord(cluster, iRid, prefetchRecords));
+    return new OStorageOperationResult<ORawBuffer>(readRecord(cluster, iRid, iIgnoreCache, prefetchRecords));
   }
 
   @Override
@@ -2577,11 +2619,16 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
         result = executor.execute(iCommand.getParameters());
 
         if (result != null && iCommand.isCacheableResult() && executor.isCacheable() && (iCommand.getParameters() == null
-            || iCommand.getParameters().isEmpty()))
+            || iCommand.getParameters().isEmpty())) {
           // CACHE THE COMMAND RESULT
+          final OCommandCacheDependencies dependencies = executor instanceof OCommandCacheDependenciesProvider ?
+              ((OCommandCacheDependenciesProvider) executor).getCacheDependencies() :
+              null;
+
           db.getMetadata().getCommandCache()
-              .put(db.getUser(), iCommand.getText(), result, iCommand.getLimit(), executor.getInvolvedClusters(),
+              .put(db.getUser(), iCommand.getText(), result, iCommand.getLimit(), executor.getInvolvedClusters(), dependencies,
                   System.currentTimeMillis() - beginTime);
+        }
       }
 
       // CALL AFTER COMMAND
@@ -2845,7 +2892,8 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
     }
   }
 
-  private ORawBuffer readRecord(final OCluster clusterSegment, final ORecordId rid, boolean prefetchRecords) {
+  private ORawBuffer readRecord(final OCluster clusterSegment, final ORecordId rid, final boolean ignoreCache,
+      boolean prefetchRecords) {
     checkOpeness();
 
     if (!rid.isPersistent())
@@ -2861,7 +2909,7 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
     stateLock.acquireReadLock();
     try {
       checkOpeness();
-      return doReadRecord(clusterSegment, rid, prefetchRecords);
+      return readCachedRecord(clusterSegment, rid, ignoreCache, prefetchRecords);
     } finally {
       stateLock.releaseReadLock();
     }
@@ -2902,7 +2950,7 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
         final OCluster clusterSegment = getClusterById(clusterId);
 
         for (ORecordId rid : entry.getValue()) {
-          records.add(new OPair<ORecordId, ORawBuffer>(rid, doReadRecord(clusterSegment, rid, false)));
+          records.add(new OPair<ORecordId, ORawBuffer>(rid, readCachedRecord(clusterSegment, rid, false, false)));
         }
       }
     } finally {
@@ -3060,6 +3108,9 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
         }
       }
 
+      if (updateContent)
+        invalidateCachedRecord(rid, ppos.recordVersion);
+
       makeStorageDirty();
       atomicOperationsManager.startAtomicOperation((String) null, true);
       try {
@@ -3112,6 +3163,8 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
       final OCluster cluster, final byte recordType) {
 
     try {
+      invalidateCachedRecord(rid, version);
+
       makeStorageDirty();
       atomicOperationsManager.startAtomicOperation((String) null, true);
       try {
@@ -3166,6 +3219,8 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
           throw new OConcurrentModificationException(rid, ppos.recordVersion, version, ORecordOperation.DELETED);
       }
 
+      invalidateCachedRecord(rid, Integer.MAX_VALUE);
+
       makeStorageDirty();
       atomicOperationsManager.startAtomicOperation((String) null, true);
       try {
@@ -3202,6 +3257,8 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
         // ALREADY HIDDEN
         return new OStorageOperationResult<Boolean>(false);
 
+      invalidateCachedRecord(rid, Integer.MAX_VALUE);
+
       makeStorageDirty();
       atomicOperationsManager.startAtomicOperation((String) null, true);
       try {
@@ -3228,6 +3285,54 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
     }
   }
 
+  private void initRecordCache() {
+    final long size = getConfiguration().getContextConfiguration().getValueAsLong(OGlobalConfiguration.STORAGE_RECORD_CACHE_SIZE);
+    recordCache = size > 0 ? new OStorageRecordCache(size * 1024 * 1024) : null;
+  }
+
+  /**
+   * Reads a record from the storage record cache, if enabled, or from the cluster. Must be called outside of transactions, because
+   * records read during a transaction can be rolled back.
+   */
+  private ORawBuffer readCachedRecord(final OCluster clusterSegment, final ORecordId rid, final boolean ignoreCache,
+      final boolean prefetchRecords) {
+    final OStorageRecordCache cache = recordCache;
+    if (cache == null)
+      return doReadRecord(clusterSegment, rid, prefetchRecords);
+
+    if (!ignoreCache) {
+      final ORawBuffer buff = cache.get(rid);
+      if (buff != null) {
+        recordCacheHit.incrementAndGet();
+        return buff;
+      }
+    }
+
+    recordCacheMiss.incrementAndGet();
+
+    final long epoch = cache.getEpoch();
+    final ORawBuffer buff = doReadRecord(clusterSegment, rid, prefetchRecords);
+    if (buff != null)
+      cache.put(rid, buff, epoch);
+    return buff;
+  }
+
+  private void invalidateCachedRecord(final ORecordId rid, final int version) {
+    final OStorageRecordCache cache = recordCache;
+    if (cache != null)
+      cache.invalidate(rid, version);
+  }
+
+  /**
+   * Removes all the records from the storage record cache. It's called when the positions of a cluster are reset, because the
+   * positions may be reused by new records with the same version.
+   */
+  public void clearRecordCache() {
+    final OStorageRecordCache cache = recordCache;
+    if (cache != null)
+      cache.clear();
+  }
+
   private ORawBuffer doReadRecord(final OCluster clusterSegment, final ORecordId rid, boolean prefetchRecords) {
     try {
 
@@ -3424,6 +3529,11 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
       clusters.clear();
       clusterMap.clear();
 
+      if (recordCache != null) {
+        recordCache.close();
+        recordCache = null;
+      }
+
       // we close all files inside cache system so we only clear index metadata and close non core indexes
       for (OIndexEngine engine : indexEngines) {
         if (engine != null && !(engine instanceof OSBTreeIndexEngine || engine instanceof OHashTableIndexEngine)) {
@@ -31,6 +31,7 @@ import com.orientechnologies.orient.core.storage.impl.local.paginated.wal.OWALCh
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -60,6 +61,8 @@ public class OClusterPage extends ODurablePage {
 
   public static final int  MAX_RECORD_SIZE            = MAX_ENTRY_SIZE - 3 * OIntegerSerializer.INT_SIZE;
 
+  private static final int MIN_UNCHANGED_RANGE        = 2 * OIntegerSerializer.INT_SIZE;
+
   public OClusterPage(OCacheEntry cacheEntry, boolean newPage, OWALChanges changes) throws IOException {
     super(cacheEntry, changes);
 
@@ -157,8 +160,13 @@ public class OClusterPage extends ODurablePage {
     int recordSize = getIntValue(entryPosition) - 3 * OIntegerSerializer.INT_SIZE;
     int writtenBytes;
     if (record.length <= recordSize) {
-      setIntValue(entryPointer + 2 * OIntegerSerializer.INT_SIZE, record.length);
-      setBinaryValue(entryPointer + 3 * OIntegerSerializer.INT_SIZE, record);
+      if (getIntValue(entryPointer + 2 * OIntegerSerializer.INT_SIZE) == record.length)
+        // SAME SIZE: WRITE ONLY THE CHANGED BYTES, SO ONLY THEY ARE TRACKED IN THE PAGE CHANGES LOGGED TO THE WAL
+        setChangedBinaryValue(entryPointer + 3 * OIntegerSerializer.INT_SIZE, record);
+      else {
+        setIntValue(entryPointer + 2 * OIntegerSerializer.INT_SIZE, record.length);
+        setBinaryValue(entryPointer + 3 * OIntegerSerializer.INT_SIZE, record);
+      }
       writtenBytes = record.length;
     } else {
       byte[] newRecord = new byte[recordSize];
@@ -170,6 +178,33 @@ public class OClusterPage extends ODurablePage {
     return writtenBytes;
   }
 
+  /**
+   * Writes the ranges of <code>value</code> that differ from the current content of the page. Ranges separated by less than
+   * {@link #MIN_UNCHANGED_RANGE} equal bytes are merged, because every change has a fixed cost in the WAL record.
+   */
+  private void setChangedBinaryValue(final int pageOffset, final byte[] value) throws IOException {
+    final byte[] current = getBinaryValue(pageOffset, value.length);
+
+    int i = 0;
+    while (i < value.length) {
+      if (current[i] == value[i]) {
+        i++;
+        continue;
+      }
+
+      final int start = i;
+      int end = i + 1;
+      for (i = end; i < value.length && i - end < MIN_UNCHANGED_RANGE; i++)
+        if (current[i] != value[i])
+          end = i + 1;
+
+      if (start == 0 && end == value.length)
+        setBinaryValue(pageOffset, value);
+      else
+        setBinaryValue(pageOffset + start, Arrays.copyOfRange(value, start, end));
+    }
+  }
+
   public int getRecordVersion(int position) {
     int indexesLength = getIntValue(PAGE_INDEXES_LENGTH_OFFSET);
     if (position >= indexesLength)
@@ -363,6 +398,23 @@ public class OClusterPage extends ODurablePage {
     }
   }
 
+  public int getRecordIntValue(final int recordPosition, final int offset) {
+    assert isPositionInsideInterval(recordPosition);
+
+    final int entryIndexPosition = PAGE_INDEXES_OFFSET + recordPosition * INDEX_ITEM_SIZE;
+    final int entryPointer = getIntValue(entryIndexPosition);
+    final int entryPosition = entryPointer & POSITION_MASK;
+
+    if (offset >= 0) {
+      assert insideRecordBounds(entryPosition, offset, OIntegerSerializer.INT_SIZE);
+      return getIntValue(entryPosition + offset + 3 * OIntegerSerializer.INT_SIZE);
+    } else {
+      final int recordSize = getIntValue(entryPosition + 2 * OIntegerSerializer.INT_SIZE);
+      assert insideRecordBounds(entryPosition, recordSize + offset, OIntegerSerializer.INT_SIZE);
+      return getIntValue(entryPosition + 3 * OIntegerSerializer.INT_SIZE + recordSize + offset);
+    }
+  }
+
   public byte[] getRecordBinaryValue(final int recordPosition, final int offset, final int size) throws IOException {
     assert isPositionInsideInterval(recordPosition);
 
@@ -25,6 +25,7 @@ import com.orientechnologies.common.util.OCallable;
 import com.orientechnologies.orient.core.Orient;
 import com.orientechnologies.orient.core.compression.OCompression;
 import com.orientechnologies.orient.core.compression.OCompressionFactory;
+import com.orientechnologies.orient.core.compression.impl.ODictionaryCompression;
 import com.orientechnologies.orient.core.config.OContextConfiguration;
 import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.config.OStorageClusterConfiguration;
@@ -86,6 +87,7 @@ public class OPaginatedCluster extends ODurableComponent implements OCluster {
   private          OStoragePaginatedClusterConfiguration config;
   private          long                                  pinnedStateEntryIndex;
   private          ORecordConflictStrategy               recordConflictStrategy;
+  private          OPaginatedClusterDictionaryStore      dictionaryStore;
 
   private static final class AddEntryResult {
     private final long pageIndex;
@@ -289,6 +291,7 @@ public class OPaginatedCluster extends ODurableComponent implements OCluster {
         deleteFile(atomicOperation, fileId);
 
         clusterPositionMap.delete();
+        dictionaryStore.delete();
 
         endAtomicOperation(false, null);
       } catch (IOException ioe) {
@@ -497,17 +500,6 @@ public class OPaginatedCluster extends ODurableComponent implements OCluster {
           try {
             int entrySize = content.length + OIntegerSerializer.INT_SIZE + OByteSerializer.BYTE_SIZE;
 
-            int fullEntryPosition = 0;
-            byte[] fullEntry = new byte[entrySize];
-
-            fullEntry[fullEntryPosition] = recordType;
-            fullEntryPosition++;
-
-            OIntegerSerializer.INSTANCE.serializeNative(content.length, fullEntry, fullEntryPosition);
-            fullEntryPosition += OIntegerSerializer.INT_SIZE;
-
-            System.arraycopy(content, 0, fullEntry, fullEntryPosition, content.length);
-
             long prevPageRecordPointer = -1;
             long firstPageIndex = -1;
             int firstPagePosition = -1;
@@ -521,7 +513,7 @@ public class OPaginatedCluster extends ODurableComponent implements OCluster {
 
             do {
               byte[] entryContent = new byte[to - from + OByteSerializer.BYTE_SIZE + OLongSerializer.LONG_SIZE];
-              System.arraycopy(fullEntry, from, entryContent, 0, to - from);
+              writeEntryChunk(recordType, content, from, to, entryContent);
 
               if (from > 0)
                 entryContent[entryContent.length - OLongSerializer.LONG_SIZE - OByteSerializer.BYTE_SIZE] = 0;
@@ -559,8 +551,8 @@ public class OPaginatedCluster extends ODurableComponent implements OCluster {
               prevPageRecordPointer = addedPagePointer;
               from = to;
               to = to + (OClusterPage.MAX_RECORD_SIZE - OLongSerializer.LONG_SIZE - OByteSerializer.BYTE_SIZE);
-              if (to > fullEntry.length)
-                to = fullEntry.length;
+              if (to > entrySize)
+                to = entrySize;
 
             } while (from < to);
 
@@ -593,6 +585,21 @@ public class OPaginatedCluster extends ODurableComponent implements OCluster {
     }
   }
 
+  /**
+   * Copies the bytes from <code>from</code> to <code>to</code> of the entry made of record type, content length and content, without
+   * building the full entry of records bigger than a page.
+   */
+  private static void writeEntryChunk(final byte recordType, final byte[] content, final int from, final int to,
+      final byte[] entryContent) {
+    final int headerSize = OByteSerializer.BYTE_SIZE + OIntegerSerializer.INT_SIZE;
+    if (from == 0) {
+      entryContent[0] = recordType;
+      OIntegerSerializer.INSTANCE.serializeNative(content.length, entryContent, OByteSerializer.BYTE_SIZE);
+      System.arraycopy(content, 0, entryContent, headerSize, to - headerSize);
+    } else
+      System.arraycopy(content, from - headerSize, entryContent, 0, to - from);
+  }
+
   private void addAtomicOperationMetadata(ORID rid, OAtomicOperation atomicOperation) {
     if (!addRidMetadata)
       return;
@@ -650,6 +657,8 @@ public class OPaginatedCluster extends ODurableComponent implements OCluster {
             return null;
 
           int recordVersion = 0;
+          byte recordType = 0;
+          byte[] singlePageContent = null;
           final OCacheEntry cacheEntry = loadPage(atomicOperation, fileId, pageIndex, false, pageCount);
           cacheEntry.acquireSharedLock();
           try {
@@ -658,18 +667,36 @@ public class OPaginatedCluster extends ODurableComponent implements OCluster {
               return null;
 
             recordVersion = localPage.getRecordVersion(recordPosition);
+
+            if (localPage.getRecordLongValue(recordPosition, -OLongSerializer.LONG_SIZE) < 0) {
+              // RECORD STORED IN A SINGLE PAGE: COPY ONLY ITS CONTENT, WITHOUT LOADING THE PAGE AGAIN
+              if (localPage.getRecordByteValue(recordPosition, -OLongSerializer.LONG_SIZE - OByteSerializer.BYTE_SIZE) == 0)
+                return null;
+
+              recordType = localPage.getRecordByteValue(recordPosition, 0);
+              final int readContentSize = localPage.getRecordIntValue(recordPosition, OByteSerializer.BYTE_SIZE);
+              singlePageContent = localPage
+                  .getRecordBinaryValue(recordPosition, OByteSerializer.BYTE_SIZE + OIntegerSerializer.INT_SIZE, readContentSize);
+            }
           } finally {
             cacheEntry.releaseSharedLock();
             releasePage(atomicOperation, cacheEntry);
           }
 
+          if (singlePageContent != null) {
+            byte[] recordContent = compression.uncompress(singlePageContent, 0, singlePageContent.length);
+            recordContent = encryption.decrypt(recordContent);
+
+            return new ORawBuffer(recordContent, recordVersion, recordType);
+          }
+
           final byte[] fullContent = readFullEntry(clusterPosition, pageIndex, recordPosition, atomicOperation, pageCount);
           if (fullContent == null)
             return null;
 
           int fullContentPosition = 0;
 
-          final byte recordType = fullContent[fullContentPosition];
+          recordType = fullContent[fullContentPosition];
           fullContentPosition++;
 
           final int readContentSize = OIntegerSerializer.INSTANCE.deserializeNative(fullContent, fullContentPosition);
@@ -1191,17 +1218,6 @@ public class OPaginatedCluster extends ODurableComponent implements OCluster {
           try {
             int entrySize = content.length + OIntegerSerializer.INT_SIZE + OByteSerializer.BYTE_SIZE;
 
-            int fullEntryPosition = 0;
-            byte[] fullEntry = new byte[entrySize];
-
-            fullEntry[fullEntryPosition] = recordType;
-            fullEntryPosition++;
-
-            OIntegerSerializer.INSTANCE.serializeNative(content.length, fullEntry, fullEntryPosition);
-            fullEntryPosition += OIntegerSerializer.INT_SIZE;
-
-            System.arraycopy(content, 0, fullEntry, fullEntryPosition, content.length);
-
             long prevPageRecordPointer = -1;
             long firstPageIndex = -1;
             int firstPagePosition = -1;
@@ -1215,7 +1231,7 @@ public class OPaginatedCluster extends ODurableComponent implements OCluster {
 
             do {
               byte[] entryContent = new byte[to - from + OByteSerializer.BYTE_SIZE + OLongSerializer.LONG_SIZE];
-              System.arraycopy(fullEntry, from, entryContent, 0, to - from);
+              writeEntryChunk(recordType, content, from, to, entryContent);
 
               if (from > 0)
                 entryContent[entryContent.length - OLongSerializer.LONG_SIZE - OByteSerializer.BYTE_SIZE] = 0;
@@ -1253,8 +1269,8 @@ public class OPaginatedCluster extends ODurableComponent implements OCluster {
               prevPageRecordPointer = addedPagePointer;
               from = to;
               to = to + (OClusterPage.MAX_RECORD_SIZE - OLongSerializer.LONG_SIZE - OByteSerializer.BYTE_SIZE);
-              if (to > fullEntry.length)
-                to = fullEntry.length;
+              if (to > entrySize)
+                to = entrySize;
 
             } while (from < to);
 
@@ -1314,6 +1330,9 @@ public class OPaginatedCluster extends ODurableComponent implements OCluster {
 
         endAtomicOperation(false, null);
 
+        // POSITIONS ARE REUSED AFTER TRUNCATION
+        storageLocal.clearRecordCache();
+
       } catch (Exception e) {
         endAtomicOperation(true, e);
         throw OException.wrapException(new OPaginatedClusterException("Error during cluster truncate", this), e);
@@ -1698,16 +1717,30 @@ public class OPaginatedCluster extends ODurableComponent implements OCluster {
     this.id = config.getId();
 
     clusterPositionMap = new OClusterPositionMap(storage, getName(), getFullName());
+
+    dictionaryStore = new OPaginatedClusterDictionaryStore(
+        storage instanceof OLocalPaginatedStorage ? new File(storage.getConfiguration().getDirectory()) : null, getName());
+    initCompressionDictionaries(compression);
+  }
+
+  private void initCompressionDictionaries(final OCompression compression) throws IOException {
+    if (compression instanceof ODictionaryCompression)
+      ((ODictionaryCompression) compression).setDictionaryStore(dictionaryStore);
   }
 
   private void setCompressionInternal(final String iCompressionMethod, final String iCompressionOptions) {
     try {
-      compression = OCompressionFactory.INSTANCE.getCompression(iCompressionMethod, iCompressionOptions);
+      final OCompression newCompression = OCompressionFactory.INSTANCE.getCompression(iCompressionMethod, iCompressionOptions);
+      initCompressionDictionaries(newCompression);
+      compression = newCompression;
       config.compression = iCompressionMethod;
       storageLocal.getConfiguration().update();
     } catch (IllegalArgumentException e) {
       throw OException.wrapException(
           new OPaginatedClusterException("Invalid value for " + OCluster.ATTRIBUTES.COMPRESSION + " attribute", this), e);
+    } catch (IOException e) {
+      throw OException.wrapException(
+          new OPaginatedClusterException("Cannot load the compression dictionaries of cluster " + getName(), this), e);
     }
   }
 
@@ -1756,6 +1789,7 @@ public class OPaginatedCluster extends ODurableComponent implements OCluster {
 
     writeCache.renameFile(fileId, getFullName(), newName + getExtension());
     clusterPositionMap.rename(newName);
+    dictionaryStore.rename(newName);
 
     config.name = newName;
     storageLocal.renameCluster(getName(), newName);
@@ -0,0 +1,147 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.storage.impl.local.paginated;
+
+import com.orientechnologies.common.serialization.types.OIntegerSerializer;
+import com.orientechnologies.orient.core.compression.OCompressionDictionaryStore;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Stores the compression dictionaries of a cluster in a file next to the cluster file, named as the cluster with extension
+ * <code>.pcd</code>. Every dictionary is appended as (version: int, length: int, content) and the file is synced before the
+ * dictionary is used. A dictionary partially written because of a crash is ignored, since no record has been compressed with it.
+ * <p>
+ * Clusters of memory storages don't have a directory: their dictionaries are kept only in memory, as their records.
+ */
+public class OPaginatedClusterDictionaryStore implements OCompressionDictionaryStore {
+  public static final String DEF_EXTENSION = ".pcd";
+
+  private final File         directory;
+  private volatile String    name;
+  private final List<byte[]> memoryDictionaries = new ArrayList<byte[]>();
+
+  /**
+   * Size of the complete dictionaries in the file, the next dictionary is written here. -1 if the file has not been read yet.
+   */
+  private long               validLength        = -1;
+
+  /**
+   * @param iDirectory
+   *          directory of the storage or null for memory storages
+   */
+  public OPaginatedClusterDictionaryStore(final File iDirectory, final String iClusterName) {
+    directory = iDirectory;
+    name = iClusterName;
+  }
+
+  @Override
+  public synchronized List<byte[]> loadDictionaries() throws IOException {
+    if (directory == null)
+      return new ArrayList<byte[]>(memoryDictionaries);
+
+    final List<byte[]> dictionaries = new ArrayList<byte[]>();
+    final File file = getFile();
+    validLength = 0;
+    if (!file.exists())
+      return dictionaries;
+
+    final byte[] content = new byte[(int) file.length()];
+    final DataInputStream in = new DataInputStream(new FileInputStream(file));
+    try {
+      in.readFully(content);
+    } finally {
+      in.close();
+    }
+
+    int position = 0;
+    while (position + 8 <= content.length) {
+      final int version = OIntegerSerializer.INSTANCE.deserializeLiteral(content, position);
+      final int length = OIntegerSerializer.INSTANCE.deserializeLiteral(content, position + 4);
+      if (length < 0 || position + 8 + length > content.length)
+        // DICTIONARY NOT COMPLETELY WRITTEN
+        break;
+
+      if (version != dictionaries.size() + 1)
+        throw new IOException("Invalid version " + version + " of compression dictionary in file " + file);
+
+      dictionaries.add(Arrays.copyOfRange(content, position + 8, position + 8 + length));
+      position += 8 + length;
+    }
+    validLength = position;
+
+    return dictionaries;
+  }
+
+  @Override
+  public synchronized void storeDictionary(final int version, final byte[] dictionary) throws IOException {
+    if (directory == null) {
+      memoryDictionaries.add(dictionary);
+      return;
+    }
+
+    if (validLength < 0)
+      loadDictionaries();
+
+    final byte[] entry = new byte[dictionary.length + 8];
+    OIntegerSerializer.INSTANCE.serializeLiteral(version, entry, 0);
+    OIntegerSerializer.INSTANCE.serializeLiteral(dictionary.length, entry, 4);
+    System.arraycopy(dictionary, 0, entry, 8, dictionary.length);
+
+    final RandomAccessFile file = new RandomAccessFile(getFile(), "rw");
+    try {
+      // OVERWRITE THE REMAINS OF A DICTIONARY NOT COMPLETELY WRITTEN, IF ANY
+      file.seek(validLength);
+      file.write(entry);
+      file.setLength(validLength + entry.length);
+      file.getFD().sync();
+    } finally {
+      file.close();
+    }
+    validLength += entry.length;
+  }
+
+  public synchronized void rename(final String iNewName) throws IOException {
+    if (directory != null) {
+      final File file = getFile();
+      if (file.exists() && !file.renameTo(new File(directory, iNewName + DEF_EXTENSION)))
+        throw new IOException("Cannot rename file " + file + " to " + iNewName + DEF_EXTENSION);
+    }
+    name = iNewName;
+  }
+
+  public synchronized void delete() throws IOException {
+    memoryDictionaries.clear();
+
+    if (directory != null) {
+      final File file = getFile();
+      if (file.exists() && !file.delete())
+        throw new IOException("Cannot delete file " + file);
+      validLength = -1;
+    }
+  }
+
+  private File getFile() {
+    return new File(directory, name + DEF_EXTENSION);
+  }
+}
@@ -486,7 +486,7 @@ public class OAtomicOperation {
     return rollbackException;
   }
 
-  boolean isRollback() {
+  public boolean isRollback() {
     return rollback;
   }
 
@@ -90,6 +90,15 @@ public abstract class OChannel extends OListenerManger<OChannelListener> {
     // timeout = iConfig.getValueAsLong(OGlobalConfiguration.NETWORK_REQUEST_TIMEOUT);
   }
 
+  /**
+   * Creates a channel that shares the socket of another channel, already configured. The streams are set by the subclass.
+   */
+  protected OChannel(final OChannel iChannel) {
+    super(true);
+    socketBufferSize = iChannel.socketBufferSize;
+    socket = iChannel.socket;
+  }
+
   public static String getLocalIpAddress(final boolean iFavoriteIp4) throws SocketException {
     String bestAddress = null;
     final Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
@@ -0,0 +1,101 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.enterprise.channel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Buffered input stream over a non-blocking socket channel. The reads block until some data is received, while
+ * {@link #available()} never blocks and reads the data already received by the socket, so it tells if a request is pending
+ * without waiting for it.
+ */
+public class OSocketChannelInputStream extends InputStream {
+  private final SocketChannel channel;
+  private final ByteBuffer    buffer;
+
+  public OSocketChannelInputStream(final SocketChannel iChannel, final int iBufferSize) {
+    channel = iChannel;
+    buffer = ByteBuffer.allocate(iBufferSize);
+    buffer.flip();
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!fill(true))
+      return -1;
+    return buffer.get() & 0xFF;
+  }
+
+  @Override
+  public int read(final byte[] b, final int off, final int len) throws IOException {
+    if (len == 0)
+      return 0;
+    if (!fill(true))
+      return -1;
+
+    final int read = Math.min(len, buffer.remaining());
+    buffer.get(b, off, read);
+    return read;
+  }
+
+  @Override
+  public int available() throws IOException {
+    fill(false);
+    return buffer.remaining();
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * Reads from the channel if the buffer is empty.
+   *
+   * @param iWait
+   *          if true waits for the data, otherwise reads only what has already been received
+   * @return false if the buffer is still empty
+   */
+  private boolean fill(final boolean iWait) throws IOException {
+    if (buffer.hasRemaining())
+      return true;
+
+    buffer.clear();
+    try {
+      while (true) {
+        final int read = channel.read(buffer);
+        if (read < 0)
+          return false;
+        if (read > 0)
+          return true;
+        if (!iWait)
+          return false;
+
+        OSocketChannelSelectors.await(channel, SelectionKey.OP_READ);
+      }
+    } finally {
+      buffer.flip();
+    }
+  }
+}
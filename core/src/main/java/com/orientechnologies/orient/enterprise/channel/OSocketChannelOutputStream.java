@@ -0,0 +1,57 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.enterprise.channel;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Output stream over a non-blocking socket channel. The writes block until all the bytes are accepted by the socket. Not buffered:
+ * wrap it in a {@link java.io.BufferedOutputStream}.
+ */
+public class OSocketChannelOutputStream extends OutputStream {
+  private final SocketChannel channel;
+
+  public OSocketChannelOutputStream(final SocketChannel iChannel) {
+    channel = iChannel;
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    write(new byte[] { (byte) b }, 0, 1);
+  }
+
+  @Override
+  public void write(final byte[] b, final int off, final int len) throws IOException {
+    final ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+    while (buffer.hasRemaining())
+      if (channel.write(buffer) == 0)
+        // THE SOCKET BUFFER IS FULL
+        OSocketChannelSelectors.await(channel, SelectionKey.OP_WRITE);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
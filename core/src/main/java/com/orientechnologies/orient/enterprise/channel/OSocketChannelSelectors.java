@@ -0,0 +1,111 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.enterprise.channel;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Waits for a non-blocking socket channel to be ready using a selector owned by the current thread, so the channel can be read and
+ * written with the blocking semantic of the streams while it's registered with the selector of an event loop.
+ * <p>
+ * Any thread can write to a channel (e.g. the pushes to the clients), and the threads of the pools end when they're idle, so the
+ * selector of a thread that ended is closed as soon as another thread opens its own.
+ */
+final class OSocketChannelSelectors {
+  // CLOSING THE CHANNEL FROM ANOTHER THREAD DOESN'T WAKE UP THE SELECTOR: THE WAIT IS CHECKED AT LEAST THIS OFTEN
+  private static final long                  CHECK_INTERVAL = 500;
+  private static final ThreadLocal<Selector> SELECTORS      = new ThreadLocal<Selector>();
+  private static final Map<Thread, Selector> OPEN_SELECTORS = new HashMap<Thread, Selector>();
+
+  private OSocketChannelSelectors() {
+  }
+
+  /**
+   * Blocks the current thread until the channel is ready for the passed operations. As with a blocking socket, a read waits at
+   * most for the timeout of the socket. The wait ends as soon as the channel is closed or the thread is interrupted.
+   *
+   * @param iOperations
+   *          {@link SelectionKey#OP_READ} or {@link SelectionKey#OP_WRITE}
+   * @throws SocketTimeoutException
+   *           if the socket has a timeout and nothing is received within it
+   */
+  static void await(final SocketChannel iChannel, final int iOperations) throws IOException {
+    Selector selector = SELECTORS.get();
+    if (selector == null || !selector.isOpen()) {
+      selector = open();
+      SELECTORS.set(selector);
+    }
+
+    final int timeout = iOperations == SelectionKey.OP_READ ? iChannel.socket().getSoTimeout() : 0;
+    final long deadline = timeout > 0 ? System.currentTimeMillis() + timeout : 0;
+
+    final SelectionKey key = iChannel.register(selector, iOperations);
+    try {
+      while (selector.select(timeout > 0 ? Math.min(CHECK_INTERVAL, Math.max(1, deadline - System.currentTimeMillis()))
+          : CHECK_INTERVAL) == 0) {
+        if (Thread.currentThread().isInterrupted())
+          throw new InterruptedIOException("Wait on channel " + iChannel + " interrupted");
+        if (!iChannel.isOpen())
+          throw new ClosedChannelException();
+        if (timeout > 0 && System.currentTimeMillis() >= deadline)
+          throw new SocketTimeoutException("Wait on channel " + iChannel + " timed out after " + timeout + "ms");
+      }
+    } finally {
+      // DEREGISTER THE CHANNEL: IT CAN BE REGISTERED AGAIN ONLY AFTER THE CANCELLED KEY IS REMOVED BY A SELECTION
+      key.cancel();
+      selector.selectNow();
+    }
+  }
+
+  private static Selector open() throws IOException {
+    final Selector selector = Selector.open();
+    synchronized (OPEN_SELECTORS) {
+      // THE SELECTORS OF THE THREADS THAT ENDED ARE NOT USED ANYMORE
+      for (Iterator<Map.Entry<Thread, Selector>> it = OPEN_SELECTORS.entrySet().iterator(); it.hasNext();) {
+        final Map.Entry<Thread, Selector> entry = it.next();
+        if (!entry.getKey().isAlive()) {
+          it.remove();
+          try {
+            entry.getValue().close();
+          } catch (IOException e) {
+            // IGNORE IT, THE SELECTOR IS NOT USED ANYMORE
+          }
+        }
+      }
+      OPEN_SELECTORS.put(Thread.currentThread(), selector);
+    }
+    return selector;
+  }
+
+  static boolean hasSelector(final Thread iThread) {
+    synchronized (OPEN_SELECTORS) {
+      return OPEN_SELECTORS.containsKey(iThread);
+    }
+  }
+}
@@ -55,6 +55,12 @@ public abstract class OChannelBinary extends OChannel {
       OLogManager.instance().info(this, "%s - Connected", socket.getRemoteSocketAddress());
   }
 
+  protected OChannelBinary(final OChannelBinary iChannel) {
+    super(iChannel);
+    maxChunkSize = iChannel.maxChunkSize;
+    debug = iChannel.debug;
+  }
+
   public byte readByte() throws IOException {
     updateMetricReceivedBytes(OBinaryProtocol.SIZE_BYTE);
 
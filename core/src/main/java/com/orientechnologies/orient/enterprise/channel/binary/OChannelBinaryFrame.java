@@ -0,0 +1,58 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.enterprise.channel.binary;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+
+/**
+ * Channel over a request received as a whole by a multiplexed connection: the request is read from memory and the response is
+ * written to memory, so the request can be executed by any thread while the connection receives the next ones. It shares the
+ * socket of the connection, but never reads, writes or closes it.
+ *
+ * @see OChannelBinaryProtocol#REQUEST_MULTIPLEXED
+ */
+public class OChannelBinaryFrame extends OChannelBinary {
+  private final ByteArrayOutputStream response = new ByteArrayOutputStream();
+
+  public OChannelBinaryFrame(final OChannelBinary iChannel, final byte[] iRequest) {
+    super(iChannel);
+
+    inStream = new ByteArrayInputStream(iRequest);
+    outStream = response;
+
+    in = new DataInputStream(inStream);
+    out = new DataOutputStream(outStream);
+  }
+
+  /**
+   * Returns the response written so far, empty if the request has no response.
+   */
+  public byte[] getResponse() {
+    return response.toByteArray();
+  }
+
+  @Override
+  public void close() {
+    // THE SOCKET BELONGS TO THE CONNECTION
+  }
+}
@@ -75,6 +75,9 @@ public class OChannelBinaryProtocol {
   public static final byte REQUEST_POSITIONS_CEILING                 = 42;                 // since 1.3.0
   public static final byte REQUEST_RECORD_HIDE                       = 43;                 // since 1.7
   public static final byte REQUEST_RECORD_LOAD_IF_VERSION_NOT_LATEST = 44;                 // since 2.1
+  public static final byte REQUEST_RECORD_LOAD_MULTI                 = 45;                 // since 2.2
+  public static final byte REQUEST_QUERY_CURSOR_FETCH                = 46;                 // since 2.2
+  public static final byte REQUEST_QUERY_CURSOR_CLOSE                = 47;                 // since 2.2
 
   public static final byte REQUEST_TX_COMMIT = 60;
 
@@ -87,6 +90,7 @@ public class OChannelBinaryProtocol {
 
   public static final byte REQUEST_PUSH_DISTRIB_CONFIG = 80;
   public static final byte REQUEST_PUSH_LIVE_QUERY     = 81;                 // SINCE 2.1
+  public static final byte REQUEST_PUSH_NEAR_CACHE     = 82;                 // SINCE 2.2: RECORDS TO INVALIDATE IN THE CLIENT NEAR CACHE
 
   // DISTRIBUTED
   @Deprecated
@@ -114,13 +118,22 @@ public class OChannelBinaryProtocol {
   public static final byte REQUEST_RIDBAG_GET_SIZE                 = 114;
 
   // TASK
-  public static final byte DISTRIBUTED_REQUEST  = 120;
-  public static final byte DISTRIBUTED_RESPONSE = 121;
+  public static final byte DISTRIBUTED_REQUEST        = 120;
+  public static final byte DISTRIBUTED_RESPONSE       = 121;
+  public static final byte DISTRIBUTED_REQUEST_BATCH  = 123;           // SINCE PROTOCOL 42: MANY REQUESTS IN ONE MESSAGE
+  public static final byte DISTRIBUTED_RESPONSE_BATCH = 124;           // SINCE PROTOCOL 42: MANY RESPONSES IN ONE MESSAGE
+
+  // MULTIPLEXING
+  public static final byte REQUEST_MULTIPLEXED = 122;                 // SINCE 2.2: REQUEST TAGGED WITH ITS ID, THE RESPONSE CAN
+  // ARRIVE OUT OF ORDER
 
   // INCOMING
   public static final byte RESPONSE_STATUS_OK    = 0;
   public static final byte RESPONSE_STATUS_ERROR = 1;
   public static final byte PUSH_DATA             = 3;
+  public static final byte RESPONSE_MULTIPLEXED  = 4;
+  public static final byte RESPONSE_COMPRESSED   = 5;                 // SINCE 2.2: WHOLE RESPONSE COMPRESSED WITH THE
+  // ALGORITHM REQUESTED BY THE CLIENT
 
   // CONSTANTS
   public static final short RECORD_NULL = -2;
@@ -148,8 +161,14 @@ public class OChannelBinaryProtocol {
 
   public static final int PROTOCOL_VERSION_35 = 35;
   public static final int PROTOCOL_VERSION_36 = 36;                 //ABILITY TO CREATE DATABASE FROM INCREMENTAL BACKUP
-
-  public static final int CURRENT_PROTOCOL_VERSION = PROTOCOL_VERSION_36;
+  public static final int PROTOCOL_VERSION_37 = 37;                 // MULTIPLEXED REQUESTS
+  public static final int PROTOCOL_VERSION_38 = 38;                 // LOAD OF MULTIPLE RECORDS WITH ONE REQUEST
+  public static final int PROTOCOL_VERSION_39 = 39;                 // SERVER SIDE QUERY CURSORS
+  public static final int PROTOCOL_VERSION_40 = 40;                 // COMPRESSION OF THE RESPONSES REQUESTED ON CONNECT/OPEN
+  public static final int PROTOCOL_VERSION_41 = 41;                 // RECORDS LOADED FOR THE CLIENT NEAR CACHE
+  public static final int PROTOCOL_VERSION_42 = 42;                 // DISTRIBUTED REQUESTS AND RESPONSES IN BATCHES
+
+  public static final int CURRENT_PROTOCOL_VERSION = PROTOCOL_VERSION_42;
 
   public static OIdentifiable readIdentifiable(final OChannelBinary network) throws IOException {
     final int classId = network.readShort();
@@ -27,16 +27,31 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.net.Socket;
+import java.nio.channels.SocketChannel;
 
 import com.orientechnologies.orient.core.config.OContextConfiguration;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.enterprise.channel.OSocketChannelInputStream;
+import com.orientechnologies.orient.enterprise.channel.OSocketChannelOutputStream;
 
 public class OChannelBinaryServer extends OChannelBinary {
 
 	public OChannelBinaryServer(final Socket iSocket, final OContextConfiguration iConfig) throws IOException {
 		super(iSocket, iConfig);
 
-		inStream = new BufferedInputStream(socket.getInputStream(), socketBufferSize);
-		outStream = new BufferedOutputStream(socket.getOutputStream(), socketBufferSize);
+		final SocketChannel socketChannel = socket.getChannel();
+		if (socketChannel != null && !socketChannel.isBlocking()) {
+			// CONNECTION SERVED BY AN EVENT LOOP: THE STREAMS WAIT FOR THE CHANNEL ON THEIR OWN
+			inStream = new OSocketChannelInputStream(socketChannel, socketBufferSize);
+			outStream = new BufferedOutputStream(new OSocketChannelOutputStream(socketChannel), socketBufferSize);
+
+			// THE WORKER READS ONLY REQUESTS ALREADY STARTED: A CLIENT THAT STALLS IN THE MIDDLE OF ONE RELEASES IT AFTER THE TIMEOUT
+			if (socket.getSoTimeout() == 0)
+				socket.setSoTimeout(iConfig.getValueAsInteger(OGlobalConfiguration.NETWORK_SOCKET_TIMEOUT));
+		} else {
+			inStream = new BufferedInputStream(socket.getInputStream(), socketBufferSize);
+			outStream = new BufferedOutputStream(socket.getOutputStream(), socketBufferSize);
+		}
 
 		out = new DataOutputStream(outStream);
 		in = new DataInputStream(inStream);
@@ -23,14 +23,24 @@ import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.net.Socket;
+import java.nio.channels.SocketChannel;
 
 import com.orientechnologies.orient.core.config.OContextConfiguration;
+import com.orientechnologies.orient.enterprise.channel.OSocketChannelInputStream;
+import com.orientechnologies.orient.enterprise.channel.OSocketChannelOutputStream;
 
 public class OChannelTextServer extends OChannelText {
   public OChannelTextServer(final Socket iSocket, final OContextConfiguration iConfiguration) throws IOException {
     super(iSocket, iConfiguration);
 
-    inStream = new BufferedInputStream(socket.getInputStream(), socketBufferSize);
-    outStream = new BufferedOutputStream(socket.getOutputStream(), socketBufferSize);
+    final SocketChannel socketChannel = socket.getChannel();
+    if (socketChannel != null && !socketChannel.isBlocking()) {
+      // CONNECTION SERVED BY AN EVENT LOOP: THE STREAMS WAIT FOR THE CHANNEL ON THEIR OWN
+      inStream = new OSocketChannelInputStream(socketChannel, socketBufferSize);
+      outStream = new BufferedOutputStream(new OSocketChannelOutputStream(socketChannel), socketBufferSize);
+    } else {
+      inStream = new BufferedInputStream(socket.getInputStream(), socketBufferSize);
+      outStream = new BufferedOutputStream(socket.getOutputStream(), socketBufferSize);
+    }
   }
 }
@@ -23,6 +23,8 @@ import com.orientechnologies.common.io.OIOUtils;
 import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
 import com.orientechnologies.orient.core.metadata.security.OUser;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
@@ -112,4 +114,102 @@ public class OCommandCacheTest {
 
     Assert.assertEquals(f.exists(), false);
   }
+
+  @Test
+  public void testPerRecordInvalidation() {
+    OGlobalConfiguration.COMMAND_CACHE_ENABLED.setValue(true);
+    OGlobalConfiguration.COMMAND_CACHE_MIN_EXECUTION_TIME.setValue(0);
+    OGlobalConfiguration.COMMAND_CACHE_MAX_RESULSET_SIZE.setValue(500);
+    OGlobalConfiguration.COMMAND_CACHE_EVICT_STRATEGY.setValue(OCommandCache.STRATEGY.PER_RECORD);
+
+    ODatabaseDocument db = new ODatabaseDocumentTx("memory:" + OCommandCacheTest.class.getSimpleName() + "PerRecord");
+    db.create();
+
+    try {
+      OClass cls = db.getMetadata().getSchema().createClass("OCommandCachePerRecord");
+      cls.createProperty("name", OType.STRING).createIndex(OClass.INDEX_TYPE.NOTUNIQUE);
+
+      for (int i = 0; i < 100; i++)
+        db.save(new ODocument("OCommandCachePerRecord").field("name", "n" + (i % 10)).field("value", i));
+
+      final OCommandCache commandCache = db.getMetadata().getCommandCache();
+      final OUser user = new OUser("admin");
+      final String indexedQuery = "select from OCommandCachePerRecord where name = 'n1'";
+      final String scanQuery = "select from OCommandCachePerRecord where value < 5";
+
+      executeCached(db, indexedQuery);
+      executeCached(db, scanQuery);
+      Assert.assertNotNull(commandCache.get(user, indexedQuery, -1));
+      Assert.assertNotNull(commandCache.get(user, scanQuery, -1));
+
+      // A NEW RECORD OUTSIDE THE INDEX KEY RANGE DOESN'T INVALIDATE THE INDEXED RESULT
+      db.save(new ODocument("OCommandCachePerRecord").field("name", "n2").field("value", 1000));
+      Assert.assertNotNull(commandCache.get(user, indexedQuery, -1));
+      Assert.assertNull(commandCache.get(user, scanQuery, -1));
+
+      // UPDATING A RECORD NEVER READ BY THE QUERY DOESN'T INVALIDATE IT
+      List<ODocument> others = db.query(new OSQLSynchQuery<ODocument>("select from OCommandCachePerRecord where name = 'n5'"));
+      others.get(0).field("name", "n6").save();
+      Assert.assertNotNull(commandCache.get(user, indexedQuery, -1));
+
+      // A RECORD MOVED INSIDE THE RANGE INVALIDATES IT
+      others.get(1).field("name", "n1").save();
+      Assert.assertNull(commandCache.get(user, indexedQuery, -1));
+
+      // UPDATING A RECORD OF THE RESULT INVALIDATES IT
+      List<ODocument> results = executeCached(db, indexedQuery);
+      Assert.assertEquals(results.size(), 11);
+      Assert.assertNotNull(commandCache.get(user, indexedQuery, -1));
+      results.get(0).field("value", -1).save();
+      Assert.assertNull(commandCache.get(user, indexedQuery, -1));
+
+      // DELETING A RECORD OF THE RESULT INVALIDATES IT
+      results = executeCached(db, indexedQuery);
+      Assert.assertNotNull(commandCache.get(user, indexedQuery, -1));
+      results.get(1).delete();
+      Assert.assertNull(commandCache.get(user, indexedQuery, -1));
+    } finally {
+      db.drop();
+      OGlobalConfiguration.COMMAND_CACHE_EVICT_STRATEGY.setValue(OCommandCache.STRATEGY.PER_CLUSTER);
+    }
+  }
+
+  @Test
+  public void testLRUEviction() {
+    OGlobalConfiguration.COMMAND_CACHE_ENABLED.setValue(true);
+    OGlobalConfiguration.COMMAND_CACHE_MIN_EXECUTION_TIME.setValue(0);
+    OGlobalConfiguration.COMMAND_CACHE_MAX_RESULSET_SIZE.setValue(500);
+
+    ODatabaseDocument db = new ODatabaseDocumentTx("memory:" + OCommandCacheTest.class.getSimpleName() + "LRU");
+    db.create();
+
+    try {
+      db.getMetadata().getSchema().createClass("OCommandCacheLRU");
+      for (int i = 0; i < 30; i++)
+        db.save(new ODocument("OCommandCacheLRU").field("value", i));
+
+      final OCommandCacheSoftRefs commandCache = (OCommandCacheSoftRefs) db.getMetadata().getCommandCache();
+      commandCache.setMaxCachedRecords(25);
+
+      final OUser user = new OUser("admin");
+      executeCached(db, "select from OCommandCacheLRU where value < 10");
+      executeCached(db, "select from OCommandCacheLRU where value >= 20");
+      // ACCESS THE FIRST RESULT TO MAKE THE SECOND ONE THE LEAST RECENTLY USED
+      Assert.assertNotNull(commandCache.get(user, "select from OCommandCacheLRU where value < 10", -1));
+
+      executeCached(db, "select from OCommandCacheLRU where value >= 10 and value < 20");
+
+      Assert.assertEquals(commandCache.size(), 2);
+      Assert.assertNotNull(commandCache.get(user, "select from OCommandCacheLRU where value < 10", -1));
+      Assert.assertNull(commandCache.get(user, "select from OCommandCacheLRU where value >= 20", -1));
+    } finally {
+      db.drop();
+    }
+  }
+
+  private List<ODocument> executeCached(final ODatabaseDocument db, final String iText) {
+    final OSQLSynchQuery<ODocument> query = new OSQLSynchQuery<ODocument>(iText);
+    query.setCacheableResult(true);
+    return db.query(query);
+  }
 }
@@ -0,0 +1,124 @@
+package com.orientechnologies.orient.core.compression.impl;
+
+import com.orientechnologies.common.io.OFileUtils;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.OPaginatedClusterDictionaryStore;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+@Test
+public class DictionaryCompressionTest extends AbstractCompressionTest {
+  public void testDictionaryCompression() {
+    testCompression(ODictionaryCompression.NAME);
+  }
+
+  public void testEmptyContent() {
+    final ODictionaryCompression compression = new ODictionaryCompression();
+    Assert.assertEquals(compression.uncompress(compression.compress(new byte[0])), new byte[0]);
+  }
+
+  public void testTrainedDictionary() throws Exception {
+    final ODictionaryCompression compression = new ODictionaryCompression();
+    compression.setDictionaryStore(new OPaginatedClusterDictionaryStore(null, "test"));
+
+    final Random random = new Random(42);
+    final List<byte[]> samples = new ArrayList<byte[]>();
+    for (int i = 0; i < 500; i++)
+      samples.add(record(random, i));
+
+    final byte[] record = record(random, 1000);
+    final byte[] withoutDictionary = compression.compress(record);
+
+    compression.train(samples);
+    Assert.assertEquals(compression.getDictionaryVersion(), 1);
+
+    final byte[] withDictionary = compression.compress(record);
+    Assert.assertTrue(withDictionary.length * 2 < withoutDictionary.length,
+        withDictionary.length + " bytes with dictionary, " + withoutDictionary.length + " without");
+
+    Assert.assertEquals(compression.uncompress(withDictionary), record);
+    Assert.assertEquals(compression.uncompress(withoutDictionary), record);
+  }
+
+  public void testOldVersionsAreKept() throws Exception {
+    final ODictionaryCompression compression = new ODictionaryCompression();
+    final OPaginatedClusterDictionaryStore store = new OPaginatedClusterDictionaryStore(null, "test");
+    compression.setDictionaryStore(store);
+
+    final Random random = new Random(7);
+    final List<byte[]> samples = new ArrayList<byte[]>();
+    for (int i = 0; i < 500; i++)
+      samples.add(record(random, i));
+    compression.train(samples);
+
+    final byte[] record = record(random, 1000);
+    final byte[] compressedV1 = compression.compress(record);
+
+    // A DIFFERENT KIND OF RECORDS: THE NEW DICTIONARY IS BETTER
+    final List<byte[]> otherSamples = new ArrayList<byte[]>();
+    for (int i = 0; i < 500; i++)
+      otherSamples.add(otherRecord(random, i));
+    compression.train(otherSamples);
+    Assert.assertEquals(compression.getDictionaryVersion(), 2);
+
+    final ODictionaryCompression reloaded = new ODictionaryCompression();
+    reloaded.setDictionaryStore(store);
+    Assert.assertEquals(reloaded.getDictionaryVersion(), 2);
+    Assert.assertEquals(reloaded.uncompress(compressedV1), record);
+  }
+
+  public void testFileStore() throws Exception {
+    final File directory = new File(System.getProperty("buildDirectory", "target") + "/dictionaryCompressionTest");
+    OFileUtils.deleteRecursively(directory);
+    Assert.assertTrue(directory.mkdirs());
+    try {
+      OPaginatedClusterDictionaryStore store = new OPaginatedClusterDictionaryStore(directory, "cluster");
+      Assert.assertTrue(store.loadDictionaries().isEmpty());
+
+      store.storeDictionary(1, new byte[] { 1, 2, 3 });
+      store.storeDictionary(2, new byte[] { 4, 5 });
+
+      // DICTIONARY PARTIALLY WRITTEN BEFORE A CRASH
+      final FileOutputStream out = new FileOutputStream(new File(directory, "cluster.pcd"), true);
+      out.write(new byte[] { 0, 0, 0, 3, 0, 0, 0, 10, 1 });
+      out.close();
+
+      store = new OPaginatedClusterDictionaryStore(directory, "cluster");
+      List<byte[]> dictionaries = store.loadDictionaries();
+      Assert.assertEquals(dictionaries.size(), 2);
+      Assert.assertEquals(dictionaries.get(0), new byte[] { 1, 2, 3 });
+      Assert.assertEquals(dictionaries.get(1), new byte[] { 4, 5 });
+
+      store.storeDictionary(3, new byte[] { 6 });
+      store.rename("renamed");
+      Assert.assertFalse(new File(directory, "cluster.pcd").exists());
+
+      dictionaries = new OPaginatedClusterDictionaryStore(directory, "renamed").loadDictionaries();
+      Assert.assertEquals(dictionaries.size(), 3);
+      Assert.assertEquals(dictionaries.get(2), new byte[] { 6 });
+
+      store.delete();
+      Assert.assertFalse(new File(directory, "renamed.pcd").exists());
+    } finally {
+      OFileUtils.deleteRecursively(directory);
+    }
+  }
+
+  private static byte[] record(final Random random, final int i) {
+    return ("{\"@class\":\"Customer\",\"id\":" + i + ",\"name\":\"customer" + random.nextInt(100000)
+        + "\",\"email\":\"customer" + i + "@example.com\",\"status\":\"" + (random.nextBoolean() ? "ACTIVE" : "SUSPENDED")
+        + "\",\"address\":{\"street\":\"" + random.nextInt(1000) + " Main Street\",\"city\":\"Springfield\",\"country\":\"US\"},"
+        + "\"created\":\"2016-0" + (1 + random.nextInt(9)) + "-1" + random.nextInt(10) + "T10:00:00Z\"}").getBytes();
+  }
+
+  private static byte[] otherRecord(final Random random, final int i) {
+    return ("<order number='" + i + "' warehouse='north-" + random.nextInt(10) + "'><line product='P" + random.nextInt(1000)
+        + "' quantity='" + random.nextInt(50) + "' unit='pieces'/><shipping carrier='express-delivery' priority='standard'/>"
+        + "</order>").getBytes();
+  }
+}
@@ -1,6 +1,7 @@
 package com.orientechnologies.orient.core.db.document;
 
 import com.orientechnologies.orient.core.db.ODatabase;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.exception.ODatabaseException;
 import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.metadata.schema.OClass;
@@ -12,6 +13,7 @@ import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -56,6 +58,38 @@ public class ODatabaseDocumentTxTest {
     }
   }
 
+  @Test
+  public void testLoadRecords() {
+    String url = "memory:" + ODatabaseDocumentTxTest.class.getSimpleName() + "-testLoadRecords";
+    ODatabaseDocumentTx db = new ODatabaseDocumentTx(url).create();
+    try {
+      db.getMetadata().getSchema().createClass("TestLoadRecords");
+
+      final List<OIdentifiable> rids = new ArrayList<OIdentifiable>();
+      for (int i = 0; i < 10; ++i)
+        rids.add(new ODocument("TestLoadRecords").field("id", i).save().getIdentity());
+      final ORecordId missing = new ORecordId(rids.get(0).getIdentity().getClusterId(), 1000);
+      rids.add(5, missing);
+      db.getLocalCache().clear();
+
+      db.begin();
+      final ODocument updated = db.load(rids.get(0).getIdentity());
+      updated.field("id", -1).save();
+
+      final List<ORecord> records = db.loadRecords(rids, null);
+      Assert.assertEquals(records.size(), 11);
+      Assert.assertSame(records.get(0), updated);
+      Assert.assertNull(records.get(5));
+      for (int i = 1; i < 11; ++i) {
+        if (i != 5)
+          Assert.assertEquals(((ODocument) records.get(i)).field("id"), i < 5 ? i : i - 1);
+      }
+      db.rollback();
+    } finally {
+      db.drop();
+    }
+  }
+
   @Test
   public void testCountClass() throws Exception {
     String url = "memory:" + ODatabaseDocumentTxTest.class.getSimpleName() + "-testCountClass";
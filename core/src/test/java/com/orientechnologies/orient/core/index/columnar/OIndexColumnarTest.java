@@ -0,0 +1,207 @@
+package com.orientechnologies.orient.core.index.columnar;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.index.OIndexException;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OCommandSQL;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+import com.orientechnologies.orient.core.storage.impl.local.OAbstractPaginatedStorage;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.atomicoperations.OAtomicOperationsManager;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Date;
+import java.util.List;
+
+@Test
+public class OIndexColumnarTest {
+  private ODatabaseDocumentTx db;
+
+  @BeforeMethod
+  public void before() {
+    db = new ODatabaseDocumentTx("memory:" + OIndexColumnarTest.class.getSimpleName());
+    db.create();
+
+    final OClass order = db.getMetadata().getSchema().createClass("Order");
+    order.createProperty("amount", OType.INTEGER).createIndex(OClass.INDEX_TYPE.COLUMNAR);
+    order.createProperty("price", OType.DOUBLE).createIndex(OClass.INDEX_TYPE.COLUMNAR);
+    order.createProperty("createdAt", OType.DATETIME).createIndex(OClass.INDEX_TYPE.COLUMNAR);
+    order.createProperty("customer", OType.STRING);
+
+    for (int i = 0; i < 10000; i++) {
+      final ODocument doc = new ODocument("Order");
+      if (i % 10 != 0)
+        doc.field("amount", i);
+      doc.field("price", i / 4.0);
+      doc.field("createdAt", new Date(1000L * i));
+      doc.field("customer", "customer" + (i % 3));
+      doc.save();
+    }
+  }
+
+  @AfterMethod
+  public void after() {
+    db.drop();
+  }
+
+  public void testAggregates() {
+    long sum = 0;
+    for (int i = 0; i < 10000; i++)
+      if (i % 10 != 0)
+        sum += i;
+
+    final ODocument result = querySingle(
+        "select sum(amount) as sum, avg(price) as avg, min(amount) as min, max(createdAt) as max, count(amount) as count,"
+            + " count(*) as total from Order");
+    Assert.assertEquals(((Number) result.field("sum")).longValue(), sum);
+    Assert.assertEquals(((Number) result.field("avg")).doubleValue(), 9999 / 8.0, 0.0001);
+    Assert.assertEquals(((Number) result.field("min")).intValue(), 1);
+    Assert.assertEquals(result.<Date> field("max"), new Date(9999000L));
+    Assert.assertEquals(((Number) result.field("count")).longValue(), 9000);
+    Assert.assertEquals(((Number) result.field("total")).longValue(), 10000);
+
+    assertColumnsUsed("select sum(amount) from Order");
+  }
+
+  public void testFilter() {
+    long sum = 0;
+    long count = 0;
+    for (int i = 0; i < 10000; i++)
+      if (i / 4.0 > 1000 && i <= 8000) {
+        count++;
+        if (i % 10 != 0)
+          sum += i;
+      }
+
+    final ODocument result = querySingle(
+        "select sum(amount) as sum, count(*) as count from Order where price > 1000 and createdAt <= ?", new Date(8000000L));
+    Assert.assertEquals(((Number) result.field("sum")).longValue(), sum);
+    Assert.assertEquals(((Number) result.field("count")).longValue(), count);
+
+    // THE RECORDS WITHOUT VALUE ARE FILTERED TOO
+    Assert.assertEquals(((Number) querySingle("select count(*) as count from Order where amount is null").field("count")).longValue(),
+        1000);
+
+    assertColumnsUsed("select sum(amount) from Order where price > 1000");
+  }
+
+  public void testNotIndexedPropertyIsLoaded() {
+    final ODocument result = querySingle("select count(*) as count, sum(price) as sum from Order where customer = 'customer1'");
+    Assert.assertEquals(((Number) result.field("count")).longValue(), 3333);
+
+    Assert.assertNull(explain("select sum(amount) from Order where customer = 'customer1'").field("columnarIndexUsed"));
+    Assert.assertNull(explain("select amount from Order").field("columnarIndexUsed"));
+  }
+
+  public void testUpdateAndDelete() {
+    db.command(new OCommandSQL("update Order set amount = 1 where amount >= 5000")).execute();
+    db.command(new OCommandSQL("delete from Order where price < 100")).execute();
+
+    long sum = 0;
+    for (int i = 400; i < 10000; i++)
+      if (i % 10 != 0)
+        sum += i < 5000 ? i : 1;
+
+    Assert.assertEquals(((Number) querySingle("select sum(amount) as sum from Order").field("sum")).longValue(), sum);
+    Assert.assertEquals(((Number) querySingle("select count(*) as count from Order where price >= 0").field("count")).longValue(),
+        9600);
+  }
+
+  public void testTransaction() {
+    final long sum = ((Number) querySingle("select sum(amount) as sum from Order").field("sum")).longValue();
+
+    db.begin();
+    final List<ODocument> docs = db.query(new OSQLSynchQuery<ODocument>("select from Order where amount between 10 and 12"));
+    for (ODocument doc : docs)
+      doc.field("amount", doc.<Integer> field("amount") + 100).save();
+    new ODocument("Order").field("amount", 7).save();
+    db.rollback();
+
+    Assert.assertEquals(((Number) querySingle("select sum(amount) as sum from Order").field("sum")).longValue(), sum);
+
+    db.begin();
+    final List<ODocument> decreased = db.query(new OSQLSynchQuery<ODocument>("select from Order where amount between 10 and 12"));
+    for (ODocument doc : decreased)
+      doc.field("amount", doc.<Integer> field("amount") - 5).save();
+    final List<ODocument> increased = db.query(new OSQLSynchQuery<ODocument>("select from Order where amount between 21 and 22"));
+    for (ODocument doc : increased)
+      doc.field("amount", doc.<Integer> field("amount") + 5).save();
+    new ODocument("Order").field("amount", 7).save();
+
+    // NOT FROM THE COLUMNS WHILE THE TRANSACTION IS ACTIVE
+    Assert.assertEquals(((Number) querySingle("select sum(amount) as sum from Order").field("sum")).longValue(), sum + 7);
+    db.commit();
+
+    Assert.assertEquals(((Number) querySingle("select sum(amount) as sum from Order").field("sum")).longValue(), sum + 7);
+    Assert.assertEquals(((Number) querySingle("select count(*) as count from Order where amount = 16").field("count")).longValue(),
+        1);
+    Assert.assertEquals(((Number) querySingle("select count(*) as count from Order where amount = 26").field("count")).longValue(),
+        2);
+  }
+
+  public void testRebuild() {
+    final long sum = ((Number) querySingle("select sum(amount) as sum from Order").field("sum")).longValue();
+
+    db.getMetadata().getIndexManager().getIndex("Order.amount").rebuild();
+
+    Assert.assertEquals(((Number) querySingle("select sum(amount) as sum from Order").field("sum")).longValue(), sum);
+    assertColumnsUsed("select sum(amount) from Order");
+  }
+
+  public void testSubClass() {
+    db.getMetadata().getSchema().createClass("OnlineOrder", db.getMetadata().getSchema().getClass("Order"));
+    new ODocument("OnlineOrder").field("amount", 1000000).save();
+
+    Assert.assertEquals(((Number) querySingle("select max(amount) as max from Order").field("max")).intValue(), 1000000);
+    Assert.assertEquals(((Number) querySingle("select max(amount) as max from OnlineOrder").field("max")).intValue(), 1000000);
+    assertColumnsUsed("select max(amount) from Order");
+  }
+
+  public void testColumnOfRolledBackOperation() throws Exception {
+    final OAbstractPaginatedStorage storage = (OAbstractPaginatedStorage) db.getStorage();
+    final OAtomicOperationsManager atomicOperations = storage.getAtomicOperationsManager();
+    final OColumnarIndexEngine engine = new OColumnarIndexEngine("rolledBack", storage, OColumnarIndexEngine.VERSION);
+    engine.create(null, false, new OType[] { OType.INTEGER }, false, null, 1, null, null, null);
+    try {
+      atomicOperations.startAtomicOperation((String) null, false);
+      engine.put(1, new ORecordId(100, 0));
+      atomicOperations.endAtomicOperation(true, null, (String) null);
+
+      // THE FILE OF THE COLUMN HAS NOT BEEN CREATED, THE COLUMN IS CREATED AGAIN BY THE NEXT OPERATION
+      Assert.assertEquals(engine.getPages(100), 0);
+      Assert.assertNull(engine.get(1));
+
+      engine.put(2, new ORecordId(100, 0));
+      Assert.assertTrue(engine.getPages(100) > 0);
+      Assert.assertNotNull(engine.get(2));
+    } finally {
+      engine.delete();
+    }
+  }
+
+  @Test(expectedExceptions = OIndexException.class)
+  public void testNotNumericProperty() {
+    db.getMetadata().getSchema().getClass("Order").getProperty("customer").createIndex(OClass.INDEX_TYPE.COLUMNAR);
+  }
+
+  private ODocument querySingle(final String query, final Object... args) {
+    final List<ODocument> result = db.query(new OSQLSynchQuery<ODocument>(query), args);
+    Assert.assertEquals(result.size(), 1);
+    return result.get(0);
+  }
+
+  private ODocument explain(final String query) {
+    return db.command(new OCommandSQL("explain " + query)).execute();
+  }
+
+  private void assertColumnsUsed(final String query) {
+    final ODocument explain = explain(query);
+    Assert.assertEquals(((Number) explain.field("columnarIndexUsed")).longValue(), 1L, explain.toJSON());
+    Assert.assertNull(explain.field("documentReads"));
+  }
+}
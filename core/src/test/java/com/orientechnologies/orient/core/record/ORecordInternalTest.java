@@ -0,0 +1,40 @@
+package com.orientechnologies.orient.core.record;
+
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+public class ORecordInternalTest {
+
+  @Test
+  public void testToStreamUncachedDocument() {
+    final ODocument doc = new ODocument().field("name", "Jay").field("age", 30);
+
+    final byte[] stream = ORecordInternal.toStreamUncached(doc);
+    assertNotNull(stream);
+    assertNull(((ORecordAbstract) doc)._source);
+
+    // THE FIELDS ARE STILL AVAILABLE
+    assertEquals(doc.field("name"), "Jay");
+    assertEquals(doc.<Object> field("age"), 30);
+
+    final ODocument copy = new ODocument().fromStream(stream);
+    assertEquals(copy.field("name"), "Jay");
+    assertEquals(copy.<Object> field("age"), 30);
+  }
+
+  @Test
+  public void testToStreamUncachedLoadedDocument() {
+    final ODocument doc = new ODocument().field("name", "Jay");
+    final byte[] content = doc.toStream();
+
+    // A DOCUMENT NOT DESERIALIZED YET KEEPS ITS SOURCE
+    final ODocument loaded = new ODocument().fromStream(content);
+    ORecordInternal.toStreamUncached(loaded);
+    assertNotNull(((ORecordAbstract) loaded)._source);
+    assertEquals(loaded.field("name"), "Jay");
+  }
+}
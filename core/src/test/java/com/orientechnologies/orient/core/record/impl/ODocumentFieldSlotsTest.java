@@ -0,0 +1,116 @@
+package com.orientechnologies.orient.core.record.impl;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.testng.Assert.*;
+
+public class ODocumentFieldSlotsTest {
+
+  private ODatabaseDocumentTx db;
+
+  @BeforeClass
+  public void before() {
+    db = new ODatabaseDocumentTx("memory:" + ODocumentFieldSlotsTest.class.getSimpleName());
+    db.create();
+
+    final OClass base = db.getMetadata().getSchema().createClass("StrictBase");
+    base.createProperty("id", OType.INTEGER);
+
+    final OClass strict = db.getMetadata().getSchema().createClass("Strict", base);
+    strict.createProperty("name", OType.STRING);
+    strict.createProperty("tags", OType.EMBEDDEDLIST, OType.STRING);
+    strict.setStrictMode(true);
+
+    final OClass loose = db.getMetadata().getSchema().createClass("Loose");
+    loose.createProperty("name", OType.STRING);
+  }
+
+  @AfterClass
+  public void after() {
+    db.drop();
+  }
+
+  @Test
+  public void testStrictClassUsesSlots() {
+    final ODocument doc = new ODocument("Strict").field("name", "a");
+    assertTrue(doc._fields instanceof ODocumentFieldSlots);
+
+    final ODocument loose = new ODocument("Loose").field("name", "a");
+    assertFalse(loose._fields instanceof ODocumentFieldSlots);
+  }
+
+  @Test
+  public void testFields() {
+    final ODocument doc = new ODocument("Strict");
+    doc.field("name", "a");
+    doc.field("id", 1);
+
+    assertEquals(doc.field("name"), "a");
+    assertEquals(doc.field("id"), Integer.valueOf(1));
+    assertEquals(doc.fields(), 2);
+    assertEquals(new HashSet<String>(Arrays.asList(doc.fieldNames())), new HashSet<String>(Arrays.asList("name", "id")));
+
+    doc.removeField("name");
+    assertNull(doc.field("name"));
+    assertFalse(doc.containsField("name"));
+    assertEquals(Arrays.asList(doc.fieldNames()), Arrays.asList("id"));
+
+    final ODocument copy = doc.copy();
+    assertTrue(copy._fields instanceof ODocumentFieldSlots);
+    assertEquals(copy.field("id"), Integer.valueOf(1));
+  }
+
+  @Test
+  public void testInsertionOrder() {
+    final ODocument doc = new ODocument("Strict");
+    final ODocument plain = new ODocument();
+    for (ODocument d : Arrays.asList(doc, plain)) {
+      d.field("tags", Arrays.asList("x"));
+      d.field("name", "a");
+      d.field("id", 1);
+    }
+    assertEquals(Arrays.asList(doc.fieldNames()), Arrays.asList("tags", "name", "id"));
+
+    // THE SAME ORDER OF THE DOCUMENTS WITHOUT SLOTS
+    for (ODocument d : Arrays.asList(doc, plain)) {
+      d.field("tags", Arrays.asList("y"));
+      d.removeField("name");
+      d.field("name", "b");
+    }
+    assertEquals(Arrays.asList(doc.fieldNames()), Arrays.asList(plain.fieldNames()));
+  }
+
+  @Test
+  public void testSaveAndLoad() {
+    final ODocument doc = new ODocument("Strict");
+    doc.field("id", 10);
+    doc.field("name", "saved");
+    doc.field("tags", Arrays.asList("x", "y"));
+    doc.save();
+    final ORID rid = doc.getIdentity();
+
+    db.getLocalCache().clear();
+    final ODocument loaded = db.load(rid);
+    assertEquals(loaded.field("name"), "saved");
+    assertEquals(loaded.field("id"), Integer.valueOf(10));
+    assertEquals(loaded.field("tags"), Arrays.asList("x", "y"));
+    assertTrue(loaded._fields instanceof ODocumentFieldSlots);
+
+    loaded.field("name", "updated");
+    assertTrue(loaded.isDirty());
+    assertEquals(Arrays.asList(loaded.getDirtyFields()), Arrays.asList("name"));
+    loaded.save();
+
+    db.getLocalCache().clear();
+    assertEquals(((ODocument) db.load(rid)).field("name"), "updated");
+  }
+}
@@ -0,0 +1,85 @@
+package com.orientechnologies.orient.core.serialization.serializer.binary.impl;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.serialization.serializer.record.binary.BytesContainer;
+import com.orientechnologies.orient.core.serialization.serializer.record.binary.ORecordSerializerBinary;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class BytesContainerTest {
+
+  private ODatabaseDocumentTx     db;
+  private ORecordSerializerBinary serializer = new ORecordSerializerBinary();
+
+  @BeforeClass
+  public void before() {
+    db = new ODatabaseDocumentTx("memory:" + BytesContainerTest.class.getSimpleName());
+    db.create();
+    final OClass clazz = db.getMetadata().getSchema().createClass("Padded");
+    clazz.setOverSize(2);
+  }
+
+  @AfterClass
+  public void after() {
+    db.drop();
+  }
+
+  @Test
+  public void testReuse() {
+    final BytesContainer container = BytesContainer.acquire();
+    final int pos = container.alloc(10);
+    container.bytes[pos + 5] = 42;
+
+    // NESTED WRITE
+    final BytesContainer nested = BytesContainer.acquire();
+    assertNotSame(nested, container);
+    nested.release();
+
+    container.release();
+
+    final BytesContainer reused = BytesContainer.acquire();
+    try {
+      assertSame(reused, container);
+      assertEquals(reused.offset, 0);
+      assertEquals(reused.bytes[5], 0);
+    } finally {
+      reused.release();
+    }
+  }
+
+  @Test
+  public void testBigBufferNotReused() {
+    final BytesContainer container = BytesContainer.acquire();
+    container.alloc(1024 * 1024);
+    container.release();
+
+    final BytesContainer next = BytesContainer.acquire();
+    try {
+      assertNotSame(next, container);
+    } finally {
+      next.release();
+    }
+  }
+
+  @Test
+  public void testSerializationNotAffectedByPreviousRecord() {
+    final ODocument small = new ODocument("Padded").field("name", "small");
+    final byte[] expected = serializer.toStream(small, false);
+
+    final StringBuilder value = new StringBuilder();
+    for (int i = 0; i < 1000; i++)
+      value.append("big value ");
+    serializer.toStream(new ODocument("Padded").field("name", value.toString()).field("other", 10), false);
+
+    // SAME CONTENT AND SAME OVERSIZE, ALTHOUGH THE BUFFER IS NOW BIGGER
+    assertEquals(serializer.toStream(small, false), expected);
+
+    final ODocument extr = (ODocument) serializer.fromStream(expected, new ODocument(), null);
+    assertEquals(extr.field("name"), "small");
+  }
+}
@@ -0,0 +1,150 @@
+package com.orientechnologies.orient.core.serialization.serializer.binary.impl;
+
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.serialization.serializer.record.binary.BytesContainer;
+import com.orientechnologies.orient.core.serialization.serializer.record.binary.OBinaryField;
+import com.orientechnologies.orient.core.serialization.serializer.record.binary.ORecordSerializerBinary;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+import static org.testng.Assert.*;
+
+public class ORecordSerializerBinaryV1Test {
+
+  private ODatabaseDocumentTx     db;
+  private ORecordSerializerBinary serializer = new ORecordSerializerBinary();
+  private Object                  previousVersion;
+
+  @BeforeClass
+  public void before() {
+    previousVersion = OGlobalConfiguration.DB_DOCUMENT_SERIALIZER_VERSION.getValue();
+    OGlobalConfiguration.DB_DOCUMENT_SERIALIZER_VERSION.setValue(1);
+
+    db = new ODatabaseDocumentTx("memory:" + ORecordSerializerBinaryV1Test.class.getSimpleName());
+    db.create();
+    final OClass clazz = db.getMetadata().getSchema().createClass("Wide");
+    for (int i = 0; i < 50; i++)
+      clazz.createProperty("prop" + i, OType.INTEGER);
+    clazz.createProperty("any", OType.ANY);
+  }
+
+  @AfterClass
+  public void after() {
+    db.drop();
+    OGlobalConfiguration.DB_DOCUMENT_SERIALIZER_VERSION.setValue(previousVersion);
+  }
+
+  @Test
+  public void testWriteConfiguredVersion() {
+    final ODocument doc = new ODocument().field("name", "test");
+    assertEquals((int) serializer.toStream(doc, false)[0], 1);
+  }
+
+  @Test
+  public void testRoundTripKeepsFieldOrder() {
+    final ODocument doc = createWideDocument();
+
+    final ODocument extr = (ODocument) serializer.fromStream(serializer.toStream(doc, false), new ODocument(), null);
+
+    assertEquals(extr.getClassName(), "Wide");
+    assertEquals(Arrays.asList(extr.fieldNames()), Arrays.asList(doc.fieldNames()));
+    for (String name : doc.fieldNames())
+      assertEquals(extr.field(name), doc.field(name), name);
+  }
+
+  @Test
+  public void testPartialDeserialization() {
+    final ODocument doc = createWideDocument();
+    final byte[] stream = serializer.toStream(doc, false);
+
+    final ODocument extr = (ODocument) serializer.fromStream(stream, new ODocument(),
+        new String[] { "prop42", "extra7", "missing", "any", "nullValue" });
+
+    assertEquals(extr.field("prop42"), 42);
+    assertEquals(extr.field("extra7"), "value7");
+    assertEquals(extr.field("any"), "anything");
+    assertNull(extr.field("nullValue"));
+    assertTrue(extr.containsField("nullValue"));
+    assertFalse(extr.containsField("missing"));
+    assertFalse(extr.containsField("prop1"));
+  }
+
+  @Test
+  public void testFieldNamesWithSameHash() {
+    // "Aa" AND "BB" HAVE THE SAME HASH CODE
+    assertEquals("Aa".hashCode(), "BB".hashCode());
+    final ODocument doc = new ODocument().field("BB", "b").field("Aa", "a").field("C", "c");
+    final byte[] stream = serializer.toStream(doc, false);
+
+    ODocument extr = (ODocument) serializer.fromStream(stream, new ODocument(), new String[] { "Aa" });
+    assertEquals(extr.field("Aa"), "a");
+    assertFalse(extr.containsField("BB"));
+
+    extr = (ODocument) serializer.fromStream(stream, new ODocument(), new String[] { "BB" });
+    assertEquals(extr.field("BB"), "b");
+
+    assertEquals(Arrays.asList(serializer.getFieldNames(new ODocument(), stream)), Arrays.asList("BB", "Aa", "C"));
+  }
+
+  @Test
+  public void testBinaryField() {
+    final ODocument doc = createWideDocument();
+    final byte[] stream = serializer.toStream(doc, false);
+
+    final OBinaryField field = serializer.getSerializer(stream[0]).deserializeField(new BytesContainer(stream).skip(1),
+        doc.getSchemaClass(), "prop33");
+    assertNotNull(field);
+    assertEquals(field.type, OType.INTEGER);
+
+    assertNull(serializer.getSerializer(stream[0]).deserializeField(new BytesContainer(stream).skip(1), doc.getSchemaClass(),
+        "missing"));
+  }
+
+  @Test
+  public void testEmbeddedDocument() {
+    final ODocument doc = new ODocument().field("name", "parent");
+    doc.field("child", new ODocument().field("name", "child").field("level", 1), OType.EMBEDDED);
+
+    final ODocument extr = (ODocument) serializer.fromStream(serializer.toStream(doc, false), new ODocument(), null);
+    final ODocument child = extr.field("child");
+    assertEquals(child.field("name"), "child");
+    assertEquals(child.field("level"), 1);
+  }
+
+  @Test
+  public void testReadPreviousVersion() {
+    final ODocument doc = createWideDocument();
+
+    final Object previous = OGlobalConfiguration.DB_DOCUMENT_SERIALIZER_VERSION.getValue();
+    final byte[] stream;
+    OGlobalConfiguration.DB_DOCUMENT_SERIALIZER_VERSION.setValue(0);
+    try {
+      stream = serializer.toStream(doc, false);
+    } finally {
+      OGlobalConfiguration.DB_DOCUMENT_SERIALIZER_VERSION.setValue(previous);
+    }
+    assertEquals((int) stream[0], 0);
+
+    final ODocument extr = (ODocument) serializer.fromStream(stream, new ODocument(), null);
+    for (String name : doc.fieldNames())
+      assertEquals(extr.field(name), doc.field(name), name);
+  }
+
+  private ODocument createWideDocument() {
+    final ODocument doc = new ODocument("Wide");
+    for (int i = 0; i < 50; i++)
+      doc.field("prop" + i, i);
+    for (int i = 0; i < 10; i++)
+      doc.field("extra" + i, "value" + i);
+    doc.field("any", "anything");
+    doc.field("nullValue", (Object) null);
+    return doc;
+  }
+}
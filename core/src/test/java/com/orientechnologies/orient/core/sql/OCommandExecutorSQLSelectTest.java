@@ -1535,6 +1535,78 @@ public class OCommandExecutorSQLSelectTest {
   }
 
 
+  @Test
+  public void testOrderByLimitOnSubclassIndexes() {
+    db.command(new OCommandSQL("create class testOrderByLimitOnSubclassIndexes abstract")).execute();
+    db.command(new OCommandSQL("create property testOrderByLimitOnSubclassIndexes.tenant string")).execute();
+    db.command(new OCommandSQL("create property testOrderByLimitOnSubclassIndexes.created integer")).execute();
+
+    for (String sub : new String[] { "testOrderByLimitOnSubclassIndexes_sub1", "testOrderByLimitOnSubclassIndexes_sub2" }) {
+      db.command(new OCommandSQL("create class " + sub + " extends testOrderByLimitOnSubclassIndexes")).execute();
+      db.command(new OCommandSQL("create index " + sub + ".tenant_created on " + sub + " (tenant, created) notunique")).execute();
+    }
+
+    for (int i = 0; i < 100; i++) {
+      final String sub = i % 3 == 0 ? "testOrderByLimitOnSubclassIndexes_sub1" : "testOrderByLimitOnSubclassIndexes_sub2";
+      db.command(new OCommandSQL("insert into " + sub + " set tenant = 't" + (i % 2) + "', created = " + i)).execute();
+    }
+
+    final String query = "select from testOrderByLimitOnSubclassIndexes where tenant = 't1' order by created desc limit 5";
+    List<ODocument> results = db.query(new OSQLSynchQuery<ODocument>(query));
+    Assert.assertEquals(results.size(), 5);
+    for (int i = 0; i < 5; i++)
+      Assert.assertEquals(results.get(i).field("created"), 99 - i * 2);
+
+    results = db.query(new OSQLSynchQuery<ODocument>(
+        "select from testOrderByLimitOnSubclassIndexes where tenant = 't0' order by created asc skip 2 limit 3"));
+    Assert.assertEquals(results.size(), 3);
+    for (int i = 0; i < 3; i++)
+      Assert.assertEquals(results.get(i).field("created"), 4 + i * 2);
+
+    final ODocument explain = db.command(new OCommandSQL("explain " + query)).execute();
+    Assert.assertEquals(explain.field("fullySortedByIndex"), Boolean.TRUE);
+    Assert.assertTrue(((Number) explain.field("documentReads")).intValue() <= 10);
+  }
+
+  @Test
+  public void testIndexIntersection() {
+    db.command(new OCommandSQL("create class testIndexIntersection")).execute();
+    db.command(new OCommandSQL("create property testIndexIntersection.a integer")).execute();
+    db.command(new OCommandSQL("create property testIndexIntersection.b integer")).execute();
+    db.command(new OCommandSQL("create index testIndexIntersection.a on testIndexIntersection (a) notunique")).execute();
+    db.command(new OCommandSQL("create index testIndexIntersection.b on testIndexIntersection (b) notunique")).execute();
+
+    for (int i = 0; i < 200; i++)
+      db.command(new OCommandSQL("insert into testIndexIntersection set a = " + (i % 2) + ", b = " + (i % 50))).execute();
+
+    final String query = "select from testIndexIntersection where a = 1 and b = 3";
+    List<ODocument> results = db.query(new OSQLSynchQuery<ODocument>(query));
+    Assert.assertEquals(results.size(), 4);
+    for (ODocument doc : results) {
+      Assert.assertEquals(doc.field("a"), 1);
+      Assert.assertEquals(doc.field("b"), 3);
+    }
+
+    results = db.query(new OSQLSynchQuery<ODocument>("select from testIndexIntersection where a = 0 and b = 3"));
+    Assert.assertEquals(results.size(), 0);
+
+    results = db.query(new OSQLSynchQuery<ODocument>("select from testIndexIntersection where (a = 1 and b = 3) or b = 4"));
+    Assert.assertEquals(results.size(), 8);
+
+    final ODocument explain = db.command(new OCommandSQL("explain " + query)).execute();
+    Assert.assertNotNull(explain.field("intersectedIndexes"));
+    Assert.assertEquals(((Number) explain.field("documentReads")).intValue(), 4);
+
+    final int maxEntries = OGlobalConfiguration.QUERY_INDEX_INTERSECTION_MAX_ENTRIES.getValueAsInteger();
+    OGlobalConfiguration.QUERY_INDEX_INTERSECTION_MAX_ENTRIES.setValue(0);
+    try {
+      results = db.query(new OSQLSynchQuery<ODocument>(query));
+      Assert.assertEquals(results.size(), 4);
+    } finally {
+      OGlobalConfiguration.QUERY_INDEX_INTERSECTION_MAX_ENTRIES.setValue(maxEntries);
+    }
+  }
+
   @Test
   public void testSubquerySkipLimit(){
     //issue #6737
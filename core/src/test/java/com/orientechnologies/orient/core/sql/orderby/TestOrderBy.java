@@ -1,12 +1,14 @@
 package com.orientechnologies.orient.core.sql.orderby;
 
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
 
 import java.util.List;
 import java.util.Locale;
 
 import org.testng.annotations.Test;
 
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.db.ODatabase.ATTRIBUTES;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
@@ -70,4 +72,36 @@ public class TestOrderBy {
     }
   }
 
+  @Test
+  public void testOrderBySpilledRuns() {
+    final Object runSize = OGlobalConfiguration.QUERY_ORDER_BY_RUN_SIZE.getValue();
+    OGlobalConfiguration.QUERY_ORDER_BY_RUN_SIZE.setValue(100);
+
+    ODatabaseDocument db = new ODatabaseDocumentTx("memory:testOrderBySpilledRuns");
+    db.create();
+    try {
+      db.getMetadata().getSchema().createClass("test");
+      for (int i = 0; i < 1050; i++)
+        db.save(new ODocument("test").field("value", (i * 7919) % 1000).field("name", "n" + i));
+
+      List<ODocument> all = db.query(new OSQLSynchQuery<ODocument>("select from test order by value desc, name"));
+      assertEquals(1050, all.size());
+      for (int i = 1; i < all.size(); i++)
+        assertTrue((Integer) all.get(i - 1).field("value") >= (Integer) all.get(i).field("value"));
+
+      List<ODocument> page = db.query(new OSQLSynchQuery<ODocument>("select from test order by value desc, name skip 10 limit 20"));
+      assertEquals(20, page.size());
+      for (int i = 0; i < page.size(); i++)
+        assertEquals(all.get(i + 10).field("name"), page.get(i).field("name"));
+
+      List<ODocument> tail = db.query(new OSQLSynchQuery<ODocument>("select name, value from test order by value desc, name skip 1000"));
+      assertEquals(50, tail.size());
+      for (int i = 0; i < tail.size(); i++)
+        assertEquals(all.get(i + 1000).field("name"), tail.get(i).field("name"));
+    } finally {
+      db.drop();
+      OGlobalConfiguration.QUERY_ORDER_BY_RUN_SIZE.setValue(runSize);
+    }
+  }
+
 }
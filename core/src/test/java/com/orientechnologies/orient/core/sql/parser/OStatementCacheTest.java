@@ -1,8 +1,17 @@
 package com.orientechnologies.orient.core.sql.parser;
 
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OCommandSQL;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.Arrays;
+import java.util.List;
+
 @Test
 public class OStatementCacheTest {
 
@@ -28,5 +37,67 @@ public class OStatementCacheTest {
 
   }
 
+  @Test
+  public void testNormalizedStatements() {
+    OStatementCache cache = new OStatementCache(2);
+    OStatement statement = cache.get("select from foo where name = 'a  b'");
+
+    Assert.assertTrue(cache.contains("  select from\n foo   where name = 'a  b'"));
+    Assert.assertFalse(cache.contains("select from foo where name = 'a b'"));
+    Assert.assertSame(cache.get("select   from foo where name\t= 'a  b' "), statement);
+  }
+
+  @Test
+  public void testPlanInvalidatedByVersions() {
+    OStatementCache cache = new OStatementCache(2);
+    cache.putPlan("select from foo where name = ?", "Foo[name]", Arrays.asList("Foo.name"), 1, 1);
+
+    Assert.assertEquals(cache.getPlan("select from foo  where name = ?", "Foo[name]", 1, 1), Arrays.asList("Foo.name"));
+    Assert.assertNull(cache.getPlan("select from foo where name = ?", "Foo[surname]", 1, 1));
+
+    // PLANS COMPUTED WITH AN OLDER VERSION ARE IGNORED
+    Assert.assertNull(cache.getPlan("select from foo where name = ?", "Foo[name]", 1, 0));
+    cache.putPlan("select from foo where name = ?", "Foo[name]", Arrays.asList("Foo.other"), 0, 1);
+    Assert.assertEquals(cache.getPlan("select from foo where name = ?", "Foo[name]", 1, 1), Arrays.asList("Foo.name"));
 
+    // A NEWER INDEX VERSION DROPS THE PLANS
+    Assert.assertNull(cache.getPlan("select from foo where name = ?", "Foo[name]", 1, 2));
+  }
+
+  @Test
+  public void testPlanOfIndexedQuery() {
+    ODatabaseDocumentTx db = new ODatabaseDocumentTx("memory:" + OStatementCacheTest.class.getSimpleName());
+    db.create();
+    try {
+      OClass cls = db.getMetadata().getSchema().createClass("StatementCachePlan");
+      cls.createProperty("name", OType.STRING).createIndex(OClass.INDEX_TYPE.NOTUNIQUE);
+      for (int i = 0; i < 10; i++)
+        db.save(new ODocument("StatementCachePlan").field("name", "n" + i));
+
+      final String query = "select from StatementCachePlan where name = ?";
+      List<ODocument> result = db.query(new OSQLSynchQuery<ODocument>(query), "n1");
+      Assert.assertEquals(result.size(), 1);
+
+      OStatementCache cache = OStatementCache.getInstance(db);
+      final int schemaVersion = db.getMetadata().getSchema().getVersion();
+      final int indexVersion = db.getMetadata().getIndexManager().getVersion();
+      Assert.assertEquals(cache.getPlan(query, "StatementCachePlan[name]", schemaVersion, indexVersion),
+          Arrays.asList("StatementCachePlan.name"));
+
+      result = db.query(new OSQLSynchQuery<ODocument>(query), "n2");
+      Assert.assertEquals(result.size(), 1);
+      Assert.assertEquals(result.get(0).field("name"), "n2");
+
+      // DROPPING THE INDEX INVALIDATES THE PLAN
+      db.command(new OCommandSQL("drop index StatementCachePlan.name")).execute();
+      Assert.assertNull(cache.getPlan(query, "StatementCachePlan[name]", db.getMetadata().getSchema().getVersion(),
+          db.getMetadata().getIndexManager().getVersion()));
+
+      result = db.query(new OSQLSynchQuery<ODocument>(query), "n3");
+      Assert.assertEquals(result.size(), 1);
+      Assert.assertEquals(result.get(0).field("name"), "n3");
+    } finally {
+      db.drop();
+    }
+  }
 }
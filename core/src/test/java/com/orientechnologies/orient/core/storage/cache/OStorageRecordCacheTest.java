@@ -0,0 +1,117 @@
+package com.orientechnologies.orient.core.storage.cache;
+
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.storage.ORawBuffer;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+@Test
+public class OStorageRecordCacheTest {
+
+  public void testPutAndGet() {
+    final OStorageRecordCache cache = new OStorageRecordCache(16 * 1024);
+    final ORID rid = new ORecordId(10, 1);
+
+    assertNull(cache.get(rid));
+
+    cache.put(rid, new ORawBuffer(new byte[] { 1, 2, 3 }, 4, (byte) 'd'), cache.getEpoch());
+
+    final ORawBuffer buffer = cache.get(new ORecordId(10, 1));
+    assertNotNull(buffer);
+    assertEquals(buffer.buffer, new byte[] { 1, 2, 3 });
+    assertEquals(buffer.version, 4);
+    assertEquals(buffer.recordType, (byte) 'd');
+
+    cache.close();
+  }
+
+  public void testInvalidatedRecordIsNotCachedWithOlderVersion() {
+    final OStorageRecordCache cache = new OStorageRecordCache(16 * 1024);
+    final ORID rid = new ORecordId(10, 1);
+
+    cache.put(rid, new ORawBuffer(new byte[] { 1 }, 1, (byte) 'd'), cache.getEpoch());
+    cache.invalidate(rid, 2);
+    assertNull(cache.get(rid));
+
+    // A READER THAT LOADED THE PREVIOUS VERSION BEFORE THE UPDATE
+    cache.put(rid, new ORawBuffer(new byte[] { 1 }, 1, (byte) 'd'), cache.getEpoch());
+    assertNull(cache.get(rid));
+
+    cache.put(rid, new ORawBuffer(new byte[] { 2 }, 2, (byte) 'd'), cache.getEpoch());
+    assertEquals(cache.get(rid).buffer, new byte[] { 2 });
+
+    cache.invalidate(rid, Integer.MAX_VALUE);
+    cache.put(rid, new ORawBuffer(new byte[] { 2 }, 2, (byte) 'd'), cache.getEpoch());
+    assertNull(cache.get(rid));
+
+    cache.close();
+  }
+
+  public void testRecordReadBeforeClearIsNotCached() {
+    final OStorageRecordCache cache = new OStorageRecordCache(16 * 1024);
+    final ORID rid = new ORecordId(10, 1);
+
+    final long epoch = cache.getEpoch();
+    cache.clear();
+    cache.put(rid, new ORawBuffer(new byte[] { 1 }, 1, (byte) 'd'), epoch);
+    assertNull(cache.get(rid));
+
+    cache.close();
+  }
+
+  public void testEviction() {
+    // 16 SEGMENTS OF 1024 BYTES
+    final OStorageRecordCache cache = new OStorageRecordCache(16 * 1024);
+
+    for (int i = 0; i < 1000; i++)
+      cache.put(new ORecordId(10, i), new ORawBuffer(new byte[100], 1, (byte) 'd'), cache.getEpoch());
+
+    assertTrue(cache.getEvicted() > 0);
+    assertTrue(cache.size() <= 16 * 10);
+    assertNull(cache.get(new ORecordId(10, 0)));
+    assertNotNull(cache.get(new ORecordId(10, 999)));
+
+    // BIGGER THAN A SEGMENT
+    cache.put(new ORecordId(10, 1000), new ORawBuffer(new byte[2048], 1, (byte) 'd'), cache.getEpoch());
+    assertNull(cache.get(new ORecordId(10, 1000)));
+
+    cache.close();
+  }
+
+  public void testStorageReadsUpdatedRecords() {
+    final Object previous = OGlobalConfiguration.STORAGE_RECORD_CACHE_SIZE.getValue();
+    OGlobalConfiguration.STORAGE_RECORD_CACHE_SIZE.setValue(1);
+
+    final ODatabaseDocumentTx db = new ODatabaseDocumentTx("memory:" + OStorageRecordCacheTest.class.getSimpleName());
+    try {
+      db.create();
+
+      final ODocument doc = new ODocument().field("name", "first");
+      doc.save(db.getClusterNameById(db.getDefaultClusterId()));
+      final ORID rid = doc.getIdentity();
+
+      db.getLocalCache().clear();
+      assertEquals(((ODocument) db.load(rid)).field("name"), "first");
+
+      doc.field("name", "second");
+      doc.save();
+
+      db.getLocalCache().clear();
+      final ODocument loaded = db.load(rid);
+      assertEquals(loaded.field("name"), "second");
+      assertEquals(loaded.getVersion(), doc.getVersion());
+
+      doc.delete();
+      db.getLocalCache().clear();
+      assertNull(db.load(rid));
+    } finally {
+      db.drop();
+      OGlobalConfiguration.STORAGE_RECORD_CACHE_SIZE.setValue(previous);
+    }
+  }
+}
@@ -1043,6 +1043,43 @@ public class ClusterPageTest {
     Assert.assertEquals(localPage.getRecordVersion(index), newRecordVersion);
   }
 
+  public void testReplaceOneRecordWithEqualSizeTracksOnlyChangedBytes() throws Exception {
+    OByteBufferPool bufferPool = OByteBufferPool.instance();
+    ByteBuffer buffer = bufferPool.acquireDirect(true);
+
+    OCachePointer cachePointer = new OCachePointer(buffer, bufferPool, new OLogSequenceNumber(0, 0), 0, 0);
+    cachePointer.incrementReferrer();
+
+    OCacheEntry cacheEntry = new OCacheEntry(0, 0, cachePointer, false);
+    cacheEntry.acquireExclusiveLock();
+    try {
+      byte[] record = new byte[1024];
+      for (int i = 0; i < record.length; i++)
+        record[i] = (byte) i;
+
+      OClusterPage localPage = new OClusterPage(cacheEntry, true, null);
+      int index = localPage.appendRecord(1, record);
+
+      byte[] newRecord = record.clone();
+      newRecord[10] = 100;
+      newRecord[12] = 101;
+      newRecord[1000] = 102;
+
+      OWALChangesTree changes = new OWALChangesTree();
+      localPage = new OClusterPage(cacheEntry, false, changes);
+
+      Assert.assertEquals(localPage.replaceRecord(index, newRecord, 2), 1024);
+      Assert.assertEquals(localPage.getRecordBinaryValue(index, 0, 1024), newRecord);
+      Assert.assertEquals(localPage.getRecordVersion(index), 2);
+
+      // ONLY THE VERSION AND THE CHANGED BYTES ARE TRACKED, NOT THE WHOLE RECORD
+      Assert.assertTrue(changes.getSerializedSize() < 100);
+    } finally {
+      cacheEntry.releaseExclusiveLock();
+      cachePointer.decrementReferrer();
+    }
+  }
+
   public void testReplaceOneRecordWithSmallerSize() throws Exception {
     OByteBufferPool bufferPool = OByteBufferPool.instance();
     ByteBuffer buffer = bufferPool.acquireDirect(true);
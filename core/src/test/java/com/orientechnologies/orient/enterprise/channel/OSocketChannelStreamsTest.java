@@ -0,0 +1,221 @@
+package com.orientechnologies.orient.enterprise.channel;
+
+import com.orientechnologies.orient.core.config.OContextConfiguration;
+import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinaryServer;
+import com.orientechnologies.orient.enterprise.channel.text.OChannelTextServer;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@Test
+public class OSocketChannelStreamsTest {
+  private ServerSocketChannel serverChannel;
+  private Socket              client;
+  private SocketChannel       channel;
+  private ExecutorService     executor;
+
+  @BeforeMethod
+  public void before() throws Exception {
+    serverChannel = ServerSocketChannel.open();
+    serverChannel.socket().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+
+    client = new Socket(InetAddress.getLoopbackAddress(), serverChannel.socket().getLocalPort());
+    channel = serverChannel.accept();
+    channel.configureBlocking(false);
+
+    executor = Executors.newSingleThreadExecutor();
+  }
+
+  @AfterMethod
+  public void after() throws Exception {
+    executor.shutdownNow();
+    client.close();
+    channel.close();
+    serverChannel.close();
+  }
+
+  public void testReadWaitsForData() throws Exception {
+    final OChannelBinaryServer server = new OChannelBinaryServer(channel.socket(), new OContextConfiguration());
+    Assert.assertEquals(server.inStream.available(), 0);
+
+    final Future<String> read = executor.submit(new Callable<String>() {
+      @Override
+      public String call() throws Exception {
+        return server.readInt() + " " + server.readString();
+      }
+    });
+
+    // THE REQUEST ARRIVES IN TWO PARTS
+    final DataOutputStream out = new DataOutputStream(client.getOutputStream());
+    out.writeInt(42);
+    out.writeInt(5);
+    out.flush();
+    Thread.sleep(100);
+    Assert.assertFalse(read.isDone());
+    out.write("hello".getBytes("UTF-8"));
+    out.flush();
+
+    Assert.assertEquals(read.get(), "42 hello");
+    Assert.assertEquals(server.inStream.available(), 0);
+
+    out.writeByte(7);
+    out.flush();
+    Thread.sleep(100);
+    Assert.assertEquals(server.inStream.available(), 1);
+    Assert.assertEquals(server.readByte(), (byte) 7);
+  }
+
+  public void testWriteWaitsForSocket() throws Exception {
+    final OChannelBinaryServer server = new OChannelBinaryServer(channel.socket(), new OContextConfiguration());
+
+    // MORE THAN THE SOCKET BUFFERS CAN KEEP: THE WRITE COMPLETES ONLY WHILE THE CLIENT READS
+    final byte[] content = new byte[8 * 1024 * 1024];
+    for (int i = 0; i < content.length; i++)
+      content[i] = (byte) i;
+
+    final Future<Void> write = executor.submit(new Callable<Void>() {
+      @Override
+      public Void call() throws Exception {
+        server.writeBytes(content);
+        server.flush();
+        return null;
+      }
+    });
+
+    final DataInputStream in = new DataInputStream(client.getInputStream());
+    final byte[] received = new byte[in.readInt()];
+    in.readFully(received);
+    write.get();
+
+    Assert.assertEquals(received, content);
+  }
+
+  public void testChannelRegisteredWithEventLoop() throws Exception {
+    final Selector eventLoop = Selector.open();
+    try {
+      final SelectionKey key = channel.register(eventLoop, SelectionKey.OP_READ);
+      final OChannelBinaryServer server = new OChannelBinaryServer(channel.socket(), new OContextConfiguration());
+
+      final DataOutputStream out = new DataOutputStream(client.getOutputStream());
+      out.writeLong(1234L);
+      out.flush();
+
+      Assert.assertEquals(eventLoop.select(5000), 1);
+      key.interestOps(0);
+      Assert.assertEquals(server.readLong(), 1234L);
+
+      server.writeInt(99);
+      server.flush();
+      Assert.assertEquals(new DataInputStream(client.getInputStream()).readInt(), 99);
+    } finally {
+      eventLoop.close();
+    }
+  }
+
+  public void testTextChannel() throws Exception {
+    final OChannelTextServer server = new OChannelTextServer(channel.socket(), new OContextConfiguration());
+    Assert.assertTrue(server.inStream instanceof OSocketChannelInputStream);
+
+    // TWO PIPELINED REQUESTS: THE SECOND ONE IS STILL AVAILABLE AFTER READING THE FIRST ONE
+    client.getOutputStream().write("GET /a\r\nGET /b\r\n".getBytes("UTF-8"));
+    client.getOutputStream().flush();
+
+    Assert.assertEquals(new String(server.readBytes(8), "UTF-8"), "GET /a\r\n");
+    Thread.sleep(100);
+    Assert.assertEquals(server.inStream.available(), 8);
+
+    server.writeBytes("HTTP/1.1 200 OK\r\n".getBytes("UTF-8"));
+    server.flush();
+    final byte[] response = new byte[17];
+    new DataInputStream(client.getInputStream()).readFully(response);
+    Assert.assertEquals(new String(response, "UTF-8"), "HTTP/1.1 200 OK\r\n");
+  }
+
+  @Test(expectedExceptions = SocketTimeoutException.class)
+  public void testReadTimeout() throws Exception {
+    final OChannelTextServer server = new OChannelTextServer(channel.socket(), new OContextConfiguration());
+    channel.socket().setSoTimeout(100);
+    server.read();
+  }
+
+  public void testClosedByAnotherThread() throws Exception {
+    final OChannelBinaryServer server = new OChannelBinaryServer(channel.socket(), new OContextConfiguration());
+    final Future<Byte> read = executor.submit(new Callable<Byte>() {
+      @Override
+      public Byte call() throws Exception {
+        return server.readByte();
+      }
+    });
+
+    Thread.sleep(100);
+    channel.close();
+
+    try {
+      read.get(5, TimeUnit.SECONDS);
+      Assert.fail("The read must fail on the closed channel");
+    } catch (ExecutionException e) {
+      Assert.assertTrue(e.getCause() instanceof ClosedChannelException, e.getCause().toString());
+    }
+  }
+
+  public void testSelectorOfEndedThreadIsClosed() throws Exception {
+    final OChannelBinaryServer server = new OChannelBinaryServer(channel.socket(), new OContextConfiguration());
+
+    final Thread first = readByte(server);
+    Assert.assertTrue(OSocketChannelSelectors.hasSelector(first));
+
+    // THE FIRST THREAD ENDED, ITS SELECTOR IS CLOSED WHEN THE NEXT ONE IS OPENED
+    final Thread second = readByte(server);
+    Assert.assertFalse(OSocketChannelSelectors.hasSelector(first));
+    Assert.assertTrue(OSocketChannelSelectors.hasSelector(second));
+  }
+
+  private Thread readByte(final OChannelBinaryServer server) throws Exception {
+    final Thread thread = new Thread() {
+      @Override
+      public void run() {
+        try {
+          server.readByte();
+        } catch (IOException e) {
+          // THE ASSERTIONS FAIL
+        }
+      }
+    };
+    thread.start();
+
+    // THE THREAD WAITS FOR THE BYTE ON ITS SELECTOR
+    Thread.sleep(100);
+    client.getOutputStream().write(1);
+    client.getOutputStream().flush();
+    thread.join(5000);
+    return thread;
+  }
+
+  @Test(expectedExceptions = EOFException.class)
+  public void testClosedByClient() throws Exception {
+    final OChannelBinaryServer server = new OChannelBinaryServer(channel.socket(), new OContextConfiguration());
+    client.close();
+    server.readByte();
+  }
+}
@@ -37,7 +37,6 @@ import com.orientechnologies.orient.core.storage.impl.local.paginated.wal.OLogSe
 import com.orientechnologies.orient.server.distributed.*;
 import com.orientechnologies.orient.server.distributed.ODistributedServerLog.DIRECTION;
 import com.orientechnologies.orient.server.distributed.task.OAbstractRemoteTask;
-import com.orientechnologies.orient.server.distributed.task.ODistributedOperationException;
 import com.orientechnologies.orient.server.distributed.task.ODistributedRecordLockedException;
 import com.orientechnologies.orient.server.distributed.task.ORemoteTask;
 import com.orientechnologies.orient.server.hazelcast.OHazelcastPlugin;
@@ -61,7 +60,6 @@ public class ODistributedDatabaseImpl implements ODistributedDatabase {
   public static final String                                                    DISTRIBUTED_SYNC_JSON_FILENAME = "distributed-sync.json";
 
   private static final String                                                   NODE_LOCK_PREFIX               = "orientdb.reqlock.";
-  private static final HashSet<Integer>                                         ALL_QUEUES                     = new HashSet<Integer>();
   protected final ODistributedAbstractPlugin                                    manager;
   protected final ODistributedMessageServiceImpl                                msgService;
   protected final String                                                        databaseName;
@@ -73,6 +71,8 @@ public class ODistributedDatabaseImpl implements ODistributedDatabase {
   protected ConcurrentHashMap<ODistributedRequestId, ODistributedTxContextImpl> activeTxContexts               = new ConcurrentHashMap<ODistributedRequestId, ODistributedTxContextImpl>(
       64);
   protected final List<ODistributedWorker>                                      workerThreads                  = new ArrayList<ODistributedWorker>();
+  protected ODistributedWriteSets                                               writeSets;
+  private final Object                                                          dispatchLock                   = new Object();
   private String                                                                localNodeName;
 
   private Map<String, OLogSequenceNumber>                                       lastLSN                        = new ConcurrentHashMap<String, OLogSequenceNumber>();
@@ -161,8 +161,9 @@ public class ODistributedDatabaseImpl implements ODistributedDatabase {
   }
 
   /**
-   * Distributed requests against the available workers by using one queue per worker. This guarantee the sequence of the operations
-   * against the same record cluster.
+   * Distributed requests against the available workers by using one queue per worker. A request is executed by the worker executing
+   * the requests it conflicts with, after them, so the sequence of the operations against the same records and the creations in
+   * the same cluster is guaranteed. The requests that do not conflict are executed in parallel by the least loaded workers.
    */
   public void processRequest(final ODistributedRequest request) {
     final ORemoteTask task = request.getTask();
@@ -181,84 +182,43 @@ public class ODistributedDatabaseImpl implements ODistributedDatabase {
     // }
     // }
 
-    final int[] partitionKeys = task.getPartitionKey();
-
-    // if (ODistributedServerLog.isDebugEnabled())
-    ODistributedServerLog.debug(this, localNodeName, null, DIRECTION.NONE, "Request %s on database '%s' partitionKeys=%s", request,
-        databaseName, Arrays.toString(partitionKeys));
+    if (workerThreads.isEmpty())
+      throw new ODistributedException("There are no worker threads to process request " + request);
 
-    if (partitionKeys.length > 1 || partitionKeys[0] == -1) {
+    final Set<Object> writeSet = ODistributedWriteSets.getWriteSet(request);
 
-      final Set<Integer> involvedWorkerQueues;
-      if (partitionKeys.length > 1)
-        involvedWorkerQueues = getInvolvedQueuesByPartitionKeys(partitionKeys);
-      else
-        // LOCK ALL THE QUEUES
-        involvedWorkerQueues = ALL_QUEUES;
+    // THE REQUESTS ARE DISPATCHED ONE AT A TIME TO KEEP THE SAME ORDER IN ALL THE QUEUES
+    synchronized (dispatchLock) {
+      final Set<Integer> involvedWorkerQueues = writeSets.getConflictingWorkers(writeSet);
 
       // if (ODistributedServerLog.isDebugEnabled())
-      ODistributedServerLog.debug(this, localNodeName, null, DIRECTION.NONE, "Request %s on database '%s' involvedQueues=%s",
-          request, databaseName, involvedWorkerQueues);
+      ODistributedServerLog.debug(this, localNodeName, null, DIRECTION.NONE,
+          "Request %s on database '%s' writeSet=%s involvedQueues=%s", request, databaseName, writeSet, involvedWorkerQueues);
 
-      if (involvedWorkerQueues.size() == 1)
-        // JUST ONE QUEUE INVOLVED: PROCESS IT IMMEDIATELY
-        processRequest(involvedWorkerQueues.iterator().next(), request);
-      else {
+      if (involvedWorkerQueues.isEmpty()) {
+        // NO CONFLICTS: USE THE WORKER WITH LESS REQUESTS TO EXECUTE
+        final int queue = writeSets.getLeastLoadedWorker();
+        writeSets.register(request, writeSet, queue);
+        dispatchRequest(queue, request);
+
+      } else if (involvedWorkerQueues.size() == 1) {
+        // JUST ONE QUEUE INVOLVED: EXECUTE IT AFTER THE CONFLICTING REQUESTS
+        final int queue = involvedWorkerQueues.iterator().next();
+        writeSets.register(request, writeSet, queue);
+        dispatchRequest(queue, request);
+
+      } else {
         // INVOLVING MULTIPLE QUEUES
 
         // if (ODistributedServerLog.isDebugEnabled())
         ODistributedServerLog.debug(this, localNodeName, null, DIRECTION.NONE,
             "Request %s on database '%s' waiting for all the previous requests to be completed", request, databaseName);
 
-        // WAIT ALL THE INVOLVED QUEUES ARE FREE AND SYNCHRONIZED
-        final CountDownLatch syncLatch = new CountDownLatch(involvedWorkerQueues.size());
-        final ODistributedRequest syncRequest = new ODistributedRequest(manager.getTaskFactory(), request.getId().getNodeId(), -1,
-            databaseName, new OSynchronizedTaskWrapper(syncLatch));
-        for (int queue : involvedWorkerQueues)
-          workerThreads.get(queue).processRequest(syncRequest);
-
-        long taskTimeout = request.getTask().getDistributedTimeout();
-        try {
-          if (taskTimeout <= 0)
-            syncLatch.await();
-          else {
-            // WAIT FOR COMPLETION. THE TIMEOUT IS MANAGED IN SMALLER CYCLES TO PROPERLY RECOGNIZE WHEN THE DB IS REMOVED
-            final long start = System.currentTimeMillis();
-            final long cycleTimeout = Math.min(taskTimeout, 2000);
-
-            boolean locked = false;
-            do {
-              if (syncLatch.await(cycleTimeout, TimeUnit.MILLISECONDS)) {
-                // DONE
-                locked = true;
-                break;
-              }
-
-              if (this.workerThreads.size() == 0)
-                // DATABASE WAS SHUTDOWN
-                break;
-
-            } while (System.currentTimeMillis() - start < taskTimeout);
-
-            if (!locked) {
-              final String msg = String.format("Cannot execute distributed request (%s) because all worker threads (%d) are busy",
-                  request, workerThreads.size());
-              ODistributedWorker.sendResponseBack(this, manager, request, new ODistributedOperationException(msg));
-              return;
-            }
-          }
-        } catch (InterruptedException e) {
-          // IGNORE
-          Thread.currentThread().interrupt();
-          final String msg = String.format("Cannot execute distributed request (%s) because all worker threads (%d) are busy",
-              request, workerThreads.size());
-          ODistributedWorker.sendResponseBack(this, manager, request, new ODistributedOperationException(msg));
-          return;
-        }
-
-        // PUT THE TASK TO EXECUTE ONLY IN THE FIRST QUEUE AND PUT WAIT-FOR TASKS IN THE OTHERS. WHEN THE REAL TASK IS EXECUTED,
-        // ALL THE OTHER TASKS WILL RETURN, SO THE QUEUES WILL BE BUSY DURING THE EXECUTION OF THE TASK. THIS AVOID CONCURRENT
-        // EXECUTION FOR THE SAME PARTITION
+        // PUT THE TASK TO EXECUTE ONLY IN THE FIRST QUEUE AND PUT WAIT-FOR TASKS IN THE OTHERS. THE TASK IS EXECUTED WHEN ALL
+        // THE OTHER QUEUES HAVE EXECUTED THEIR PREVIOUS REQUESTS, AND THE WAIT-FOR TASKS RETURN WHEN IT HAS BEEN EXECUTED, SO THE
+        // QUEUES WILL BE BUSY DURING THE EXECUTION OF THE TASK. THIS AVOID CONCURRENT EXECUTION OF CONFLICTING REQUESTS WITHOUT
+        // BLOCKING THE DISPATCHING OF THE OTHER REQUESTS
+        final CountDownLatch syncLatch = new CountDownLatch(involvedWorkerQueues.size() - 1);
         final CountDownLatch queueLatch = new CountDownLatch(1);
 
         int i = 0;
@@ -267,54 +227,33 @@ public class ODistributedDatabaseImpl implements ODistributedDatabase {
           if (i++ == 0) {
             // USE THE FIRST QUEUE TO PROCESS THE REQUEST
             final String senderNodeName = manager.getNodeNameById(request.getId().getNodeId());
-            request.setTask(new OSynchronizedTaskWrapper(queueLatch, senderNodeName, task));
+            request.setTask(
+                new OSynchronizedTaskWrapper(syncLatch, task.getDistributedTimeout(), queueLatch, senderNodeName, task));
             req = request;
+            writeSets.register(request, writeSet, queue);
           } else
             req = new ODistributedRequest(manager.getTaskFactory(), request.getId().getNodeId(), -1, databaseName,
-                new OWaitForTask(queueLatch));
+                new OWaitForTask(syncLatch, queueLatch));
 
-          workerThreads.get(queue).processRequest(req);
-        }
-      }
-    } else if (partitionKeys.length > 1 || partitionKeys[0] == -2) {
-      // ANY PARTITION: USE THE FIRST EMPTY IF ANY, OTHERWISE THE FIRST IN THE LIST
-      boolean found = false;
-      for (ODistributedWorker q : workerThreads) {
-        if (q.localQueue.isEmpty()) {
-          q.processRequest(request);
-          found = true;
-          break;
+          dispatchRequest(queue, req);
         }
       }
-
-      if (!found)
-        // EXEC ON THE FIRST QUEUE
-        workerThreads.get(0).processRequest(request);
-
-    } else {
-      processRequest(partitionKeys[0], request);
     }
   }
 
-  protected Set<Integer> getInvolvedQueuesByPartitionKeys(final int[] partitionKeys) {
-    final Set<Integer> involvedWorkerQueues = new HashSet<Integer>(partitionKeys.length);
-    for (int pk : partitionKeys) {
-      if (pk >= 0)
-        involvedWorkerQueues.add(pk % workerThreads.size());
-    }
-    return involvedWorkerQueues;
+  /**
+   * Called by the workers when a request has been executed.
+   */
+  public void onRequestCompleted(final ODistributedRequest request, final int queue) {
+    writeSets.completed(request, queue);
   }
 
-  protected void processRequest(final int partitionKey, final ODistributedRequest request) {
-    if (workerThreads.isEmpty())
-      throw new ODistributedException("There are no worker threads to process request " + request);
-
-    final int partition = partitionKey % workerThreads.size();
-
+  protected void dispatchRequest(final int queue, final ODistributedRequest request) {
     ODistributedServerLog.debug(this, localNodeName, null, DIRECTION.NONE,
-        "Request %s on database '%s' dispatched to the worker %d", request, databaseName, partition);
+        "Request %s on database '%s' dispatched to the worker %d", request, databaseName, queue);
 
-    workerThreads.get(partition).processRequest(request);
+    writeSets.dispatched(queue);
+    workerThreads.get(queue).processRequest(request);
   }
 
   @Override
@@ -833,12 +772,12 @@ public class ODistributedDatabaseImpl implements ODistributedDatabase {
     if (totalWorkers < 1)
       throw new ODistributedException("Cannot create configured distributed workers (" + totalWorkers + ")");
 
+    writeSets = new ODistributedWriteSets(totalWorkers);
+
     for (int i = 0; i < totalWorkers; ++i) {
       final ODistributedWorker workerThread = new ODistributedWorker(this, databaseName, i);
       workerThreads.add(workerThread);
       workerThread.start();
-
-      ALL_QUEUES.add(i);
     }
   }
 
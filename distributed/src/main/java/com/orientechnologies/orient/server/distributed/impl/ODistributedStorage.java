@@ -706,6 +706,15 @@ public class ODistributedStorage implements OStorage, OFreezableStorageComponent
     }
   }
 
+  @Override
+  public List<ORawBuffer> readRecords(final List<ORecordId> iRids, final String iFetchPlan, final boolean iIgnoreCache) {
+    // EVERY RECORD IS ROUTED BY ITS CLUSTER
+    final List<ORawBuffer> buffers = new ArrayList<ORawBuffer>(iRids.size());
+    for (ORecordId rid : iRids)
+      buffers.add(readRecord(rid, iFetchPlan, iIgnoreCache, false, null).getResult());
+    return buffers;
+  }
+
   @Override
   public OStorageOperationResult<ORawBuffer> readRecordIfVersionIsNotLatest(final ORecordId rid, final String fetchPlan,
       final boolean ignoreCache, final int recordVersion) throws ORecordNotFoundException {
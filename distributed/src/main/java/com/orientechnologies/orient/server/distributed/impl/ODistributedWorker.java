@@ -93,7 +93,12 @@ public class ODistributedWorker extends Thread {
         if (message != null) {
           message.getId();
           reqId = message.getId();
-          onMessage(message);
+          try {
+            onMessage(message);
+          } finally {
+            // RELEASE THE WRITE SET OF THE REQUEST
+            distributed.onRequestCompleted(message, id);
+          }
         }
 
       } catch (InterruptedException e) {
@@ -0,0 +1,212 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.server.distributed.impl;
+
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.server.distributed.ODistributedRequest;
+import com.orientechnologies.orient.server.distributed.impl.task.OAbstract2pcTask;
+import com.orientechnologies.orient.server.distributed.impl.task.OCompleted2pcTask;
+import com.orientechnologies.orient.server.distributed.impl.task.OCreateRecordTask;
+import com.orientechnologies.orient.server.distributed.task.OAbstractRecordReplicatedTask;
+import com.orientechnologies.orient.server.distributed.task.ORemoteTask;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Write sets of the requests dispatched to the workers and not completed yet. A request that conflicts with none of them can be
+ * executed by any worker, while the requests that conflict are executed in the order they're received.
+ * <p>
+ * The write set of a request is made of the records it updates or deletes and of the clusters where it creates records (or of the
+ * unique indexes of the records). A record conflicts also with the creations in its cluster, because it could be one of them.
+ * <p>
+ * The first phase of a transaction includes its request id in the write set, so the second phase, that writes the records locked
+ * by the first one, is executed after it.
+ *
+ * @see ODistributedDatabaseImpl#processRequest(ODistributedRequest)
+ */
+public class ODistributedWriteSets {
+  private final int[]                                 load;
+  private final Map<Object, int[]>                    pending    = new HashMap<Object, int[]>();
+  private final Map<ODistributedRequest, Set<Object>> registered = new IdentityHashMap<ODistributedRequest, Set<Object>>();
+
+  public ODistributedWriteSets(final int iWorkers) {
+    load = new int[iWorkers];
+  }
+
+  /**
+   * Returns the write set of a request: the one of its task, plus the request id for the first phase of a transaction.
+   *
+   * @see #getWriteSet(ORemoteTask)
+   */
+  public static Set<Object> getWriteSet(final ODistributedRequest iRequest) {
+    final ORemoteTask task = iRequest.getTask();
+    final Set<Object> keys = getWriteSet(task);
+    if (keys != null && task instanceof OAbstract2pcTask)
+      keys.add(iRequest.getId());
+    return keys;
+  }
+
+  /**
+   * Returns the write set of a task.
+   *
+   * @return the keys of the records and of the clusters written, empty if the task writes nothing, null if the task conflicts with
+   *         all the others
+   */
+  public static Set<Object> getWriteSet(final ORemoteTask iTask) {
+    final int[] partitionKeys = iTask.getPartitionKey();
+    if (partitionKeys.length == 1 && partitionKeys[0] == -1)
+      // ALL
+      return null;
+
+    final Set<Object> keys = new HashSet<Object>();
+    if (iTask instanceof OAbstract2pcTask) {
+      for (OAbstractRecordReplicatedTask t : ((OAbstract2pcTask) iTask).getTasks())
+        keys.add(getKey(t));
+    } else if (iTask instanceof OAbstractRecordReplicatedTask)
+      keys.add(getKey((OAbstractRecordReplicatedTask) iTask));
+    else {
+      if (iTask instanceof OCompleted2pcTask)
+        // EXECUTED AFTER THE FIRST PHASE OF THE TRANSACTION, IF IT'S STILL PENDING
+        keys.add(((OCompleted2pcTask) iTask).getRequestId());
+
+      for (int pk : partitionKeys)
+        if (pk >= 0)
+          keys.add(pk);
+    }
+
+    return keys;
+  }
+
+  /**
+   * Returns the workers executing requests that conflict with a write set, sorted by id.
+   *
+   * @param iWriteSet
+   *          write set of the request, null to return all the workers
+   */
+  public synchronized Set<Integer> getConflictingWorkers(final Set<Object> iWriteSet) {
+    final Set<Integer> workers = new TreeSet<Integer>();
+    if (iWriteSet == null) {
+      for (int i = 0; i < load.length; ++i)
+        workers.add(i);
+      return workers;
+    }
+
+    for (Object key : iWriteSet) {
+      addWorkers(pending.get(key), workers);
+      if (key instanceof ORecordId)
+        // THE RECORD COULD BE CREATED BY A REQUEST NOT COMPLETED YET
+        addWorkers(pending.get(((ORecordId) key).getClusterId()), workers);
+    }
+    return workers;
+  }
+
+  /**
+   * Returns the worker with the least requests to execute.
+   */
+  public synchronized int getLeastLoadedWorker() {
+    int worker = 0;
+    for (int i = 1; i < load.length; ++i)
+      if (load[i] < load[worker])
+        worker = i;
+    return worker;
+  }
+
+  /**
+   * Registers the write set of a request executed by a worker, until it's completed.
+   */
+  public synchronized void register(final ODistributedRequest iRequest, final Set<Object> iWriteSet, final int iWorker) {
+    if (iWriteSet == null || iWriteSet.isEmpty())
+      return;
+
+    for (Object key : iWriteSet) {
+      int[] workers = pending.get(key);
+      if (workers == null) {
+        workers = new int[load.length];
+        pending.put(key, workers);
+      }
+      workers[iWorker]++;
+    }
+    registered.put(iRequest, iWriteSet);
+  }
+
+  /**
+   * Called when a request is put in the queue of a worker.
+   */
+  public synchronized void dispatched(final int iWorker) {
+    load[iWorker]++;
+  }
+
+  /**
+   * Called when a worker has executed a request, to release its write set.
+   */
+  public synchronized void completed(final ODistributedRequest iRequest, final int iWorker) {
+    load[iWorker]--;
+
+    final Set<Object> writeSet = registered.remove(iRequest);
+    if (writeSet == null)
+      return;
+
+    for (Object key : writeSet) {
+      final int[] workers = pending.get(key);
+      if (workers == null)
+        continue;
+
+      workers[iWorker]--;
+
+      boolean empty = true;
+      for (int w : workers)
+        if (w > 0) {
+          empty = false;
+          break;
+        }
+      if (empty)
+        pending.remove(key);
+    }
+  }
+
+  private static Object getKey(final OAbstractRecordReplicatedTask iTask) {
+    final ORecordId rid = iTask.getRid();
+    final int partitionKey = iTask.getPartitionKey()[0];
+
+    if (partitionKey != rid.getClusterId())
+      // UNIQUE INDEX: THE RECORDS OF THE SAME INDEX ARE WRITTEN IN ORDER
+      return partitionKey;
+
+    if (iTask instanceof OCreateRecordTask || !rid.isPersistent())
+      // THE RECORDS ARE CREATED IN THE CLUSTER IN ORDER, TO HAVE THE SAME POSITIONS ON ALL THE SERVERS
+      return rid.getClusterId();
+
+    return rid.copy();
+  }
+
+  private static void addWorkers(final int[] iWorkers, final Set<Integer> oWorkers) {
+    if (iWorkers == null)
+      return;
+
+    for (int i = 0; i < iWorkers.length; ++i)
+      if (iWorkers[i] > 0)
+        oWorkers.add(i);
+  }
+}
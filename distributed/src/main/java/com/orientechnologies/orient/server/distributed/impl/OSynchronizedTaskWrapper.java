@@ -25,9 +25,11 @@ import com.orientechnologies.orient.server.OServer;
 import com.orientechnologies.orient.server.distributed.ODistributedRequestId;
 import com.orientechnologies.orient.server.distributed.ODistributedServerManager;
 import com.orientechnologies.orient.server.distributed.task.OAbstractRemoteTask;
+import com.orientechnologies.orient.server.distributed.task.ODistributedOperationException;
 import com.orientechnologies.orient.server.distributed.task.ORemoteTask;
 
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Task wrapper to manage synchronized operations like transactions.
@@ -39,6 +41,8 @@ public class OSynchronizedTaskWrapper extends OAbstractRemoteTask {
   private boolean        usesDatabase;
   private CountDownLatch latch;
   private ORemoteTask    task;
+  private CountDownLatch waitLatch;
+  private long           waitTimeout;
 
   public OSynchronizedTaskWrapper(final CountDownLatch iLatch, final String iNodeName, final ORemoteTask iTask) {
     this.latch = iLatch;
@@ -47,6 +51,21 @@ public class OSynchronizedTaskWrapper extends OAbstractRemoteTask {
     this.usesDatabase = true;
   }
 
+  /**
+   * Wrapper that executes the task only after the other workers involved are waiting for it.
+   *
+   * @param iWaitLatch
+   *          released by the other workers involved, see {@link OWaitForTask}
+   * @param iWaitTimeout
+   *          maximum time (in ms) to wait for the other workers, 0 to wait forever
+   */
+  public OSynchronizedTaskWrapper(final CountDownLatch iWaitLatch, final long iWaitTimeout, final CountDownLatch iLatch,
+      final String iNodeName, final ORemoteTask iTask) {
+    this(iLatch, iNodeName, iTask);
+    this.waitLatch = iWaitLatch;
+    this.waitTimeout = iWaitTimeout;
+  }
+
   public OSynchronizedTaskWrapper(final CountDownLatch iLatch) {
     latch = iLatch;
     usesDatabase = false;
@@ -66,6 +85,14 @@ public class OSynchronizedTaskWrapper extends OAbstractRemoteTask {
   public Object execute(ODistributedRequestId requestId, OServer iServer, ODistributedServerManager iManager,
       ODatabaseDocumentInternal database) throws Exception {
     try {
+      if (waitLatch != null) {
+        if (waitTimeout <= 0)
+          waitLatch.await();
+        else if (!waitLatch.await(waitTimeout, TimeUnit.MILLISECONDS))
+          throw new ODistributedOperationException(
+              String.format("Cannot execute distributed request (%s) because all worker threads are busy", task));
+      }
+
       if (task != null)
         return task.execute(requestId, iServer, iManager, database);
       return null;
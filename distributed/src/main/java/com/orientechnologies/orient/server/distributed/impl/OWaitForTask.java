@@ -36,11 +36,21 @@ import java.util.concurrent.CountDownLatch;
  */
 public class OWaitForTask extends OAbstractRemoteTask {
   private CountDownLatch latch;
+  private CountDownLatch reachedLatch;
 
   public OWaitForTask(final CountDownLatch iLatch) {
     latch = iLatch;
   }
 
+  /**
+   * @param iReachedLatch
+   *          released when the worker starts waiting, after having executed the previous requests
+   */
+  public OWaitForTask(final CountDownLatch iReachedLatch, final CountDownLatch iLatch) {
+    this(iLatch);
+    reachedLatch = iReachedLatch;
+  }
+
   @Override
   public String getName() {
     return null;
@@ -54,6 +64,9 @@ public class OWaitForTask extends OAbstractRemoteTask {
   @Override
   public Object execute(ODistributedRequestId requestId, OServer iServer, ODistributedServerManager iManager,
       ODatabaseDocumentInternal database) throws Exception {
+    if (reachedLatch != null)
+      reachedLatch.countDown();
+
     // WAIT UNTIL THE REAL TASK IS EXECUTED
     latch.await();
     return null;
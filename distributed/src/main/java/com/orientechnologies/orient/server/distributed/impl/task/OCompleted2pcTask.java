@@ -199,4 +199,11 @@ public class OCompleted2pcTask extends OAbstractReplicatedTask {
   public List<ORemoteTask> getFixTasks() {
     return fixTasks;
   }
+
+  /**
+   * Returns the id of the request of the transaction to complete.
+   */
+  public ODistributedRequestId getRequestId() {
+    return requestId;
+  }
 }
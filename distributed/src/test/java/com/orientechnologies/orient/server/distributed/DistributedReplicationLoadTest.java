@@ -0,0 +1,82 @@
+package com.orientechnologies.orient.server.distributed;
+
+import com.orientechnologies.common.util.OCallable;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.tinkerpop.blueprints.impls.orient.OrientBaseGraph;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Inserts records concurrently against the first node of a cluster of 3 servers in the same JVM, reporting the replicated
+ * operations per second with every distributed message sent alone and with the messages sent in batches.
+ */
+public class DistributedReplicationLoadTest extends AbstractServerClusterTest {
+  private static final int SERVERS    = 3;
+  private static final int WRITERS    = 16;
+  private static final int OPERATIONS = 500;
+
+  private String           mode;
+
+  @Test
+  public void testWithoutBatches() throws Exception {
+    OGlobalConfiguration.DISTRIBUTED_BATCH_SIZE.setValue(1);
+    try {
+      mode = "without batches";
+      init(SERVERS);
+      prepare(false);
+      execute();
+    } finally {
+      OGlobalConfiguration.DISTRIBUTED_BATCH_SIZE.setValue(OGlobalConfiguration.DISTRIBUTED_BATCH_SIZE.getDefValue());
+    }
+  }
+
+  @Test
+  public void testWithBatches() throws Exception {
+    mode = "with batches";
+    init(SERVERS);
+    prepare(false);
+    execute();
+  }
+
+  @Override
+  public String getDatabaseName() {
+    return "distributed-replication-load";
+  }
+
+  @Override
+  protected void onAfterDatabaseCreation(final OrientBaseGraph db) {
+    db.getRawGraph().getMetadata().getSchema().createClass("Item");
+  }
+
+  @Override
+  protected void executeTest() throws Exception {
+    final String url = "plocal:" + serverInstance.get(0).getDatabasePath(getDatabaseName());
+
+    final long start = System.nanoTime();
+    executeOnMultipleThreads(WRITERS, new OCallable<Void, Integer>() {
+      @Override
+      public Void call(final Integer iWriter) {
+        final ODatabaseDocumentTx db = new ODatabaseDocumentTx(url).open("admin", "admin");
+        try {
+          for (int i = 0; i < OPERATIONS; ++i)
+            new ODocument("Item").field("writer", iWriter).field("i", i).save();
+        } finally {
+          db.close();
+        }
+        return null;
+      }
+    });
+    final double operationsPerSecond = WRITERS * OPERATIONS / ((System.nanoTime() - start) / 1000000000d);
+
+    final ODatabaseDocumentTx db = new ODatabaseDocumentTx(url).open("admin", "admin");
+    try {
+      Assert.assertEquals(WRITERS * OPERATIONS, db.countClass("Item"));
+    } finally {
+      db.close();
+    }
+
+    System.out.printf("%s: %d writers on %d servers, %.0f replicated operations/sec%n", mode, WRITERS, SERVERS, operationsPerSecond);
+  }
+}
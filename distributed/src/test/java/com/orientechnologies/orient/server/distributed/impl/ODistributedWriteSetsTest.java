@@ -0,0 +1,152 @@
+package com.orientechnologies.orient.server.distributed.impl;
+
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.server.distributed.ODistributedRequest;
+import com.orientechnologies.orient.server.distributed.ODistributedRequestId;
+import com.orientechnologies.orient.server.distributed.impl.task.OCompleted2pcTask;
+import com.orientechnologies.orient.server.distributed.impl.task.OCreateRecordTask;
+import com.orientechnologies.orient.server.distributed.impl.task.ODeleteRecordTask;
+import com.orientechnologies.orient.server.distributed.impl.task.OHeartbeatTask;
+import com.orientechnologies.orient.server.distributed.impl.task.OTxTask;
+import com.orientechnologies.orient.server.distributed.impl.task.OUpdateRecordTask;
+import com.orientechnologies.orient.server.distributed.task.ORemoteTask;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+public class ODistributedWriteSetsTest {
+  private final ODistributedWriteSets writeSets = new ODistributedWriteSets(4);
+
+  @Test
+  public void testWriteSets() {
+    Assert.assertEquals(Collections.<Object> singleton(new ORecordId(10, 5)), ODistributedWriteSets.getWriteSet(update(10, 5)));
+    Assert.assertEquals(Collections.<Object> singleton(10), ODistributedWriteSets.getWriteSet(create(10, 5)));
+    Assert.assertTrue(ODistributedWriteSets.getWriteSet(new OHeartbeatTask()).isEmpty());
+
+    final OTxTask tx = new OTxTask();
+    tx.add(create(10, 6));
+    tx.add(update(11, 1));
+    tx.add(delete(12, 2));
+    Assert.assertEquals(new HashSet<Object>(Arrays.asList(10, new ORecordId(11, 1), new ORecordId(12, 2))),
+        ODistributedWriteSets.getWriteSet(tx));
+  }
+
+  @Test
+  public void testIndependentRequestsGoToTheLeastLoadedWorkers() {
+    final int first = dispatch(update(10, 1));
+    final int second = dispatch(update(10, 2));
+    final int third = dispatch(update(11, 1));
+
+    Assert.assertEquals(3, new HashSet<Integer>(Arrays.asList(first, second, third)).size());
+  }
+
+  @Test
+  public void testConflictingRequestsGoToTheSameWorker() {
+    final ODistributedRequest request = request(update(10, 1));
+    final int worker = dispatch(request);
+    dispatch(update(11, 1));
+
+    Assert.assertEquals(Collections.singleton(worker), conflicts(update(10, 1)));
+
+    // THE TRANSACTION UPDATES THE SAME RECORD
+    final OTxTask tx = new OTxTask();
+    tx.add(update(12, 1));
+    tx.add(update(10, 1));
+    Assert.assertEquals(Collections.singleton(worker), conflicts(tx));
+
+    // COMPLETED: NO CONFLICTS ANYMORE
+    writeSets.completed(request, worker);
+    Assert.assertTrue(conflicts(update(10, 1)).isEmpty());
+  }
+
+  @Test
+  public void testUpdateConflictsWithCreateInTheSameCluster() {
+    final int worker = dispatch(create(10, 7));
+
+    Assert.assertEquals(Collections.singleton(worker), conflicts(update(10, 7)));
+    Assert.assertEquals(Collections.singleton(worker), conflicts(create(10, 8)));
+    Assert.assertTrue(conflicts(update(11, 7)).isEmpty());
+  }
+
+  @Test
+  public void testTransactionConflictingWithManyWorkers() {
+    final int first = dispatch(update(10, 1));
+    final int second = dispatch(update(11, 1));
+
+    final OTxTask tx = new OTxTask();
+    tx.add(update(10, 1));
+    tx.add(update(11, 1));
+    Assert.assertEquals(new HashSet<Integer>(Arrays.asList(first, second)), conflicts(tx));
+  }
+
+  @Test
+  public void testTransactionCompletedAfterItsFirstPhase() {
+    final OTxTask tx = new OTxTask();
+    tx.add(update(10, 1));
+    tx.add(update(11, 1));
+    final ODistributedRequest request = new ODistributedRequest(null, 0, 2, "test", tx);
+    final int worker = dispatch(request);
+
+    // THE SECOND PHASE CONFLICTS ONLY WITH THE FIRST PHASE OF ITS TRANSACTION
+    final OCompleted2pcTask completed = new OCompleted2pcTask(request.getId(), true, new int[] { 10, 11 });
+    Assert.assertEquals(Collections.singleton(worker), conflicts(completed));
+    Assert.assertTrue(conflicts(new OCompleted2pcTask(new ODistributedRequestId(0, 3), true, new int[] { 10, 11 })).isEmpty());
+
+    writeSets.completed(request, worker);
+    Assert.assertTrue(conflicts(completed).isEmpty());
+  }
+
+  @Test
+  public void testConflictsWithAll() {
+    Assert.assertNull(ODistributedWriteSets.getWriteSet(new OExclusiveTask()));
+    Assert.assertEquals(new HashSet<Integer>(Arrays.asList(0, 1, 2, 3)), writeSets.getConflictingWorkers(null));
+  }
+
+  private Set<Integer> conflicts(final ORemoteTask iTask) {
+    return writeSets.getConflictingWorkers(ODistributedWriteSets.getWriteSet(iTask));
+  }
+
+  private int dispatch(final ORemoteTask iTask) {
+    return dispatch(request(iTask));
+  }
+
+  private int dispatch(final ODistributedRequest iRequest) {
+    final Set<Object> writeSet = ODistributedWriteSets.getWriteSet(iRequest);
+    final Set<Integer> conflicts = writeSets.getConflictingWorkers(writeSet);
+    final int worker = conflicts.isEmpty() ? writeSets.getLeastLoadedWorker() : conflicts.iterator().next();
+    writeSets.register(iRequest, writeSet, worker);
+    writeSets.dispatched(worker);
+    return worker;
+  }
+
+  private static ODistributedRequest request(final ORemoteTask iTask) {
+    return new ODistributedRequest(null, 0, 1, "test", iTask);
+  }
+
+  private static OUpdateRecordTask update(final int iClusterId, final long iPosition) {
+    return new OUpdateRecordTask(new ORecordId(iClusterId, iPosition), new byte[0], 1, ODocument.RECORD_TYPE);
+  }
+
+  private static OCreateRecordTask create(final int iClusterId, final long iPosition) {
+    return new OCreateRecordTask(new ORecordId(iClusterId, iPosition), new byte[0], 0, ODocument.RECORD_TYPE);
+  }
+
+  private static ODeleteRecordTask delete(final int iClusterId, final long iPosition) {
+    return new ODeleteRecordTask(new ORecordId(iClusterId, iPosition), 1);
+  }
+
+  /**
+   * Task that must be executed alone.
+   */
+  private static class OExclusiveTask extends OHeartbeatTask {
+    @Override
+    public int[] getPartitionKey() {
+      return ALL;
+    }
+  }
+}
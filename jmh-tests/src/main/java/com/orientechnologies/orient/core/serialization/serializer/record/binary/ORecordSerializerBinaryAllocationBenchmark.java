@@ -0,0 +1,103 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.serialization.serializer.record.binary;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the serialization and deserialization of documents of different sizes, to measure the garbage created per record.
+ * <code>serializeNewBuffer</code> writes in a new buffer every time, as before the buffers were reused by thread.
+ *
+ * To run this benchmark run {@link org.openjdk.jmh.Main} with the GC profiler: <code>-prof gc</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ORecordSerializerBinaryAllocationBenchmark {
+  @Param({ "5", "20", "100" })
+  private int                     fields;
+
+  private ODatabaseDocumentTx     db;
+  private ORecordSerializerBinary serializer = new ORecordSerializerBinary();
+  private ODocument               document;
+  private byte[]                  stream;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    db = new ODatabaseDocumentTx("memory:" + ORecordSerializerBinaryAllocationBenchmark.class.getSimpleName() + fields);
+    db.create();
+
+    final OClass clazz = db.getMetadata().getSchema().createClass("Customer");
+    document = new ODocument("Customer");
+    for (int i = 0; i < fields; i++) {
+      switch (i % 4) {
+      case 0:
+        clazz.createProperty("field" + i, OType.STRING);
+        document.field("field" + i, "value of field " + i);
+        break;
+      case 1:
+        clazz.createProperty("field" + i, OType.LONG);
+        document.field("field" + i, (long) i * 1000);
+        break;
+      case 2:
+        document.field("field" + i, Arrays.asList("a" + i, "b" + i, "c" + i));
+        break;
+      default:
+        document.field("field" + i, new ODocument().field("street", "Main Street " + i).field("number", i));
+      }
+    }
+
+    stream = serializer.toStream(document, false);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    db.drop();
+  }
+
+  @Benchmark
+  public byte[] serialize() {
+    return serializer.toStream(document, false);
+  }
+
+  @Benchmark
+  public byte[] serializeNewBuffer() {
+    final BytesContainer container = new BytesContainer();
+    final int version = serializer.getCurrentVersion();
+    container.bytes[container.alloc(1)] = (byte) version;
+    serializer.getSerializer(version).serialize(document, container, false);
+    return container.fitBytes();
+  }
+
+  @Benchmark
+  public Object deserialize() {
+    return serializer.fromStream(stream, new ODocument(), null);
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.serialization.serializer.record.binary;
+
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the access to the fields of a serialized document by record format version and number of fields. Compares the
+ * sequential header of version 0 with the indexed header of version 1.
+ *
+ * To run this benchmark run {@link org.openjdk.jmh.Main}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ORecordSerializerBinaryBenchmark {
+  @Param({ "10", "100", "500" })
+  private int                     fields;
+
+  @Param({ "0", "1" })
+  private int                     version;
+
+  private ODatabaseDocumentTx     db;
+  private OClass                  clazz;
+  private ORecordSerializerBinary serializer = new ORecordSerializerBinary();
+  private byte[]                  stream;
+  private String[]                firstField;
+  private String[]                lastField;
+  private Object                  previousVersion;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    db = new ODatabaseDocumentTx("memory:" + ORecordSerializerBinaryBenchmark.class.getSimpleName() + fields + "_" + version);
+    db.create();
+
+    clazz = db.getMetadata().getSchema().createClass("Wide");
+    final ODocument doc = new ODocument("Wide");
+    for (int i = 0; i < fields; i++) {
+      // HALF OF THE FIELDS ARE SCHEMA-LESS
+      if (i % 2 == 0)
+        clazz.createProperty("field" + i, OType.INTEGER);
+      doc.field("field" + i, i);
+    }
+
+    previousVersion = OGlobalConfiguration.DB_DOCUMENT_SERIALIZER_VERSION.getValue();
+    OGlobalConfiguration.DB_DOCUMENT_SERIALIZER_VERSION.setValue(version);
+    stream = serializer.toStream(doc, false);
+
+    firstField = new String[] { "field0" };
+    lastField = new String[] { "field" + (fields - 1) };
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    OGlobalConfiguration.DB_DOCUMENT_SERIALIZER_VERSION.setValue(previousVersion);
+    db.drop();
+  }
+
+  @Benchmark
+  public Object readFirstField() {
+    return serializer.fromStream(stream, new ODocument(), firstField);
+  }
+
+  @Benchmark
+  public Object readLastField() {
+    return serializer.fromStream(stream, new ODocument(), lastField);
+  }
+
+  @Benchmark
+  public Object readMissingField() {
+    return serializer.getSerializer(stream[0]).deserializeField(new BytesContainer(stream).skip(1), clazz, "missing");
+  }
+
+  @Benchmark
+  public Object binaryFieldLast() {
+    return serializer.getSerializer(stream[0]).deserializeField(new BytesContainer(stream).skip(1), clazz, lastField[0]);
+  }
+
+  @Benchmark
+  public Object readAllFields() {
+    return serializer.fromStream(stream, new ODocument(), null);
+  }
+}
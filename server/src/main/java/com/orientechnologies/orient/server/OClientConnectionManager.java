@@ -35,6 +35,8 @@ import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinaryProt
 import com.orientechnologies.orient.enterprise.channel.binary.OTokenSecurityException;
 import com.orientechnologies.orient.server.network.protocol.ONetworkProtocol;
 import com.orientechnologies.orient.server.network.protocol.binary.ONetworkProtocolBinary;
+import com.orientechnologies.orient.server.network.protocol.binary.OServerNearCacheManager;
+import com.orientechnologies.orient.server.network.protocol.binary.OServerQueryCursorManager;
 import com.orientechnologies.orient.server.plugin.OServerPluginHelper;
 
 import java.io.IOException;
@@ -53,6 +55,8 @@ public class OClientConnectionManager {
   protected AtomicInteger                                    connectionSerial = new AtomicInteger(0);
   protected final ConcurrentMap<OHashToken, OClientSessions> sessions         = new ConcurrentHashMap<OHashToken, OClientSessions>();
   protected final TimerTask                                  timerTask;
+  protected final OServerQueryCursorManager                  queryCursors     = new OServerQueryCursorManager();
+  protected final OServerNearCacheManager                    nearCaches       = new OServerNearCacheManager();
   private OServer                                            server;
 
   public OClientConnectionManager(OServer server) {
@@ -251,6 +255,7 @@ public class OClientConnectionManager {
       }
 
       disconnect(connection);
+      queryCursors.close(connection);
 
       // KILL THE NETWORK MANAGER TOO
       protocol.sendShutdown();
@@ -291,6 +296,8 @@ public class OClientConnectionManager {
 
     if (connection != null) {
       OServerPluginHelper.invokeHandlerCallbackOnClientDisconnection(server, connection);
+      nearCaches.remove(connection);
+      closeQueryCursors(connection);
       connection.close();
 
       // CHECK IF THERE ARE OTHER CONNECTIONS
@@ -310,6 +317,15 @@ public class OClientConnectionManager {
     return false;
   }
 
+  /**
+   * Closes the query cursors of a connection. The connections based on token are bound to a socket only for the current request,
+   * so their cursors are left to the idle timeout of the cursor manager.
+   */
+  private void closeQueryCursors(final OClientConnection connection) {
+    if (!Boolean.TRUE.equals(connection.getTokenBased()))
+      queryCursors.close(connection);
+  }
+
   private void removeConnectionFromSession(OClientConnection connection) {
     if (connection.getProtocol() instanceof ONetworkProtocolBinary) {
       byte[] tokenBytes = connection.getTokenBytes();
@@ -330,6 +346,8 @@ public class OClientConnectionManager {
     OLogManager.instance().debug(this, "Disconnecting connection %s...", iConnection);
     OServerPluginHelper.invokeHandlerCallbackOnClientDisconnection(server, iConnection);
     removeConnectionFromSession(iConnection);
+    nearCaches.remove(iConnection);
+    closeQueryCursors(iConnection);
     iConnection.close();
 
     int totalRemoved = 0;
@@ -345,6 +363,20 @@ public class OClientConnectionManager {
 
   }
 
+  /**
+   * Returns the query cursors open by the connections.
+   */
+  public OServerQueryCursorManager getQueryCursors() {
+    return queryCursors;
+  }
+
+  /**
+   * Returns the records loaded by the connections for the near cache of their clients.
+   */
+  public OServerNearCacheManager getNearCaches() {
+    return nearCaches;
+  }
+
   public List<OClientConnection> getConnections() {
     return new ArrayList<OClientConnection>(connections.values());
   }
@@ -416,6 +448,8 @@ public class OClientConnectionManager {
 
   public void shutdown() {
     timerTask.cancel();
+    queryCursors.shutdown();
+    nearCaches.shutdown();
 
     final Iterator<Entry<Integer, OClientConnection>> iterator = connections.entrySet().iterator();
     while (iterator.hasNext()) {
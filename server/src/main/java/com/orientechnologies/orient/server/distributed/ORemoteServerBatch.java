@@ -0,0 +1,138 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.server.distributed;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends the messages to a server in batches. The first thread that adds a message to a new batch sends it, after the batch window
+ * and when one of the channels is free. In the meanwhile the other threads add their messages to the same batch, until
+ * the batch is full, and wait for it to be sent. This way under load many messages cost one network round instead of one each.
+ *
+ * @param <T>
+ *          type of the messages
+ */
+public abstract class ORemoteServerBatch<T> {
+  private final int   maxSize;
+  private final long  window;
+  private final int   channels;
+  private Batch<T>    current;
+  private int         sending = 0;
+
+  private static class Batch<T> {
+    private final List<T>    messages = new ArrayList<T>();
+    private boolean          sent     = false;
+    private RuntimeException error;
+  }
+
+  /**
+   * @param iMaxSize
+   *          maximum number of messages sent together
+   * @param iWindow
+   *          time (in ms) to wait for more messages before sending a batch
+   * @param iChannels
+   *          number of batches sent at the same time
+   */
+  public ORemoteServerBatch(final int iMaxSize, final long iWindow, final int iChannels) {
+    maxSize = iMaxSize < 1 ? 1 : iMaxSize;
+    window = iWindow;
+    channels = iChannels < 1 ? 1 : iChannels;
+  }
+
+  /**
+   * Sends a message with the others of its batch, returning when the batch has been sent.
+   *
+   * @throws RuntimeException
+   *           the error on sending the batch of the message
+   */
+  public void send(final T iMessage) {
+    final Batch<T> batch;
+    synchronized (this) {
+      if (current != null && current.messages.size() < maxSize) {
+        current.messages.add(iMessage);
+        if (current.messages.size() >= maxSize)
+          // WAKE UP THE THREAD WAITING FOR THE BATCH WINDOW
+          notifyAll();
+
+        waitForSent(current);
+        return;
+      }
+
+      batch = new Batch<T>();
+      batch.messages.add(iMessage);
+      current = batch;
+
+      final long deadline = System.currentTimeMillis() + window;
+      long remaining = window;
+      boolean interrupted = false;
+      while (sending >= channels || (batch.messages.size() < maxSize && remaining > 0)) {
+        try {
+          wait(sending >= channels ? 0 : remaining);
+          remaining = interrupted ? 0 : deadline - System.currentTimeMillis();
+        } catch (InterruptedException e) {
+          // STOP WAITING FOR MORE MESSAGES, BUT WAIT FOR A FREE CHANNEL ANYWAY
+          interrupted = true;
+          remaining = 0;
+        }
+      }
+      if (interrupted)
+        Thread.currentThread().interrupt();
+
+      // CLOSE THE BATCH: THE NEXT MESSAGES GO TO A NEW ONE
+      if (current == batch)
+        current = null;
+      sending++;
+    }
+
+    try {
+      sendBatch(batch.messages);
+    } catch (RuntimeException e) {
+      batch.error = e;
+    } finally {
+      synchronized (this) {
+        sending--;
+        batch.sent = true;
+        notifyAll();
+      }
+    }
+
+    if (batch.error != null)
+      throw batch.error;
+  }
+
+  /**
+   * Sends the messages of a batch together.
+   */
+  protected abstract void sendBatch(List<T> iMessages);
+
+  private void waitForSent(final Batch<T> iBatch) {
+    while (!iBatch.sent)
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ODistributedException("Interrupted while waiting for the message to be sent");
+      }
+
+    if (iBatch.error != null)
+      throw iBatch.error;
+  }
+}
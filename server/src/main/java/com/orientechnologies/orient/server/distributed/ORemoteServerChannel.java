@@ -29,6 +29,7 @@ import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinaryProt
 
 import java.io.IOException;
 import java.util.Date;
+import java.util.List;
 import java.util.concurrent.Executors;
 
 /**
@@ -100,6 +101,52 @@ public class ORemoteServerChannel {
 
   }
 
+  /**
+   * Tells if the remote server receives many requests or responses with one message. The protocol of the server is known only
+   * once connected, so the channel closed by an error is connected again first.
+   */
+  public synchronized boolean isBatchSupported() {
+    if (channel == null || !channel.isConnected())
+      try {
+        connect();
+      } catch (IOException e) {
+        throw OException.wrapException(new ODistributedException("Cannot connect to the remote server '" + url + "'"), e);
+      }
+    return channel.getSrvProtocolVersion() >= OChannelBinaryProtocol.PROTOCOL_VERSION_42;
+  }
+
+  /**
+   * Sends many requests with one message.
+   */
+  public void sendRequests(final List<ODistributedRequest> requests) {
+    networkOperation(OChannelBinaryProtocol.DISTRIBUTED_REQUEST_BATCH, new OStorageRemoteOperation<Object>() {
+      @Override
+      public Object execute() throws IOException {
+        channel.writeInt(requests.size());
+        for (ODistributedRequest request : requests)
+          request.toStream(channel.getDataOutput());
+        channel.flush();
+        return null;
+      }
+    }, "Cannot send " + requests.size() + " distributed requests", MAX_RETRY, true);
+  }
+
+  /**
+   * Sends many responses with one message.
+   */
+  public void sendResponses(final List<ODistributedResponse> responses) {
+    networkOperation(OChannelBinaryProtocol.DISTRIBUTED_RESPONSE_BATCH, new OStorageRemoteOperation<Object>() {
+      @Override
+      public Object execute() throws IOException {
+        channel.writeInt(responses.size());
+        for (ODistributedResponse response : responses)
+          response.toStream(channel.getDataOutput());
+        channel.flush();
+        return null;
+      }
+    }, "Cannot send " + responses.size() + " responses back to the sender node '" + server + "'", MAX_RETRY, true);
+  }
+
   public void connect() throws IOException {
     channel = new OChannelBinarySynchClient(remoteHost, remotePort, null, contextConfig,
         OChannelBinaryProtocol.CURRENT_PROTOCOL_VERSION);
@@ -113,6 +160,7 @@ public class ORemoteServerChannel {
         channel.writeBoolean(false);
         channel.writeBoolean(false); // SUPPORT PUSH
         channel.writeBoolean(COLLECT_STATS); // COLLECT STATS
+        channel.writeString(""); // NO COMPRESSION OF THE RESPONSES, THE SYNCH CHANNEL CANNOT READ THEM
 
         channel.writeString(userName);
         channel.writeString(userPassword);
@@ -22,6 +22,7 @@ package com.orientechnologies.orient.server.distributed;
 import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Remote server controller. It handles the communication with remote servers in HA configuration.
@@ -35,6 +36,9 @@ public class ORemoteServerController {
   private final ORemoteServerChannel[] responseChannels;
   private volatile int                 responseChannelIndex = 0;
 
+  private final ORemoteServerBatch<ODistributedRequest>  requestBatch;
+  private final ORemoteServerBatch<ODistributedResponse> responseBatch;
+
   public ORemoteServerController(final ODistributedServerManager manager, final String iServer, final String iURL,
       final String user, final String passwd) throws IOException {
     if( user == null )
@@ -52,20 +56,64 @@ public class ORemoteServerController {
     responseChannels = new ORemoteServerChannel[OGlobalConfiguration.DISTRIBUTED_RESPONSE_CHANNELS.getValueAsInteger()];
     for (int i = 0; i < responseChannels.length; ++i)
       responseChannels[i] = new ORemoteServerChannel(manager, iServer, iURL, user, passwd);
+
+    final int batchSize = OGlobalConfiguration.DISTRIBUTED_BATCH_SIZE.getValueAsInteger();
+    final long batchWindow = OGlobalConfiguration.DISTRIBUTED_BATCH_WINDOW.getValueAsLong();
+
+    requestBatch = new ORemoteServerBatch<ODistributedRequest>(batchSize, batchWindow, requestChannels.length) {
+      @Override
+      protected void sendBatch(final List<ODistributedRequest> requests) {
+        final ORemoteServerChannel channel = nextRequestChannel();
+        if (requests.size() > 1 && channel.isBatchSupported())
+          channel.sendRequests(requests);
+        else
+          // SERVERS WITH AN OLDER PROTOCOL RECEIVE ONE MESSAGE PER REQUEST
+          for (ODistributedRequest request : requests)
+            channel.sendRequest(request);
+      }
+    };
+
+    responseBatch = new ORemoteServerBatch<ODistributedResponse>(batchSize, batchWindow,
+        responseChannels.length) {
+      @Override
+      protected void sendBatch(final List<ODistributedResponse> responses) {
+        final ORemoteServerChannel channel = nextResponseChannel();
+        if (responses.size() > 1 && channel.isBatchSupported())
+          channel.sendResponses(responses);
+        else
+          // SERVERS WITH AN OLDER PROTOCOL RECEIVE ONE MESSAGE PER RESPONSE
+          for (ODistributedResponse response : responses)
+            channel.sendResponse(response);
+      }
+    };
   }
 
+  /**
+   * Sends a request together with the other requests sent to the server in the meanwhile.
+   */
   public void sendRequest(final ODistributedRequest req) {
+    requestBatch.send(req);
+  }
+
+  /**
+   * Sends a response together with the other responses sent to the server in the meanwhile.
+   */
+  public void sendResponse(final ODistributedResponse response) {
+    responseBatch.send(response);
+  }
+
+  private ORemoteServerChannel nextRequestChannel() {
     int idx = requestChannelIndex++;
     if( idx < 0)
       idx = 0;
-    requestChannels[idx % responseChannels.length].sendRequest(req);
+    return requestChannels[idx % requestChannels.length];
   }
 
-  public void sendResponse(final ODistributedResponse response) {
+  private ORemoteServerChannel nextResponseChannel() {
     int idx = responseChannelIndex++;
     if( idx < 0)
       idx = 0;
-    responseChannels[idx % responseChannels.length].sendResponse(response);
+    return responseChannels[idx % responseChannels.length];
   }
 
   public void close() {
@@ -0,0 +1,241 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.server.network;
+
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.server.network.protocol.ONetworkProtocol;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * I/O thread of a listener that waits for the requests of many connections with one selector. When a request arrives, the
+ * connection is handed to the workers of the listener, that execute all the requests received and give the connection back to the
+ * event loop. So the idle connections don't take a thread.
+ * <p>
+ * The channels stay in non-blocking mode: the protocols read and write them through the streams of
+ * {@link com.orientechnologies.orient.enterprise.channel.binary.OChannelBinaryServer} and
+ * {@link com.orientechnologies.orient.enterprise.channel.text.OChannelTextServer}, that wait for the channel on their own. While
+ * a connection is executed by a worker, its key has no interest operations, so it's never dispatched twice.
+ * <p>
+ * The connections waiting for their next request longer than the idle timeout of their protocol are closed.
+ *
+ * @see ONetworkProtocol#executeReceivedRequests()
+ */
+public class OServerEventLoop extends Thread {
+  private static final long             IDLE_CHECK_INTERVAL = 1000;
+
+  private final Selector                selector;
+  private final ExecutorService         workers;
+  private final Queue<Runnable>         tasks               = new ConcurrentLinkedQueue<Runnable>();
+  // LAST ACTIVITY OF THE IDLE CONNECTIONS WITH AN IDLE TIMEOUT, ACCESSED ONLY BY THE EVENT LOOP THREAD
+  private final Map<SelectionKey, Long> idleSince           = new HashMap<SelectionKey, Long>();
+  private long                          lastIdleCheck;
+  private volatile boolean              active              = true;
+
+  public OServerEventLoop(final String iName, final ExecutorService iWorkers) throws IOException {
+    super(Orient.instance().getThreadGroup(), iName);
+    setDaemon(true);
+
+    selector = Selector.open();
+    workers = iWorkers;
+  }
+
+  /**
+   * Starts waiting for the requests of the connection of the protocol, its channel must be in non-blocking mode.
+   */
+  public void register(final ONetworkProtocol iProtocol) {
+    execute(new Runnable() {
+      @Override
+      public void run() {
+        final SocketChannel channel = iProtocol.getChannel().socket.getChannel();
+        try {
+          idle(channel.register(selector, SelectionKey.OP_READ, iProtocol));
+        } catch (ClosedChannelException e) {
+          // CLOSED BEFORE THE FIRST REQUEST
+          iProtocol.shutdown();
+        }
+      }
+    });
+  }
+
+  /**
+   * Called when the shutdown of the protocol is requested: if the connection is idle it's handed to a worker that closes it,
+   * otherwise it will be closed by the worker that's executing it.
+   */
+  public void wakeup(final ONetworkProtocol iProtocol) {
+    execute(new Runnable() {
+      @Override
+      public void run() {
+        final SelectionKey key = iProtocol.getChannel().socket.getChannel().keyFor(selector);
+        if (key != null && key.isValid() && key.interestOps() != 0)
+          dispatch(key);
+      }
+    });
+  }
+
+  public boolean isActive() {
+    return active;
+  }
+
+  public void shutdown() {
+    active = false;
+    selector.wakeup();
+  }
+
+  @Override
+  public void run() {
+    try {
+      while (active) {
+        try {
+          // WAKES UP PERIODICALLY ONLY IF SOME CONNECTION CAN EXPIRE
+          selector.select(idleSince.isEmpty() ? 0 : IDLE_CHECK_INTERVAL);
+
+          Runnable task;
+          while ((task = tasks.poll()) != null)
+            task.run();
+
+          closeIdleConnections();
+
+          final Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+          while (iterator.hasNext()) {
+            final SelectionKey key = iterator.next();
+            iterator.remove();
+
+            if (key.isValid() && key.isReadable())
+              dispatch(key);
+          }
+        } catch (Throwable t) {
+          if (active)
+            OLogManager.instance().error(this, "Error on waiting for client requests", t);
+        }
+      }
+    } finally {
+      // THE CONNECTIONS LEFT CANNOT BE SERVED ANYMORE
+      for (SelectionKey key : selector.keys())
+        ((ONetworkProtocol) key.attachment()).shutdown();
+
+      try {
+        selector.close();
+      } catch (IOException e) {
+        OLogManager.instance().debug(this, "Error on closing selector", e);
+      }
+    }
+  }
+
+  private void execute(final Runnable iTask) {
+    tasks.add(iTask);
+    selector.wakeup();
+  }
+
+  /**
+   * Starts counting the idle time of a connection that waits for its next request.
+   */
+  private void idle(final SelectionKey iKey) {
+    if (((ONetworkProtocol) iKey.attachment()).getIdleTimeout() > 0)
+      idleSince.put(iKey, System.currentTimeMillis());
+  }
+
+  /**
+   * Closes the connections that have waited for their next request longer than their idle timeout.
+   */
+  private void closeIdleConnections() {
+    final long now = System.currentTimeMillis();
+    if (idleSince.isEmpty() || now - lastIdleCheck < IDLE_CHECK_INTERVAL)
+      return;
+    lastIdleCheck = now;
+
+    final Iterator<Map.Entry<SelectionKey, Long>> iterator = idleSince.entrySet().iterator();
+    while (iterator.hasNext()) {
+      final Map.Entry<SelectionKey, Long> entry = iterator.next();
+      final SelectionKey key = entry.getKey();
+      final ONetworkProtocol protocol = (ONetworkProtocol) key.attachment();
+
+      if (!key.isValid())
+        // CLOSED IN THE MEANWHILE
+        iterator.remove();
+      else if (now - entry.getValue() > protocol.getIdleTimeout()) {
+        iterator.remove();
+        // THE SHUTDOWN DISPATCHES THE CONNECTION TO A WORKER THAT CLOSES IT
+        protocol.idleTimeout();
+      }
+    }
+  }
+
+  private void dispatch(final SelectionKey iKey) {
+    final ONetworkProtocol protocol = (ONetworkProtocol) iKey.attachment();
+    idleSince.remove(iKey);
+    try {
+      iKey.interestOps(0);
+    } catch (CancelledKeyException e) {
+      // CLOSED IN THE MEANWHILE
+      return;
+    }
+
+    try {
+      workers.execute(new Runnable() {
+        @Override
+        public void run() {
+          if (protocol.executeReceivedRequests())
+            resume(iKey);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // LISTENER SHUT DOWN
+      protocol.shutdown();
+    }
+  }
+
+  private void resume(final SelectionKey iKey) {
+    execute(new Runnable() {
+      @Override
+      public void run() {
+        final ONetworkProtocol protocol = (ONetworkProtocol) iKey.attachment();
+        if (!active) {
+          protocol.shutdown();
+          return;
+        }
+
+        if (protocol.isShutdownFlag())
+          // SHUTDOWN REQUESTED WHILE THE WORKER WAS RETURNING
+          dispatch(iKey);
+        else
+          try {
+            iKey.interestOps(SelectionKey.OP_READ);
+            idle(iKey);
+          } catch (CancelledKeyException e) {
+            // CLOSED IN THE MEANWHILE
+          }
+      }
+    });
+  }
+}
@@ -37,8 +37,15 @@ import com.orientechnologies.orient.server.network.protocol.http.command.OServer
 import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.net.*;
+import java.nio.channels.ServerSocketChannel;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class OServerNetworkListener extends Thread {
   private OServerSocketFactory              socketFactory;
@@ -52,6 +59,9 @@ public class OServerNetworkListener extends Thread {
   private OContextConfiguration             configuration;
   private OServer                           server;
   private int                               protocolVersion   = -1;
+  private OServerEventLoop[]                eventLoops;
+  private ExecutorService                   eventLoopWorkers;
+  private final AtomicInteger               nextEventLoop     = new AtomicInteger();
 
   public OServerNetworkListener(final OServer iServer, final OServerSocketFactory iSocketFactory, final String iHostName,
       final String iHostPortRange, final String iProtocolName, final Class<? extends ONetworkProtocol> iProtocol,
@@ -64,8 +74,11 @@ public class OServerNetworkListener extends Thread {
 
     // DETERMINE THE PROTOCOL VERSION BY CREATING A NEW ONE AND THEN THROW IT AWAY
     // TODO: CREATE PROTOCOL FACTORIES INSTEAD
+    final boolean eventLoopSupported;
     try {
-      protocolVersion = iProtocol.newInstance().getVersion();
+      final ONetworkProtocol protocol = iProtocol.newInstance();
+      protocolVersion = protocol.getVersion();
+      eventLoopSupported = protocol.isEventLoopSupported();
     } catch (Exception e) {
       final String message = "Error on reading protocol version for " + iProtocol;
       OLogManager.instance().error(this, message, e);
@@ -73,11 +86,23 @@ public class OServerNetworkListener extends Thread {
       throw OException.wrapException(new ONetworkProtocolException(message), e);
     }
 
+    readParameters(iServer.getContextConfiguration(), iParameters);
+
+    if (configuration.getValueAsBoolean(OGlobalConfiguration.NETWORK_EVENT_LOOP)) {
+      if (!eventLoopSupported)
+        OLogManager.instance().warn(this, "Protocol %s does not support event loops, its connections are served by one thread each",
+            iProtocolName);
+      else if (socketFactory != OServerSocketFactory.getDefault())
+        OLogManager.instance().warn(this,
+            "Socket factory %s does not support event loops, the connections of %s are served by one thread each",
+            socketFactory.getName(), iProtocolName);
+      else
+        startEventLoops(iProtocolName);
+    }
+
     listen(iHostName, iHostPortRange, iProtocolName, iProtocol);
     protocolType = iProtocol;
 
-    readParameters(iServer.getContextConfiguration(), iParameters);
-
     if (iCommands != null) {
       for (int i = 0; i < iCommands.length; ++i) {
         if (iCommands[i].stateful)
@@ -172,6 +197,23 @@ public class OServerNetworkListener extends Thread {
         serverSocket.close();
       } catch (IOException e) {
       }
+
+    if (eventLoops != null) {
+      for (OServerEventLoop eventLoop : eventLoops)
+        eventLoop.shutdown();
+      eventLoopWorkers.shutdown();
+    }
+  }
+
+  /**
+   * Returns the event loop that will serve the next connection, in round robin.
+   *
+   * @return null if the connections are served by one thread each
+   */
+  public OServerEventLoop nextEventLoop() {
+    if (eventLoops == null)
+      return null;
+    return eventLoops[(nextEventLoop.getAndIncrement() & Integer.MAX_VALUE) % eventLoops.length];
   }
 
   public boolean isActive() {
@@ -209,6 +251,10 @@ public class OServerNetworkListener extends Thread {
           socket.setSendBufferSize(socketBufferSize);
           socket.setReceiveBufferSize(socketBufferSize);
 
+          if (eventLoops != null)
+            // THE CHANNEL IS READ AND WRITTEN WITHOUT BLOCKING, TO BE WATCHED BY AN EVENT LOOP
+            socket.getChannel().configureBlocking(false);
+
           // CREATE A NEW PROTOCOL INSTANCE
           final ONetworkProtocol protocol = protocolType.newInstance();
 
@@ -316,7 +362,10 @@ public class OServerNetworkListener extends Thread {
     for (int port : getPorts(iHostPortRange)) {
       inboundAddr = new InetSocketAddress(iHostName, port);
       try {
-        serverSocket = socketFactory.createServerSocket(port, 0, InetAddress.getByName(iHostName));
+        if (eventLoops != null)
+          serverSocket = createServerSocketChannel(port, InetAddress.getByName(iHostName));
+        else
+          serverSocket = socketFactory.createServerSocket(port, 0, InetAddress.getByName(iHostName));
 
         if (serverSocket.isBound()) {
           OLogManager.instance().info(this,
@@ -342,6 +391,57 @@ public class OServerNetworkListener extends Thread {
     ShutdownHelper.shutdown(1);
   }
 
+  /**
+   * Creates a server socket that accepts the connections with their channels, that can be registered with the event loops.
+   */
+  private static ServerSocket createServerSocketChannel(final int iPort, final InetAddress iAddress) throws IOException {
+    final ServerSocketChannel channel = ServerSocketChannel.open();
+    try {
+      channel.socket().bind(new InetSocketAddress(iAddress, iPort), 0);
+      return channel.socket();
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Starts the I/O threads and the workers of the connections, sized by the configuration.
+   */
+  private void startEventLoops(final String iProtocolName) {
+    final int threads = configuration.getValueAsInteger(OGlobalConfiguration.NETWORK_EVENT_LOOP_THREADS);
+    final int workers = configuration.getValueAsInteger(OGlobalConfiguration.NETWORK_EVENT_LOOP_WORKERS);
+
+    // THE QUEUE IS BOUNDED BY THE CONNECTIONS: EVERY CONNECTION IS QUEUED AT MOST ONCE
+    final ThreadPoolExecutor executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+          private final AtomicInteger counter = new AtomicInteger();
+
+          @Override
+          public Thread newThread(final Runnable r) {
+            final Thread thread = new Thread(Orient.instance().getThreadGroup(), r,
+                "OrientDB " + iProtocolName + " worker " + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          }
+        });
+    executor.allowCoreThreadTimeOut(true);
+    eventLoopWorkers = executor;
+
+    eventLoops = new OServerEventLoop[threads];
+    for (int i = 0; i < threads; ++i) {
+      try {
+        eventLoops[i] = new OServerEventLoop("OrientDB " + iProtocolName + " event loop " + i, eventLoopWorkers);
+      } catch (IOException e) {
+        throw OException.wrapException(new ONetworkProtocolException("Error on opening selector of event loop"), e);
+      }
+      eventLoops[i].start();
+    }
+
+    OLogManager.instance().info(this, "Connections of %s served by %d event loops and up to %d workers", iProtocolName, threads,
+        workers);
+  }
+
   /**
    * Initializes connection parameters by the reading XML configuration. If not specified, get the parameters defined as global
    * configuration.
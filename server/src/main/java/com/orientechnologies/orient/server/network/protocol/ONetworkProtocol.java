@@ -21,15 +21,18 @@ package com.orientechnologies.orient.server.network.protocol;
 
 import java.io.IOException;
 import java.net.Socket;
+import java.nio.channels.SocketChannel;
 
 import com.orientechnologies.common.thread.OSoftThread;
 import com.orientechnologies.orient.core.config.OContextConfiguration;
 import com.orientechnologies.orient.enterprise.channel.OChannel;
 import com.orientechnologies.orient.server.OServer;
+import com.orientechnologies.orient.server.network.OServerEventLoop;
 import com.orientechnologies.orient.server.network.OServerNetworkListener;
 
 public abstract class ONetworkProtocol extends OSoftThread {
-  protected OServer server;
+  protected OServer                 server;
+  private volatile OServerEventLoop eventLoop;
 
   public ONetworkProtocol(final ThreadGroup group, final String name) {
     super(group, name);
@@ -55,4 +58,89 @@ public abstract class ONetworkProtocol extends OSoftThread {
   public OServer getServer() {
     return server;
   }
+
+  /**
+   * Tells if the connection can be served by the event loops of the listener instead of by this thread.
+   *
+   * @see #executeReceivedRequests()
+   */
+  public boolean isEventLoopSupported() {
+    return false;
+  }
+
+  /**
+   * Returns how long (in ms) a connection served by an event loop can wait for its next request before being closed, 0 to wait
+   * forever as the thread of a connection does on a socket without timeout.
+   */
+  public int getIdleTimeout() {
+    return 0;
+  }
+
+  /**
+   * Called by the event loop when the connection has waited for its next request longer than the idle timeout.
+   *
+   * @see #getIdleTimeout()
+   */
+  public void idleTimeout() {
+    sendShutdown();
+  }
+
+  /**
+   * Executes all the requests already received by the connection, when it's served by an event loop instead of by this thread.
+   * Closes the connection if its shutdown has been requested or its channel has been closed.
+   *
+   * @return false if the connection has been closed
+   */
+  public boolean executeReceivedRequests() {
+    final SocketChannel socketChannel = getChannel().socket.getChannel();
+    while (!isShutdownFlag() && socketChannel.isOpen()) {
+      try {
+        beforeExecution();
+        execute();
+        afterExecution();
+      } catch (Throwable t) {
+        if (isDumpExceptions())
+          t.printStackTrace();
+      }
+
+      try {
+        if (!isShutdownFlag() && socketChannel.isOpen() && getChannel().inStream.available() <= 0)
+          // WAIT FOR THE NEXT REQUEST IN THE EVENT LOOP
+          return true;
+      } catch (IOException e) {
+        sendShutdown();
+      }
+    }
+
+    shutdown();
+    return false;
+  }
+
+  @Override
+  public void sendShutdown() {
+    super.sendShutdown();
+
+    final OServerEventLoop loop = eventLoop;
+    if (loop != null) {
+      try {
+        // A WORKER WAITING FOR THE REST OF A REQUEST READS THE END OF THE STREAM, THE RESPONSES CAN STILL BE WRITTEN
+        getChannel().socket.shutdownInput();
+      } catch (IOException e) {
+        // ALREADY CLOSED
+      }
+      loop.wakeup(this);
+    }
+  }
+
+  /**
+   * Starts serving the connection with the passed event loop, or with this thread if it's null.
+   */
+  protected void start(final OServerEventLoop iEventLoop) {
+    if (iEventLoop == null)
+      start();
+    else {
+      eventLoop = iEventLoop;
+      iEventLoop.register(this);
+    }
+  }
 }
@@ -46,16 +46,16 @@ import java.util.concurrent.atomic.AtomicBoolean;
  */
 public class OAsyncCommandResultListener extends OAbstractCommandResultListener {
 
-  private final ONetworkProtocolBinary protocol;
+  private final OBinaryRequestExecutor protocol;
   private final AtomicBoolean          empty       = new AtomicBoolean(true);
   private final int                    txId;
   private final Set<ORID>              alreadySent = new HashSet<ORID>();
   private final OClientConnection      connection;
 
-  public OAsyncCommandResultListener(OClientConnection connection, final ONetworkProtocolBinary iNetworkProtocolBinary, final int txId,
+  public OAsyncCommandResultListener(OClientConnection connection, final OBinaryRequestExecutor iExecutor, final int txId,
       final OCommandResultListener wrappedResultListener) {
     super(wrappedResultListener);
-    this.protocol = iNetworkProtocolBinary;
+    this.protocol = iExecutor;
     this.txId = txId;
     this.connection = connection;
   }
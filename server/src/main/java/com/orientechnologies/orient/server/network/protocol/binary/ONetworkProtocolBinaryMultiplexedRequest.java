@@ -0,0 +1,95 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.server.network.protocol.binary;
+
+import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinaryFrame;
+import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinaryProtocol;
+import com.orientechnologies.orient.enterprise.channel.binary.ONetworkProtocolException;
+
+/**
+ * Executes one multiplexed request of a connection on its own channel in memory, so more requests of the connection can be executed
+ * at the same time. The client connections stay bound to the protocol of the connection, that receives their push messages.
+ */
+class ONetworkProtocolBinaryMultiplexedRequest extends OBinaryRequestExecutor {
+  private final OChannelBinaryFrame frame;
+  private final byte                type;
+
+  ONetworkProtocolBinaryMultiplexedRequest(final ONetworkProtocolBinary iProtocol, final byte[] iRequest) {
+    this(iProtocol, new OChannelBinaryFrame(iProtocol.getChannel(), iRequest), iRequest[0]);
+  }
+
+  private ONetworkProtocolBinaryMultiplexedRequest(final ONetworkProtocolBinary iProtocol, final OChannelBinaryFrame iFrame,
+      final byte iType) {
+    super(iProtocol, iFrame);
+    frame = iFrame;
+    type = iType;
+  }
+
+  /**
+   * Tells if a request can be multiplexed: the handshakes and the requests that bind the connection to the session for the push
+   * messages must be sent as regular requests.
+   */
+  public static boolean isMultiplexable(final byte iRequestType) {
+    switch (iRequestType) {
+    case OChannelBinaryProtocol.REQUEST_DB_SIZE:
+    case OChannelBinaryProtocol.REQUEST_DB_COUNTRECORDS:
+    case OChannelBinaryProtocol.REQUEST_DATACLUSTER_COUNT:
+    case OChannelBinaryProtocol.REQUEST_DATACLUSTER_DATARANGE:
+    case OChannelBinaryProtocol.REQUEST_RECORD_METADATA:
+    case OChannelBinaryProtocol.REQUEST_RECORD_LOAD:
+    case OChannelBinaryProtocol.REQUEST_RECORD_LOAD_IF_VERSION_NOT_LATEST:
+    case OChannelBinaryProtocol.REQUEST_RECORD_LOAD_MULTI:
+    case OChannelBinaryProtocol.REQUEST_RECORD_CREATE:
+    case OChannelBinaryProtocol.REQUEST_RECORD_UPDATE:
+    case OChannelBinaryProtocol.REQUEST_RECORD_DELETE:
+    case OChannelBinaryProtocol.REQUEST_RECORD_HIDE:
+    case OChannelBinaryProtocol.REQUEST_RECORD_CLEAN_OUT:
+    case OChannelBinaryProtocol.REQUEST_POSITIONS_HIGHER:
+    case OChannelBinaryProtocol.REQUEST_POSITIONS_LOWER:
+    case OChannelBinaryProtocol.REQUEST_POSITIONS_FLOOR:
+    case OChannelBinaryProtocol.REQUEST_POSITIONS_CEILING:
+    case OChannelBinaryProtocol.REQUEST_TX_COMMIT:
+    case OChannelBinaryProtocol.REQUEST_CREATE_SBTREE_BONSAI:
+    case OChannelBinaryProtocol.REQUEST_SBTREE_BONSAI_GET:
+    case OChannelBinaryProtocol.REQUEST_SBTREE_BONSAI_FIRST_KEY:
+    case OChannelBinaryProtocol.REQUEST_SBTREE_BONSAI_GET_ENTRIES_MAJOR:
+    case OChannelBinaryProtocol.REQUEST_RIDBAG_GET_SIZE:
+      return true;
+    default:
+      return false;
+    }
+  }
+
+  public byte[] getResponse() {
+    return frame.getResponse();
+  }
+
+  @Override
+  public void execute() throws Exception {
+    if (isMultiplexable(type)) {
+      super.execute();
+      return;
+    }
+
+    requestType = channel.readByte();
+    clientTxId = channel.readInt();
+    sendError(null, clientTxId, new ONetworkProtocolException("Request " + requestType + " cannot be multiplexed"));
+  }
+}
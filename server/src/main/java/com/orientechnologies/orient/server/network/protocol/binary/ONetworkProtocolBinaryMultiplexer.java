@@ -0,0 +1,151 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.server.network.protocol.binary;
+
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.serialization.OBinaryProtocol;
+import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinary;
+import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinaryProtocol;
+import com.orientechnologies.orient.enterprise.channel.binary.ONetworkProtocolException;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Executes the multiplexed requests of a binary connection. Every request is received as a whole, tagged with its id, and it's
+ * executed by the workers while the connection receives the next ones. Every response is sent as soon as it's ready, tagged with
+ * the id of its request, so the responses can arrive out of order.
+ * <p>
+ * The requests of the same session are executed in the order they have been received, because they share the database of the
+ * session.
+ *
+ * @see OChannelBinaryProtocol#REQUEST_MULTIPLEXED
+ */
+public class ONetworkProtocolBinaryMultiplexer {
+  private final ONetworkProtocolBinary        protocol;
+  private final Map<Integer, Queue<Runnable>> sessions = new HashMap<Integer, Queue<Runnable>>();
+
+  public ONetworkProtocolBinaryMultiplexer(final ONetworkProtocolBinary iProtocol) {
+    protocol = iProtocol;
+  }
+
+  /**
+   * Submits a request received by the connection, it's executed after the previous requests of its session.
+   *
+   * @param iRequestId
+   *          id of the request, sent back with the response
+   * @param iRequest
+   *          the whole request, as it would be received by a regular connection
+   */
+  public void submit(final int iRequestId, final byte[] iRequest) {
+    if (iRequest == null || iRequest.length < OBinaryProtocol.SIZE_BYTE + OBinaryProtocol.SIZE_INT)
+      throw new ONetworkProtocolException("Invalid multiplexed request " + iRequestId);
+
+    // THE REQUEST STARTS WITH ITS TYPE AND ITS SESSION
+    final int sessionId = OBinaryProtocol.bytes2int(iRequest, OBinaryProtocol.SIZE_BYTE);
+
+    final Runnable request = new Runnable() {
+      @Override
+      public void run() {
+        execute(iRequestId, iRequest);
+      }
+    };
+
+    final Queue<Runnable> queue;
+    synchronized (sessions) {
+      final Queue<Runnable> pending = sessions.get(sessionId);
+      if (pending != null) {
+        // EXECUTED BY THE WORKER OF THE PREVIOUS REQUESTS OF THE SESSION
+        pending.add(request);
+        return;
+      }
+
+      queue = new LinkedList<Runnable>();
+      queue.add(request);
+      sessions.put(sessionId, queue);
+    }
+
+    Orient.instance().submit(new Runnable() {
+      @Override
+      public void run() {
+        executeSession(sessionId, queue);
+      }
+    });
+  }
+
+  private void executeSession(final int iSessionId, final Queue<Runnable> iQueue) {
+    Runnable request;
+    synchronized (sessions) {
+      request = iQueue.peek();
+    }
+
+    while (request != null) {
+      request.run();
+
+      synchronized (sessions) {
+        iQueue.poll();
+        request = iQueue.peek();
+        if (request == null)
+          sessions.remove(iSessionId);
+      }
+    }
+  }
+
+  private void execute(final int iRequestId, final byte[] iRequest) {
+    if (protocol.isShutdownFlag())
+      return;
+
+    final ONetworkProtocolBinaryMultiplexedRequest request = new ONetworkProtocolBinaryMultiplexedRequest(protocol, iRequest);
+    try {
+      request.execute();
+    } catch (Exception e) {
+      OLogManager.instance().debug(this, "Error on executing multiplexed request %d", e, iRequestId);
+    }
+
+    if (protocol.isShutdownFlag()) {
+      // THE REQUEST ASKED TO DROP THE CONNECTION
+      protocol.shutdown();
+      return;
+    }
+
+    final byte[] response = request.getResponse();
+    if (response.length == 0)
+      // REQUEST WITHOUT RESPONSE
+      return;
+
+    final OChannelBinary channel = protocol.getChannel();
+    channel.acquireWriteLock();
+    try {
+      channel.writeByte(OChannelBinaryProtocol.RESPONSE_MULTIPLEXED);
+      channel.writeInt(iRequestId);
+      channel.writeBytes(response);
+      channel.flush();
+    } catch (IOException e) {
+      OLogManager.instance().debug(this, "I/O Error on sending the response of multiplexed request %d", e, iRequestId);
+      protocol.shutdown();
+    } finally {
+      channel.releaseWriteLock();
+    }
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.server.network.protocol.binary;
+
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.query.live.OLiveQueryHook;
+import com.orientechnologies.orient.server.OClientConnection;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps track of the records loaded by the remote clients for their near cache, to push their invalidation when they're
+ * updated or deleted. The changes of the documents are received by subscribing to the live queries of every database, so the
+ * near cache works only when the live queries are enabled.
+ *
+ * @see OGlobalConfiguration#NETWORK_BINARY_NEAR_CACHE_MAX_TRACKED
+ * @see OGlobalConfiguration#QUERY_LIVE_SUPPORT
+ */
+public class OServerNearCacheManager {
+  // TOKEN OF THE LIVE QUERY SUBSCRIPTION, THE TOKENS OF THE LIVE QUERIES ARE RANDOM
+  private static final int                                     NEAR_CACHE_TOKEN = Integer.MIN_VALUE;
+
+  private final ConcurrentMap<String, OServerNearCacheTracker> trackers;
+
+  public OServerNearCacheManager() {
+    trackers = new ConcurrentHashMap<String, OServerNearCacheTracker>();
+  }
+
+  /**
+   * Keeps track of a record about to be loaded by a connection for the near cache of its client.
+   *
+   * @return true if the invalidation of the record will be pushed to the connection
+   */
+  public boolean track(final OClientConnection iConnection, final ORID iRid) {
+    final OServerNearCacheTracker tracker = getTracker(iConnection.getDatabase());
+    return tracker != null && tracker.track(iConnection, iRid);
+  }
+
+  /**
+   * Forgets the records loaded by a connection.
+   */
+  public void remove(final OClientConnection iConnection) {
+    for (OServerNearCacheTracker tracker : trackers.values())
+      tracker.remove(iConnection);
+  }
+
+  public int getTracked() {
+    int total = 0;
+    for (OServerNearCacheTracker tracker : trackers.values())
+      total += tracker.getTracked();
+    return total;
+  }
+
+  public void shutdown() {
+    trackers.clear();
+  }
+
+  private OServerNearCacheTracker getTracker(final ODatabaseDocumentInternal iDatabase) {
+    if (iDatabase == null || Boolean.FALSE.equals(iDatabase.getConfiguration().getValue(OGlobalConfiguration.QUERY_LIVE_SUPPORT)))
+      return null;
+
+    final String name = iDatabase.getName();
+    OServerNearCacheTracker tracker = trackers.get(name);
+    if (tracker != null && tracker.getStorage() == iDatabase.getStorage())
+      return tracker;
+
+    synchronized (this) {
+      tracker = trackers.get(name);
+      if (tracker == null || tracker.getStorage() != iDatabase.getStorage()) {
+        // FIRST RECORD LOADED OR DATABASE REOPENED: THE PREVIOUS SUBSCRIPTION IS LOST WITH ITS STORAGE
+        tracker = new OServerNearCacheTracker(iDatabase.getStorage(),
+            OGlobalConfiguration.NETWORK_BINARY_NEAR_CACHE_MAX_TRACKED.getValueAsInteger());
+        if (OLiveQueryHook.subscribe(NEAR_CACHE_TOKEN, tracker, iDatabase) < 0)
+          return null;
+        trackers.put(name, tracker);
+      }
+      return tracker;
+    }
+  }
+}
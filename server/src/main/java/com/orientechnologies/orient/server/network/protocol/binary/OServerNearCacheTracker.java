@@ -0,0 +1,206 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.server.network.protocol.binary;
+
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.orient.core.db.record.ORecordOperation;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.query.live.OLiveQueryListener;
+import com.orientechnologies.orient.core.storage.OStorage;
+import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinary;
+import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinaryProtocol;
+import com.orientechnologies.orient.server.OClientConnection;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records of a database loaded by the connections for the near cache of their clients. It receives the changes of the documents
+ * as a live query subscriber and pushes the invalidation of an updated or deleted record to the connections that loaded it. A
+ * record is tracked again when it's loaded again after its invalidation.
+ *
+ * @see OServerNearCacheManager
+ */
+public class OServerNearCacheTracker implements OLiveQueryListener {
+  private final OStorage                          storage;
+  private final int                               maxTracked;
+  private final Map<ORID, Set<OClientConnection>> readers = new HashMap<ORID, Set<OClientConnection>>();
+  private final Map<OClientConnection, Set<ORID>> tracked = new HashMap<OClientConnection, Set<ORID>>();
+  private volatile boolean                        closed  = false;
+
+  public OServerNearCacheTracker(final OStorage iStorage, final int iMaxTracked) {
+    storage = iStorage;
+    maxTracked = iMaxTracked;
+  }
+
+  public OStorage getStorage() {
+    return storage;
+  }
+
+  /**
+   * Keeps track of a record loaded by a connection. It must be called before loading the record, so an update committed while the
+   * record is loaded is not missed.
+   *
+   * @return false if the invalidations cannot be sent anymore
+   */
+  public boolean track(final OClientConnection iConnection, final ORID iRid) {
+    if (closed)
+      return false;
+
+    boolean overflow = false;
+    synchronized (this) {
+      Set<ORID> rids = tracked.get(iConnection);
+      if (rids == null) {
+        rids = new HashSet<ORID>();
+        tracked.put(iConnection, rids);
+      } else if (rids.size() >= maxTracked) {
+        // THE CLIENT CLEARS ITS NEAR CACHE AND THE TRACKING STARTS AGAIN
+        untrack(iConnection, rids);
+        rids.clear();
+        overflow = true;
+      }
+
+      final ORID rid = iRid.copy();
+      if (rids.add(rid)) {
+        Set<OClientConnection> connections = readers.get(rid);
+        if (connections == null) {
+          connections = new HashSet<OClientConnection>();
+          readers.put(rid, connections);
+        }
+        connections.add(iConnection);
+      }
+    }
+
+    if (overflow)
+      pushClear(iConnection);
+    return true;
+  }
+
+  /**
+   * Forgets the records loaded by a connection, when it's closed.
+   */
+  public synchronized void remove(final OClientConnection iConnection) {
+    final Set<ORID> rids = tracked.remove(iConnection);
+    if (rids != null)
+      untrack(iConnection, rids);
+  }
+
+  public synchronized int getTracked() {
+    return readers.size();
+  }
+
+  @Override
+  public void onLiveResult(final ORecordOperation iOp) {
+    if (iOp.type == ORecordOperation.CREATED)
+      return;
+
+    final ORID rid = iOp.getRecord().getIdentity();
+    final Set<OClientConnection> connections;
+    synchronized (this) {
+      connections = readers.remove(rid);
+      if (connections == null)
+        return;
+
+      for (OClientConnection connection : connections) {
+        final Set<ORID> rids = tracked.get(connection);
+        if (rids != null)
+          rids.remove(rid);
+      }
+    }
+
+    for (OClientConnection connection : connections)
+      pushInvalidation(connection, rid);
+  }
+
+  @Override
+  public void onLiveResultEnd() {
+    // UNSUBSCRIBED: THE CLIENTS CANNOT RELY ON THEIR NEAR CACHE ANYMORE
+    closed = true;
+    final List<OClientConnection> connections;
+    synchronized (this) {
+      connections = new ArrayList<OClientConnection>(tracked.keySet());
+      tracked.clear();
+      readers.clear();
+    }
+
+    for (OClientConnection connection : connections)
+      pushClear(connection);
+  }
+
+  private void untrack(final OClientConnection iConnection, final Set<ORID> iRids) {
+    for (ORID rid : iRids) {
+      final Set<OClientConnection> connections = readers.get(rid);
+      if (connections != null) {
+        connections.remove(iConnection);
+        if (connections.isEmpty())
+          readers.remove(rid);
+      }
+    }
+  }
+
+  private void pushInvalidation(final OClientConnection iConnection, final ORID iRid) {
+    final ByteArrayOutputStream content = new ByteArrayOutputStream();
+    final DataOutputStream out = new DataOutputStream(content);
+    try {
+      out.writeByte('i');
+      out.writeInt(1);
+      out.writeShort((short) iRid.getClusterId());
+      out.writeLong(iRid.getClusterPosition());
+    } catch (IOException e) {
+      // NEVER HAPPENS WRITING IN MEMORY
+    }
+    push(iConnection, content.toByteArray());
+  }
+
+  private void pushClear(final OClientConnection iConnection) {
+    push(iConnection, new byte[] { 'c' });
+  }
+
+  private void push(final OClientConnection iConnection, final byte[] iContent) {
+    if (!(iConnection.getProtocol() instanceof ONetworkProtocolBinary))
+      return;
+
+    final OChannelBinary channel = ((ONetworkProtocolBinary) iConnection.getProtocol()).getChannel();
+    try {
+      channel.acquireWriteLock();
+      try {
+        channel.writeByte(OChannelBinaryProtocol.PUSH_DATA);
+        channel.writeInt(Integer.MIN_VALUE);
+        channel.writeByte(OChannelBinaryProtocol.REQUEST_PUSH_NEAR_CACHE);
+        channel.writeBytes(iContent);
+        channel.flush();
+      } finally {
+        channel.releaseWriteLock();
+      }
+    } catch (Exception e) {
+      // THE CLIENT CLEARS ITS NEAR CACHE WHEN THE CONNECTION IS CLOSED
+      OLogManager.instance().debug(this, "Cannot push the near cache invalidation to the client %s", e,
+          iConnection.getRemoteAddress());
+      remove(iConnection);
+    }
+  }
+}
@@ -0,0 +1,275 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.server.network.protocol.binary;
+
+import com.orientechnologies.common.exception.OException;
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.fetch.remote.ORemoteFetchListener;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.query.OSQLAsynchQuery;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinary;
+import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinaryFrame;
+import com.orientechnologies.orient.server.OClientConnection;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query kept open on the server while its client fetches the result page by page. The query is executed by a worker of the
+ * cursor manager on a copy of the database of the connection: every result is serialized as soon as it's produced and it waits in
+ * a queue as big as a page, so the query is suspended while its client doesn't fetch the next page.
+ *
+ * @see OServerQueryCursorManager
+ */
+public class OServerQueryCursor extends OAbstractCommandResultListener {
+  private static final Object          END        = new Object();
+  private static final byte[]          NO_REQUEST = new byte[0];
+
+  private final int                    id;
+  private final OClientConnection      connection;
+  private final OChannelBinary         channel;
+  private final OBinaryRequestExecutor serializer;
+  private final BlockingQueue<Object>  queue;
+  private final Set<ORID>              alreadySent = new HashSet<ORID>();
+  private volatile boolean             closed      = false;
+  private volatile boolean             fetching    = false;
+  private volatile long                lastUsed    = System.currentTimeMillis();
+  private boolean                      completed   = false;
+
+  public OServerQueryCursor(final int iId, final OClientConnection iConnection, final ONetworkProtocolBinary iProtocol,
+      final int iPageSize) {
+    super(null);
+    id = iId;
+    connection = iConnection;
+    channel = iProtocol.getChannel();
+    serializer = new OBinaryRequestExecutor(iProtocol, channel);
+    queue = new ArrayBlockingQueue<Object>(Math.max(iPageSize, 1));
+  }
+
+  /**
+   * Starts the query on a worker. The first results are ready to be fetched as soon as they're produced.
+   *
+   * @param iQuery
+   *          query to execute
+   * @param iProducers
+   *          workers that execute the queries of the cursors
+   */
+  public void open(final OSQLSynchQuery<?> iQuery, final ExecutorService iProducers) {
+    final OSQLAsynchQuery<Object> query = new OSQLAsynchQuery<Object>(iQuery.getText());
+    query.setFetchPlan(iQuery.getFetchPlan());
+    query.setLimit(iQuery.getLimit());
+    query.setTimeout(iQuery.getTimeoutTime(), iQuery.getTimeoutStrategy());
+    query.setUseCache(iQuery.isUseCache());
+    query.setCacheableResult(true);
+    query.setResultListener(this);
+
+    final long serverTimeout = OGlobalConfiguration.COMMAND_TIMEOUT.getValueAsLong();
+    if (serverTimeout > 0 && query.getTimeoutTime() > serverTimeout)
+      // FORCE THE SERVER'S TIMEOUT
+      query.setTimeout(serverTimeout, query.getTimeoutStrategy());
+
+    setFetchPlan(query.getFetchPlan());
+
+    final Map<Object, Object> params = iQuery.getParameters();
+    final ODatabaseDocumentTx db = ((ODatabaseDocumentTx) connection.getDatabase()).copy();
+    connection.getDatabase().activateOnCurrentThread();
+
+    try {
+      iProducers.execute(new Runnable() {
+        @Override
+        public void run() {
+          db.activateOnCurrentThread();
+          try {
+            if (params == null)
+              db.command(query).execute();
+            else
+              db.command(query).execute(params);
+            enqueue(END);
+          } catch (Throwable t) {
+            enqueue(t);
+          } finally {
+            db.close();
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      db.activateOnCurrentThread();
+      db.close();
+      connection.getDatabase().activateOnCurrentThread();
+      throw OException.wrapException(new OCommandExecutionException("Cannot open more than "
+          + OGlobalConfiguration.NETWORK_BINARY_CURSOR_MAX.getValueAsInteger()
+          + " query cursors on the server: fetch or close the previous ones (see '"
+          + OGlobalConfiguration.NETWORK_BINARY_CURSOR_MAX.getKey() + "')"), e);
+    }
+  }
+
+  @Override
+  public boolean result(final Object iRecord) {
+    if (closed)
+      // STOP THE QUERY
+      return false;
+
+    final OChannelBinaryFrame frame = new OChannelBinaryFrame(channel, NO_REQUEST);
+    serializer.setChannel(frame);
+    try {
+      fetchRecord(iRecord, new ORemoteFetchListener() {
+        @Override
+        protected void sendRecord(ORecord iLinked) {
+          if (alreadySent.add(iLinked.getIdentity())) {
+            try {
+              frame.writeByte((byte) 2); // CACHE IT ON THE CLIENT
+              serializer.writeIdentifiable(connection, iLinked);
+            } catch (IOException e) {
+              OLogManager.instance().error(this, "Cannot serialize record %s", e, iLinked.getIdentity());
+            }
+          }
+        }
+      });
+      alreadySent.add(((OIdentifiable) iRecord).getIdentity());
+      frame.writeByte((byte) 1); // ONE MORE RECORD
+      serializer.writeIdentifiable(connection, ((OIdentifiable) iRecord).getRecord());
+    } catch (IOException e) {
+      return false;
+    }
+
+    return enqueue(frame.getResponse());
+  }
+
+  /**
+   * Waits for the next page of results. The cursor is completed once the last result has been fetched.
+   *
+   * @param iPageSize
+   *          maximum number of results to fetch
+   * @return the results, every one serialized with the records of its fetch plan as in an asynchronous query
+   */
+  public synchronized List<byte[]> fetch(final int iPageSize) {
+    fetching = true;
+    try {
+      final List<byte[]> page = new ArrayList<byte[]>();
+      while (!completed && page.size() < iPageSize) {
+        final Object item = queue.poll(1, TimeUnit.SECONDS);
+        if (item == null) {
+          if (closed)
+            throw new OCommandExecutionException("Query cursor " + id + " has been closed");
+          continue;
+        }
+
+        if (item == END)
+          completed = true;
+        else if (item instanceof Throwable) {
+          completed = true;
+          if (item instanceof RuntimeException)
+            throw (RuntimeException) item;
+          throw OException.wrapException(new OCommandExecutionException("Error on executing the query of cursor " + id),
+              (Throwable) item);
+        } else
+          page.add((byte[]) item);
+      }
+      return page;
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw OException.wrapException(new OCommandExecutionException("Fetch of query cursor " + id + " interrupted"), e);
+    } finally {
+      lastUsed = System.currentTimeMillis();
+      fetching = false;
+    }
+  }
+
+  /**
+   * Stops the query. The results not fetched yet are discarded.
+   */
+  public void close() {
+    closed = true;
+    queue.clear();
+  }
+
+  public int getId() {
+    return id;
+  }
+
+  public synchronized boolean isCompleted() {
+    return completed;
+  }
+
+  /**
+   * Tells if the client hasn't fetched the cursor for more than the timeout.
+   */
+  public boolean isIdle(final long iNow, final long iTimeout) {
+    return !fetching && iNow - lastUsed > iTimeout;
+  }
+
+  /**
+   * Tells if the cursor has been opened by a connection.
+   */
+  public boolean isOpenedBy(final OClientConnection iConnection) {
+    return connection == iConnection;
+  }
+
+  /**
+   * Tells if the cursor can be fetched by a connection: by the connection that opened it or by another connection of the same
+   * token based session.
+   */
+  public boolean isOwnedBy(final OClientConnection iConnection) {
+    if (connection == iConnection)
+      return true;
+    return Boolean.TRUE.equals(connection.getTokenBased()) && Boolean.TRUE.equals(iConnection.getTokenBased())
+        && Arrays.equals(connection.getTokenBytes(), iConnection.getTokenBytes());
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return alreadySent.isEmpty();
+  }
+
+  @Override
+  public void linkdedBySimpleValue(final ODocument doc) {
+    // THE RESULTS OF A QUERY ARE ALWAYS RECORDS
+  }
+
+  private boolean enqueue(final Object iItem) {
+    try {
+      // CHECK THE CURSOR IS STILL OPEN EVERY SECOND, UNTIL ITS CLIENT FETCHES THE PREVIOUS RESULTS
+      while (!closed)
+        if (queue.offer(iItem, 1, TimeUnit.SECONDS))
+          return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return false;
+  }
+}
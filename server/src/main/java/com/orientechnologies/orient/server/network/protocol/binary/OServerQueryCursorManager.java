@@ -0,0 +1,182 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.server.network.protocol.binary;
+
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+import com.orientechnologies.orient.server.OClientConnection;
+
+import java.util.Iterator;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Query cursors open on the server. A cursor is closed when its last page is fetched, when its client closes it or when its client
+ * doesn't fetch it for longer than the timeout. The number of cursors open by the same connection is limited. The queries of the
+ * cursors are executed by a bounded pool of workers, that keeps the idle threads for a while to serve the next cursors.
+ *
+ * @see OGlobalConfiguration#NETWORK_BINARY_CURSOR_TIMEOUT
+ * @see OGlobalConfiguration#NETWORK_BINARY_CURSOR_MAX_PER_CONNECTION
+ * @see OGlobalConfiguration#NETWORK_BINARY_CURSOR_MAX
+ */
+public class OServerQueryCursorManager {
+  private final AtomicInteger                              cursorSerial = new AtomicInteger(0);
+  private final ConcurrentMap<Integer, OServerQueryCursor> cursors      = new ConcurrentHashMap<Integer, OServerQueryCursor>();
+  private final TimerTask                                  timerTask;
+  private final ThreadPoolExecutor                         producers;
+
+  public OServerQueryCursorManager() {
+    final long timeout = OGlobalConfiguration.NETWORK_BINARY_CURSOR_TIMEOUT.getValueAsLong();
+
+    // EVERY OPEN CURSOR KEEPS ITS WORKER UNTIL ITS QUERY IS COMPLETED OR IT'S CLOSED: A NEW CURSOR IS REJECTED WHEN ALL ARE BUSY
+    producers = new ThreadPoolExecutor(0, OGlobalConfiguration.NETWORK_BINARY_CURSOR_MAX.getValueAsInteger(), 60,
+        TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+        new ThreadFactory() {
+          private final AtomicInteger counter = new AtomicInteger();
+
+          @Override
+          public Thread newThread(final Runnable r) {
+            final Thread thread = new Thread(Orient.instance().getThreadGroup(), r,
+                "OrientDB Query Cursor " + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          }
+        });
+
+    timerTask = new TimerTask() {
+      @Override
+      public void run() {
+        try {
+          closeIdleCursors(timeout);
+        } catch (Throwable e) {
+          OLogManager.instance().debug(this, "Error on query cursor purge task", e);
+        }
+      }
+    };
+
+    final long delay = Math.max(timeout / 2, 1000);
+    Orient.instance().scheduleTask(timerTask, delay, delay);
+  }
+
+  /**
+   * Opens a cursor over a query.
+   *
+   * @param iConnection
+   *          connection that opens the cursor
+   * @param iProtocol
+   *          protocol that serializes the results
+   * @param iQuery
+   *          query to execute
+   * @param iPageSize
+   *          number of results produced in advance, while the client doesn't fetch them
+   * @return the open cursor
+   * @throws OCommandExecutionException
+   *           if the connection or the server have too many cursors open
+   */
+  public OServerQueryCursor open(final OClientConnection iConnection, final ONetworkProtocolBinary iProtocol,
+      final OSQLSynchQuery<?> iQuery, final int iPageSize) {
+    final int max = OGlobalConfiguration.NETWORK_BINARY_CURSOR_MAX_PER_CONNECTION.getValueAsInteger();
+    int open = 0;
+    for (OServerQueryCursor cursor : cursors.values())
+      if (cursor.isOwnedBy(iConnection))
+        open++;
+    if (open >= max)
+      throw new OCommandExecutionException("Cannot open more than " + max
+          + " query cursors with the same connection: fetch or close the previous ones (see '"
+          + OGlobalConfiguration.NETWORK_BINARY_CURSOR_MAX_PER_CONNECTION.getKey() + "')");
+
+    final OServerQueryCursor cursor = new OServerQueryCursor(cursorSerial.incrementAndGet(), iConnection, iProtocol, iPageSize);
+    cursors.put(cursor.getId(), cursor);
+    try {
+      cursor.open(iQuery, producers);
+    } catch (RuntimeException e) {
+      close(cursor.getId());
+      throw e;
+    }
+    return cursor;
+  }
+
+  /**
+   * Returns a cursor open by a connection.
+   *
+   * @throws OCommandExecutionException
+   *           if the cursor is not open or it belongs to another session
+   */
+  public OServerQueryCursor get(final OClientConnection iConnection, final int iCursorId) {
+    final OServerQueryCursor cursor = cursors.get(iCursorId);
+    if (cursor == null || !cursor.isOwnedBy(iConnection))
+      throw new OCommandExecutionException("Query cursor " + iCursorId + " not found: it has been completed, closed or it expired");
+    return cursor;
+  }
+
+  public void close(final int iCursorId) {
+    final OServerQueryCursor cursor = cursors.remove(iCursorId);
+    if (cursor != null)
+      cursor.close();
+  }
+
+  /**
+   * Closes the cursors opened by a connection.
+   */
+  public void close(final OClientConnection iConnection) {
+    final Iterator<OServerQueryCursor> iterator = cursors.values().iterator();
+    while (iterator.hasNext()) {
+      final OServerQueryCursor cursor = iterator.next();
+      if (cursor.isOpenedBy(iConnection)) {
+        iterator.remove();
+        cursor.close();
+      }
+    }
+  }
+
+  public int getOpenCursors() {
+    return cursors.size();
+  }
+
+  public void closeIdleCursors(final long iTimeout) {
+    final long now = System.currentTimeMillis();
+    final Iterator<OServerQueryCursor> iterator = cursors.values().iterator();
+    while (iterator.hasNext()) {
+      final OServerQueryCursor cursor = iterator.next();
+      if (cursor.isIdle(now, iTimeout)) {
+        OLogManager.instance().debug(this, "Closing query cursor %d not fetched for more than %dms", cursor.getId(), iTimeout);
+        iterator.remove();
+        cursor.close();
+      }
+    }
+  }
+
+  public void shutdown() {
+    timerTask.cancel();
+    for (OServerQueryCursor cursor : cursors.values())
+      cursor.close();
+    cursors.clear();
+    producers.shutdown();
+  }
+}
@@ -610,5 +610,14 @@ public class OHttpResponse {
   public void setStreaming(boolean streaming) {
     this.streaming = streaming;
   }
+
+  /**
+   * Tells if the records of a query can be sent while the query produces them.
+   *
+   * @see OHttpResponseStreamer
+   */
+  public boolean isStreamable(final String iAccept) {
+    return streaming && callbackFunction == null && code == 0 && (iAccept == null || !iAccept.contains("text/csv"));
+  }
   
 }
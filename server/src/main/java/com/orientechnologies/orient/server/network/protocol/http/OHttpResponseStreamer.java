@@ -0,0 +1,196 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.server.network.protocol.http;
+
+import com.orientechnologies.common.collection.OMultiValue;
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.orient.core.command.OCommandResultListener;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.serialization.serializer.OJSONWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Sends the results of a query to the HTTP client while the query produces them, instead of collecting the whole result before
+ * sending it. Every record is serialized to JSON and written to a chunked response, so the memory used doesn't depend on the
+ * number of results. The response starts with the first result, so an error raised before it is sent as a regular error response.
+ *
+ * @see OHttpResponse#isStreamable(String)
+ */
+public class OHttpResponseStreamer implements OCommandResultListener {
+  private static final Charset  utf8     = Charset.forName("utf8");
+
+  private final OHttpResponse   response;
+  private final String          fetchPlan;
+  private final String          additionalFormat;
+  private String                format;
+  private OChunkedResponse      chunked;
+  private OutputStream          encoded;
+  private Writer                writer;
+  private int                   counter  = 0;
+  private boolean               finished = false;
+
+  /**
+   * @param iResponse
+   *          response where to send the results
+   * @param iFetchPlan
+   *          fetch plan of the query, null to use the default one
+   * @param iFormat
+   *          additional JSON format of the records, null to use the default one
+   */
+  public OHttpResponseStreamer(final OHttpResponse iResponse, final String iFetchPlan, final String iFormat) {
+    response = iResponse;
+    fetchPlan = iFetchPlan;
+    additionalFormat = iFormat;
+  }
+
+  @Override
+  public boolean result(final Object iRecord) {
+    try {
+      if (writer == null)
+        begin();
+
+      if (iRecord instanceof OIdentifiable) {
+        final ORecord record = ((OIdentifiable) iRecord).getRecord();
+        if (record == null)
+          return true;
+
+        separate();
+        writer.write(record.toJSON(format));
+      } else if (iRecord != null) {
+        separate();
+        if (OMultiValue.isMultiValue(iRecord)) {
+          writer.write('[');
+          response.formatMultiValue(OMultiValue.getMultiValueIterator(iRecord), writer, format);
+          writer.write(']');
+        } else
+          writer.write(OJSONWriter.writeValue(iRecord, format));
+      }
+
+      if (counter == 1)
+        // THE CLIENT RECEIVES THE FIRST RESULT WITHOUT WAITING FOR THE NEXT ONES
+        writer.flush();
+      return true;
+
+    } catch (IOException e) {
+      // THE CLIENT HAS CLOSED THE CONNECTION: THE QUERY IS INTERRUPTED
+      OLogManager.instance().debug(this, "HTTP response: error on streaming the results of the query", e);
+      return false;
+    }
+  }
+
+  @Override
+  public void end() {
+  }
+
+  @Override
+  public Object getResult() {
+    return null;
+  }
+
+  /**
+   * Tells if the response has started, so an error can't be sent anymore.
+   */
+  public boolean isStarted() {
+    return writer != null;
+  }
+
+  /**
+   * Closes the result and sends the additional properties after it.
+   */
+  public void finish(final Map<String, Object> iAdditionalProperties) throws IOException {
+    if (finished)
+      return;
+
+    if (writer == null)
+      begin();
+    finished = true;
+
+    final OJSONWriter json = new OJSONWriter(writer, format);
+    writer.write(']');
+    if (iAdditionalProperties != null)
+      for (Map.Entry<String, Object> entry : iAdditionalProperties.entrySet()) {
+        final Object v = entry.getValue();
+        if (OMultiValue.isMultiValue(v)) {
+          writer.write("," + OJSONWriter.writeValue(entry.getKey(), format) + ":[");
+          response.formatMultiValue(OMultiValue.getMultiValueIterator(v), writer, format);
+          writer.write(']');
+        } else {
+          writer.write(',');
+          json.writeAttribute(entry.getKey(), v);
+        }
+      }
+    writer.write('}');
+    writer.flush();
+
+    if (encoded != chunked)
+      ((GZIPOutputStream) encoded).finish();
+    chunked.close();
+    response.flush();
+  }
+
+  /**
+   * Interrupts a response already started after an error: the connection is closed without completing the response, so the client
+   * doesn't take the partial result as complete.
+   */
+  public void abort() {
+    finished = true;
+    response.keepAlive = false;
+    try {
+      response.getOutputStream().close();
+    } catch (IOException e) {
+      OLogManager.instance().debug(this, "HTTP response: error on closing the interrupted response", e);
+    }
+  }
+
+  private void begin() throws IOException {
+    format = additionalFormat != null ? OHttpResponse.JSON_FORMAT + "," + additionalFormat : OHttpResponse.JSON_FORMAT;
+    if (fetchPlan != null)
+      format += ",fetchPlan:" + fetchPlan;
+
+    response.sendStarted = true;
+    response.writeStatus(OHttpUtils.STATUS_OK_CODE, "OK");
+    response.writeHeaders(OHttpUtils.CONTENT_JSON, response.keepAlive);
+    response.writeLine("Transfer-Encoding: chunked");
+    if (response.sessionId != null)
+      response.writeLine("Set-Cookie: " + OHttpUtils.OSESSIONID + "=" + response.sessionId + "; Path=/; HttpOnly");
+    response.writeLine(null);
+
+    chunked = new OChunkedResponse(response);
+    if (OHttpUtils.CONTENT_ACCEPT_GZIP_ENCODED.equals(response.getContentEncoding()))
+      encoded = new GZIPOutputStream(chunked, 16384);
+    else
+      encoded = chunked;
+    writer = new OutputStreamWriter(encoded, utf8);
+    writer.write("{\"result\":[");
+  }
+
+  private void separate() throws IOException {
+    if (counter++ > 0)
+      writer.write(", ");
+  }
+}
@@ -114,7 +114,29 @@ public abstract class ONetworkProtocolHttpAbstract extends ONetworkProtocol {
 
     listeningAddress = getListeningAddress();
 
-    start();
+    start(iListener != null ? iListener.nextEventLoop() : null);
+  }
+
+  /**
+   * Requests are framed by their headers, so keep-alive connections are served by the event loops between requests and the
+   * pipelined requests already received are executed in order by the same worker.
+   */
+  @Override
+  public boolean isEventLoopSupported() {
+    return true;
+  }
+
+  /**
+   * An idle keep-alive connection is closed after the socket timeout, as when it's served by its own thread.
+   */
+  @Override
+  public int getIdleTimeout() {
+    return socketTimeout;
+  }
+
+  @Override
+  public void idleTimeout() {
+    timeout();
   }
 
   public void service() throws ONetworkProtocolException, IOException {
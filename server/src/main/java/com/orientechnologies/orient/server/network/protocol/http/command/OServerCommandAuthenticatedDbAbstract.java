@@ -38,7 +38,9 @@ import com.orientechnologies.orient.server.network.protocol.http.*;
 
 import java.io.IOException;
 import java.net.URLDecoder;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Database based authenticated command. Authenticates against the database taken as second parameter of the URL. The URL must be in
@@ -263,6 +265,18 @@ public abstract class OServerCommandAuthenticatedDbAbstract extends OServerComma
     return (ODatabaseDocumentTx) localDatabase.getDatabaseOwner();
   }
 
+  /**
+   * Returns the additional content of the response with the tips collected by the command as warnings, null if there are no tips.
+   */
+  protected Map<String, Object> getWarnings(final Object iTips) {
+    if (iTips == null)
+      return null;
+
+    final Map<String, Object> additionalContent = new HashMap<String, Object>(1);
+    additionalContent.put("warnings", iTips);
+    return additionalContent;
+  }
+
   private void init() {
     if (tokenHandler == null && OGlobalConfiguration.NETWORK_HTTP_USE_TOKEN.getValueAsBoolean()) {
       tokenHandler = server.getTokenHandler();
@@ -24,14 +24,14 @@ import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.query.OQueryAbstract;
 import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.query.OSQLAsynchQuery;
 import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
 import com.orientechnologies.orient.server.network.protocol.http.OHttpRequest;
 import com.orientechnologies.orient.server.network.protocol.http.OHttpResponse;
+import com.orientechnologies.orient.server.network.protocol.http.OHttpResponseStreamer;
 import com.orientechnologies.orient.server.network.protocol.http.command.OServerCommandAuthenticatedDbAbstract;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public class OServerCommandGetQuery extends OServerCommandAuthenticatedDbAbstract {
   private static final String[] NAMES = { "GET|query/*" };
@@ -59,6 +59,30 @@ public class OServerCommandGetQuery extends OServerCommandAuthenticatedDbAbstrac
     try {
       db = getProfiledDatabaseInstance(iRequest);
 
+      if (iRequest.getHeader("TE") != null)
+        iResponse.setStreaming(true);
+
+      if (iResponse.isStreamable(accept)) {
+        // THE RECORDS ARE SENT WHILE THE QUERY PRODUCES THEM
+        final OSQLAsynchQuery<ODocument> query = new OSQLAsynchQuery<ODocument>(text, limit, null);
+        query.setFetchPlan(fetchPlan);
+
+        // REQUEST CAN'T MODIFY THE RESULT, SO IT'S CACHEABLE
+        query.setCacheableResult(true);
+
+        final OHttpResponseStreamer streamer = new OHttpResponseStreamer(iResponse, fetchPlan, null);
+        query.setResultListener(streamer);
+        try {
+          db.query(query);
+          streamer.finish(getWarnings(query.getContext().getVariable("tips")));
+        } catch (RuntimeException e) {
+          if (streamer.isStarted())
+            streamer.abort();
+          throw e;
+        }
+        return false;
+      }
+
       final OQueryAbstract command = new OSQLSynchQuery<ODocument>(text, limit).setFetchPlan(fetchPlan);
 
       // REQUEST CAN'T MODIFY THE RESULT, SO IT'S CACHEABLE
@@ -67,15 +91,7 @@ public class OServerCommandGetQuery extends OServerCommandAuthenticatedDbAbstrac
       response = (List<OIdentifiable>) db.query(command);
       fetchPlan = command.getFetchPlan();
 
-      Map<String, Object> additionalContent = null;
-
-      final List<String> tips = (List<String>) command.getContext().getVariable("tips");
-      if (tips != null) {
-        additionalContent = new HashMap<String, Object>(1);
-        additionalContent.put("warnings", tips);
-      }
-
-      iResponse.writeRecords(response, fetchPlan, null, accept, additionalContent);
+      iResponse.writeRecords(response, fetchPlan, null, accept, getWarnings(command.getContext().getVariable("tips")));
 
     } finally {
       if (db != null)
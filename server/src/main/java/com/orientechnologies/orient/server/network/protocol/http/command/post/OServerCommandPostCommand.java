@@ -25,14 +25,14 @@ import com.orientechnologies.orient.core.command.OCommandRequestText;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
 import com.orientechnologies.orient.core.exception.OCommandExecutionException;
 import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OCommandExecutorSQLDelegate;
+import com.orientechnologies.orient.core.sql.OCommandExecutorSQLSelect;
 import com.orientechnologies.orient.server.network.protocol.http.OHttpRequest;
 import com.orientechnologies.orient.server.network.protocol.http.OHttpResponse;
+import com.orientechnologies.orient.server.network.protocol.http.OHttpResponseStreamer;
 import com.orientechnologies.orient.server.network.protocol.http.command.OServerCommandAuthenticatedDbAbstract;
 
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 
 public class OServerCommandPostCommand extends OServerCommandAuthenticatedDbAbstract {
   private static final String[] NAMES = { "GET|command/*", "POST|command/*" };
@@ -99,9 +99,36 @@ public class OServerCommandPostCommand extends OServerCommandAuthenticatedDbAbst
       if (!executor.isIdempotent() && iRequest.httpMethod.equals("GET"))
         throw new OCommandExecutionException("Cannot execute non idempotent command using HTTP GET");
 
+      String format = null;
+      if (iRequest.parameters.get("format") != null)
+        format = iRequest.parameters.get("format");
+
+      if (iRequest.getHeader("TE") != null)
+        iResponse.setStreaming(true);
+
       // REQUEST CAN'T MODIFY THE RESULT, SO IT'S CACHEABLE
       cmd.setCacheableResult(true);
 
+      if ("sql".equalsIgnoreCase(language) && "resultset".equals(mode) && executor instanceof OCommandExecutorSQLDelegate
+          && ((OCommandExecutorSQLDelegate) executor).getDelegate() instanceof OCommandExecutorSQLSelect
+          && iResponse.isStreamable(accept)) {
+        // THE RECORDS ARE SENT WHILE THE QUERY PRODUCES THEM
+        final OHttpResponseStreamer streamer = new OHttpResponseStreamer(iResponse, executor.getFetchPlan(), format);
+        cmd.setResultListener(streamer);
+        try {
+          if (params == null)
+            db.command(cmd).execute();
+          else
+            db.command(cmd).execute(params);
+          streamer.finish(getWarnings(cmd.getContext().getVariable("tips")));
+        } catch (RuntimeException e) {
+          if (streamer.isStarted())
+            streamer.abort();
+          throw e;
+        }
+        return false;
+      }
+
       if (params == null) {
         response = db.command(cmd).execute();
       } else {
@@ -110,28 +137,13 @@ public class OServerCommandPostCommand extends OServerCommandAuthenticatedDbAbst
 
       fetchPlan = executor.getFetchPlan();
 
-      String format = null;
-      if (iRequest.parameters.get("format") != null)
-        format = iRequest.parameters.get("format");
-
       if (fetchPlan != null)
         if (format != null)
           format += ",fetchPlan:" + fetchPlan;
         else
           format = "fetchPlan:" + fetchPlan;
 
-      Map<String, Object> additionalContent = null;
-
-      final List<String> tips = (List<String>) executor.getContext().getVariable("tips");
-      if (tips != null) {
-        additionalContent = new HashMap<String, Object>(1);
-        additionalContent.put("warnings", tips);
-      }
-
-      if (iRequest.getHeader("TE") != null)
-        iResponse.setStreaming(true);
-      
-      iResponse.writeResult(response, format, accept, additionalContent, mode);
+      iResponse.writeResult(response, format, accept, getWarnings(executor.getContext().getVariable("tips")), mode);
 
     } finally {
       if (db != null) {
@@ -44,7 +44,7 @@ import com.orientechnologies.orient.core.tx.OTransactionRealAbstract;
 import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinary;
 import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinaryProtocol;
 import com.orientechnologies.orient.server.OClientConnection;
-import com.orientechnologies.orient.server.network.protocol.binary.ONetworkProtocolBinary;
+import com.orientechnologies.orient.server.network.protocol.binary.OBinaryRequestExecutor;
 
 import java.io.IOException;
 import java.util.*;
@@ -58,15 +58,15 @@ public class OTransactionOptimisticProxy extends OTransactionOptimistic {
   private final int                         clientTxId;
   private final OChannelBinary              channel;
   private final short                       protocolVersion;
-  private final ONetworkProtocolBinary      oNetworkProtocolBinary;
+  private final OBinaryRequestExecutor      executor;
   private final OClientConnection           connection;
 
-  public OTransactionOptimisticProxy(OClientConnection connection, ONetworkProtocolBinary protocolBinary) throws IOException {
+  public OTransactionOptimisticProxy(OClientConnection connection, OBinaryRequestExecutor iExecutor) throws IOException {
     super((ODatabaseDocumentTx) connection.getDatabase());
-    channel = protocolBinary.getChannel();
+    channel = iExecutor.getChannel();
     clientTxId = channel.readInt();
     this.protocolVersion = connection.getData().protocolVersion;
-    this.oNetworkProtocolBinary = protocolBinary;
+    this.executor = iExecutor;
     this.connection = connection;
   }
 
@@ -76,10 +76,20 @@ public class OTransactionOptimisticProxy extends OTransactionOptimistic {
     // Needed for keep the exception and insure that all data is read from the socket.
     OException toThrow = null;
 
+    // ERROR ON APPLYING A RECORD, THROWN AFTER HAVING READ THE WHOLE REQUEST
+    RuntimeException entryError = null;
+
     try {
       setUsingLog(channel.readByte() == 1);
-      Map<ORecord, byte[]> lazyDeserialize = new IdentityHashMap<ORecord, byte[]>();
 
+      String dbSerializerName = "";
+      if (database != null)
+        dbSerializerName = database.getSerializer().toString();
+
+      final String name = executor.getRecordSerializerName(connection);
+      final ORecordSerializer serializer = dbSerializerName.equals(name) ? null : ORecordSerializerFactory.instance().getFormat(name);
+
+      // EVERY RECORD IS APPLIED AS SOON AS IT'S RECEIVED, WHILE THE CLIENT IS STILL SENDING THE NEXT ONES
       byte lastTxStatus;
       for (lastTxStatus = channel.readByte(); lastTxStatus == 1; lastTxStatus = channel.readByte()) {
         final byte recordStatus = channel.readByte();
@@ -94,8 +104,12 @@ public class OTransactionOptimisticProxy extends OTransactionOptimistic {
         case ORecordOperation.CREATED:
           byte[] content = channel.readBytes();
           ORecordInternal.fill(entry.getRecord(), rid, 0, null, true);
-          // oNetworkProtocolBinary.fillRecord(rid, content, 0, entry.getRecord(), database);
-          lazyDeserialize.put(entry.getRecord(), content);
+          if (entryError == null)
+            try {
+              fillRecord(entry.getRecord(), content, serializer);
+            } catch (RuntimeException e) {
+              entryError = e;
+            }
 
           // SAVE THE RECORD TO RETRIEVE THEM FOR THE NEW RID TO SEND BACK TO THE REQUESTER
           createdRecords.put(rid.copy(), entry.getRecord());
@@ -105,10 +119,15 @@ public class OTransactionOptimisticProxy extends OTransactionOptimistic {
           int version = channel.readVersion();
           byte[] bytes = channel.readBytes();
           ORecordInternal.fill(entry.getRecord(), rid, version, null, true);
-          // oNetworkProtocolBinary.fillRecord(rid, bytes, version, entry.getRecord(), database);
-          lazyDeserialize.put(entry.getRecord(), bytes);
           if (protocolVersion >= 23)
             ORecordInternal.setContentChanged(entry.getRecord(), channel.readBoolean());
+          if (entryError == null)
+            try {
+              fillRecord(entry.getRecord(), bytes, serializer);
+              mergeUpdatedRecord(entry);
+            } catch (RuntimeException e) {
+              entryError = e;
+            }
           break;
 
         case ORecordOperation.DELETED:
@@ -131,28 +150,6 @@ public class OTransactionOptimisticProxy extends OTransactionOptimistic {
         tempEntries.put(entry.getRecord().getIdentity(), entry);
       }
 
-      String dbSerializerName = "";
-      if (database != null)
-        dbSerializerName = database.getSerializer().toString();
-
-      String name = oNetworkProtocolBinary.getRecordSerializerName(connection);
-      for (Map.Entry<ORecord, byte[]> entry : lazyDeserialize.entrySet()) {
-        ORecord record = entry.getKey();
-        final boolean contentChanged = ORecordInternal.isContentChanged(record);
-
-        if (ORecordInternal.getRecordType(record) == ODocument.RECORD_TYPE && !dbSerializerName.equals(name)) {
-          ORecordSerializer ser = ORecordSerializerFactory.instance().getFormat(name);
-          ser.fromStream(entry.getValue(), record, null);
-          record.setDirty();
-          ORecordInternal.setContentChanged(record, contentChanged);
-
-        } else {
-          record.fromStream(entry.getValue());
-          record.setDirty();
-          ORecordInternal.setContentChanged(record, contentChanged);
-        }
-      }
-
       if (toThrow != null)
         throw toThrow;
 
@@ -163,35 +160,12 @@ public class OTransactionOptimisticProxy extends OTransactionOptimistic {
       final ODocument remoteIndexEntries = new ODocument(channel.readBytes());
       fillIndexOperations(remoteIndexEntries);
 
-      // FIRE THE TRIGGERS ONLY AFTER HAVING PARSED THE REQUEST
-      for (Entry<ORID, ORecordOperation> entry : tempEntries.entrySet()) {
-
-        if (entry.getValue().type == ORecordOperation.UPDATED) {
-          // SPECIAL CASE FOR UPDATE: WE NEED TO LOAD THE RECORD AND APPLY CHANGES TO GET WORKING HOOKS (LIKE INDEXES)
-          final ORecord record = entry.getValue().record.getRecord();
-          final boolean contentChanged = ORecordInternal.isContentChanged(record);
-
-          final ORecord loadedRecord = record.getIdentity().copy().getRecord();
-          if (loadedRecord == null)
-            throw new ORecordNotFoundException(record.getIdentity());
-
-          if (ORecordInternal.getRecordType(loadedRecord) == ODocument.RECORD_TYPE
-              && ORecordInternal.getRecordType(loadedRecord) == ORecordInternal.getRecordType(record)) {
-            ((ODocument) loadedRecord).merge((ODocument) record, false, false);
-
-            loadedRecord.setDirty();
-            ORecordInternal.setContentChanged(loadedRecord, contentChanged);
-
-            ORecordInternal.setVersion(loadedRecord, record.getVersion());
-            entry.getValue().record = loadedRecord;
-
-            // SAVE THE RECORD TO RETRIEVE THEM FOR THE NEW VERSIONS TO SEND BACK TO THE REQUESTER
-            updatedRecords.put((ORecordId) entry.getKey(), entry.getValue().getRecord());
-          }
-        }
+      if (entryError != null)
+        throw entryError;
 
+      // FIRE THE TRIGGERS ONLY AFTER HAVING PARSED THE REQUEST
+      for (Entry<ORID, ORecordOperation> entry : tempEntries.entrySet())
         addRecord(entry.getValue().getRecord(), entry.getValue().type, null);
-      }
       tempEntries.clear();
 
       // UNMARSHALL ALL THE RECORD AT THE END TO BE SURE ALL THE RECORD ARE LOADED IN LOCAL TX
@@ -212,6 +186,50 @@ public class OTransactionOptimisticProxy extends OTransactionOptimistic {
     }
   }
 
+  /**
+   * Fills a record with the content received from the client.
+   *
+   * @param iSerializer
+   *          serializer of the client, null if it's the same of the database
+   */
+  private void fillRecord(final ORecord iRecord, final byte[] iContent, final ORecordSerializer iSerializer) {
+    final boolean contentChanged = ORecordInternal.isContentChanged(iRecord);
+
+    if (ORecordInternal.getRecordType(iRecord) == ODocument.RECORD_TYPE && iSerializer != null)
+      iSerializer.fromStream(iContent, iRecord, null);
+    else
+      iRecord.fromStream(iContent);
+
+    iRecord.setDirty();
+    ORecordInternal.setContentChanged(iRecord, contentChanged);
+  }
+
+  /**
+   * Loads the stored record of an update and applies the changes to it, to get working hooks (like indexes).
+   */
+  private void mergeUpdatedRecord(final ORecordOperation iEntry) {
+    final ORecord record = iEntry.record.getRecord();
+    final boolean contentChanged = ORecordInternal.isContentChanged(record);
+
+    final ORecord loadedRecord = record.getIdentity().copy().getRecord();
+    if (loadedRecord == null)
+      throw new ORecordNotFoundException(record.getIdentity());
+
+    if (ORecordInternal.getRecordType(loadedRecord) == ODocument.RECORD_TYPE
+        && ORecordInternal.getRecordType(loadedRecord) == ORecordInternal.getRecordType(record)) {
+      ((ODocument) loadedRecord).merge((ODocument) record, false, false);
+
+      loadedRecord.setDirty();
+      ORecordInternal.setContentChanged(loadedRecord, contentChanged);
+
+      ORecordInternal.setVersion(loadedRecord, record.getVersion());
+      iEntry.record = loadedRecord;
+
+      // SAVE THE RECORD TO RETRIEVE THEM FOR THE NEW VERSIONS TO SEND BACK TO THE REQUESTER
+      updatedRecords.put((ORecordId) loadedRecord.getIdentity(), loadedRecord);
+    }
+  }
+
   @Override
   public ORecord getRecord(final ORID rid) {
     ORecord record = super.getRecord(rid);
@@ -0,0 +1,94 @@
+package com.orientechnologies.orient.server.distributed;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class ORemoteServerBatchTest {
+  private final List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<List<Integer>>());
+
+  @Test
+  public void testSingleMessage() {
+    final ORemoteServerBatch<Integer> batch = new RecordingBatch(10, 0);
+    batch.send(1);
+    batch.send(2);
+
+    // NOTHING ELSE TO SEND TOGETHER
+    assertEquals(2, batches.size());
+    assertEquals(Collections.singletonList(1), batches.get(0));
+    assertEquals(Collections.singletonList(2), batches.get(1));
+  }
+
+  @Test
+  public void testFullBatchIsSentBeforeTheWindow() throws InterruptedException {
+    final ORemoteServerBatch<Integer> batch = new RecordingBatch(3, 60000);
+
+    final long start = System.currentTimeMillis();
+    final Thread[] threads = new Thread[3];
+    for (int i = 0; i < threads.length; ++i) {
+      final int message = i;
+      threads[i] = new Thread() {
+        @Override
+        public void run() {
+          batch.send(message);
+        }
+      };
+      threads[i].start();
+    }
+    for (Thread thread : threads)
+      thread.join();
+
+    assertEquals(1, batches.size());
+    assertEquals(3, batches.get(0).size());
+    if (System.currentTimeMillis() - start > 30000)
+      fail("The full batch waited for the window");
+  }
+
+  @Test
+  public void testErrorIsReportedToAllTheSenders() throws InterruptedException {
+    final ORemoteServerBatch<Integer> batch = new ORemoteServerBatch<Integer>(2, 60000, 1) {
+      @Override
+      protected void sendBatch(List<Integer> iMessages) {
+        throw new ODistributedException("Cannot send");
+      }
+    };
+
+    final AtomicInteger errors = new AtomicInteger();
+    final Thread[] threads = new Thread[2];
+    for (int i = 0; i < threads.length; ++i) {
+      final int message = i;
+      threads[i] = new Thread() {
+        @Override
+        public void run() {
+          try {
+            batch.send(message);
+          } catch (ODistributedException e) {
+            errors.incrementAndGet();
+          }
+        }
+      };
+      threads[i].start();
+    }
+    for (Thread thread : threads)
+      thread.join();
+
+    assertEquals(2, errors.get());
+  }
+
+  private class RecordingBatch extends ORemoteServerBatch<Integer> {
+    private RecordingBatch(final int iMaxSize, final long iWindow) {
+      super(iMaxSize, iWindow, 1);
+    }
+
+    @Override
+    protected void sendBatch(final List<Integer> iMessages) {
+      batches.add(new ArrayList<Integer>(iMessages));
+    }
+  }
+}
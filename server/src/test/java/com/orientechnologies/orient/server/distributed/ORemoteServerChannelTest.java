@@ -0,0 +1,52 @@
+package com.orientechnologies.orient.server.distributed;
+
+import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.server.OClientConnection;
+import com.orientechnologies.orient.server.OServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class ORemoteServerChannelTest {
+
+  private static final String SERVER_DIRECTORY = "./target/remoteServerChannel";
+  private OServer             server;
+
+  @Before
+  public void before() throws Exception {
+    server = new OServer();
+    server.setServerRootDirectory(SERVER_DIRECTORY);
+    server.startup(getClass().getResourceAsStream("/com/orientechnologies/orient/server/network/orientdb-server-config.xml"));
+    server.activate();
+  }
+
+  @Test
+  public void testConnect() throws Exception {
+    final ORemoteServerChannel channel = new ORemoteServerChannel(null, "remote", "localhost:2424", "root",
+        "D2AFD02F20640EC8B7A5140F34FCA49D2289DB1F0D0598BB9DE8AAA75A0792F3");
+    try {
+      assertTrue(channel.isBatchSupported());
+
+      OClientConnection connection = null;
+      for (OClientConnection c : server.getClientConnectionManager().getConnections())
+        if ("OrientDB Server".equals(c.getData().driverName))
+          connection = c;
+
+      // THE WHOLE HANDSHAKE HAS BEEN READ: THE CREDENTIALS FOLLOW THE COMPRESSION
+      assertNotNull(connection);
+      assertEquals("root", connection.getServerUser().name);
+    } finally {
+      channel.close();
+    }
+  }
+
+  @After
+  public void after() {
+    server.shutdown();
+    Orient.instance().startup();
+  }
+}
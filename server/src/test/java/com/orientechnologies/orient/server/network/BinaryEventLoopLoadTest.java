@@ -0,0 +1,180 @@
+package com.orientechnologies.orient.server.network;
+
+import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinaryProtocol;
+import com.orientechnologies.orient.server.OServer;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Opens many binary connections and executes requests on them, with one thread per connection and with the event loops, reporting
+ * the connections per second and the 99th percentile of the latency of the requests.
+ */
+public class BinaryEventLoopLoadTest {
+  private static final String SERVER_DIRECTORY = "./target/db";
+  private static final String ROOT_PASSWORD    = "D2AFD02F20640EC8B7A5140F34FCA49D2289DB1F0D0598BB9DE8AAA75A0792F3";
+  private static final int    CONNECTIONS      = 500;
+  private static final int    REQUESTS         = 20;
+  private static final int    CLIENT_THREADS   = 8;
+
+  private OServer server;
+
+  @After
+  public void after() {
+    OGlobalConfiguration.NETWORK_EVENT_LOOP.setValue(false);
+    server.shutdown();
+    Orient.instance().startup();
+  }
+
+  @Test
+  public void testThreadPerConnection() throws Exception {
+    OGlobalConfiguration.NETWORK_EVENT_LOOP.setValue(false);
+    load("thread per connection");
+  }
+
+  @Test
+  public void testEventLoop() throws Exception {
+    OGlobalConfiguration.NETWORK_EVENT_LOOP.setValue(true);
+    load("event loop");
+  }
+
+  private void load(final String mode) throws Exception {
+    server = new OServer();
+    server.setServerRootDirectory(SERVER_DIRECTORY);
+    server.startup(getClass().getResourceAsStream("orientdb-server-config.xml"));
+    server.activate();
+
+    final List<Connection> connections = new ArrayList<Connection>();
+    try {
+      long start = System.nanoTime();
+      for (int i = 0; i < CONNECTIONS; i++)
+        connections.add(new Connection());
+      final double connectionsPerSecond = CONNECTIONS / ((System.nanoTime() - start) / 1000000000d);
+
+      final ExecutorService executor = Executors.newFixedThreadPool(CLIENT_THREADS);
+      try {
+        final List<Future<long[]>> futures = new ArrayList<Future<long[]>>();
+        for (int t = 0; t < CLIENT_THREADS; t++) {
+          final int thread = t;
+          futures.add(executor.submit(new Callable<long[]>() {
+            @Override
+            public long[] call() throws Exception {
+              final List<Connection> own = new ArrayList<Connection>();
+              for (int i = thread; i < connections.size(); i += CLIENT_THREADS)
+                own.add(connections.get(i));
+
+              final long[] latencies = new long[own.size() * REQUESTS];
+              int n = 0;
+              for (int r = 0; r < REQUESTS; r++)
+                for (Connection connection : own) {
+                  final long begin = System.nanoTime();
+                  connection.existsDatabase("test");
+                  latencies[n++] = System.nanoTime() - begin;
+                }
+              return latencies;
+            }
+          }));
+        }
+
+        final List<Long> latencies = new ArrayList<Long>();
+        for (Future<long[]> future : futures)
+          for (long latency : future.get())
+            latencies.add(latency);
+
+        final Long[] sorted = latencies.toArray(new Long[latencies.size()]);
+        Arrays.sort(sorted);
+        assertEquals(CONNECTIONS * REQUESTS, sorted.length);
+
+        System.out.printf("%s: %d connections, %.0f connections/sec, p99 latency %.3f ms%n", mode, CONNECTIONS,
+            connectionsPerSecond, sorted[(int) (sorted.length * 0.99)] / 1000000d);
+      } finally {
+        executor.shutdown();
+      }
+    } finally {
+      for (Connection connection : connections)
+        connection.close();
+    }
+  }
+
+  /**
+   * Raw binary connection, authenticated to the server.
+   */
+  private static class Connection {
+    private final Socket           socket;
+    private final DataInputStream  in;
+    private final DataOutputStream out;
+    private final int              sessionId;
+
+    private Connection() throws IOException {
+      socket = new Socket("localhost", 2424);
+      in = new DataInputStream(socket.getInputStream());
+      out = new DataOutputStream(socket.getOutputStream());
+
+      assertEquals(OChannelBinaryProtocol.CURRENT_PROTOCOL_VERSION, in.readShort());
+
+      out.writeByte(OChannelBinaryProtocol.REQUEST_CONNECT);
+      out.writeInt(-1);
+      writeString("load test");
+      writeString("1.0");
+      out.writeShort(OChannelBinaryProtocol.CURRENT_PROTOCOL_VERSION);
+      writeString(null);
+      writeString("ORecordSerializerBinary");
+      out.writeBoolean(false);
+      out.writeBoolean(false);
+      out.writeBoolean(false);
+      writeString("root");
+      writeString(ROOT_PASSWORD);
+      out.flush();
+
+      readStatus(-1);
+      sessionId = in.readInt();
+      // EMPTY TOKEN
+      assertEquals(0, in.readInt());
+    }
+
+    private boolean existsDatabase(final String name) throws IOException {
+      out.writeByte(OChannelBinaryProtocol.REQUEST_DB_EXIST);
+      out.writeInt(sessionId);
+      writeString(name);
+      writeString("memory");
+      out.flush();
+
+      readStatus(sessionId);
+      return in.readByte() == 1;
+    }
+
+    private void readStatus(final int txId) throws IOException {
+      assertEquals(OChannelBinaryProtocol.RESPONSE_STATUS_OK, in.readByte());
+      assertEquals(txId, in.readInt());
+    }
+
+    private void writeString(final String value) throws IOException {
+      if (value == null)
+        out.writeInt(-1);
+      else {
+        final byte[] bytes = value.getBytes("UTF-8");
+        out.writeInt(bytes.length);
+        out.write(bytes);
+      }
+    }
+
+    private void close() throws IOException {
+      socket.close();
+    }
+  }
+}
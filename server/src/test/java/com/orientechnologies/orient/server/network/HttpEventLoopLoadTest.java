@@ -0,0 +1,173 @@
+package com.orientechnologies.orient.server.network;
+
+import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.server.OServer;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Executes many HTTP requests on keep-alive connections, pipelining a few requests at a time, with one thread per connection and
+ * with the event loops, reporting the requests per second.
+ */
+public class HttpEventLoopLoadTest {
+  private static final String SERVER_DIRECTORY = "./target/db";
+  private static final int    CONNECTIONS      = 200;
+  private static final int    REQUESTS         = 50;
+  private static final int    PIPELINE         = 5;
+  private static final int    CLIENT_THREADS   = 8;
+
+  private OServer server;
+
+  @After
+  public void after() {
+    OGlobalConfiguration.NETWORK_EVENT_LOOP.setValue(false);
+    server.shutdown();
+    Orient.instance().startup();
+  }
+
+  @Test
+  public void testThreadPerConnection() throws Exception {
+    OGlobalConfiguration.NETWORK_EVENT_LOOP.setValue(false);
+    load("thread per connection");
+  }
+
+  @Test
+  public void testEventLoop() throws Exception {
+    OGlobalConfiguration.NETWORK_EVENT_LOOP.setValue(true);
+    load("event loop");
+  }
+
+  private void load(final String mode) throws Exception {
+    server = new OServer();
+    server.setServerRootDirectory(SERVER_DIRECTORY);
+    server.startup(getClass().getResourceAsStream("orientdb-server-config.xml"));
+    server.activate();
+
+    final List<Connection> connections = new ArrayList<Connection>();
+    try {
+      for (int i = 0; i < CONNECTIONS; i++)
+        connections.add(new Connection());
+
+      final ExecutorService executor = Executors.newFixedThreadPool(CLIENT_THREADS);
+      try {
+        final long start = System.nanoTime();
+
+        final List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+        for (int t = 0; t < CLIENT_THREADS; t++) {
+          final int thread = t;
+          futures.add(executor.submit(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+              final List<Connection> own = new ArrayList<Connection>();
+              for (int i = thread; i < connections.size(); i += CLIENT_THREADS)
+                own.add(connections.get(i));
+
+              int executed = 0;
+              for (int r = 0; r < REQUESTS; r += PIPELINE)
+                for (Connection connection : own)
+                  executed += connection.ping(PIPELINE);
+              return executed;
+            }
+          }));
+        }
+
+        int executed = 0;
+        for (Future<Integer> future : futures)
+          executed += future.get();
+        final double requestsPerSecond = executed / ((System.nanoTime() - start) / 1000000000d);
+
+        assertEquals(CONNECTIONS * REQUESTS, executed);
+
+        System.out.printf("%s: %d keep-alive connections, %d pipelined requests each time, %.0f requests/sec%n", mode, CONNECTIONS,
+            PIPELINE, requestsPerSecond);
+      } finally {
+        executor.shutdown();
+      }
+    } finally {
+      for (Connection connection : connections)
+        connection.close();
+    }
+  }
+
+  /**
+   * Raw keep-alive HTTP connection.
+   */
+  private static class Connection {
+    private final Socket       socket;
+    private final InputStream  in;
+    private final OutputStream out;
+
+    private Connection() throws IOException {
+      socket = new Socket("localhost", 2480);
+      in = new BufferedInputStream(socket.getInputStream());
+      out = socket.getOutputStream();
+    }
+
+    /**
+     * Sends the requests without waiting for the responses, then reads all the responses.
+     */
+    private int ping(final int iRequests) throws IOException {
+      final StringBuilder requests = new StringBuilder();
+      for (int i = 0; i < iRequests; i++)
+        requests.append("GET /ping HTTP/1.1\r\nHost: localhost\r\nConnection: Keep-Alive\r\n\r\n");
+      out.write(requests.toString().getBytes("UTF-8"));
+      out.flush();
+
+      for (int i = 0; i < iRequests; i++)
+        assertEquals("pong", readResponse());
+      return iRequests;
+    }
+
+    private String readResponse() throws IOException {
+      final String status = readLine();
+      assertTrue(status, status.startsWith("HTTP/1.1 200"));
+
+      int contentLength = 0;
+      String line;
+      while (!(line = readLine()).isEmpty())
+        if (line.toLowerCase().startsWith("content-length:"))
+          contentLength = Integer.parseInt(line.substring("content-length:".length()).trim());
+
+      final byte[] content = new byte[contentLength];
+      for (int read = 0; read < contentLength;) {
+        final int n = in.read(content, read, contentLength - read);
+        if (n < 0)
+          throw new IOException("Connection closed by the server");
+        read += n;
+      }
+      return new String(content, "UTF-8");
+    }
+
+    private String readLine() throws IOException {
+      final StringBuilder line = new StringBuilder();
+      int c;
+      while ((c = in.read()) != '\n') {
+        if (c < 0)
+          throw new IOException("Connection closed by the server");
+        if (c != '\r')
+          line.append((char) c);
+      }
+      return line.toString();
+    }
+
+    private void close() throws IOException {
+      socket.close();
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package com.orientechnologies.orient.server.network;
+
+import com.orientechnologies.orient.client.remote.ORecordNearCache;
+import com.orientechnologies.orient.client.remote.OServerAdmin;
+import com.orientechnologies.orient.client.remote.OStorageRemote;
+import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OCommandSQL;
+import com.orientechnologies.orient.server.OServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class RemoteNearCacheTest {
+
+  private static final String SERVER_DIRECTORY = "./target/nearcache";
+  private OServer             server;
+  private ODatabaseDocumentTx db;
+  private ORecordNearCache    nearCache;
+
+  @Before
+  public void before() throws Exception {
+    OGlobalConfiguration.CLIENT_NEAR_CACHE_SIZE.setValue(1);
+
+    server = new OServer();
+    server.setServerRootDirectory(SERVER_DIRECTORY);
+    server.startup(getClass().getResourceAsStream("orientdb-server-config.xml"));
+    server.activate();
+
+    OServerAdmin admin = new OServerAdmin("remote:localhost");
+    admin.connect("root", "D2AFD02F20640EC8B7A5140F34FCA49D2289DB1F0D0598BB9DE8AAA75A0792F3");
+    admin.createDatabase(RemoteNearCacheTest.class.getSimpleName(), "graph", "memory");
+    admin.close();
+
+    db = new ODatabaseDocumentTx("remote:localhost/" + RemoteNearCacheTest.class.getSimpleName());
+    db.open("admin", "admin");
+    db.getMetadata().getSchema().createClass("Item");
+
+    nearCache = ((OStorageRemote) db.getStorage()).getNearCache();
+    assertNotNull(nearCache);
+  }
+
+  @Test
+  public void testLoadFromNearCache() {
+    final ORID rid = db.save(new ODocument("Item").field("value", 1)).getIdentity();
+
+    db.getLocalCache().clear();
+    assertEquals(1, ((Integer) ((ODocument) db.load(rid)).field("value")).intValue());
+    assertEquals(1, nearCache.getCount());
+
+    final long hits = nearCache.getHits();
+    db.getLocalCache().clear();
+    assertEquals(1, ((Integer) ((ODocument) db.load(rid)).field("value")).intValue());
+    assertEquals(hits + 1, nearCache.getHits());
+  }
+
+  @Test
+  public void testInvalidationOnUpdate() throws InterruptedException {
+    final ORID rid = db.save(new ODocument("Item").field("value", 1)).getIdentity();
+
+    db.getLocalCache().clear();
+    db.load(rid);
+    assertEquals(1, nearCache.getCount());
+    assertEquals(1, server.getClientConnectionManager().getNearCaches().getTracked());
+
+    // UPDATED ON THE SERVER, THE CLIENT RECEIVES THE INVALIDATION
+    db.command(new OCommandSQL("update " + rid + " set value = 2")).execute();
+    for (int i = 0; i < 100 && nearCache.getCount() > 0; i++)
+      Thread.sleep(100);
+    assertEquals(0, nearCache.getCount());
+
+    db.getLocalCache().clear();
+    assertEquals(2, ((Integer) ((ODocument) db.load(rid)).field("value")).intValue());
+  }
+
+  @Test
+  public void testInvalidationOnLocalDelete() {
+    final ODocument doc = db.save(new ODocument("Item").field("value", 1));
+
+    db.getLocalCache().clear();
+    db.load(doc.getIdentity());
+    assertEquals(1, nearCache.getCount());
+
+    db.delete(doc.getIdentity());
+    assertEquals(0, nearCache.getCount());
+  }
+
+  @Test
+  public void testRestrictedRecordIsNotServedToOtherUsers() {
+    db.getMetadata().getSchema().createClass("Secret", db.getMetadata().getSchema().getClass("ORestricted"));
+    final ORID rid = db.save(new ODocument("Secret").field("value", 1)).getIdentity();
+
+    db.getLocalCache().clear();
+    db.load(rid);
+    assertEquals(1, nearCache.getCount());
+
+    // THE STORAGE, AND SO ITS NEAR CACHE, IS SHARED WITH THE DATABASE OF THE OTHER USER
+    final ODatabaseDocumentTx reader = new ODatabaseDocumentTx("remote:localhost/" + RemoteNearCacheTest.class.getSimpleName());
+    reader.open("reader", "reader");
+    try {
+      assertNull(reader.load(rid));
+    } finally {
+      reader.close();
+      db.activateOnCurrentThread();
+    }
+  }
+
+  @After
+  public void after() {
+    db.close();
+    server.shutdown();
+    Orient.instance().startup();
+    OGlobalConfiguration.CLIENT_NEAR_CACHE_SIZE.setValue(0);
+  }
+}
@@ -0,0 +1,108 @@
+package com.orientechnologies.orient.server.network;
+
+import com.orientechnologies.orient.client.remote.OServerAdmin;
+import com.orientechnologies.orient.client.remote.OStorageRemoteResultSet;
+import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+import com.orientechnologies.orient.server.OServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RemoteQueryCursorTest {
+
+  private static final String SERVER_DIRECTORY = "./target/cursor";
+  private OServer             server;
+  private ODatabaseDocumentTx db;
+
+  @Before
+  public void before() throws Exception {
+    OGlobalConfiguration.CLIENT_QUERY_FETCH_SIZE.setValue(10);
+
+    server = new OServer();
+    server.setServerRootDirectory(SERVER_DIRECTORY);
+    server.startup(getClass().getResourceAsStream("orientdb-server-config.xml"));
+    server.activate();
+
+    OServerAdmin admin = new OServerAdmin("remote:localhost");
+    admin.connect("root", "D2AFD02F20640EC8B7A5140F34FCA49D2289DB1F0D0598BB9DE8AAA75A0792F3");
+    admin.createDatabase(RemoteQueryCursorTest.class.getSimpleName(), "graph", "memory");
+    admin.close();
+
+    db = new ODatabaseDocumentTx("remote:localhost/" + RemoteQueryCursorTest.class.getSimpleName());
+    db.open("admin", "admin");
+    db.getMetadata().getSchema().createClass("Item");
+    for (int i = 0; i < 25; i++)
+      db.save(new ODocument("Item").field("value", i));
+  }
+
+  @Test
+  public void testFetchPages() {
+    List<ODocument> result = db.query(new OSQLSynchQuery<ODocument>("select from Item order by value"));
+    assertTrue(result instanceof OStorageRemoteResultSet);
+    assertTrue(((OStorageRemoteResultSet<ODocument>) result).hasMore());
+
+    int count = 0;
+    for (ODocument doc : result) {
+      assertEquals(count, ((Integer) doc.field("value")).intValue());
+      count++;
+    }
+    assertEquals(25, count);
+    assertFalse(((OStorageRemoteResultSet<ODocument>) result).hasMore());
+    assertEquals(0, server.getClientConnectionManager().getQueryCursors().getOpenCursors());
+  }
+
+  @Test
+  public void testClose() {
+    List<ODocument> result = db.query(new OSQLSynchQuery<ODocument>("select from Item"));
+    assertEquals(10, ((OStorageRemoteResultSet<ODocument>) result).currentSize());
+    assertEquals(1, server.getClientConnectionManager().getQueryCursors().getOpenCursors());
+
+    ((OStorageRemoteResultSet<ODocument>) result).close();
+    assertEquals(0, server.getClientConnectionManager().getQueryCursors().getOpenCursors());
+  }
+
+  @Test
+  public void testSize() {
+    List<ODocument> result = db.query(new OSQLSynchQuery<ODocument>("select from Item"));
+    assertEquals(25, result.size());
+  }
+
+  @Test
+  public void testPagination() {
+    final OSQLSynchQuery<ODocument> query = new OSQLSynchQuery<ODocument>("select from Item limit 10");
+
+    // THE FIRST PAGE IS RECEIVED BY A CURSOR, THE NEXT ONES START AFTER ITS LAST RECORD
+    final Set<Integer> values = new HashSet<Integer>();
+    List<ODocument> page = db.query(query);
+    assertTrue(page instanceof OStorageRemoteResultSet);
+    int pages = 0;
+    while (!page.isEmpty()) {
+      for (ODocument doc : page)
+        assertTrue(values.add((Integer) doc.field("value")));
+      pages++;
+      page = db.query(query);
+    }
+    assertEquals(3, pages);
+    assertEquals(25, values.size());
+  }
+
+  @After
+  public void after() {
+    db.close();
+    server.shutdown();
+    Orient.instance().startup();
+    OGlobalConfiguration.CLIENT_QUERY_FETCH_SIZE.setValue(0);
+  }
+}
@@ -140,6 +140,11 @@ public abstract class BaseHttpTest {
   }
 
 
+  protected BaseHttpTest header(final String iName, final String iValue) {
+    request.addHeader(iName, iValue);
+    return this;
+  }
+
   protected HttpResponse getResponse() throws IOException {
     if (response == null)
       exec();
@@ -1,10 +1,14 @@
 package com.orientechnologies.orient.test.server.network.http;
 
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import org.apache.http.HttpResponse;
+import org.apache.http.util.EntityUtils;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.IOException;
 import java.net.URLEncoder;
+import java.util.List;
 
 /**
  * Test HTTP "query" command.
@@ -26,6 +30,29 @@ public class HttpQueryTest extends BaseHttpDatabaseTest {
             .setUserPassword("admin").getResponse().getStatusLine().getStatusCode(), 200);
   }
 
+  @Test
+  public void queryStreamed() throws IOException {
+    final HttpResponse response = get("query/" + getDatabaseName() + "/sql/" + URLEncoder.encode("select from OUser", "UTF8") + "/10")
+        .header("TE", "chunked").getResponse();
+    Assert.assertEquals(response.getStatusLine().getStatusCode(), 200);
+    Assert.assertEquals(response.getFirstHeader("Transfer-Encoding").getValue(), "chunked");
+
+    final ODocument result = new ODocument().fromJSON(EntityUtils.toString(response.getEntity()));
+    Assert.assertEquals(((List<?>) result.field("result")).size(), 3);
+  }
+
+  @Test
+  public void commandStreamed() throws IOException {
+    final HttpResponse response = post("command/" + getDatabaseName() + "/sql/")
+        .payload("select name from OUser where name = 'admin'", CONTENT.TEXT).header("TE", "chunked").getResponse();
+    Assert.assertEquals(response.getStatusLine().getStatusCode(), 200);
+
+    final ODocument result = new ODocument().fromJSON(EntityUtils.toString(response.getEntity()));
+    final List<ODocument> records = result.field("result");
+    Assert.assertEquals(records.size(), 1);
+    Assert.assertEquals(records.get(0).field("name"), "admin");
+  }
+
   @Override
   public String getDatabaseName() {
     return "httpquery";